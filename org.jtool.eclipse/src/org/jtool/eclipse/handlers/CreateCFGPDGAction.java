@@ -13,15 +13,27 @@ import org.jtool.eclipse.model.pdg.PDGFactory;
 import org.jtool.eclipse.model.pdg.PDG;
 import org.jtool.eclipse.model.pdg.ClDGFactory;
 import org.jtool.eclipse.model.pdg.ClDG;
+import org.jtool.eclipse.model.pdg.DemandSDG;
+import org.jtool.eclipse.model.pdg.PDGNode;
+import org.jtool.eclipse.model.pdg.PDGStatement;
+import org.jtool.eclipse.model.pdg.SDGSlice;
 import org.jtool.eclipse.model.pdg.SDGFactory;
 import org.jtool.eclipse.model.pdg.SDG;
 import org.jtool.eclipse.model.java.JavaASTDefaultVisitor;
 import org.jtool.eclipse.model.java.JavaClass;
+import org.jtool.eclipse.model.java.JavaMethod;
 import org.jtool.eclipse.model.java.JavaProject;
 import org.eclipse.core.commands.ExecutionEvent;
 import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.ui.handlers.HandlerUtil;
 import java.util.Set;
+import java.util.List;
+import java.util.ArrayList;
 
 /**
  * Performs an action of creating CFGs and PDGs from source code within a project.
@@ -29,6 +41,27 @@ import java.util.Set;
  */
 public class CreateCFGPDGAction extends JtoolHandler {
     
+    /**
+     * A flag indicating if the SDG is created on demand of slices instead of for the whole project.
+     */
+    private boolean onDemand;
+    
+    /**
+     * Creates an action that creates the SDG for the whole project.
+     */
+    public CreateCFGPDGAction() {
+        this(false);
+    }
+    
+    /**
+     * Creates an action.
+     * @param onDemand <code>true</code> if the SDG is created on demand of slices, otherwise <code>false</code>
+     */
+    protected CreateCFGPDGAction(boolean onDemand) {
+        super();
+        this.onDemand = onDemand;
+    }
+    
     /**
      * Executes a command with information obtained from the application context.
      * @param event an event containing all the information about the current state of the application
@@ -43,11 +76,21 @@ public class CreateCFGPDGAction extends JtoolHandler {
             
             JavaModelFactory factory = new JavaModelFactoryInWorkspace(project);
             factory.setJavaASTVisitor(new JavaASTDefaultVisitor());
+            factory.setParallelism(Runtime.getRuntime().availableProcessors());
             JavaProject jproject = factory.create();
             
             // createCFGs(jproject);
             // createPDGs(jproject);
-            createSDG(jproject);
+            if (onDemand) {
+                JavaMethod jm = getSelectedJavaMethod(event, jproject);
+                if (jm != null) {
+                    createDemandSDG(jproject, jm);
+                } else {
+                    printMessage(part, "Select a method to be sliced in the Package Explorer or Outline view.");
+                }
+            } else {
+                createSDG(jproject);
+            }
         }
         return null;
     }
@@ -100,4 +143,63 @@ public class CreateCFGPDGAction extends JtoolHandler {
         
         SDGFactory.print(sdg);
     }
+    
+    /**
+     * Creates the slices of the return value of a method on an SDG whose PDGs are created on demand.
+     * Only the PDGs that the slices reach are created.
+     * @param the project
+     * @param jm the method whose return value is sliced
+     */
+    protected void createDemandSDG(JavaProject jproject, JavaMethod jm) {
+        DemandSDG sdg = new DemandSDG(jproject);
+        List<PDGStatement> criteria = new ArrayList<PDGStatement>();
+        for (PDGNode node : sdg.getPDG(jm).getNodes()) {
+            if (node.getCFGNode().isFormalOut()) {
+                criteria.add((PDGStatement)node);
+            }
+        }
+        
+        for (PDGStatement stnode : criteria) {
+            SDGSlice slice = sdg.createSlice(stnode, stnode.getDefVariables().get(0));
+            
+            System.out.println(slice.toString());
+        }
+        
+        SDGFactory.print(sdg);
+    }
+    
+    /**
+     * Obtains the method selected in a view.
+     * @param event an event containing all the information about the current state of the application
+     * @param jproject the project containing the method
+     * @return the selected method, or <code>null</code> if no method in the project was selected
+     */
+    protected JavaMethod getSelectedJavaMethod(ExecutionEvent event, JavaProject jproject) {
+        ISelection selection = HandlerUtil.getActiveMenuSelection(event);
+        if (!(selection instanceof IStructuredSelection)) {
+            return null;
+        }
+        Object elem = ((IStructuredSelection)selection).getFirstElement();
+        if (!(elem instanceof IMethod)) {
+            return null;
+        }
+        
+        IMethod method = (IMethod)elem;
+        JavaClass jc = jproject.getJavaClass(method.getDeclaringType().getFullyQualifiedName('.'));
+        if (jc == null) {
+            return null;
+        }
+        
+        try {
+            int offset = method.getNameRange().getOffset();
+            for (JavaMethod jm : jc.getJavaMethods()) {
+                if (jm.getStartPosition() <= offset && offset <= jm.getEndPosition()) {
+                    return jm;
+                }
+            }
+        } catch (JavaModelException e) {
+            logger.error("JavaModelException occurred: " + e.getMessage());
+        }
+        return null;
+    }
 }
@@ -0,0 +1,19 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+ 
+package org.jtool.eclipse.handlers;
+
+/**
+ * Performs an action of creating slices from source code within a project on an SDG whose PDGs are created on demand.
+ * @author Katsuhisa Maruyama
+ */
+public class CreateDemandSDGAction extends CreateCFGPDGAction {
+    
+    /**
+     * Creates an action that creates the SDG on demand of slices.
+     */
+    public CreateDemandSDGAction() {
+        super(true);
+    }
+}
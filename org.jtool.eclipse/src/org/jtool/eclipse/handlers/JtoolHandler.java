@@ -14,6 +14,7 @@ import org.eclipse.core.commands.AbstractHandler;
 import org.eclipse.core.commands.ExecutionEvent;
 import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.swt.SWT;
@@ -53,7 +54,7 @@ public class JtoolHandler extends AbstractHandler {
     }
     
     /**
-     * Obtains information about the selected project.
+     * Obtains information about the selected project or the project containing the selected Java element.
      * @param event an event containing all the information about the current state of the application
      * @return project information if a project was selected, otherwise <code>null</code>
      */
@@ -69,6 +70,8 @@ public class JtoolHandler extends AbstractHandler {
                 return (IJavaProject)elem;
             } else if (elem instanceof IProject) {
                 return (IJavaProject)JavaCore.create((IProject)elem);
+            } else if (elem instanceof IJavaElement) {
+                return ((IJavaElement)elem).getJavaProject();
             }
         }
         return null;
@@ -4,8 +4,10 @@
  
 package org.jtool.eclipse.handlers;
 
+import org.jtool.eclipse.Activator;
 import org.jtool.eclipse.model.graph.GraphNodeIdPublisher;
 import org.jtool.eclipse.model.java.JavaASTDefaultVisitor;
+import org.jtool.eclipse.model.java.JavaModelCache;
 import org.jtool.eclipse.model.java.JavaModelFactory;
 import org.jtool.eclipse.model.java.JavaModelFactoryInWorkspace;
 import org.jtool.eclipse.model.java.JavaProject;
@@ -34,6 +36,9 @@ public class ParseAction extends JtoolHandler {
             
             JavaModelFactory factory = new JavaModelFactoryInWorkspace(project);
             factory.setJavaASTVisitor(new JavaASTDefaultVisitor());
+            factory.setParallelism(Runtime.getRuntime().availableProcessors());
+            factory.setModelCache(new JavaModelCache(JavaModelCache.getCacheFile(Activator.getDefault().getStateLocation().toFile(),
+                                                                                 project.getProject().getName())));
             JavaProject jproject = factory.create();
             
             for (JavaClass jc : jproject.getJavaClasses()) {
@@ -7,6 +7,7 @@ package org.jtool.eclipse.handlers;
 import org.jtool.eclipse.Activator;
 import org.jtool.eclipse.model.graph.GraphNodeIdPublisher;
 import org.jtool.eclipse.model.java.JavaASTDefaultVisitor;
+import org.jtool.eclipse.model.java.JavaModelCache;
 import org.jtool.eclipse.model.java.JavaModelFactory;
 import org.jtool.eclipse.model.java.JavaModelFactoryInExternalProject;
 import org.jtool.eclipse.model.java.JavaProject;
@@ -62,6 +63,8 @@ public class ParseExternalProjectAction extends AbstractHandler {
         
         JavaModelFactory factory = new JavaModelFactoryInExternalProject(dir, dir);
         factory.setJavaASTVisitor(new JavaASTDefaultVisitor());
+        factory.setParallelism(Runtime.getRuntime().availableProcessors());
+        factory.setModelCache(new JavaModelCache(JavaModelCache.getCacheFile(Activator.getDefault().getStateLocation().toFile(), dir)));
         JavaProject jproject = factory.create();
         
         for (JavaClass jc : jproject.getJavaClasses()) {
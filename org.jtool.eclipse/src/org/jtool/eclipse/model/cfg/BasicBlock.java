@@ -5,6 +5,7 @@
 package org.jtool.eclipse.model.cfg;
 
 import org.jtool.eclipse.model.graph.GraphElementSet;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.log4j.Logger;
 
 /**
@@ -18,7 +19,7 @@ public class BasicBlock {
     /**
      * The number prepared for generating the identification numbers of newly created basic blocks.
      */
-    private static int blockNum = 0;
+    private static AtomicInteger blockNum = new AtomicInteger(0);
     
     /**
      * The identification number for this basic block.
@@ -46,8 +47,7 @@ public class BasicBlock {
      * @param node CFG node that represents the leader
      */
     public BasicBlock(CFGNode node) {
-        blockNum++;
-        id = blockNum;
+        id = blockNum.incrementAndGet();
         leader = node;
     }
     
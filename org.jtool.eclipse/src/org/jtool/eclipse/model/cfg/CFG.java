@@ -6,8 +6,10 @@ package org.jtool.eclipse.model.cfg;
 
 import org.jtool.eclipse.model.graph.Graph;
 import org.jtool.eclipse.model.graph.GraphElementSet;
+import org.jtool.eclipse.model.graph.GraphEdge;
 import org.jtool.eclipse.model.java.JavaField;
 import org.jtool.eclipse.model.java.JavaMethod;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
@@ -36,6 +38,26 @@ public class CFG extends Graph<CFGNode, ControlFlow> {
      */
     private List<BasicBlock> blocks = new ArrayList<BasicBlock>();
     
+    /**
+     * The post-dominator tree of this CFG, which is calculated on demand.
+     */
+    private PostDominatorTree postDominatorTree = null;
+    
+    /**
+     * The loop-nesting forest of this CFG, which is calculated on demand.
+     */
+    private LoopForest loopForest = null;
+    
+    /**
+     * The nodes of this CFG arranged in the order of their indices, which are calculated on demand.
+     */
+    private CFGNode[] indexedNodes = null;
+    
+    /**
+     * A map storing pairs of the identification number of a node and its index, which is calculated on demand.
+     */
+    private HashMap<Long, Integer> nodeIndices = null;
+    
     /**
      * Creates a new, empty object for storing the CFG of a method.
      */
@@ -141,6 +163,7 @@ public class CFG extends Graph<CFGNode, ControlFlow> {
      */
     public void add(CFGNode node) {
         super.add(node);
+        clearCache();
     }
     
     /**
@@ -149,6 +172,76 @@ public class CFG extends Graph<CFGNode, ControlFlow> {
      */
     public void add(ControlFlow edge) {
         super.add(edge);
+        clearCache();
+    }
+    
+    /**
+     * Removes a node from this CFG.
+     * @param node the node to be removed
+     */
+    public void remove(CFGNode node) {
+        super.remove(node);
+        clearCache();
+    }
+    
+    /**
+     * Removes a control flow from this CFG.
+     * @param edge the control flow to be removed
+     */
+    public void remove(ControlFlow edge) {
+        super.remove(edge);
+        clearCache();
+    }
+    
+    /**
+     * Sets nodes of this CFG.
+     * @param set a collection of nodes
+     */
+    public void setNodes(GraphElementSet<CFGNode> set) {
+        super.setNodes(set);
+        clearCache();
+    }
+    
+    /**
+     * Clears all nodes and edges of this CFG.
+     */
+    public void clear() {
+        super.clear();
+        clearCache();
+    }
+    
+    /**
+     * Discards the information calculated from the nodes and edges of this CFG.
+     */
+    private void clearCache() {
+        postDominatorTree = null;
+        loopForest = null;
+        indexedNodes = null;
+        nodeIndices = null;
+    }
+    
+    /**
+     * Returns the post-dominator tree of this CFG.
+     * The tree is calculated when it is first requested after this CFG was changed.
+     * @return the post-dominator tree
+     */
+    public PostDominatorTree getPostDominatorTree() {
+        if (postDominatorTree == null) {
+            postDominatorTree = new PostDominatorTree(this);
+        }
+        return postDominatorTree;
+    }
+    
+    /**
+     * Returns the loop-nesting forest of this CFG.
+     * The forest is calculated when it is first requested after this CFG was changed.
+     * @return the loop-nesting forest
+     */
+    public LoopForest getLoopForest() {
+        if (loopForest == null) {
+            loopForest = new LoopForest(this);
+        }
+        return loopForest;
     }
     
     /**
@@ -224,12 +317,7 @@ public class CFG extends Graph<CFGNode, ControlFlow> {
      * @return the found node of this CFG, or <code>null</code> if none
      */
     public CFGNode getNode(long id) {
-        for (CFGNode node : getNodes()) {
-            if (id == node.getId()) {
-                return node;
-            }
-        }
-        return null;
+        return getNodes().get(id);
     }
     
     /**
@@ -320,9 +408,7 @@ public class CFG extends Graph<CFGNode, ControlFlow> {
      * @return the nodes on the forward reachable path
      */
     public GraphElementSet<CFGNode> getForwardReachableNodes(CFGNode from, CFGNode to) {
-        GraphElementSet<CFGNode> track = new GraphElementSet<CFGNode>();
-        walkForward(from, to, true, track);
-        return track;
+        return getNodes(walkForward(from, to, true));
     }
     
     /**
@@ -332,9 +418,7 @@ public class CFG extends Graph<CFGNode, ControlFlow> {
      * @return the nodes on the forward reachable path
      */
     public GraphElementSet<CFGNode> getForwardReachableNodesWithoutLoopback(CFGNode from, CFGNode to) {
-        GraphElementSet<CFGNode> track = new GraphElementSet<CFGNode>();
-        walkForward(from, to, false, track);
-        return track;
+        return getNodes(walkForward(from, to, false));
     }
     
     /**
@@ -344,9 +428,7 @@ public class CFG extends Graph<CFGNode, ControlFlow> {
      * @return the nodes on the backward reachable path
      */
     public GraphElementSet<CFGNode> getBackwardReachableNodes(CFGNode from, CFGNode to) {
-        GraphElementSet<CFGNode> track = new GraphElementSet<CFGNode>();
-        walkBackward(from, to, true, track);
-        return track;
+        return getNodes(walkBackward(from, to, true));
     }
     
     /**
@@ -356,63 +438,127 @@ public class CFG extends Graph<CFGNode, ControlFlow> {
      * @return the nodes on the backward reachable path
      */
     public GraphElementSet<CFGNode> getBackwardReachableNodesWithoutLoopback(CFGNode from, CFGNode to) {
-        GraphElementSet<CFGNode> track = new GraphElementSet<CFGNode>();
-        walkBackward(from, to, false, track);
-        return track;
+        return getNodes(walkBackward(from, to, false));
     }
     
     /**
-     * Walks forward and records the passed nodes.
+     * Walks forward and collects the indices of the passed nodes.
+     * The end node is collected but the walk does not go beyond it unless it is the start node.
      * @param from the start node
      * @param to the end node
      * @param loopbackOk <code>true</code> if loop-back edges can be passed, otherwise <code>false</code>
-     * track the collection of nodes traversed on this CFG
+     * @return the indices of the passed nodes
      */
-    private void walkForward(CFGNode from, CFGNode to, boolean loopbackOk, GraphElementSet<CFGNode> track) {
-        if (from == null) {
-            return;
-        }
-        if (from.equals(to) && !track.isEmpty()) {
-            track.add(from);
-            return;
-        }
-        track.add(from);
-        
-        for (ControlFlow flow : from.getOutgoingFlows()) {
-            if (loopbackOk || !flow.isLoopBack()) {
-                CFGNode succ = flow.getDstNode();
-                if (!track.contains(succ)) {
-                    walkForward(succ, to, loopbackOk, track);
-                }
-            }
-        }
+    public BitSet walkForward(CFGNode from, CFGNode to, boolean loopbackOk) {
+        return walk(from, to, loopbackOk, true);
     }
     
     /**
-     * Walks backward and records the passed nodes.
+     * Walks backward and collects the indices of the passed nodes.
+     * The end node is collected but the walk does not go beyond it unless it is the start node.
      * @param from the start node
      * @param to the end node
      * @param loopbackOk <code>true</code> if loop-back edges can be passed, otherwise <code>false</code>
-     * @param track the collection of nodes traversed on this CFG
+     * @return the indices of the passed nodes
      */
-    private void walkBackward(CFGNode to, CFGNode from, boolean loopbackOk, GraphElementSet<CFGNode> track) {
-        if (to == null) {
-            return;
-        }
-        if (to.equals(from) && !track.isEmpty()) {
-            track.add(to);
-            return;
+    public BitSet walkBackward(CFGNode from, CFGNode to, boolean loopbackOk) {
+        return walk(from, to, loopbackOk, false);
+    }
+    
+    /**
+     * Walks on this CFG with an explicit stack and collects the indices of the passed nodes.
+     * @param from the start node
+     * @param to the end node
+     * @param loopbackOk <code>true</code> if loop-back edges can be passed, otherwise <code>false</code>
+     * @param forward <code>true</code> if the walk follows the direction of edges, otherwise <code>false</code>
+     * @return the indices of the passed nodes
+     */
+    private BitSet walk(CFGNode from, CFGNode to, boolean loopbackOk, boolean forward) {
+        createIndices();
+        BitSet track = new BitSet(indexedNodes.length);
+        int start = getIndex(from);
+        if (start == -1) {
+            return track;
         }
-        track.add(to);
+        int stop = getIndex(to);
         
-        for (ControlFlow flow : to.getIncomingFlows()) {
-            if (loopbackOk || !flow.isLoopBack()) {
-                CFGNode pred = flow.getSrcNode();
-                if (!track.contains(pred)) {
-                    walkBackward(pred, from, loopbackOk, track);
+        int[] stack = new int[indexedNodes.length];
+        int top = 0;
+        track.set(start);
+        stack[top++] = start;
+        while (top > 0) {
+            CFGNode node = indexedNodes[stack[--top]];
+            for (GraphEdge edge : forward ? node.getOutgoingEdges() : node.getIncomingEdges()) {
+                ControlFlow flow = (ControlFlow)edge;
+                if (loopbackOk || !flow.isLoopBack()) {
+                    int index = getIndex(forward ? flow.getDstNode() : flow.getSrcNode());
+                    if (index != -1 && !track.get(index)) {
+                        track.set(index);
+                        if (index != stop) {
+                            stack[top++] = index;
+                        }
+                    }
                 }
             }
         }
+        return track;
+    }
+    
+    /**
+     * Numbers the nodes of this CFG if they have not been numbered since this CFG was changed.
+     */
+    private void createIndices() {
+        if (indexedNodes == null) {
+            indexedNodes = new CFGNode[getNodes().size()];
+            nodeIndices = new HashMap<Long, Integer>();
+            int index = 0;
+            for (CFGNode node : getNodes()) {
+                indexedNodes[index] = node;
+                nodeIndices.put(node.getId(), index);
+                index++;
+            }
+        }
+    }
+    
+    /**
+     * Returns the index of a given node, which is valid until this CFG is changed.
+     * @param node the node
+     * @return the index of the node, or <code>-1</code> if the node is not contained in this CFG
+     */
+    public int getIndex(CFGNode node) {
+        if (node == null) {
+            return -1;
+        }
+        createIndices();
+        Integer index = nodeIndices.get(node.getId());
+        if (index == null) {
+            return -1;
+        }
+        return index.intValue();
+    }
+    
+    /**
+     * Returns the node with a given index.
+     * @param index the index of the node
+     * @return the node with the index
+     */
+    public CFGNode getNodeAt(int index) {
+        createIndices();
+        return indexedNodes[index];
+    }
+    
+    /**
+     * Returns the nodes with given indices.
+     * @param indices the indices of the nodes
+     * @return the collection of the nodes
+     */
+    public GraphElementSet<CFGNode> getNodes(BitSet indices) {
+        createIndices();
+        GraphElementSet<CFGNode> set = new GraphElementSet<CFGNode>();
+        for (int index = indices.nextSetBit(0); index >= 0; index = indices.nextSetBit(index + 1)) {
+            set.add(indexedNodes[index]);
+        }
+        return set;
     }
     
     /**
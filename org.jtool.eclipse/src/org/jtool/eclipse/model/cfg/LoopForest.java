@@ -0,0 +1,418 @@
+/*
+ *  Copyright 2014, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.cfg;
+
+import org.jtool.eclipse.model.graph.GraphNode;
+import org.jtool.eclipse.model.graph.GraphEdge;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An object storing the loop-nesting forest of a CFG.
+ * Each loop is keyed by its loop node (<code>while</code>, <code>do</code>, or <code>for</code>) and consists of
+ * the nodes from which its loop-back flow is reachable without passing the header, which is the destination of the flow.
+ * Flows including fall-through ones are traversed so that the nodes jumping out of the loop belong to it.
+ * @author Katsuhisa Maruyama
+ */
+public class LoopForest {
+    
+    /**
+     * The CFG for this forest.
+     */
+    private CFG cfg;
+    
+    /**
+     * The nodes of the CFG, which are arranged in the order of their indices.
+     */
+    private CFGNode[] nodes;
+    
+    /**
+     * A map storing pairs of the identification number of a CFG node and its index.
+     */
+    private Map<Long, Integer> indices = new HashMap<Long, Integer>();
+    
+    /**
+     * A map storing pairs of the identification number of a loop node and the index of its loop.
+     */
+    private Map<Long, Integer> loopIndices = new HashMap<Long, Integer>();
+    
+    /**
+     * The loop nodes of respective loops.
+     */
+    private List<CFGNode> loopNodes = new ArrayList<CFGNode>();
+    
+    /**
+     * The indices of the headers of respective loops.
+     */
+    private List<Integer> headers = new ArrayList<Integer>();
+    
+    /**
+     * The indices of the nodes contained in respective loops.
+     */
+    private List<BitSet> bodies = new ArrayList<BitSet>();
+    
+    /**
+     * The index of the loop immediately enclosing respective loops, or <code>-1</code> if none.
+     */
+    private int[] parents;
+    
+    /**
+     * The nesting depths of respective loops, which is <code>1</code> for the outermost loops.
+     */
+    private int[] depths;
+    
+    /**
+     * The index of the innermost loop containing respective nodes, or <code>-1</code> if none.
+     */
+    private int[] innermosts;
+    
+    /**
+     * Creates a loop-nesting forest of a given CFG.
+     * @param cfg the CFG
+     */
+    public LoopForest(CFG cfg) {
+        this.cfg = cfg;
+        create();
+    }
+    
+    /**
+     * Returns the CFG for this forest.
+     * @return the CFG
+     */
+    public CFG getCFG() {
+        return cfg;
+    }
+    
+    /**
+     * Collects the loops and calculates their nesting.
+     */
+    private void create() {
+        int size = cfg.getNodes().size();
+        nodes = new CFGNode[size];
+        int index = 0;
+        for (CFGNode node : cfg.getNodes()) {
+            nodes[index] = node;
+            indices.put(node.getId(), index);
+            index++;
+        }
+        
+        for (ControlFlow flow : cfg.getEdges()) {
+            CFGNode loopNode = flow.getLoopBack();
+            if (loopNode != null && loopNode.isLoop()) {
+                addLoopBack(loopNode, getIndex(flow.getDstNode()), getIndex(flow.getSrcNode()));
+            }
+        }
+        
+        mergeLoopsWithSameHeader();
+        
+        int num = loopNodes.size();
+        Integer[] order = new Integer[num];
+        for (int l = 0; l < num; l++) {
+            order[l] = l;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer l1, Integer l2) {
+                return bodies.get(l2).cardinality() - bodies.get(l1).cardinality();
+            }
+        });
+        
+        parents = new int[num];
+        depths = new int[num];
+        innermosts = new int[size];
+        Arrays.fill(innermosts, -1);
+        for (int l : order) {
+            int parent = innermosts[headers.get(l)];
+            parents[l] = parent;
+            depths[l] = (parent == -1) ? 1 : depths[parent] + 1;
+            
+            BitSet body = bodies.get(l);
+            for (int v = body.nextSetBit(0); v >= 0; v = body.nextSetBit(v + 1)) {
+                innermosts[v] = l;
+            }
+        }
+    }
+    
+    /**
+     * Adds the nodes of the loop closed by a loop-back flow.
+     * @param loopNode the loop node for the loop
+     * @param header the index of the destination node of the loop-back flow
+     * @param latch the index of the source node of the loop-back flow
+     */
+    private void addLoopBack(CFGNode loopNode, int header, int latch) {
+        if (header == -1 || latch == -1) {
+            return;
+        }
+        
+        Integer l = loopIndices.get(loopNode.getId());
+        if (l == null) {
+            l = loopNodes.size();
+            loopIndices.put(loopNode.getId(), l);
+            loopNodes.add(loopNode);
+            headers.add(header);
+            BitSet body = new BitSet(nodes.length);
+            body.set(header);
+            bodies.add(body);
+        }
+        
+        BitSet body = bodies.get(l);
+        if (body.get(latch)) {
+            return;
+        }
+        
+        int[] stack = new int[nodes.length];
+        int top = 0;
+        body.set(latch);
+        stack[top++] = latch;
+        while (top > 0) {
+            int v = stack[--top];
+            for (GraphEdge edge : nodes[v].getIncomingEdges()) {
+                int p = getIndex(edge.getSrcNode());
+                if (p != -1 && !body.get(p)) {
+                    body.set(p);
+                    stack[top++] = p;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Adds the nodes of an inner loop to an outer loop if the loops have the same header.
+     * This happens when the body of a <code>do</code> statement starts with another loop,
+     * in which case the nodes of the inner loop reach the loop-back flow of the outer loop only through the header.
+     */
+    private void mergeLoopsWithSameHeader() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int outer = 0; outer < loopNodes.size(); outer++) {
+                for (int inner = 0; inner < loopNodes.size(); inner++) {
+                    int outerNode = getIndex(loopNodes.get(outer));
+                    int innerNode = getIndex(loopNodes.get(inner));
+                    if (outer != inner && headers.get(outer).equals(headers.get(inner)) && outerNode != -1 && innerNode != -1) {
+                        BitSet outerBody = bodies.get(outer);
+                        BitSet innerBody = bodies.get(inner);
+                        if (outerBody.get(innerNode) && !innerBody.get(outerNode)) {
+                            BitSet body = (BitSet)outerBody.clone();
+                            body.or(innerBody);
+                            if (!body.equals(outerBody)) {
+                                bodies.set(outer, body);
+                                changed = true;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns the index of a given node.
+     * @param node the CFG node
+     * @return the index of the node, or <code>-1</code> if the node is not contained in the CFG
+     */
+    private int getIndex(GraphNode node) {
+        if (node == null) {
+            return -1;
+        }
+        Integer index = indices.get(node.getId());
+        if (index == null) {
+            return -1;
+        }
+        return index.intValue();
+    }
+    
+    /**
+     * Returns the index of the loop for a given loop node.
+     * @param loopNode the loop node
+     * @return the index of the loop, or <code>-1</code> if the node is not a loop node of this forest
+     */
+    private int getLoopIndex(CFGNode loopNode) {
+        if (loopNode == null) {
+            return -1;
+        }
+        Integer index = loopIndices.get(loopNode.getId());
+        if (index == null) {
+            return -1;
+        }
+        return index.intValue();
+    }
+    
+    /**
+     * Returns the loop node of a given loop.
+     * @param l the index of the loop
+     * @return the loop node, or <code>null</code> if the index is <code>-1</code>
+     */
+    private CFGNode getLoopNode(int l) {
+        if (l == -1) {
+            return null;
+        }
+        return loopNodes.get(l);
+    }
+    
+    /**
+     * Returns the loop nodes of all the loops in this forest.
+     * @return the collection of the loop nodes
+     */
+    public List<CFGNode> getLoops() {
+        return Collections.unmodifiableList(loopNodes);
+    }
+    
+    /**
+     * Returns the header of a given loop, which is the destination of its loop-back flow.
+     * @param loopNode the loop node for the loop
+     * @return the header node, or <code>null</code> if the node is not a loop node of this forest
+     */
+    public CFGNode getHeader(CFGNode loopNode) {
+        int l = getLoopIndex(loopNode);
+        if (l == -1) {
+            return null;
+        }
+        return nodes[headers.get(l)];
+    }
+    
+    /**
+     * Returns the nodes contained in a given loop.
+     * @param loopNode the loop node for the loop
+     * @return the collection of the contained CFG nodes, which is empty if the node is not a loop node of this forest
+     */
+    public List<CFGNode> getNodes(CFGNode loopNode) {
+        List<CFGNode> result = new ArrayList<CFGNode>();
+        int l = getLoopIndex(loopNode);
+        if (l != -1) {
+            BitSet body = bodies.get(l);
+            for (int v = body.nextSetBit(0); v >= 0; v = body.nextSetBit(v + 1)) {
+                result.add(nodes[v]);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Tests if a given loop contains a given node.
+     * @param loopNode the loop node for the loop
+     * @param node the CFG node to be checked
+     * @return <code>true</code> if the loop contains the node, otherwise <code>false</code>
+     */
+    public boolean contains(CFGNode loopNode, CFGNode node) {
+        int l = getLoopIndex(loopNode);
+        int v = getIndex(node);
+        return l != -1 && v != -1 && bodies.get(l).get(v);
+    }
+    
+    /**
+     * Returns the loop immediately enclosing a given loop.
+     * @param loopNode the loop node for the loop
+     * @return the loop node of the enclosing loop, or <code>null</code> if none
+     */
+    public CFGNode getParent(CFGNode loopNode) {
+        int l = getLoopIndex(loopNode);
+        if (l == -1) {
+            return null;
+        }
+        return getLoopNode(parents[l]);
+    }
+    
+    /**
+     * Returns the nesting depth of a given loop.
+     * @param loopNode the loop node for the loop
+     * @return the depth of the loop, which is <code>1</code> for an outermost loop, or <code>0</code> if the node is not a loop node of this forest
+     */
+    public int getDepth(CFGNode loopNode) {
+        int l = getLoopIndex(loopNode);
+        if (l == -1) {
+            return 0;
+        }
+        return depths[l];
+    }
+    
+    /**
+     * Returns the innermost loop containing a given node.
+     * @param node the CFG node
+     * @return the loop node of the innermost loop, or <code>null</code> if the node is not contained in any loop
+     */
+    public CFGNode getInnermostLoop(CFGNode node) {
+        int v = getIndex(node);
+        if (v == -1) {
+            return null;
+        }
+        return getLoopNode(innermosts[v]);
+    }
+    
+    /**
+     * Returns the innermost loop containing both of given nodes.
+     * @param node1 one of the CFG nodes
+     * @param node2 the other CFG node
+     * @return the loop node of the lowest common loop, or <code>null</code> if no loop contains both the nodes
+     */
+    public CFGNode getLowestCommonLoop(CFGNode node1, CFGNode node2) {
+        int v1 = getIndex(node1);
+        int v2 = getIndex(node2);
+        if (v1 == -1 || v2 == -1) {
+            return null;
+        }
+        
+        int l1 = innermosts[v1];
+        int l2 = innermosts[v2];
+        while (l1 != l2) {
+            if (l1 == -1 || l2 == -1) {
+                return null;
+            }
+            if (depths[l1] >= depths[l2]) {
+                l1 = parents[l1];
+            } else {
+                l2 = parents[l2];
+            }
+        }
+        return getLoopNode(l1);
+    }
+    
+    /**
+     * Returns the loops closed by a given flow, whose headers are the destination of the flow and contain its source.
+     * @param flow the CFG flow
+     * @return the collection of the loop nodes of the closed loops
+     */
+    public List<CFGNode> getLoopsClosedBy(ControlFlow flow) {
+        List<CFGNode> result = new ArrayList<CFGNode>();
+        int src = getIndex(flow.getSrcNode());
+        int dst = getIndex(flow.getDstNode());
+        if (src == -1 || dst == -1) {
+            return result;
+        }
+        
+        for (int l = innermosts[src]; l != -1; l = parents[l]) {
+            if (headers.get(l) == dst) {
+                result.add(loopNodes.get(l));
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the loops exited by a given flow, which contain its source but do not contain its destination.
+     * @param flow the CFG flow
+     * @return the collection of the loop nodes of the exited loops
+     */
+    public List<CFGNode> getLoopsExitedBy(ControlFlow flow) {
+        List<CFGNode> result = new ArrayList<CFGNode>();
+        int src = getIndex(flow.getSrcNode());
+        int dst = getIndex(flow.getDstNode());
+        if (src == -1 || dst == -1) {
+            return result;
+        }
+        
+        for (int l = innermosts[src]; l != -1; l = parents[l]) {
+            if (!bodies.get(l).get(dst)) {
+                result.add(loopNodes.get(l));
+            }
+        }
+        return result;
+    }
+}
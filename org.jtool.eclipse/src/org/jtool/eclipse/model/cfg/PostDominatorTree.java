@@ -0,0 +1,355 @@
+/*
+ *  Copyright 2014, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.cfg;
+
+import org.jtool.eclipse.model.graph.GraphElementSet;
+import org.jtool.eclipse.model.graph.GraphNode;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An object storing the post-dominator tree of a CFG.
+ * The tree is calculated on the reverse CFG by the iterative algorithm of Cooper, Harvey, and Kennedy.
+ * Its nodes are numbered in depth-first order so that a post-dominance query is answered in constant time.
+ * @author Katsuhisa Maruyama
+ */
+public class PostDominatorTree {
+    
+    /**
+     * The CFG for this tree.
+     */
+    private CFG cfg;
+    
+    /**
+     * The nodes of the CFG, which are arranged in the order of their indices.
+     */
+    private CFGNode[] nodes;
+    
+    /**
+     * A map storing pairs of the identification number of a CFG node and its index.
+     */
+    private Map<Long, Integer> indices = new HashMap<Long, Integer>();
+    
+    /**
+     * The indices of the successors of respective nodes.
+     */
+    private int[][] succs;
+    
+    /**
+     * The index of the immediate post-dominator of respective nodes, or <code>-1</code> if none.
+     */
+    private int[] ipdoms;
+    
+    /**
+     * The depth-first numbers assigned when entering respective nodes of this tree, or <code>-1</code> if not contained.
+     */
+    private int[] pre;
+    
+    /**
+     * The depth-first numbers assigned when leaving respective nodes of this tree, or <code>-1</code> if not contained.
+     */
+    private int[] post;
+    
+    /**
+     * The forward reachable nodes of respective nodes from which the end node is not reachable.
+     */
+    private BitSet[] reachables;
+    
+    /**
+     * Creates a post-dominator tree of a given CFG.
+     * @param cfg the CFG
+     */
+    public PostDominatorTree(CFG cfg) {
+        this.cfg = cfg;
+        create();
+    }
+    
+    /**
+     * Returns the CFG for this tree.
+     * @return the CFG
+     */
+    public CFG getCFG() {
+        return cfg;
+    }
+    
+    /**
+     * Calculates the immediate post-dominators of all the nodes and numbers them.
+     */
+    private void create() {
+        int size = cfg.getNodes().size();
+        nodes = new CFGNode[size];
+        int index = 0;
+        for (CFGNode node : cfg.getNodes()) {
+            nodes[index] = node;
+            indices.put(node.getId(), index);
+            index++;
+        }
+        
+        succs = new int[size][];
+        int[][] preds = new int[size][];
+        for (int v = 0; v < size; v++) {
+            succs[v] = getIndices(nodes[v].getDstNodes());
+            preds[v] = getIndices(nodes[v].getSrcNodes());
+        }
+        
+        ipdoms = new int[size];
+        pre = new int[size];
+        post = new int[size];
+        reachables = new BitSet[size];
+        Arrays.fill(ipdoms, -1);
+        Arrays.fill(pre, -1);
+        Arrays.fill(post, -1);
+        
+        int root = getIndex(cfg.getEndNode());
+        if (root == -1) {
+            return;
+        }
+        
+        int[] order = new int[size];
+        int[] postnum = new int[size];
+        Arrays.fill(postnum, -1);
+        int count = walkBackward(root, preds, order, postnum);
+        
+        int[] doms = new int[size];
+        Arrays.fill(doms, -1);
+        doms[root] = root;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int k = count - 1; k >= 0; k--) {
+                int v = order[k];
+                if (v == root) {
+                    continue;
+                }
+                
+                int idom = -1;
+                for (int s : succs[v]) {
+                    if (doms[s] != -1) {
+                        idom = (idom == -1) ? s : intersect(s, idom, doms, postnum);
+                    }
+                }
+                if (doms[v] != idom) {
+                    doms[v] = idom;
+                    changed = true;
+                }
+            }
+        }
+        
+        for (int k = 0; k < count; k++) {
+            int v = order[k];
+            if (v != root) {
+                ipdoms[v] = doms[v];
+            }
+        }
+        
+        number(root, order, count);
+    }
+    
+    /**
+     * Walks backward from the end node and records the visited nodes in post-order.
+     * @param root the index of the end node
+     * @param preds the indices of the predecessors of respective nodes
+     * @param order the array that stores the visited nodes in post-order
+     * @param postnum the array that stores the post-order numbers of the visited nodes
+     * @return the number of the visited nodes
+     */
+    private int walkBackward(int root, int[][] preds, int[] order, int[] postnum) {
+        int size = nodes.length;
+        boolean[] visited = new boolean[size];
+        int[] stack = new int[size];
+        int[] cursor = new int[size];
+        int top = 0;
+        int count = 0;
+        
+        stack[top++] = root;
+        visited[root] = true;
+        while (top > 0) {
+            int v = stack[top - 1];
+            if (cursor[v] < preds[v].length) {
+                int p = preds[v][cursor[v]++];
+                if (!visited[p]) {
+                    visited[p] = true;
+                    stack[top++] = p;
+                }
+            } else {
+                top--;
+                postnum[v] = count;
+                order[count++] = v;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Finds the nearest common post-dominator of two nodes.
+     * @param a the index of one of the nodes
+     * @param b the index of the other node
+     * @param doms the current post-dominators of respective nodes
+     * @param postnum the post-order numbers of respective nodes
+     * @return the index of the nearest common post-dominator
+     */
+    private int intersect(int a, int b, int[] doms, int[] postnum) {
+        while (a != b) {
+            while (postnum[a] < postnum[b]) {
+                a = doms[a];
+            }
+            while (postnum[b] < postnum[a]) {
+                b = doms[b];
+            }
+        }
+        return a;
+    }
+    
+    /**
+     * Assigns the depth-first numbers to the nodes of this tree.
+     * @param root the index of the root node
+     * @param order the nodes contained in this tree
+     * @param count the number of the nodes contained in this tree
+     */
+    private void number(int root, int[] order, int count) {
+        int size = nodes.length;
+        int[] first = new int[size + 1];
+        for (int k = 0; k < count; k++) {
+            int v = order[k];
+            if (ipdoms[v] != -1) {
+                first[ipdoms[v] + 1]++;
+            }
+        }
+        for (int v = 0; v < size; v++) {
+            first[v + 1] += first[v];
+        }
+        int[] children = new int[first[size]];
+        int[] fill = Arrays.copyOf(first, size);
+        for (int k = 0; k < count; k++) {
+            int v = order[k];
+            if (ipdoms[v] != -1) {
+                children[fill[ipdoms[v]]++] = v;
+            }
+        }
+        
+        int[] stack = new int[size];
+        int[] cursor = Arrays.copyOf(first, size);
+        int top = 0;
+        int clock = 0;
+        stack[top++] = root;
+        pre[root] = clock++;
+        while (top > 0) {
+            int v = stack[top - 1];
+            if (cursor[v] < first[v + 1]) {
+                int c = children[cursor[v]++];
+                pre[c] = clock++;
+                stack[top++] = c;
+            } else {
+                top--;
+                post[v] = clock++;
+            }
+        }
+    }
+    
+    /**
+     * Returns the index of a given node.
+     * @param node the CFG node
+     * @return the index of the node, or <code>-1</code> if the node is not contained in the CFG
+     */
+    private int getIndex(GraphNode node) {
+        if (node == null) {
+            return -1;
+        }
+        Integer index = indices.get(node.getId());
+        if (index == null) {
+            return -1;
+        }
+        return index.intValue();
+    }
+    
+    /**
+     * Returns the indices of given nodes, which excludes nodes not contained in the CFG.
+     * @param set the collection of the nodes
+     * @return the array of the indices
+     */
+    private int[] getIndices(GraphElementSet<GraphNode> set) {
+        int[] result = new int[set.size()];
+        int num = 0;
+        for (GraphNode node : set) {
+            int index = getIndex(node);
+            if (index != -1) {
+                result[num++] = index;
+            }
+        }
+        return num == result.length ? result : Arrays.copyOf(result, num);
+    }
+    
+    /**
+     * Tests if this tree contains a given node, which means that the end node of the CFG is reachable from the node.
+     * @param node the CFG node to be checked
+     * @return <code>true</code> if this tree contains the node, otherwise <code>false</code>
+     */
+    public boolean contains(CFGNode node) {
+        int v = getIndex(node);
+        return v != -1 && pre[v] != -1;
+    }
+    
+    /**
+     * Returns the immediate post-dominator of a given node.
+     * @param node the CFG node
+     * @return the immediate post-dominator, or <code>null</code> if the node is the end node or is not contained in this tree
+     */
+    public CFGNode getImmediatePostDominator(CFGNode node) {
+        int v = getIndex(node);
+        if (v == -1 || ipdoms[v] == -1) {
+            return null;
+        }
+        return nodes[ipdoms[v]];
+    }
+    
+    /**
+     * Tests if a node strictly post-dominates another node.
+     * If the end node is not reachable from the post-dominated node, every path from it vacuously passes any node
+     * so that all the nodes reachable from it are regarded as its post-dominators.
+     * @param pdom the CFG node to be checked if it is a post-dominator
+     * @param node the CFG node to be checked if it is post-dominated
+     * @return <code>true</code> if <code>pdom</code> strictly post-dominates <code>node</code>, otherwise <code>false</code>
+     */
+    public boolean postDominates(CFGNode pdom, CFGNode node) {
+        int a = getIndex(pdom);
+        int b = getIndex(node);
+        if (a == -1 || b == -1 || a == b) {
+            return false;
+        }
+        
+        if (pre[b] != -1) {
+            return pre[a] != -1 && pre[a] < pre[b] && post[b] < post[a];
+        }
+        return getReachables(b).get(a);
+    }
+    
+    /**
+     * Returns the nodes reachable from a given node from which the end node is not reachable.
+     * @param b the index of the node
+     * @return the indices of the reachable nodes, which excludes the node itself
+     */
+    private BitSet getReachables(int b) {
+        if (reachables[b] == null) {
+            BitSet visited = new BitSet(nodes.length);
+            int[] stack = new int[nodes.length];
+            int top = 0;
+            stack[top++] = b;
+            while (top > 0) {
+                int v = stack[--top];
+                for (int s : succs[v]) {
+                    if (!visited.get(s)) {
+                        visited.set(s);
+                        stack[top++] = s;
+                    }
+                }
+            }
+            visited.clear(b);
+            reachables[b] = visited;
+        }
+        return reachables[b];
+    }
+}
@@ -32,7 +32,7 @@ public class CFGMethodFactory {
      */
     public static CFG getCFG(JavaMethod jm) {
         CFG cfg = new CFG();
-        ExpressionVisitor.paramNumber = 1;
+        ExpressionVisitor.resetParamNumber();
         
         CFGMethodEntry entry = new CFGMethodEntry(jm, GraphNodeSort.methodEntry);
         if (jm.isConstructor()) {
@@ -131,9 +131,9 @@ public class CFGMethodFactory {
             JavaVariableAccess jvout = param.convertJavaVariableAccess();
             finNode.setDefVariable(jvout);
             
-            JavaVariableAccess jvin = new JavaSpecialVariable("$" + String.valueOf(ExpressionVisitor.paramNumber), jvout.getType(), jm);
+            JavaVariableAccess jvin = new JavaSpecialVariable("$" + String.valueOf(ExpressionVisitor.getParamNumber()), jvout.getType(), jm);
             finNode.setUseVariable(jvin);
-            ExpressionVisitor.paramNumber++;
+            ExpressionVisitor.incrementParamNumber();
             
             ControlFlow edge = new ControlFlow(prevNode, finNode);
             edge.setTrue();
@@ -162,9 +162,9 @@ public class CFGMethodFactory {
             
             cfg.add(foutNode);
             
-            JavaVariableAccess jvout = new JavaSpecialVariable("$" + String.valueOf(ExpressionVisitor.paramNumber), jm.getReturnType(), jm);
+            JavaVariableAccess jvout = new JavaSpecialVariable("$" + String.valueOf(ExpressionVisitor.getParamNumber()), jm.getReturnType(), jm);
             foutNode.addDefVariable(jvout); 
-            ExpressionVisitor.paramNumber++;
+            ExpressionVisitor.incrementParamNumber();
             
             JavaLocal returnValue = jm.getReturnValueVariable();
             JavaVariableAccess jvin = new JavaSpecialVariable(returnValue.getName(), returnValue.getType(), jm);
@@ -133,9 +133,13 @@ public class ExpressionVisitor extends ASTVisitor {
     private boolean inAssignment;
     
     /**
-     * The unique number for a parameter in a method declaration.
+     * The unique number for a parameter in a method declaration, which is held for each thread creating a CFG.
      */
-    protected static int paramNumber = 1;
+    private static ThreadLocal<int[]> paramNumber = new ThreadLocal<int[]>() {
+        protected int[] initialValue() {
+            return new int[] { 1 };
+        }
+    };
     
     /**
      * The flag that requests the creation of actual nodes for method invocation.
@@ -160,6 +164,28 @@ public class ExpressionVisitor extends ASTVisitor {
         analysingDefinedVariables.push(false);
     }
     
+    /**
+     * Resets the unique number for a parameter before a CFG is created by the current thread.
+     */
+    static void resetParamNumber() {
+        paramNumber.get()[0] = 1;
+    }
+    
+    /**
+     * Returns the unique number for a parameter to be created next by the current thread.
+     * @return the unique number
+     */
+    static int getParamNumber() {
+        return paramNumber.get()[0];
+    }
+    
+    /**
+     * Advances the unique number for a parameter of the current thread.
+     */
+    static void incrementParamNumber() {
+        paramNumber.get()[0]++;
+    }
+    
     /**
      * Returns node that indicates the entry point of the created CFG after visiting.
      * @return the entry node
@@ -764,16 +790,16 @@ public class ExpressionVisitor extends ASTVisitor {
         if (cfg.getStartNode() instanceof CFGMethodEntry) {
             CFGMethodEntry methodNode = (CFGMethodEntry)cfg.getStartNode();
             JavaMethod jm = methodNode.getJavaMethod();
-            jvin = new JavaSpecialVariable("$" + String.valueOf(paramNumber), jmc.getArgumentType(ordinal), jm);
+            jvin = new JavaSpecialVariable("$" + String.valueOf(getParamNumber()), jmc.getArgumentType(ordinal), jm);
         } else if (cfg.getStartNode() instanceof CFGFieldEntry) {
             CFGFieldEntry fieldNode = (CFGFieldEntry)cfg.getStartNode();
             JavaField jf = fieldNode.getJavaField();
-            jvin = new JavaSpecialVariable("$" + String.valueOf(paramNumber), jmc.getArgumentType(ordinal), jf);
+            jvin = new JavaSpecialVariable("$" + String.valueOf(getParamNumber()), jmc.getArgumentType(ordinal), jf);
         }
         
         if (jvin != null) {
             ainNode.addDefVariable(jvin);
-            paramNumber++;
+            incrementParamNumber();
         }
         
         insertBeforeCurrentNode(ainNode);
@@ -843,23 +869,23 @@ public class ExpressionVisitor extends ASTVisitor {
         if (cfg.getStartNode() instanceof CFGMethodEntry) {
             CFGMethodEntry methodNode = (CFGMethodEntry)cfg.getStartNode();
             JavaMethod jm = methodNode.getJavaMethod();
-            jvin = new JavaSpecialVariable("$" + String.valueOf(paramNumber), jmc.getReturnType(), jm);
-            jvout = new JavaSpecialVariable("$" + String.valueOf(paramNumber) + "!" + jmc.getName(), jmc.getReturnType(), jm);
+            jvin = new JavaSpecialVariable("$" + String.valueOf(getParamNumber()), jmc.getReturnType(), jm);
+            jvout = new JavaSpecialVariable("$" + String.valueOf(getParamNumber()) + "!" + jmc.getName(), jmc.getReturnType(), jm);
         } else if (cfg.getStartNode() instanceof CFGFieldEntry) {
             CFGFieldEntry fieldNode = (CFGFieldEntry)cfg.getStartNode();
             JavaField jf = fieldNode.getJavaField();
-            jvin = new JavaSpecialVariable("$" + String.valueOf(paramNumber), jmc.getReturnType(), jf);
-            jvout = new JavaSpecialVariable("$" + String.valueOf(paramNumber) + "!" + jmc.getName(), jmc.getReturnType(), jf);
+            jvin = new JavaSpecialVariable("$" + String.valueOf(getParamNumber()), jmc.getReturnType(), jf);
+            jvout = new JavaSpecialVariable("$" + String.valueOf(getParamNumber()) + "!" + jmc.getName(), jmc.getReturnType(), jf);
         }
         
         if (jvin != null) {
             aoutNode.addDefVariable(jvin);
-            paramNumber++;
+            incrementParamNumber();
         }
         
         if (jvout != null) {
             aoutNode.addUseVariable(jvout);
-            paramNumber++;
+            incrementParamNumber();
         }
         
         insertBeforeCurrentNode(aoutNode);
@@ -895,16 +921,16 @@ public class ExpressionVisitor extends ASTVisitor {
         if (entry.isMethodEntry()) {
             CFGMethodEntry mentry = (CFGMethodEntry)entry;
             JavaMethod jm = mentry.getJavaMethod();
-            JavaVariableAccess jvout = new JavaSpecialVariable("$" + String.valueOf(paramNumber) + "!" + callNode.getName(), callNode.getReturnType(), jm);
+            JavaVariableAccess jvout = new JavaSpecialVariable("$" + String.valueOf(getParamNumber()) + "!" + callNode.getName(), callNode.getReturnType(), jm);
             callNode.addDefVariable(jvout);
-            paramNumber++;
+            incrementParamNumber();
             
         } else if (entry.isFieldEntry()) {
             CFGFieldEntry fentry = (CFGFieldEntry)entry;
             JavaField jf = fentry.getJavaField();
-            JavaVariableAccess jvout = new JavaSpecialVariable("$" + String.valueOf(paramNumber) + "!" + callNode.getName(), callNode.getReturnType(), jf);
+            JavaVariableAccess jvout = new JavaSpecialVariable("$" + String.valueOf(getParamNumber()) + "!" + callNode.getName(), callNode.getReturnType(), jf);
             callNode.addDefVariable(jvout);
-            paramNumber++;
+            incrementParamNumber();
         }
     }
     
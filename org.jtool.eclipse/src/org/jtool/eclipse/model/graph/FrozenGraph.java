@@ -0,0 +1,569 @@
+/*
+ *  Copyright 2014, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.graph;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable view of a graph in the compressed sparse row (CSR) form.
+ * Nodes and edges are numbered densely from zero, and the adjacency in both directions is stored in flat integer arrays.
+ * The view does not follow changes of the graph from which it was frozen.
+ * @author Katsuhisa Maruyama
+ */
+public class FrozenGraph<N extends GraphNode, E extends GraphEdge> {
+    
+    /**
+     * The nodes of this graph, which are arranged in the order of their indices.
+     */
+    private Object[] nodes;
+    
+    /**
+     * The edges of this graph, which are arranged in the order of their indices.
+     */
+    private Object[] edges;
+    
+    /**
+     * A map storing pairs of the identification number of a node and its index.
+     */
+    private Map<Long, Integer> nodeIndices;
+    
+    /**
+     * The ordinal numbers of the sorts of respective edges, or <code>-1</code> if an edge has no sort.
+     */
+    private byte[] sorts;
+    
+    /**
+     * The offsets into <code>outTargets</code> and <code>outEdges</code> for respective nodes.
+     */
+    private int[] outOffsets;
+    
+    /**
+     * The indices of the destination nodes of outgoing edges, which are grouped by their source nodes.
+     */
+    private int[] outTargets;
+    
+    /**
+     * The indices of outgoing edges, which are grouped by their source nodes.
+     */
+    private int[] outEdges;
+    
+    /**
+     * The offsets into <code>inSources</code> and <code>inEdges</code> for respective nodes.
+     */
+    private int[] inOffsets;
+    
+    /**
+     * The indices of the source nodes of incoming edges, which are grouped by their destination nodes.
+     */
+    private int[] inSources;
+    
+    /**
+     * The indices of incoming edges, which are grouped by their destination nodes.
+     */
+    private int[] inEdges;
+    
+    /**
+     * The index answering reachability queries on this graph, which is built on demand.
+     */
+    private ReachabilityIndex<N, E> reachabilityIndex = null;
+    
+    /**
+     * Freezes a given graph.
+     * Edges whose source or destination node is not contained in the graph are excluded.
+     * @param graph the graph to be frozen
+     */
+    FrozenGraph(Graph<N, E> graph) {
+        int size = graph.getNodes().size();
+        nodes = new Object[size];
+        nodeIndices = new HashMap<Long, Integer>(size * 2);
+        int index = 0;
+        for (N node : graph.getNodes()) {
+            nodes[index] = node;
+            nodeIndices.put(node.getId(), index);
+            index++;
+        }
+        
+        int[] srcs = new int[graph.getEdges().size()];
+        int[] dsts = new int[srcs.length];
+        Object[] elems = new Object[srcs.length];
+        int count = 0;
+        for (E edge : graph.getEdges()) {
+            int src = getIndex(edge.getSrcNode());
+            int dst = getIndex(edge.getDstNode());
+            if (src != -1 && dst != -1) {
+                srcs[count] = src;
+                dsts[count] = dst;
+                elems[count] = edge;
+                count++;
+            }
+        }
+        
+        edges = new Object[count];
+        sorts = new byte[count];
+        for (int e = 0; e < count; e++) {
+            edges[e] = elems[e];
+            GraphEdgeSort sort = ((GraphEdge)elems[e]).getSort();
+            sorts[e] = (sort != null) ? (byte)sort.ordinal() : -1;
+        }
+        
+        outOffsets = new int[size + 1];
+        outTargets = new int[count];
+        outEdges = new int[count];
+        fill(srcs, dsts, count, outOffsets, outTargets, outEdges);
+        
+        inOffsets = new int[size + 1];
+        inSources = new int[count];
+        inEdges = new int[count];
+        fill(dsts, srcs, count, inOffsets, inSources, inEdges);
+    }
+    
+    /**
+     * Fills the arrays of one direction by the counting sort of edges.
+     * @param froms the indices of the nodes by which the edges are grouped
+     * @param tos the indices of the nodes at the other ends of the edges
+     * @param count the number of the edges
+     * @param offsets the array that stores the offsets for respective nodes
+     * @param targets the array that stores the indices of the nodes at the other ends
+     * @param ids the array that stores the indices of the edges
+     */
+    private void fill(int[] froms, int[] tos, int count, int[] offsets, int[] targets, int[] ids) {
+        for (int e = 0; e < count; e++) {
+            offsets[froms[e] + 1]++;
+        }
+        for (int v = 0; v < nodes.length; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] cursor = new int[nodes.length];
+        System.arraycopy(offsets, 0, cursor, 0, nodes.length);
+        for (int e = 0; e < count; e++) {
+            int k = cursor[froms[e]]++;
+            targets[k] = tos[e];
+            ids[k] = e;
+        }
+    }
+    
+    /**
+     * Returns the number of nodes of this graph.
+     * @return the number of the nodes
+     */
+    public int size() {
+        return nodes.length;
+    }
+    
+    /**
+     * Returns the number of edges of this graph.
+     * @return the number of the edges
+     */
+    public int getEdgeCount() {
+        return edges.length;
+    }
+    
+    /**
+     * Returns the index of a given node.
+     * @param node the node
+     * @return the index of the node, or <code>-1</code> if the node is not contained in this graph
+     */
+    public int getIndex(GraphNode node) {
+        if (node == null) {
+            return -1;
+        }
+        Integer index = nodeIndices.get(node.getId());
+        if (index == null) {
+            return -1;
+        }
+        return index.intValue();
+    }
+    
+    /**
+     * Returns the node with a given index.
+     * @param index the index of the node
+     * @return the node with the index
+     */
+    @SuppressWarnings("unchecked")
+    public N getNode(int index) {
+        return (N)nodes[index];
+    }
+    
+    /**
+     * Returns the edge with a given index.
+     * @param index the index of the edge
+     * @return the edge with the index
+     */
+    @SuppressWarnings("unchecked")
+    public E getEdge(int index) {
+        return (E)edges[index];
+    }
+    
+    /**
+     * Returns the sort of the edge with a given index.
+     * @param index the index of the edge
+     * @return the sort of the edge, or <code>null</code> if the edge has no sort
+     */
+    public GraphEdgeSort getEdgeSort(int index) {
+        if (sorts[index] == -1) {
+            return null;
+        }
+        return GraphEdgeSort.values()[sorts[index]];
+    }
+    
+    /**
+     * Returns the number of outgoing edges of a given node.
+     * @param v the index of the node
+     * @return the number of the outgoing edges
+     */
+    public int getOutDegree(int v) {
+        return outOffsets[v + 1] - outOffsets[v];
+    }
+    
+    /**
+     * Returns the destination node of an outgoing edge of a given node.
+     * @param v the index of the node
+     * @param k the position of the edge among the outgoing edges of the node
+     * @return the index of the destination node
+     */
+    public int getSuccessor(int v, int k) {
+        return outTargets[outOffsets[v] + k];
+    }
+    
+    /**
+     * Returns an outgoing edge of a given node.
+     * @param v the index of the node
+     * @param k the position of the edge among the outgoing edges of the node
+     * @return the index of the edge
+     */
+    public int getOutgoingEdge(int v, int k) {
+        return outEdges[outOffsets[v] + k];
+    }
+    
+    /**
+     * Returns the number of incoming edges of a given node.
+     * @param v the index of the node
+     * @return the number of the incoming edges
+     */
+    public int getInDegree(int v) {
+        return inOffsets[v + 1] - inOffsets[v];
+    }
+    
+    /**
+     * Returns the source node of an incoming edge of a given node.
+     * @param v the index of the node
+     * @param k the position of the edge among the incoming edges of the node
+     * @return the index of the source node
+     */
+    public int getPredecessor(int v, int k) {
+        return inSources[inOffsets[v] + k];
+    }
+    
+    /**
+     * Returns an incoming edge of a given node.
+     * @param v the index of the node
+     * @param k the position of the edge among the incoming edges of the node
+     * @return the index of the edge
+     */
+    public int getIncomingEdge(int v, int k) {
+        return inEdges[inOffsets[v] + k];
+    }
+    
+    /**
+     * Collects the incoming edges of a given node.
+     * @param v the index of the node
+     * @return the collection of the incoming edges
+     */
+    GraphElementSet<GraphEdge> getIncomingEdges(int v) {
+        GraphElementSet<GraphEdge> set = new GraphElementSet<GraphEdge>();
+        for (int k = inOffsets[v]; k < inOffsets[v + 1]; k++) {
+            set.add((GraphEdge)edges[inEdges[k]]);
+        }
+        return set;
+    }
+    
+    /**
+     * Collects the outgoing edges of a given node.
+     * @param v the index of the node
+     * @return the collection of the outgoing edges
+     */
+    GraphElementSet<GraphEdge> getOutgoingEdges(int v) {
+        GraphElementSet<GraphEdge> set = new GraphElementSet<GraphEdge>();
+        for (int k = outOffsets[v]; k < outOffsets[v + 1]; k++) {
+            set.add((GraphEdge)edges[outEdges[k]]);
+        }
+        return set;
+    }
+    
+    /**
+     * Collects the source nodes of the incoming edges of a given node.
+     * @param v the index of the node
+     * @return the collection of the source nodes
+     */
+    GraphElementSet<GraphNode> getSrcNodes(int v) {
+        GraphElementSet<GraphNode> set = new GraphElementSet<GraphNode>();
+        for (int k = inOffsets[v]; k < inOffsets[v + 1]; k++) {
+            set.add((GraphNode)nodes[inSources[k]]);
+        }
+        return set;
+    }
+    
+    /**
+     * Collects the destination nodes of the outgoing edges of a given node.
+     * @param v the index of the node
+     * @return the collection of the destination nodes
+     */
+    GraphElementSet<GraphNode> getDstNodes(int v) {
+        GraphElementSet<GraphNode> set = new GraphElementSet<GraphNode>();
+        for (int k = outOffsets[v]; k < outOffsets[v + 1]; k++) {
+            set.add((GraphNode)nodes[outTargets[k]]);
+        }
+        return set;
+    }
+    
+    /**
+     * Makes the nodes of this graph release the collections of their adjacency and leave it to this view.
+     * A node whose collections differ from this view, for example one having edges to nodes outside the graph, keeps them.
+     * @return the number of the nodes that have released their adjacency
+     */
+    int release() {
+        int count = 0;
+        for (int v = 0; v < nodes.length; v++) {
+            if (((GraphNode)nodes[v]).release(this, v)) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Returns the index answering reachability queries on this graph.
+     * @return the index, which is built if it has not been built yet
+     */
+    public synchronized ReachabilityIndex<N, E> getReachabilityIndex() {
+        if (reachabilityIndex == null) {
+            reachabilityIndex = new ReachabilityIndex<N, E>(this);
+        }
+        return reachabilityIndex;
+    }
+    
+    /**
+     * Returns the nodes with given indices.
+     * @param indices the indices of the nodes
+     * @return the collection of the nodes
+     */
+    public GraphElementSet<N> getNodes(BitSet indices) {
+        GraphElementSet<N> set = new GraphElementSet<N>();
+        for (int v = indices.nextSetBit(0); v >= 0; v = indices.nextSetBit(v + 1)) {
+            set.add(getNode(v));
+        }
+        return set;
+    }
+    
+    /**
+     * Returns the edges with given indices.
+     * @param indices the indices of the edges
+     * @return the collection of the edges
+     */
+    public GraphElementSet<E> getEdges(BitSet indices) {
+        GraphElementSet<E> set = new GraphElementSet<E>();
+        for (int e = indices.nextSetBit(0); e >= 0; e = indices.nextSetBit(e + 1)) {
+            set.add(getEdge(e));
+        }
+        return set;
+    }
+    
+    /**
+     * Walks forward from given nodes and collects the indices of the passed nodes.
+     * A stop node is collected but the walk does not go beyond it unless it is a start node.
+     * @param from the indices of the start nodes
+     * @param stops the indices of the stop nodes, or <code>null</code> if none
+     * @param filter the sorts of edges to be passed, or <code>null</code> if any edge can be passed
+     * @param passed the set that stores the indices of the passed edges, or <code>null</code> if not needed
+     * @return the indices of the passed nodes
+     */
+    public BitSet walkForward(BitSet from, BitSet stops, Set<GraphEdgeSort> filter, BitSet passed) {
+        BitSet track = new BitSet(nodes.length);
+        walkForward(from, stops, filter, passed, track);
+        return track;
+    }
+    
+    /**
+     * Walks forward from given nodes and adds the indices of the passed nodes to a given set.
+     * Nodes already contained in the set are not walked again unless they are start nodes.
+     * @param from the indices of the start nodes
+     * @param stops the indices of the stop nodes, or <code>null</code> if none
+     * @param filter the sorts of edges to be passed, or <code>null</code> if any edge can be passed
+     * @param passed the set that stores the indices of the passed edges, or <code>null</code> if not needed
+     * @param track the set that stores the indices of the passed nodes
+     */
+    public void walkForward(BitSet from, BitSet stops, Set<GraphEdgeSort> filter, BitSet passed, BitSet track) {
+        walk(from, stops, filter, passed, track, outOffsets, outTargets, outEdges);
+    }
+    
+    /**
+     * Walks backward from given nodes and collects the indices of the passed nodes.
+     * A stop node is collected but the walk does not go beyond it unless it is a start node.
+     * @param from the indices of the start nodes
+     * @param stops the indices of the stop nodes, or <code>null</code> if none
+     * @param filter the sorts of edges to be passed, or <code>null</code> if any edge can be passed
+     * @param passed the set that stores the indices of the passed edges, or <code>null</code> if not needed
+     * @return the indices of the passed nodes
+     */
+    public BitSet walkBackward(BitSet from, BitSet stops, Set<GraphEdgeSort> filter, BitSet passed) {
+        BitSet track = new BitSet(nodes.length);
+        walkBackward(from, stops, filter, passed, track);
+        return track;
+    }
+    
+    /**
+     * Walks backward from given nodes and adds the indices of the passed nodes to a given set.
+     * Nodes already contained in the set are not walked again unless they are start nodes.
+     * @param from the indices of the start nodes
+     * @param stops the indices of the stop nodes, or <code>null</code> if none
+     * @param filter the sorts of edges to be passed, or <code>null</code> if any edge can be passed
+     * @param passed the set that stores the indices of the passed edges, or <code>null</code> if not needed
+     * @param track the set that stores the indices of the passed nodes
+     */
+    public void walkBackward(BitSet from, BitSet stops, Set<GraphEdgeSort> filter, BitSet passed, BitSet track) {
+        walk(from, stops, filter, passed, track, inOffsets, inSources, inEdges);
+    }
+    
+    /**
+     * Tests if a node is reachable from another node by searching forward and backward alternately.
+     * The search expands the smaller frontier level by level and stops as soon as the two searches meet
+     * or either of them runs out of nodes.
+     * @param from the index of the start node
+     * @param to the index of the goal node
+     * @param filter the sorts of edges to be passed, or <code>null</code> if any edge can be passed
+     * @return <code>true</code> if the goal node is reachable from the start node, otherwise <code>false</code>
+     */
+    public boolean isReachable(int from, int to, Set<GraphEdgeSort> filter) {
+        if (from == to) {
+            return true;
+        }
+        
+        boolean[] accepts = getAcceptedSorts(filter);
+        BitSet forward = new BitSet(nodes.length);
+        BitSet backward = new BitSet(nodes.length);
+        int[] forwardFrontier = new int[nodes.length];
+        int[] backwardFrontier = new int[nodes.length];
+        int[] next = new int[nodes.length];
+        forwardFrontier[0] = from;
+        backwardFrontier[0] = to;
+        int forwardCount = 1;
+        int backwardCount = 1;
+        forward.set(from);
+        backward.set(to);
+        
+        while (forwardCount > 0 && backwardCount > 0) {
+            int[] frontier;
+            if (forwardCount <= backwardCount) {
+                forwardCount = expand(forwardFrontier, forwardCount, next, forward, backward, accepts, outOffsets, outTargets, outEdges);
+                frontier = forwardFrontier;
+                forwardFrontier = next;
+            } else {
+                backwardCount = expand(backwardFrontier, backwardCount, next, backward, forward, accepts, inOffsets, inSources, inEdges);
+                frontier = backwardFrontier;
+                backwardFrontier = next;
+            }
+            if (forwardCount == -1 || backwardCount == -1) {
+                return true;
+            }
+            next = frontier;
+        }
+        return false;
+    }
+    
+    /**
+     * Expands a frontier of a search by one level in one direction.
+     * @param frontier the indices of the nodes in the frontier
+     * @param size the number of the nodes in the frontier
+     * @param next the array that stores the indices of the nodes in the next frontier
+     * @param track the indices of the nodes visited by this search
+     * @param other the indices of the nodes visited by the search in the opposite direction
+     * @param accepts the table of the sorts of edges to be passed, or <code>null</code> if any edge can be passed
+     * @param offsets the offsets of the direction
+     * @param targets the indices of the adjacent nodes of the direction
+     * @param ids the indices of the edges of the direction
+     * @return the number of the nodes in the next frontier, or <code>-1</code> if the two searches meet
+     */
+    private int expand(int[] frontier, int size, int[] next, BitSet track, BitSet other, boolean[] accepts,
+            int[] offsets, int[] targets, int[] ids) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int v = frontier[i];
+            for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                int e = ids[k];
+                if (accepts == null || (sorts[e] != -1 && accepts[sorts[e]])) {
+                    int w = targets[k];
+                    if (other.get(w)) {
+                        return -1;
+                    }
+                    if (!track.get(w)) {
+                        track.set(w);
+                        next[count++] = w;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Walks on this graph with an explicit stack in one direction.
+     * @param from the indices of the start nodes
+     * @param stops the indices of the stop nodes, or <code>null</code> if none
+     * @param filter the sorts of edges to be passed, or <code>null</code> if any edge can be passed
+     * @param passed the set that stores the indices of the passed edges, or <code>null</code> if not needed
+     * @param track the set that stores the indices of the passed nodes
+     * @param offsets the offsets of the direction
+     * @param targets the indices of the adjacent nodes of the direction
+     * @param ids the indices of the edges of the direction
+     */
+    private void walk(BitSet from, BitSet stops, Set<GraphEdgeSort> filter, BitSet passed, BitSet track,
+            int[] offsets, int[] targets, int[] ids) {
+        boolean[] accepts = getAcceptedSorts(filter);
+        int[] stack = new int[nodes.length];
+        int top = 0;
+        for (int v = from.nextSetBit(0); v >= 0; v = from.nextSetBit(v + 1)) {
+            track.set(v);
+            stack[top++] = v;
+        }
+        
+        while (top > 0) {
+            int v = stack[--top];
+            for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                int e = ids[k];
+                if (accepts == null || (sorts[e] != -1 && accepts[sorts[e]])) {
+                    if (passed != null) {
+                        passed.set(e);
+                    }
+                    int w = targets[k];
+                    if (!track.get(w)) {
+                        track.set(w);
+                        if (stops == null || !stops.get(w)) {
+                            stack[top++] = w;
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Converts the sorts of edges to be passed into a table indexed by their ordinal numbers.
+     * @param filter the sorts of edges, or <code>null</code> if any edge can be passed
+     * @return the table, or <code>null</code> if any edge can be passed
+     */
+    private boolean[] getAcceptedSorts(Set<GraphEdgeSort> filter) {
+        if (filter == null) {
+            return null;
+        }
+        boolean[] accepts = new boolean[GraphEdgeSort.values().length];
+        for (GraphEdgeSort sort : filter) {
+            accepts[sort.ordinal()] = true;
+        }
+        return accepts;
+    }
+}
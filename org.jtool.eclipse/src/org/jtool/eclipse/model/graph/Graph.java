@@ -20,6 +20,16 @@ public class Graph<N extends GraphNode, E extends GraphEdge> {
      */
     private GraphElementSet<E> edges = new GraphElementSet<E>();
     
+    /**
+     * The frozen view of this graph kept for later queries, which is discarded when this graph is changed.
+     */
+    private FrozenGraph<N, E> frozenView = null;
+    
+    /**
+     * The number of changes of the nodes and edges of this graph when the kept view was frozen.
+     */
+    private long frozenStamp = -1;
+    
     /**
      * Creates a new, empty object.
      */
@@ -33,6 +43,7 @@ public class Graph<N extends GraphNode, E extends GraphEdge> {
      */
     public void setNodes(GraphElementSet<N> set) {
         nodes = set;
+        frozenView = null;
     }
     
     /**
@@ -49,6 +60,7 @@ public class Graph<N extends GraphNode, E extends GraphEdge> {
      */
     public void setEdges(GraphElementSet<E> set) {
         edges = set;
+        frozenView = null;
     }
     
     /**
@@ -124,6 +136,46 @@ public class Graph<N extends GraphNode, E extends GraphEdge> {
         return edges.contains(edge);
     }
     
+    /**
+     * Freezes this graph into an immutable view in the compressed sparse row form.
+     * The view is kept and returned again until this graph is changed.
+     * @return the frozen view of this graph
+     */
+    public synchronized FrozenGraph<N, E> freeze() {
+        long stamp = nodes.getModCount() + edges.getModCount();
+        if (frozenView == null || frozenStamp != stamp) {
+            frozenView = new FrozenGraph<N, E>(this);
+            frozenStamp = stamp;
+        }
+        return frozenView;
+    }
+    
+    /**
+     * Freezes this graph into an immutable view in the compressed sparse row form, and optionally makes its nodes
+     * release the collections of their adjacency so that the view is the only copy of the adjacency.
+     * A released node answers its adjacency from the view and creates its own collections again when it is changed.
+     * Releasing suits a graph that is built once and then only queried, such as an SDG after its summary edges are extracted.
+     * @param release <code>true</code> if the nodes release their adjacency, otherwise <code>false</code>
+     * @return the frozen view of this graph
+     */
+    public FrozenGraph<N, E> freeze(boolean release) {
+        FrozenGraph<N, E> view = freeze();
+        if (release) {
+            view.release();
+        }
+        return view;
+    }
+    
+    /**
+     * Returns the index answering whether a node of this graph is reachable from another node.
+     * The index is built lazily on a frozen view of this graph and is built again after this graph is changed.
+     * It follows any edge regardless of its sort, so that it does not take calling contexts into account.
+     * @return the index of the current nodes and edges of this graph
+     */
+    public ReachabilityIndex<N, E> getReachabilityIndex() {
+        return freeze().getReachabilityIndex();
+    }
+    
     /**
      * Tests if this graph equals to a given graph.
      * @param obj the graph to be checked.
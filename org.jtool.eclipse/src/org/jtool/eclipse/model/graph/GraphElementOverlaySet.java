@@ -0,0 +1,304 @@
+/*
+ *  Copyright 2014, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of <code>GraphElement</code> that overlays the sets of other graphs without copying their elements.
+ * The member sets are referenced as they are, so that elements added to them later are also visible through this set.
+ * Elements added to this set directly are stored in this set itself unless a member set already contains them.
+ * The member sets are expected to be disjoint.
+ * @author Katsuhisa Maruyama
+ */
+public class GraphElementOverlaySet<E extends GraphElement> extends GraphElementSet<E> {
+    
+    /**
+     * The member sets overlaid by this set.
+     */
+    private List<GraphElementSet<E>> members = new ArrayList<GraphElementSet<E>>();
+    
+    /**
+     * An index that maps the identification numbers of the elements of the member sets to the member sets containing them.
+     * The member sets keep the index up to date when their elements are added or removed.
+     */
+    private Map<Long, GraphElementSet<E>> memberIndex = new HashMap<Long, GraphElementSet<E>>();
+    
+    /**
+     * Creates a new, empty set.
+     */
+    public GraphElementOverlaySet() {
+        super();
+    }
+    
+    /**
+     * Adds a member set overlaid by this set.
+     * The same member set must not be added more than once.
+     * @param s the member set
+     */
+    public void addMember(GraphElementSet<E> s) {
+        members.add(s);
+        for (E e : s) {
+            memberIndex.put(e.getId(), s);
+        }
+        s.addOverlay(this);
+        addModCount(1);
+    }
+    
+    /**
+     * Records an element added to a member set.
+     * @param m the member set
+     * @param elem the added element
+     */
+    void memberAdded(GraphElementSet<E> m, E elem) {
+        memberIndex.put(elem.getId(), m);
+    }
+    
+    /**
+     * Forgets an element removed from a member set.
+     * @param m the member set
+     * @param elem the removed element
+     */
+    void memberRemoved(GraphElementSet<E> m, E elem) {
+        if (memberIndex.get(elem.getId()) == m) {
+            memberIndex.remove(elem.getId());
+        }
+    }
+    
+    /**
+     * Returns the member sets overlaid by this set.
+     * @return the collection of the member sets
+     */
+    public List<GraphElementSet<E>> getMembers() {
+        return members;
+    }
+    
+    /**
+     * Finds the member set that might contain a given element.
+     * The default implementation tests all the member sets, and subclasses can find the member set directly from the element.
+     * @param elem the element
+     * @return the found member set, or <code>null</code> if no member set contains the element
+     */
+    protected GraphElementSet<E> findMember(E elem) {
+        for (GraphElementSet<E> m : members) {
+            if (m.contains(elem)) {
+                return m;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Removes all graph elements stored in this set itself and detaches all the member sets, leaving their elements intact.
+     */
+    public void clear() {
+        for (GraphElementSet<E> m : members) {
+            addModCount(m.getModCount());
+            m.removeOverlay(this);
+        }
+        super.clear();
+        members.clear();
+        memberIndex.clear();
+    }
+    
+    /**
+     * Removes a given graph element from this set or the member set containing it.
+     * @param elem the graph element to be removed
+     * @return <code>true</code> if this set contained the removed graph element, otherwise <code>false</code>
+     */
+    public boolean remove(E elem) {
+        if (super.remove(elem)) {
+            return true;
+        }
+        if (elem != null) {
+            GraphElementSet<E> m = findMember(elem);
+            if (m != null) {
+                return m.remove(elem);
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Tests if this set or one of the member sets contains a graph element.
+     * @param elem the graph element to be checked
+     * @return <code>true</code> if the graph element is contained, otherwise <code>false</code>
+     */
+    public boolean contains(E elem) {
+        if (super.contains(elem)) {
+            return true;
+        }
+        GraphElementSet<E> m = findMember(elem);
+        return m != null && m.contains(elem);
+    }
+    
+    /**
+     * Returns the number of changes of this set and all the member sets.
+     * @return the number of the changes
+     */
+    public long getModCount() {
+        long count = super.getModCount();
+        for (GraphElementSet<E> m : members) {
+            count = count + m.getModCount();
+        }
+        return count;
+    }
+    
+    /**
+     * Tests if this set and all the member sets contain no graph element.
+     * @return <code>true</code> if no graph element is contained, otherwise <code>false</code>
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+    
+    /**
+     * Returns the number of graph elements in this set and all the member sets.
+     * @return the number of the graph elements
+     */
+    public int size() {
+        int size = super.size();
+        for (GraphElementSet<E> m : members) {
+            size = size + m.size();
+        }
+        return size;
+    }
+    
+    /**
+     * Returns the iterator that visits the elements of the member sets in order and then the elements stored in this set itself.
+     * @return the iterator of this set
+     */
+    public Iterator<E> iterator() {
+        final List<Iterator<E>> its = new ArrayList<Iterator<E>>(members.size() + 1);
+        for (GraphElementSet<E> m : members) {
+            its.add(m.iterator());
+        }
+        its.add(super.iterator());
+        
+        return new Iterator<E>() {
+            
+            private int pos = 0;
+            
+            private Iterator<E> last = null;
+            
+            public boolean hasNext() {
+                while (pos < its.size()) {
+                    if (its.get(pos).hasNext()) {
+                        return true;
+                    }
+                    pos++;
+                }
+                return false;
+            }
+            
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                last = its.get(pos);
+                return last.next();
+            }
+            
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                last.remove();
+            }
+        };
+    }
+    
+    /**
+     * Returns one graph element in this set.
+     * @return the first graph element of this set, or <code>null</code> if there is no element in this set
+     */
+    public E getFirst() {
+        Iterator<E> it = iterator();
+        if (it.hasNext()) {
+            return it.next();
+        }
+        return null;
+    }
+    
+    /**
+     * Returns the element with a given identification number.
+     * The member set containing the element is found from the index, so the lookup does not depend on the number of the member sets.
+     * @param id the identification number of the element to be retrieved
+     * @return the found element, or <code>null</code> if none
+     */
+    public E get(long id) {
+        E elem = super.get(id);
+        if (elem != null) {
+            return elem;
+        }
+        GraphElementSet<E> m = memberIndex.get(id);
+        if (m != null) {
+            return m.get(id);
+        }
+        return null;
+    }
+    
+    /**
+     * Tests if this set is equals to a given set.
+     * @param set a set to be tested.
+     * @return <code>true</code> if both the sets are equal, otherwise <code>false</code>.
+     */
+    public boolean equals(GraphElementSet<E> s) {
+        if (size() != s.size()) {
+            return false;
+        }
+        for (E e : s) {
+            if (!contains(e)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Returns an array containing all graph elements in this set in proper sequence.
+     * @return the array of graph elements.
+     */
+    public GraphElement[] toArray() {
+        GraphElement[] elems = new GraphElement[size()];
+        int i = 0;
+        for (E e : this) {
+            elems[i++] = e;
+        }
+        return elems;
+    }
+    
+    /**
+     * Displays information about this set.
+     */
+    public void print() {
+        for (E e : this) {
+            e.print();
+        }
+    }
+    
+    /**
+     * Collects information about this set for printing.
+     * @return the string for printing
+     */
+    public String toString() {
+        StringBuffer buf = new StringBuffer();
+        for (E e : this) {
+            buf.append(e.getId());
+            buf.append(", ");
+        }
+        
+        if (buf.length() != 0) {
+            return buf.substring(0, buf.length() - 2);
+        } else {
+            return "";
+        }
+    }
+}
@@ -4,21 +4,40 @@
 
 package org.jtool.eclipse.model.graph;
 
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.LinkedHashMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Iterator;
 
 /**
  * A set of <code>GraphElement</code>.
- * The implementation uses the <code>java.util.LinkedHashSet</code> class to maintain the insertion-order.
+ * The implementation uses the <code>java.util.LinkedHashMap</code> class to maintain the insertion-order,
+ * and indexes the stored elements by their identification numbers so that membership tests and lookups run in constant time.
  * @author Katsuhsa Maruyama
  */
 public class GraphElementSet<E extends GraphElement> implements Iterable<E> {
     
     /**
-     * A set of the stored elements.
+     * A set of the stored elements, each of which is mapped to itself.
      */
-    private Set<E> set = new LinkedHashSet<E>();
+    private Map<E, E> set = new LinkedHashMap<E, E>();
+    
+    /**
+     * An index that maps identification numbers to the stored elements.
+     */
+    private Map<Long, E> index = new HashMap<Long, E>();
+    
+    /**
+     * The number of changes of this set, which is used to detect that views built from this set are stale.
+     */
+    private long modCount = 0;
+    
+    /**
+     * The overlay sets that have this set as a member and index its elements, or <code>null</code> if none.
+     */
+    private List<GraphElementOverlaySet<E>> overlays = null;
     
     /**
      * Creates a new, empty set.
@@ -38,7 +57,14 @@ public class GraphElementSet<E extends GraphElement> implements Iterable<E> {
      * Removes all graph elements of this set.
      */
     public void clear() {
+        if (overlays != null) {
+            for (E e : set.keySet()) {
+                notifyRemoved(e);
+            }
+        }
         set.clear();
+        index.clear();
+        modCount++;
     }
     
     /**
@@ -47,8 +73,15 @@ public class GraphElementSet<E extends GraphElement> implements Iterable<E> {
      * @return <code>true</code> if this set changed, otherwise <code>false</code>
      */
     public boolean add(E elem) {
-        if (!contains(elem)) {
-            set.add(elem);
+        if (!contains(elem) && !set.containsKey(elem)) {
+            set.put(elem, elem);
+            index.put(elem.getId(), elem);
+            modCount++;
+            if (overlays != null) {
+                for (GraphElementOverlaySet<E> overlay : overlays) {
+                    overlay.memberAdded(this, elem);
+                }
+            }
             return true;
         }
         return false;
@@ -61,7 +94,15 @@ public class GraphElementSet<E extends GraphElement> implements Iterable<E> {
      */
     public boolean remove(E elem) {
         if (elem != null) {
-            return set.remove(elem);
+            E e = set.remove(elem);
+            if (e != null) {
+                if (index.get(e.getId()) == e) {
+                    index.remove(e.getId());
+                }
+                modCount++;
+                notifyRemoved(e);
+                return true;
+            }
         }
         return false;
     }
@@ -72,7 +113,7 @@ public class GraphElementSet<E extends GraphElement> implements Iterable<E> {
      */
     public void addAll(GraphElementSet<E> s) {
         for (E e : s) {
-            set.add(e);
+            add(e);
         }
     }
     
@@ -91,12 +132,7 @@ public class GraphElementSet<E extends GraphElement> implements Iterable<E> {
      * @return <code>true</code> if this set contains the graph element, otherwise <code>false</code>
      */
     public boolean contains(E elem) {
-        for (E e : set) {
-            if (elem.equals(e)) {
-                return true;
-            }
-        }
-        return false;
+        return index.containsKey(elem.getId());
     }
     
     /**
@@ -120,7 +156,82 @@ public class GraphElementSet<E extends GraphElement> implements Iterable<E> {
      * @return the iterator of this set
      */
     public Iterator<E> iterator() {
-        return set.iterator();
+        final Iterator<E> it = set.keySet().iterator();
+        return new Iterator<E>() {
+            
+            private E current = null;
+            
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+            
+            public E next() {
+                current = it.next();
+                return current;
+            }
+            
+            public void remove() {
+                it.remove();
+                if (index.get(current.getId()) == current) {
+                    index.remove(current.getId());
+                }
+                modCount++;
+                notifyRemoved(current);
+            }
+        };
+    }
+    
+    /**
+     * Registers an overlay set that has this set as a member, which is notified of the elements added to or removed from this set.
+     * @param overlay the overlay set
+     */
+    void addOverlay(GraphElementOverlaySet<E> overlay) {
+        if (overlays == null) {
+            overlays = new ArrayList<GraphElementOverlaySet<E>>(1);
+        }
+        overlays.add(overlay);
+    }
+    
+    /**
+     * Unregisters an overlay set that no longer has this set as a member.
+     * @param overlay the overlay set
+     */
+    void removeOverlay(GraphElementOverlaySet<E> overlay) {
+        if (overlays != null) {
+            overlays.remove(overlay);
+            if (overlays.isEmpty()) {
+                overlays = null;
+            }
+        }
+    }
+    
+    /**
+     * Notifies the overlay sets having this set as a member that an element has been removed from this set.
+     * @param elem the removed element
+     */
+    private void notifyRemoved(E elem) {
+        if (overlays != null) {
+            for (GraphElementOverlaySet<E> overlay : overlays) {
+                overlay.memberRemoved(this, elem);
+            }
+        }
+    }
+    
+    /**
+     * Returns the number of changes of this set.
+     * The number increases whenever a graph element is added to or removed from this set.
+     * @return the number of the changes
+     */
+    public long getModCount() {
+        return modCount;
+    }
+    
+    /**
+     * Increases the number of changes of this set by a given number.
+     * @param count the number of the changes
+     */
+    protected void addModCount(long count) {
+        modCount = modCount + count;
     }
     
     /**
@@ -140,12 +251,7 @@ public class GraphElementSet<E extends GraphElement> implements Iterable<E> {
      * @return the found element, or <code>null</code> if none 
      */
     public E get(long id) {
-        for (E e : set) {
-            if (e.getId() == id) {
-                return e;
-            }
-        }
-        return null;
+        return index.get(id);
     }
     
     /**
@@ -228,7 +334,7 @@ public class GraphElementSet<E extends GraphElement> implements Iterable<E> {
     public GraphElement[] toArray() {
         GraphElement[] elems = new GraphElement[set.size()];
         int i = 0;
-        for (E e : set) {
+        for (E e : set.keySet()) {
             elems[i++] = e;
         }
         return elems;
@@ -238,7 +344,7 @@ public class GraphElementSet<E extends GraphElement> implements Iterable<E> {
      * Displays information about this set.
      */
     public void print() {
-        for (E e : set) {
+        for (E e : set.keySet()) {
             e.print();
         }
     }
@@ -249,7 +355,7 @@ public class GraphElementSet<E extends GraphElement> implements Iterable<E> {
      */
     public String toString() {
         StringBuffer buf = new StringBuffer();
-        for (E e : set) {
+        for (E e : set.keySet()) {
             buf.append(e.getId());
             buf.append(", ");
         }
@@ -26,4 +26,13 @@ public class GraphException extends Exception {
     public GraphException(String mesg) {
         super(mesg);
     }
+    
+    /**
+     * Creates a new exception with a specified message and cause.
+     * @param mesg A detail message.
+     * @param cause The cause of this exception.
+     */
+    public GraphException(String mesg, Throwable cause) {
+        super(mesg, cause);
+    }
 }
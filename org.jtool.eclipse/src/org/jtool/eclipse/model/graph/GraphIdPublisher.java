@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2014, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.graph;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the identification numbers of graph nodes and edges within an analysis session.
+ * The numbers of nodes and those of edges are respectively published from <code>1</code> without gaps,
+ * so that they can be used as indices of arrays and bit sets sized by <code>getNodeCount()</code> and <code>getEdgeCount()</code>.
+ * A publisher is safe to be shared by threads that construct graphs concurrently.
+ * Each thread publishes the numbers through the publisher bound to it, or through the default one if none is bound.
+ * @author Katsuhisa Maruyama
+ */
+public class GraphIdPublisher {
+    
+    /**
+     * The publisher used by threads to which no publisher is bound.
+     */
+    private static final GraphIdPublisher defaultPublisher = new GraphIdPublisher();
+    
+    /**
+     * The publisher bound to the current thread.
+     */
+    private static final ThreadLocal<GraphIdPublisher> currentPublisher = new ThreadLocal<GraphIdPublisher>();
+    
+    /**
+     * The identification number of a node published last.
+     */
+    private final AtomicLong nodeId = new AtomicLong(0);
+    
+    /**
+     * The identification number of an edge published last.
+     */
+    private final AtomicLong edgeId = new AtomicLong(0);
+    
+    /**
+     * Creates a new publisher for an analysis session.
+     */
+    public GraphIdPublisher() {
+    }
+    
+    /**
+     * Returns the publisher used by the current thread.
+     * @return the publisher bound to the current thread, or the default publisher if none is bound
+     */
+    public static GraphIdPublisher getCurrent() {
+        GraphIdPublisher publisher = currentPublisher.get();
+        if (publisher == null) {
+            return defaultPublisher;
+        }
+        return publisher;
+    }
+    
+    /**
+     * Binds a publisher to the current thread.
+     * @param publisher the publisher to be bound, or <code>null</code> if the default publisher is used
+     */
+    public static void setCurrent(GraphIdPublisher publisher) {
+        if (publisher == null) {
+            currentPublisher.remove();
+        } else {
+            currentPublisher.set(publisher);
+        }
+    }
+    
+    /**
+     * Publishes a new identification number of a node.
+     * @return the identification number
+     */
+    public long getNodeId() {
+        return nodeId.incrementAndGet();
+    }
+    
+    /**
+     * Publishes a new identification number of an edge.
+     * @return the identification number
+     */
+    public long getEdgeId() {
+        return edgeId.incrementAndGet();
+    }
+    
+    /**
+     * Returns the number of the identification numbers of nodes published so far.
+     * @return the largest identification number of the nodes
+     */
+    public long getNodeCount() {
+        return nodeId.get();
+    }
+    
+    /**
+     * Returns the number of the identification numbers of edges published so far.
+     * @return the largest identification number of the edges
+     */
+    public long getEdgeCount() {
+        return edgeId.get();
+    }
+    
+    /**
+     * Resets the identification number of nodes.
+     * This must not be called while graphs are being constructed with this publisher.
+     */
+    public void resetNodeId() {
+        nodeId.set(0);
+    }
+    
+    /**
+     * Resets the identification number of edges.
+     * This must not be called while graphs are being constructed with this publisher.
+     */
+    public void resetEdgeId() {
+        edgeId.set(0);
+    }
+}
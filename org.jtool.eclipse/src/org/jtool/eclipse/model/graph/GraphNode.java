@@ -40,6 +40,17 @@ public class GraphNode extends GraphElement {
      */
     private GraphElementSet<GraphNode> dstNodes = new GraphElementSet<GraphNode>();
     
+    /**
+     * The frozen view holding the adjacency of this node after this node has released its own collections,
+     * or <code>null</code> if this node holds them.
+     */
+    private FrozenGraph<?, ?> frozenView = null;
+    
+    /**
+     * The index of this node in the frozen view holding its adjacency.
+     */
+    private int frozenIndex = -1;
+    
     /**
      * Creates a new, empty node.
      */
@@ -108,6 +119,7 @@ public class GraphNode extends GraphElement {
      * Clears the contents of caches related to this node. 
      */
     public void clear() {
+        restore();
         incomingEdges.clear();
         outgoingEdges.clear();
         srcNodes.clear();
@@ -149,6 +161,7 @@ public class GraphNode extends GraphElement {
      * @param edge the incoming edge to be added
      */
     public void addIncomingEdge(GraphEdge edge) {
+        restore();
         if (incomingEdges.add(edge)) {
             srcNodes.add(edge.getSrcNode());
         }
@@ -159,6 +172,7 @@ public class GraphNode extends GraphElement {
      * @param edge the outgoing edge to be added
      */
     public void addOutgoingEdge(GraphEdge edge) {
+        restore();
         if (outgoingEdges.add(edge)) {
             dstNodes.add(edge.getDstNode());
         }
@@ -189,6 +203,7 @@ public class GraphNode extends GraphElement {
      * @param edge the incoming edge to be removed
      */
     public void removeIncomingEdge(GraphEdge edge) {
+        restore();
         incomingEdges.remove(edge);
         srcNodes.remove(edge.getSrcNode());
     }
@@ -198,6 +213,7 @@ public class GraphNode extends GraphElement {
      * @param edge the outgoing edge to be removed
      */
     public void removeOutgoingEdge(GraphEdge edge) {
+        restore();
         outgoingEdges.remove(edge);
         dstNodes.remove(edge.getDstNode());
     }
@@ -206,6 +222,7 @@ public class GraphNode extends GraphElement {
      * Clears the cache storing incoming edges.
      */
     public void clearIncomingEdges() {
+        restore();
         incomingEdges.clear();
     }
     
@@ -213,6 +230,7 @@ public class GraphNode extends GraphElement {
      * Clears the cache storing outgoing edges. 
      */
     public void clearOutgoingEdges() {
+        restore();
         outgoingEdges.clear();
     }
     
@@ -221,6 +239,7 @@ public class GraphNode extends GraphElement {
      * @param edges the collection of incoming edges
      */
     public void setIncomingEdges(GraphElementSet<GraphEdge> edges) {
+        restore();
         incomingEdges = edges;
     }
     
@@ -229,6 +248,7 @@ public class GraphNode extends GraphElement {
      * @param edges the collection of outgoing edges
      */
     public void setOutgoingEdges(GraphElementSet<GraphEdge> edges) {
+        restore();
         outgoingEdges = edges;
     }
     
@@ -237,6 +257,10 @@ public class GraphNode extends GraphElement {
      * @return the collection of the incoming edges
      */
     public GraphElementSet<GraphEdge> getIncomingEdges() {
+        FrozenGraph<?, ?> view = frozenView;
+        if (view != null) {
+            return view.getIncomingEdges(frozenIndex);
+        }
         return incomingEdges;
     }
     
@@ -245,6 +269,10 @@ public class GraphNode extends GraphElement {
      * @return the collection of the outgoing edges
      */
     public GraphElementSet<GraphEdge> getOutgoingEdges() {
+        FrozenGraph<?, ?> view = frozenView;
+        if (view != null) {
+            return view.getOutgoingEdges(frozenIndex);
+        }
         return outgoingEdges;
     }
     
@@ -253,6 +281,10 @@ public class GraphNode extends GraphElement {
      * @return the collection of the source nodes
      */
     public GraphElementSet<GraphNode> getSrcNodes() {
+        FrozenGraph<?, ?> view = frozenView;
+        if (view != null) {
+            return view.getSrcNodes(frozenIndex);
+        }
         return srcNodes;
     }
     
@@ -261,9 +293,61 @@ public class GraphNode extends GraphElement {
      * @return The collection of destination nodes
      */
     public GraphElementSet<GraphNode> getDstNodes() {
+        FrozenGraph<?, ?> view = frozenView;
+        if (view != null) {
+            return view.getDstNodes(frozenIndex);
+        }
         return dstNodes;
     }
     
+    /**
+     * Releases the collections of the adjacency of this node and leaves the adjacency to a given frozen view.
+     * The adjacency is released only if the view holds the same edges and nodes as the collections of this node.
+     * After the release, the collections returned by this node are created from the view on every call,
+     * and this node creates its own collections again when its adjacency is changed.
+     * @param view the frozen view containing this node
+     * @param index the index of this node in the view
+     * @return <code>true</code> if the adjacency has been released, otherwise <code>false</code>
+     */
+    boolean release(FrozenGraph<?, ?> view, int index) {
+        if (getIncomingEdges().equals(view.getIncomingEdges(index)) &&
+            getOutgoingEdges().equals(view.getOutgoingEdges(index)) &&
+            getSrcNodes().equals(view.getSrcNodes(index)) &&
+            getDstNodes().equals(view.getDstNodes(index))) {
+            incomingEdges = null;
+            outgoingEdges = null;
+            srcNodes = null;
+            dstNodes = null;
+            frozenView = view;
+            frozenIndex = index;
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Tests if this node has released the collections of its adjacency to a frozen view.
+     * @return <code>true</code> if the adjacency has been released, otherwise <code>false</code>
+     */
+    public boolean isReleased() {
+        return frozenView != null;
+    }
+    
+    /**
+     * Creates the collections of the adjacency of this node again from the frozen view to which they have been released.
+     */
+    private void restore() {
+        FrozenGraph<?, ?> view = frozenView;
+        if (view != null) {
+            incomingEdges = view.getIncomingEdges(frozenIndex);
+            outgoingEdges = view.getOutgoingEdges(frozenIndex);
+            srcNodes = view.getSrcNodes(frozenIndex);
+            dstNodes = view.getDstNodes(frozenIndex);
+            frozenView = null;
+            frozenIndex = -1;
+        }
+    }
+    
     /**
      * Creates a clone of this node.
      * @return the clone of this node
@@ -6,27 +6,24 @@ package org.jtool.eclipse.model.graph;
 
 /**
  * Generates and manages the identification numbers for graph elements.
+ * The numbers are published by the publisher used by the current thread.
+ * @see org.jtool.eclipse.model.graph.GraphIdPublisher
  * @author Katsuhisa Maruyama
  */
 public class GraphNodeIdPublisher {
     
-    /**
-     * The identification number.
-     */
-    private static long id = 1;
-    
     /**
      * Increments the identification number and return it.
      * @return the identification number
      */
     public static long getId() {
-        return id++;
+        return GraphIdPublisher.getCurrent().getNodeId();
     }
     
     /**
      * Resets the identification number.
      */
     public static void reset() {
-        id = 1;
+        GraphIdPublisher.getCurrent().resetNodeId();
     }
 }
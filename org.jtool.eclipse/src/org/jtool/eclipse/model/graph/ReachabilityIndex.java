@@ -0,0 +1,327 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.graph;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * An index that answers whether a node is reachable from another node of a frozen graph.
+ * The strongly connected components of the graph are condensed into an acyclic graph, and each component is labeled
+ * with intervals of post-order numbers in the manner of GRAIL. The interval of a depth-first spanning forest proves
+ * reachability along the forest, and intervals of two traversals visiting children in opposite orders disprove reachability
+ * when the interval of the goal is not contained in that of the start. Only queries decided by neither of them fall back to
+ * a depth-first search on the condensed graph, which skips components whose intervals cannot contain the goal.
+ * The index is immutable and can be queried concurrently.
+ * Reachability is decided on all the edges regardless of their sorts. On a graph whose paths must match calls and returns,
+ * such as an SDG, a path found by this index may enter a method from one call site and leave it to another, so that
+ * <code>true</code> is an over-approximation there while <code>false</code> is still exact.
+ * @author Katsuhisa Maruyama
+ */
+public class ReachabilityIndex<N extends GraphNode, E extends GraphEdge> {
+    
+    /**
+     * The frozen graph indexed by this object.
+     */
+    private FrozenGraph<N, E> graph;
+    
+    /**
+     * The numbers of the components containing respective nodes.
+     */
+    private int[] components;
+    
+    /**
+     * The offsets into the successors of respective components in the condensed graph.
+     */
+    private int[] succOffsets;
+    
+    /**
+     * The successors of the components in the condensed graph, which are grouped by their predecessors.
+     */
+    private int[] succTargets;
+    
+    /**
+     * The post-order numbers of the components in the first traversal, which also spans a depth-first forest.
+     */
+    private int[] posts;
+    
+    /**
+     * The smallest post-order numbers of the components reachable from respective components in the first traversal.
+     */
+    private int[] lows;
+    
+    /**
+     * The smallest post-order numbers of the components in the subtrees of the depth-first forest of the first traversal.
+     */
+    private int[] treeLows;
+    
+    /**
+     * The post-order numbers of the components in the second traversal.
+     */
+    private int[] reversePosts;
+    
+    /**
+     * The smallest post-order numbers of the components reachable from respective components in the second traversal.
+     */
+    private int[] reverseLows;
+    
+    /**
+     * Creates an index of a given frozen graph.
+     * @param graph the frozen graph
+     */
+    public ReachabilityIndex(FrozenGraph<N, E> graph) {
+        this.graph = graph;
+        
+        int count = computeComponents();
+        connectComponents(count);
+        
+        posts = new int[count];
+        lows = new int[count];
+        treeLows = new int[count];
+        label(false, posts, lows, treeLows);
+        
+        reversePosts = new int[count];
+        reverseLows = new int[count];
+        label(true, reversePosts, reverseLows, null);
+    }
+    
+    /**
+     * Returns the frozen graph indexed by this object.
+     * @return the frozen graph
+     */
+    public FrozenGraph<N, E> getGraph() {
+        return graph;
+    }
+    
+    /**
+     * Tests if a node is reachable from another node.
+     * @param from the start node
+     * @param to the goal node
+     * @return <code>true</code> if the goal node is reachable from the start node, otherwise <code>false</code>
+     */
+    public boolean isReachable(GraphNode from, GraphNode to) {
+        int v = graph.getIndex(from);
+        int w = graph.getIndex(to);
+        if (v == -1 || w == -1) {
+            return false;
+        }
+        return isReachable(v, w);
+    }
+    
+    /**
+     * Tests if a node is reachable from another node.
+     * @param from the index of the start node
+     * @param to the index of the goal node
+     * @return <code>true</code> if the goal node is reachable from the start node, otherwise <code>false</code>
+     */
+    public boolean isReachable(int from, int to) {
+        int src = components[from];
+        int dst = components[to];
+        if (src == dst || inSubtree(src, dst)) {
+            return true;
+        }
+        if (!mayReach(src, dst)) {
+            return false;
+        }
+        
+        BitSet visited = new BitSet(posts.length);
+        List<Integer> stack = new ArrayList<Integer>();
+        visited.set(src);
+        stack.add(src);
+        while (!stack.isEmpty()) {
+            int c = stack.remove(stack.size() - 1);
+            for (int e = succOffsets[c]; e < succOffsets[c + 1]; e++) {
+                int d = succTargets[e];
+                if (d == dst || inSubtree(d, dst)) {
+                    return true;
+                }
+                if (!visited.get(d) && mayReach(d, dst)) {
+                    visited.set(d);
+                    stack.add(d);
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Tests if a component is in the subtree of another component in the depth-first forest.
+     * @param c the number of the root of the subtree
+     * @param d the number of the component to be tested
+     * @return <code>true</code> if the component is in the subtree, which proves its reachability, otherwise <code>false</code>
+     */
+    private boolean inSubtree(int c, int d) {
+        return treeLows[c] <= posts[d] && posts[d] <= posts[c];
+    }
+    
+    /**
+     * Tests if the intervals of a component contain those of another component.
+     * @param c the number of the start component
+     * @param d the number of the goal component
+     * @return <code>false</code> if the goal component is never reachable from the start component, otherwise <code>true</code>
+     */
+    private boolean mayReach(int c, int d) {
+        return lows[c] <= lows[d] && posts[d] <= posts[c] &&
+               reverseLows[c] <= reverseLows[d] && reversePosts[d] <= reversePosts[c];
+    }
+    
+    /**
+     * Computes the strongly connected components of the graph with Tarjan's algorithm without recursion.
+     * @return the number of the components
+     */
+    private int computeComponents() {
+        int size = graph.size();
+        components = new int[size];
+        int[] orders = new int[size];
+        int[] lowlinks = new int[size];
+        boolean[] onStack = new boolean[size];
+        int[] stack = new int[size];
+        int[] callStack = new int[size];
+        int[] next = new int[size];
+        
+        int order = 1;
+        int top = 0;
+        int count = 0;
+        for (int root = 0; root < size; root++) {
+            if (orders[root] != 0) {
+                continue;
+            }
+            
+            int depth = 0;
+            callStack[depth] = root;
+            orders[root] = lowlinks[root] = order++;
+            stack[top++] = root;
+            onStack[root] = true;
+            
+            while (depth >= 0) {
+                int v = callStack[depth];
+                if (next[v] < graph.getOutDegree(v)) {
+                    int w = graph.getSuccessor(v, next[v]++);
+                    if (orders[w] == 0) {
+                        orders[w] = lowlinks[w] = order++;
+                        stack[top++] = w;
+                        onStack[w] = true;
+                        callStack[++depth] = w;
+                    } else if (onStack[w] && orders[w] < lowlinks[v]) {
+                        lowlinks[v] = orders[w];
+                    }
+                } else {
+                    if (lowlinks[v] == orders[v]) {
+                        int w;
+                        do {
+                            w = stack[--top];
+                            onStack[w] = false;
+                            components[w] = count;
+                        } while (w != v);
+                        count++;
+                    }
+                    depth--;
+                    if (depth >= 0) {
+                        int u = callStack[depth];
+                        if (lowlinks[v] < lowlinks[u]) {
+                            lowlinks[u] = lowlinks[v];
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Builds the condensed graph whose nodes are the components.
+     * @param count the number of the components
+     */
+    private void connectComponents(int count) {
+        List<List<Integer>> members = new ArrayList<List<Integer>>();
+        for (int c = 0; c < count; c++) {
+            members.add(new ArrayList<Integer>());
+        }
+        for (int v = 0; v < graph.size(); v++) {
+            members.get(components[v]).add(v);
+        }
+        
+        succOffsets = new int[count + 1];
+        List<Integer> targets = new ArrayList<Integer>();
+        int[] marks = new int[count];
+        for (int c = 0; c < count; c++) {
+            succOffsets[c] = targets.size();
+            for (int v : members.get(c)) {
+                for (int k = 0; k < graph.getOutDegree(v); k++) {
+                    int d = components[graph.getSuccessor(v, k)];
+                    if (d != c && marks[d] != c + 1) {
+                        marks[d] = c + 1;
+                        targets.add(d);
+                    }
+                }
+            }
+        }
+        succOffsets[count] = targets.size();
+        
+        succTargets = new int[targets.size()];
+        for (int e = 0; e < succTargets.length; e++) {
+            succTargets[e] = targets.get(e);
+        }
+    }
+    
+    /**
+     * Labels the components with post-order numbers by a depth-first traversal of the condensed graph.
+     * Tarjan's algorithm numbers a component after all the components reachable from it, so that the components
+     * with larger numbers are visited as roots first.
+     * @param reverse <code>true</code> if the children are visited in reverse order, otherwise <code>false</code>
+     * @param order the array that stores the post-order numbers
+     * @param low the array that stores the smallest post-order numbers of the reachable components
+     * @param treeLow the array that stores the smallest post-order numbers of the subtrees, or <code>null</code> if not needed
+     */
+    private void label(boolean reverse, int[] order, int[] low, int[] treeLow) {
+        int count = order.length;
+        boolean[] visited = new boolean[count];
+        int[] stack = new int[count];
+        int[] next = new int[count];
+        int[] first = new int[count];
+        
+        int number = 1;
+        for (int root = count - 1; root >= 0; root--) {
+            if (visited[root]) {
+                continue;
+            }
+            
+            int top = 0;
+            stack[top] = root;
+            visited[root] = true;
+            first[root] = number;
+            low[root] = Integer.MAX_VALUE;
+            while (top >= 0) {
+                int c = stack[top];
+                int degree = succOffsets[c + 1] - succOffsets[c];
+                if (next[c] < degree) {
+                    int k = next[c]++;
+                    int d = reverse ? succTargets[succOffsets[c + 1] - 1 - k] : succTargets[succOffsets[c] + k];
+                    if (!visited[d]) {
+                        visited[d] = true;
+                        first[d] = number;
+                        low[d] = Integer.MAX_VALUE;
+                        stack[++top] = d;
+                    } else if (low[d] < low[c]) {
+                        low[c] = low[d];
+                    }
+                } else {
+                    order[c] = number++;
+                    if (order[c] < low[c]) {
+                        low[c] = order[c];
+                    }
+                    if (treeLow != null) {
+                        treeLow[c] = first[c];
+                    }
+                    top--;
+                    if (top >= 0 && low[c] < low[stack[top]]) {
+                        low[stack[top]] = low[c];
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,518 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.java;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A call graph of the methods within a project, which is built after the completion of <code>collectLevel2Info()</code>.
+ * A call to a method that can be overridden is expanded to the overriding methods found in the override table,
+ * which are restricted to the methods of instantiated classes in the rapid type analysis (RTA).
+ * Calls are stored in flat integer arrays, and the strongly connected components (SCCs) of the graph are computed
+ * when the graph is built. The components are numbered in reverse topological order, so that a component calls only
+ * components with smaller numbers.
+ * @author Katsuhisa Maruyama
+ */
+public class CallGraph {
+    
+    /**
+     * The kinds of the expansion of calls to methods that can be overridden.
+     */
+    public enum Dispatch {
+        CHA,  // Class hierarchy analysis, which takes all the overriding methods
+        RTA;  // Rapid type analysis, which takes the overriding methods of instantiated classes
+    }
+    
+    /**
+     * The methods of this graph, which are arranged in the order of their indices.
+     */
+    private List<JavaMethod> methods = new ArrayList<JavaMethod>();
+    
+    /**
+     * A map storing pairs of a method and its index.
+     */
+    private Map<JavaMethod, Integer> indices = new IdentityHashMap<JavaMethod, Integer>();
+    
+    /**
+     * The offsets into <code>outTargets</code> for respective methods.
+     */
+    private int[] outOffsets;
+    
+    /**
+     * The indices of called methods, which are grouped by their calling methods.
+     */
+    private int[] outTargets;
+    
+    /**
+     * The offsets into <code>inSources</code> for respective methods.
+     */
+    private int[] inOffsets;
+    
+    /**
+     * The indices of calling methods, which are grouped by their called methods.
+     */
+    private int[] inSources;
+    
+    /**
+     * The numbers of the components containing respective methods.
+     */
+    private int[] components;
+    
+    /**
+     * The offsets into <code>componentMembers</code> for respective components.
+     */
+    private int[] memberOffsets;
+    
+    /**
+     * The indices of methods, which are grouped by their components.
+     */
+    private int[] componentMembers;
+    
+    /**
+     * The flags indicating if respective components contain a cycle of calls.
+     */
+    private boolean[] recursive;
+    
+    /**
+     * The offsets into <code>calleeComponents</code> for respective components.
+     */
+    private int[] calleeOffsets;
+    
+    /**
+     * The numbers of the components called from respective components.
+     */
+    private int[] calleeComponents;
+    
+    /**
+     * The offsets into <code>callerComponents</code> for respective components.
+     */
+    private int[] callerOffsets;
+    
+    /**
+     * The numbers of the components calling respective components.
+     */
+    private int[] callerComponents;
+    
+    /**
+     * Creates a call graph of the methods declared in given classes.
+     * Calls to methods outside the classes are excluded.
+     * @param jclasses the collection of the classes
+     * @param dispatch the kind of the expansion of calls
+     */
+    public CallGraph(Collection<JavaClass> jclasses, Dispatch dispatch) {
+        for (JavaClass jc : jclasses) {
+            if (jc.isInProject()) {
+                for (JavaMethod jm : jc.getJavaMethods()) {
+                    indices.put(jm, methods.size());
+                    methods.add(jm);
+                }
+            }
+        }
+        
+        Set<String> instantiated = null;
+        if (dispatch == Dispatch.RTA) {
+            instantiated = collectInstantiatedClasses(jclasses);
+        }
+        
+        int size = methods.size();
+        JavaOverrideTable table = JavaClass.getTypeHierarchy().getOverrideTable();
+        List<int[]> calls = new ArrayList<int[]>();
+        int[] marks = new int[size];
+        for (int src = 0; src < size; src++) {
+            for (JavaMethod jm : methods.get(src).getCalledJavaMethods()) {
+                addCall(src, jm, calls, marks);
+                
+                if (jm.isMethod() && !jm.isStatic() && !jm.isPrivate()) {
+                    for (JavaMethod om : table.getOverridingJavaMethods(jm)) {
+                        if (instantiated == null || instantiated.contains(om.getDeclaringJavaClass().getQualifiedName())) {
+                            addCall(src, om, calls, marks);
+                        }
+                    }
+                }
+            }
+        }
+        
+        int[] srcs = new int[calls.size()];
+        int[] dsts = new int[calls.size()];
+        for (int e = 0; e < calls.size(); e++) {
+            srcs[e] = calls.get(e)[0];
+            dsts[e] = calls.get(e)[1];
+        }
+        
+        outOffsets = new int[size + 1];
+        outTargets = new int[srcs.length];
+        fill(srcs, dsts, size, outOffsets, outTargets);
+        
+        inOffsets = new int[size + 1];
+        inSources = new int[srcs.length];
+        fill(dsts, srcs, size, inOffsets, inSources);
+        
+        computeComponents();
+        connectComponents();
+    }
+    
+    /**
+     * Collects the names of classes whose instances are created within given classes.
+     * The instance creations are taken from the types of instance creation expressions rather than the called
+     * constructors, since an implicit default constructor is not found among the methods of its class.
+     * @param jclasses the collection of the classes
+     * @return the collection of the fully-qualified names of the instantiated classes
+     */
+    private Set<String> collectInstantiatedClasses(Collection<JavaClass> jclasses) {
+        Set<String> names = new HashSet<String>();
+        for (JavaClass jc : jclasses) {
+            for (JavaMethod jm : jc.getJavaMethods()) {
+                names.addAll(jm.getInstantiatedClassNames());
+            }
+            for (JavaField jf : jc.getJavaFields()) {
+                names.addAll(jf.getInstantiatedClassNames());
+            }
+        }
+        return names;
+    }
+    
+    /**
+     * Records a call if the called method is contained in this graph and the call has not been recorded yet.
+     * @param src the index of the calling method
+     * @param jm the called method
+     * @param calls the collection of the pairs of the indices of calling and called methods
+     * @param marks the indices of the calling methods plus one, which last recorded calls to respective methods
+     */
+    private void addCall(int src, JavaMethod jm, List<int[]> calls, int[] marks) {
+        int dst = indexOf(jm);
+        if (dst != -1 && marks[dst] != src + 1) {
+            marks[dst] = src + 1;
+            calls.add(new int[] { src, dst });
+        }
+    }
+    
+    /**
+     * Groups the ends of pairs by their starts in the compressed sparse row form.
+     * @param from the starts of the pairs
+     * @param to the ends of the pairs
+     * @param size the number of the starts
+     * @param offsets the offsets into the grouped ends, which has <code>size + 1</code> elements
+     * @param targets the grouped ends
+     */
+    private static void fill(int[] from, int[] to, int size, int[] offsets, int[] targets) {
+        for (int e = 0; e < from.length; e++) {
+            offsets[from[e] + 1]++;
+        }
+        for (int index = 0; index < size; index++) {
+            offsets[index + 1] += offsets[index];
+        }
+        int[] next = new int[size];
+        for (int e = 0; e < from.length; e++) {
+            int s = from[e];
+            targets[offsets[s] + next[s]] = to[e];
+            next[s]++;
+        }
+    }
+    
+    /**
+     * Computes the strongly connected components of this graph with Tarjan's algorithm without recursion.
+     * Tarjan's algorithm finds a component after all the components reachable from it, which gives the reverse topological order.
+     */
+    private void computeComponents() {
+        int size = methods.size();
+        components = new int[size];
+        int[] orders = new int[size];
+        int[] lowlinks = new int[size];
+        boolean[] onStack = new boolean[size];
+        int[] stack = new int[size];
+        int[] callStack = new int[size];
+        int[] next = new int[size];
+        int[] members = new int[size];
+        List<Integer> offsets = new ArrayList<Integer>();
+        
+        int order = 1;
+        int top = 0;
+        int memberCount = 0;
+        for (int root = 0; root < size; root++) {
+            if (orders[root] != 0) {
+                continue;
+            }
+            
+            int depth = 0;
+            callStack[depth] = root;
+            orders[root] = lowlinks[root] = order++;
+            stack[top++] = root;
+            onStack[root] = true;
+            next[root] = outOffsets[root];
+            
+            while (depth >= 0) {
+                int v = callStack[depth];
+                if (next[v] < outOffsets[v + 1]) {
+                    int w = outTargets[next[v]++];
+                    if (orders[w] == 0) {
+                        orders[w] = lowlinks[w] = order++;
+                        stack[top++] = w;
+                        onStack[w] = true;
+                        next[w] = outOffsets[w];
+                        callStack[++depth] = w;
+                    } else if (onStack[w] && orders[w] < lowlinks[v]) {
+                        lowlinks[v] = orders[w];
+                    }
+                } else {
+                    if (lowlinks[v] == orders[v]) {
+                        offsets.add(memberCount);
+                        int w;
+                        do {
+                            w = stack[--top];
+                            onStack[w] = false;
+                            components[w] = offsets.size() - 1;
+                            members[memberCount++] = w;
+                        } while (w != v);
+                    }
+                    depth--;
+                    if (depth >= 0) {
+                        int u = callStack[depth];
+                        if (lowlinks[v] < lowlinks[u]) {
+                            lowlinks[u] = lowlinks[v];
+                        }
+                    }
+                }
+            }
+        }
+        
+        int count = offsets.size();
+        memberOffsets = new int[count + 1];
+        for (int c = 0; c < count; c++) {
+            memberOffsets[c] = offsets.get(c);
+        }
+        memberOffsets[count] = memberCount;
+        componentMembers = members;
+        
+        recursive = new boolean[count];
+        for (int c = 0; c < count; c++) {
+            recursive[c] = memberOffsets[c + 1] - memberOffsets[c] > 1;
+        }
+        for (int v = 0; v < size; v++) {
+            for (int e = outOffsets[v]; e < outOffsets[v + 1]; e++) {
+                if (outTargets[e] == v) {
+                    recursive[components[v]] = true;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Connects the components with calls between their methods.
+     */
+    private void connectComponents() {
+        int count = getComponentCount();
+        List<int[]> calls = new ArrayList<int[]>();
+        int[] marks = new int[count];
+        for (int c = 0; c < count; c++) {
+            for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+                int v = componentMembers[m];
+                for (int e = outOffsets[v]; e < outOffsets[v + 1]; e++) {
+                    int d = components[outTargets[e]];
+                    if (d != c && marks[d] != c + 1) {
+                        marks[d] = c + 1;
+                        calls.add(new int[] { c, d });
+                    }
+                }
+            }
+        }
+        
+        int[] srcs = new int[calls.size()];
+        int[] dsts = new int[calls.size()];
+        for (int e = 0; e < calls.size(); e++) {
+            srcs[e] = calls.get(e)[0];
+            dsts[e] = calls.get(e)[1];
+        }
+        
+        calleeOffsets = new int[count + 1];
+        calleeComponents = new int[srcs.length];
+        fill(srcs, dsts, count, calleeOffsets, calleeComponents);
+        
+        callerOffsets = new int[count + 1];
+        callerComponents = new int[srcs.length];
+        fill(dsts, srcs, count, callerOffsets, callerComponents);
+    }
+    
+    /**
+     * Returns all the methods in this graph.
+     * @return the collection of the methods
+     */
+    public List<JavaMethod> getJavaMethods() {
+        return methods;
+    }
+    
+    /**
+     * Returns the index of a given method.
+     * @param jm the method
+     * @return the index of the method, or <code>-1</code> if the method is not contained in this graph
+     */
+    public int indexOf(JavaMethod jm) {
+        Integer index = indices.get(jm);
+        if (index != null) {
+            return index.intValue();
+        }
+        return -1;
+    }
+    
+    /**
+     * Tests if a given method is contained in this graph.
+     * @param jm the method
+     * @return <code>true</code> if the method is contained, otherwise <code>false</code>
+     */
+    public boolean contains(JavaMethod jm) {
+        return indices.containsKey(jm);
+    }
+    
+    /**
+     * Returns the methods that a given method might call.
+     * @param jm the calling method
+     * @return the collection of the called methods
+     */
+    public List<JavaMethod> getCallees(JavaMethod jm) {
+        int index = indexOf(jm);
+        if (index != -1) {
+            return getJavaMethods(outOffsets, outTargets, index);
+        }
+        return new ArrayList<JavaMethod>();
+    }
+    
+    /**
+     * Returns the methods that might call a given method.
+     * @param jm the called method
+     * @return the collection of the calling methods
+     */
+    public List<JavaMethod> getCallers(JavaMethod jm) {
+        int index = indexOf(jm);
+        if (index != -1) {
+            return getJavaMethods(inOffsets, inSources, index);
+        }
+        return new ArrayList<JavaMethod>();
+    }
+    
+    /**
+     * Returns the number of the strongly connected components of this graph.
+     * @return the number of the components
+     */
+    public int getComponentCount() {
+        return memberOffsets.length - 1;
+    }
+    
+    /**
+     * Returns the number of the component containing a given method.
+     * @param jm the method
+     * @return the number of the component, or <code>-1</code> if the method is not contained in this graph
+     */
+    public int getComponentIndex(JavaMethod jm) {
+        int index = indexOf(jm);
+        if (index != -1) {
+            return components[index];
+        }
+        return -1;
+    }
+    
+    /**
+     * Returns the methods in a given component.
+     * @param c the number of the component
+     * @return the collection of the methods
+     */
+    public List<JavaMethod> getComponent(int c) {
+        return getJavaMethods(memberOffsets, componentMembers, c);
+    }
+    
+    /**
+     * Returns all the components in the order that a component appears after all the components it calls.
+     * @return the collection of the components
+     */
+    public List<List<JavaMethod>> getComponentsInBottomUpOrder() {
+        List<List<JavaMethod>> comps = new ArrayList<List<JavaMethod>>();
+        for (int c = 0; c < getComponentCount(); c++) {
+            comps.add(getComponent(c));
+        }
+        return comps;
+    }
+    
+    /**
+     * Returns the numbers of the components that a given component calls.
+     * @param c the number of the component
+     * @return the collection of the numbers of the called components, all of which are smaller than <code>c</code>
+     */
+    public List<Integer> getCalleeComponents(int c) {
+        return getIndices(calleeOffsets, calleeComponents, c);
+    }
+    
+    /**
+     * Returns the numbers of the components that call a given component.
+     * @param c the number of the component
+     * @return the collection of the numbers of the calling components, all of which are larger than <code>c</code>
+     */
+    public List<Integer> getCallerComponents(int c) {
+        return getIndices(callerOffsets, callerComponents, c);
+    }
+    
+    /**
+     * Tests if a given component contains a cycle of calls.
+     * @param c the number of the component
+     * @return <code>true</code> if the methods in the component are recursive, otherwise <code>false</code>
+     */
+    public boolean isRecursive(int c) {
+        return recursive[c];
+    }
+    
+    /**
+     * Tests if a given method might call itself directly or indirectly.
+     * @param jm the method
+     * @return <code>true</code> if the method is recursive, otherwise <code>false</code>
+     */
+    public boolean isRecursive(JavaMethod jm) {
+        int c = getComponentIndex(jm);
+        return c != -1 && recursive[c];
+    }
+    
+    /**
+     * Tests if two methods might call each other directly or indirectly.
+     * @param jm1 one of the methods
+     * @param jm2 the other method
+     * @return <code>true</code> if the methods are in the same component, otherwise <code>false</code>
+     */
+    public boolean inSameComponent(JavaMethod jm1, JavaMethod jm2) {
+        int c = getComponentIndex(jm1);
+        return c != -1 && c == getComponentIndex(jm2);
+    }
+    
+    /**
+     * Returns the methods whose indices are grouped at a given position.
+     * @param offsets the offsets into the grouped indices
+     * @param targets the grouped indices
+     * @param index the position of the group
+     * @return the collection of the methods
+     */
+    private List<JavaMethod> getJavaMethods(int[] offsets, int[] targets, int index) {
+        List<JavaMethod> jms = new ArrayList<JavaMethod>(offsets[index + 1] - offsets[index]);
+        for (int e = offsets[index]; e < offsets[index + 1]; e++) {
+            jms.add(methods.get(targets[e]));
+        }
+        return jms;
+    }
+    
+    /**
+     * Returns the indices grouped at a given position.
+     * @param offsets the offsets into the grouped indices
+     * @param targets the grouped indices
+     * @param index the position of the group
+     * @return the collection of the indices
+     */
+    private List<Integer> getIndices(int[] offsets, int[] targets, int index) {
+        List<Integer> list = new ArrayList<Integer>(offsets[index + 1] - offsets[index]);
+        for (int e = offsets[index]; e < offsets[index + 1]; e++) {
+            list.add(targets[e]);
+        }
+        return list;
+    }
+}
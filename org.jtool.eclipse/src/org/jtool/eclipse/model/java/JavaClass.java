@@ -33,6 +33,11 @@ public class JavaClass extends JavaElement {
      */
     protected static HashMap<String, JavaClass> cache = new HashMap<String, JavaClass>();
     
+    /**
+     * The index of the type hierarchy of all classes, which is built again after the hierarchy changes.
+     */
+    protected static JavaTypeHierarchy hierarchy = null;
+    
     /**
      * The name of this class.
      */
@@ -385,11 +390,52 @@ public class JavaClass extends JavaElement {
         return jclasses;
     }
     
+    /**
+     * Builds the index of the type hierarchy of all classes stored in the cache.
+     * This must be called after super classes and super interfaces of the classes are resolved.
+     * @return the built index
+     */
+    public static synchronized JavaTypeHierarchy buildTypeHierarchy() {
+        hierarchy = new JavaTypeHierarchy(cache.values());
+        return hierarchy;
+    }
+    
+    /**
+     * Returns the index of the type hierarchy of all classes stored in the cache.
+     * @return the index, which is built if it has not been built yet
+     */
+    public static synchronized JavaTypeHierarchy getTypeHierarchy() {
+        if (hierarchy == null) {
+            hierarchy = new JavaTypeHierarchy(cache.values());
+        }
+        return hierarchy;
+    }
+    
+    /**
+     * Discards the index of the type hierarchy since the hierarchy has changed.
+     */
+    public static synchronized void invalidateTypeHierarchy() {
+        hierarchy = null;
+    }
+    
     /**
      * Removes information about all classes stored in the cache.
      */
     public static void removeAllClassesInCache() {
         cache.clear();
+        invalidateTypeHierarchy();
+    }
+    
+    /**
+     * Removes information about a given class stored in the cache, leaving the classes related to it intact.
+     * @param jc the class to be removed
+     */
+    public static void removeClassInCache(JavaClass jc) {
+        cache.remove(jc.getQualifiedName());
+        if (jc.getJavaPackage() != null) {
+            jc.getJavaPackage().removeJavaClass(jc);
+        }
+        invalidateTypeHierarchy();
     }
     
     /**
@@ -397,11 +443,13 @@ public class JavaClass extends JavaElement {
      * @param jf the file to be removed
      */
     public static void removeClassesRelatedTo(JavaFile jf) {
+        JavaTypeHierarchy th = getTypeHierarchy();
         for (JavaClass c : getAllJavaClassesInCache()) {
             if (jf.equals(c.getJavaFile())) {
-                removeClassesRelatedTo(c);
+                removeClassesRelatedTo(c, th);
             }
         }
+        invalidateTypeHierarchy();
     }
     
     /**
@@ -409,6 +457,16 @@ public class JavaClass extends JavaElement {
      * @param jc the class to be removed
      */
     public static void removeClassesRelatedTo(JavaClass jc) {
+        removeClassesRelatedTo(jc, getTypeHierarchy());
+        invalidateTypeHierarchy();
+    }
+    
+    /**
+     * Removes information about classes related to a given class.
+     * @param jc the class to be removed
+     * @param th the index of the type hierarchy before the removal
+     */
+    private static void removeClassesRelatedTo(JavaClass jc, JavaTypeHierarchy th) {
         if (jc != null) {
             JavaClass ret = cache.remove(jc.getQualifiedName());
             
@@ -417,12 +475,12 @@ public class JavaClass extends JavaElement {
                 JavaProject jproj = jf.getJavaProject();
                 jproj.remove(jf);
                 
-                for (JavaClass c : jc.getDescendants()) {
-                    removeClassesRelatedTo(c);
+                for (JavaClass c : th.getDescendants(jc)) {
+                    removeClassesRelatedTo(c, th);
                 }
                 
                 for (JavaClass c: jc.getAfferentJavaClassesInProject()) {
-                    removeClassesRelatedTo(c);
+                    removeClassesRelatedTo(c, th);
                 }
             }
         }
@@ -887,6 +945,21 @@ public class JavaClass extends JavaElement {
         findSuperClass();
         findSuperInterfaces();
         findEfferentClasses();
+        invalidateTypeHierarchy();
+    }
+    
+    /**
+     * Clears the additional information on this class so that it can be collected again.
+     * This class is also removed from the afferent classes of the classes it depends on.
+     */
+    public void clearLevel2Info() {
+        for (JavaClass jc : efferentClasses) {
+            jc.afferentClasses.remove(this);
+        }
+        superClass = null;
+        superInterfaces.clear();
+        efferentClasses.clear();
+        invalidateTypeHierarchy();
     }
     
     /**
@@ -998,14 +1071,7 @@ public class JavaClass extends JavaElement {
      */
     public List<JavaClass> getChildren() {
         bindingCheck();
-        
-        List<JavaClass> classes = new ArrayList<JavaClass>(); 
-        for (JavaClass jc : getAllJavaClassesInCache()) {
-            if (jc.isChildOf(this)) {
-                classes.add(jc);
-            }
-        }
-        return classes;
+        return getTypeHierarchy().getChildren(this);
     }
     
     /**
@@ -1049,34 +1115,7 @@ public class JavaClass extends JavaElement {
      */
     public List<JavaClass> getAllSuperInterfaces() {
         bindingCheck();
-        
-        List<JavaClass> classes = new ArrayList<JavaClass>();
-        getAllSuperInterfaces(this, classes);
-        return classes;
-    }
-    
-    /**
-     * Collects all super interfaces of a given class.
-     * @param jc the base class
-     * @param classes the collection of the super interfaces
-     */
-    private void getAllSuperInterfaces(JavaClass jc, List<JavaClass> classes) {
-        for (JavaClass parent : jc.getSuperInterfaces()) {
-            classes.add(parent);
-            getAllSuperInterfaces(parent, classes);
-        }
-    }
-    
-    /**
-     * Collects all children of a given class.
-     * @param jc the base class
-     * @param classes the collection of the children
-     */
-    private void getAllChildren(JavaClass jc, List<JavaClass> classes) {
-        for (JavaClass child : jc.getChildren()) {
-            classes.add(child);
-            getAllChildren(child, classes);
-        }
+        return getTypeHierarchy().getAllSuperInterfaces(this);
     }
     
     /**
@@ -1085,11 +1124,7 @@ public class JavaClass extends JavaElement {
      */
     public List<JavaClass> getAncestors() {
         bindingCheck();
-        
-        List<JavaClass> classes = new ArrayList<JavaClass>();
-        classes.addAll(getAllSuperClasses());
-        classes.addAll(getAllSuperInterfaces());
-        return classes;
+        return getTypeHierarchy().getAncestors(this);
     }
     
     /**
@@ -1098,10 +1133,17 @@ public class JavaClass extends JavaElement {
      */
     public List<JavaClass> getDescendants() {
         bindingCheck();
-        
-        List<JavaClass> classes = new ArrayList<JavaClass>();
-        getAllChildren(this, classes);
-        return classes;
+        return getTypeHierarchy().getDescendants(this);
+    }
+    
+    /**
+     * Tests if this class is a subclass or a sub-interface of a specified class.
+     * @param jc the super class or super interface
+     * @return <code>true</code> if this class directly or indirectly extends or implements the specified class, otherwise <code>false</code>
+     */
+    public boolean isDescendantOf(JavaClass jc) {
+        bindingCheck();
+        return getTypeHierarchy().isSubtypeOf(this, jc);
     }
     
     /**
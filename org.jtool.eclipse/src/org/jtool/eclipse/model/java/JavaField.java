@@ -59,6 +59,11 @@ public class JavaField extends JavaExpression {
      */
     protected Set<String> calledMethodNames = new HashSet<String>();
     
+    /**
+     * The collection of classes whose instances this field declaration creates.
+     */
+    protected Set<String> instantiatedClassNames = new HashSet<String>();
+    
     /**
      * A flag that indicates all bindings for methods and fields were found.
      */
@@ -186,6 +191,7 @@ public class JavaField extends JavaExpression {
         for (String str : mvisitor.getMethodCalls()) {
             calledMethodNames.add(str);
         }
+        instantiatedClassNames.addAll(mvisitor.getInstantiations());
         
         if (!mvisitor.isBindingOk()) {
             bindingOk = false;
@@ -484,6 +490,21 @@ public class JavaField extends JavaExpression {
         findCalledMethods();
     }
     
+    /**
+     * Clears the additional information on this field so that it can be collected again.
+     * This field is also removed from the methods and fields it refers to.
+     */
+    public void clearLevel2Info() {
+        for (JavaField jf : accessedFields) {
+            jf.accessingFields.remove(this);
+        }
+        for (JavaMethod jm : calledMethods) {
+            jm.accessingFields.remove(this);
+        }
+        accessedFields.clear();
+        calledMethods.clear();
+    }
+    
     /**
      * Finds fields that this field accesses.
      */
@@ -582,6 +603,14 @@ public class JavaField extends JavaExpression {
         return accessingMethods;
     }
     
+    /**
+     * Returns the names of classes whose instances this field declaration creates.
+     * @return the collection of the fully-qualified names of the instantiated classes
+     */
+    public Set<String> getInstantiatedClassNames() {
+        return instantiatedClassNames;
+    }
+    
     /**
      * Returns all the methods by this field.
      * @return the collection of the called methods
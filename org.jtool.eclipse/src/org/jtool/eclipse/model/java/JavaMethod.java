@@ -5,6 +5,7 @@
 package org.jtool.eclipse.model.java;
 
 import org.jtool.eclipse.model.java.internal.LocalDeclarationCollector;
+import org.jtool.eclipse.model.java.internal.MethodBodyCollector;
 import org.jtool.eclipse.model.java.internal.MethodCallCollector;
 import org.jtool.eclipse.model.java.internal.TypeCollector;
 import org.jtool.eclipse.model.java.internal.FieldAccessCollector;
@@ -105,6 +106,11 @@ public class JavaMethod extends JavaElement {
      */
     protected Set<String> usedClassNames = new HashSet<String>();
     
+    /**
+     * The collection of classes whose instances this method creates.
+     */
+    protected Set<String> instantiatedClassNames = new HashSet<String>();
+    
     /**
      * A flag that indicates all bindings for types, methods, and variables were found.
      */
@@ -149,10 +155,7 @@ public class JavaMethod extends JavaElement {
             }
             
             setParameters(node.parameters());
-            collectLocalVariables(node);
-            collectAccessedFields(node);
-            collectCalledMethods(node);
-            collectUsedTypes(node);
+            collectMethodBody(node);
             
             setAnnotations(binding.getAnnotations());
             
@@ -181,10 +184,7 @@ public class JavaMethod extends JavaElement {
         isConstructor = false;
         isInitializer = true;
         
-        collectLocalVariables(node);
-        collectAccessedFields(node);
-        collectCalledMethods(node);
-        collectUsedTypes(node);
+        collectMethodBody(node);
         
         jc.addJavaMethod(this);
     }
@@ -228,6 +228,27 @@ public class JavaMethod extends JavaElement {
         }
     }
     
+    /**
+     * Collects local variables, accessed fields, called methods, and used types of this method in a single traversal.
+     * The collected information is the same as that collected by the respective collectors.
+     * @param node the AST node for this method
+     */
+    protected void collectMethodBody(ASTNode node) {
+        MethodBodyCollector visitor = new MethodBodyCollector(this, getDeclaringJavaClass().getJavaPackage().getJavaProject());
+        node.accept(visitor);
+        
+        locals.addAll(visitor.getLocalDeclarations());
+        accessedFieldNames.addAll(visitor.getAccessedFields());
+        calledMethodNames.addAll(visitor.getMethodCalls());
+        usedClassNames.addAll(visitor.getTypeUses());
+        instantiatedClassNames.addAll(visitor.getInstantiations());
+        
+        if (!visitor.isBindingOk()) {
+            bindingOk = false;
+        }
+        visitor.clear();
+    }
+    
     /**
      * Collects local variables declared in this method.
      * @param node the AST node for this method
@@ -273,6 +294,7 @@ public class JavaMethod extends JavaElement {
         for (String str : mvisitor.getMethodCalls()) {
             calledMethodNames.add(str);
         }
+        instantiatedClassNames.addAll(mvisitor.getInstantiations());
         
         if (!mvisitor.isBindingOk()) {
             bindingOk = false;
@@ -433,6 +455,14 @@ public class JavaMethod extends JavaElement {
         return exceptionNames;
     }
     
+    /**
+     * Returns the names of classes whose instances this method creates.
+     * @return the collection of the fully-qualified names of the instantiated classes
+     */
+    public Set<String> getInstantiatedClassNames() {
+        return instantiatedClassNames;
+    }
+    
     /**
      * Returns all the parameters of this method. 
      * @return the collection of the parameters
@@ -776,6 +806,27 @@ public class JavaMethod extends JavaElement {
         findOverriddenMethods();
     }
     
+    /**
+     * Clears the additional information on this method so that it can be collected again.
+     * This method is also removed from the methods and fields it refers to.
+     */
+    public void clearLevel2Info() {
+        for (JavaMethod jm : calledMethods) {
+            jm.callingMethods.remove(this);
+        }
+        for (JavaField jf : accessedFields) {
+            jf.accessingMethods.remove(this);
+        }
+        for (JavaMethod jm : overriddenMethods) {
+            jm.overridingMethods.remove(this);
+        }
+        exceptions.clear();
+        calledMethods.clear();
+        accessedFields.clear();
+        usedClasses.clear();
+        overriddenMethods.clear();
+    }
+    
     /**
      * Finds fields that this method accesses.
      */
@@ -850,34 +901,16 @@ public class JavaMethod extends JavaElement {
     
     /**
      * Finds methods that this method overrides.
+     * The methods in super classes and super interfaces are obtained from the override table of the type hierarchy.
      */
     protected void findOverriddenMethods() {
-        JavaClass jc = getDeclaringJavaClass();
-        for (JavaClass c : getAllSuperClassess(jc)) {
-             for (JavaMethod jm : c.getJavaMethods()) {
-                 if (hasSameSigantureAndModifier(jm)) {
-                     overriddenMethods.add(jm);
-                     jm.addOverridingMethod(this);
-                 }
-             }
+        JavaOverrideTable table = JavaClass.getTypeHierarchy().getOverrideTable();
+        for (JavaMethod jm : table.getOverriddenJavaMethods(this)) {
+            overriddenMethods.add(jm);
+            jm.addOverridingMethod(this);
         }
     }
     
-    /**
-     * Returns all the super classes of this class.
-     * @param jc the base class
-     * @return the collection of the super classes in bottom-up order.
-     */
-    private List<JavaClass> getAllSuperClassess(JavaClass jc) {
-        List<JavaClass> classes = new ArrayList<JavaClass>();
-        JavaClass parent = getDeclaringJavaClass(jc.getSuperClassName());
-        while (parent != null) {
-            classes.add(parent);
-            parent = getDeclaringJavaClass(parent.getSuperClassName());
-        }
-        return classes;
-    }
-    
     private void addOverridingMethod(JavaMethod jm) {
         overridingMethods.add(jm);
     }
@@ -15,7 +15,6 @@ import org.eclipse.jdt.core.dom.SuperConstructorInvocation;
 import org.eclipse.jdt.core.dom.ClassInstanceCreation;
 import org.eclipse.jdt.core.dom.EnumConstantDeclaration;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import org.apache.log4j.Logger;
 
@@ -500,31 +499,25 @@ public class JavaMethodCall extends JavaExpression {
     
     /**
      * Tests if this method call recursively calls the method itself.
+     * The test looks up the strongly connected components of the call graph of the project.
      * @return <code>true</code> if this method call recursively calls the method itself, otherwise <code>false</code>
      */
     public boolean callSelfRecursively() {
         bindingCheck();
         
-        if (declaringMethod == null) {
+        JavaMethod jm = getJavaMethod();
+        if (declaringMethod == null || jm == null) {
             return false;
         }
-        HashSet<JavaMethod> methods = new HashSet<JavaMethod>();
-        collectCalledMethodsInProject(getJavaMethod(), methods);
-        return methods.contains(declaringMethod);
-    }
-    
-    /**
-     * Collects all called methods that this method call traverses.
-     * @param jm the called method to be checked and collected
-     * @param methods the collection of the called methods
-     */
-    private void collectCalledMethodsInProject(JavaMethod jm, HashSet<JavaMethod> methods) {
-        methods.add(jm);
-        for (JavaMethod cm : jm.getCalledJavaMethods()) {
-            if (!methods.contains(cm) && cm.isInProject()) {
-                collectCalledMethodsInProject(cm, methods);
-            }
+        if (jm.equals(declaringMethod)) {
+            return true;
+        }
+        
+        JavaPackage jp = declaringMethod.getDeclaringJavaClass().getJavaPackage();
+        if (jp == null || jp.getJavaProject() == null) {
+            return false;
         }
+        return jp.getJavaProject().getCallGraph().inSameComponent(jm, declaringMethod);
     }
     
     /**
@@ -0,0 +1,868 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.java;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.log4j.Logger;
+
+/**
+ * Stores models of Java files on a disk so that files whose contents are unchanged are not parsed again in the next run.
+ * Each entry is keyed by the path of a file and holds the content hash of the file together with the facts extracted from the file,
+ * including the names of classes, methods, and fields that are resolved by <code>collectLevel2Info()</code>.
+ * Elements restored from the cache have no AST node. Files having parse errors are not stored.
+ * <p>
+ * Since the resolved facts of a file also depend on other files and the class path, an entry of an unchanged file is discarded if:
+ * <ul>
+ * <li>the class path differs from the one stored in the cache file, in which case all the entries are discarded;</li>
+ * <li>the file refers to a class declared in a file that was changed or removed, or to a subclass of such a class;</li>
+ * <li>a file was added and the file has an element whose bindings were not resolved, which the added file might resolve.</li>
+ * </ul>
+ * The class path is compared by the paths, sizes, and modification times of its entries, so a change inside a class folder
+ * whose own modification time is unchanged is not detected. A class added in a new file that hides a class of the same simple name
+ * imported on demand by an unchanged file is not detected either.
+ * @author Katsuhisa Maruyama
+ */
+public class JavaModelCache {
+    
+    static Logger logger = Logger.getLogger(JavaModelCache.class.getName());
+    
+    /**
+     * The number that identifies a cache file.
+     */
+    private static final int MAGIC = 0x4a4d4331;
+    
+    /**
+     * The version of the format of a cache file, which must be changed whenever the format is changed.
+     */
+    private static final int VERSION = 3;
+    
+    /**
+     * The file that stores the cache.
+     */
+    private File file;
+    
+    /**
+     * The entries read from the cache file.
+     */
+    private Map<String, Entry> storedEntries = new HashMap<String, Entry>();
+    
+    /**
+     * The entries for files restored or parsed in the current run, which will be written into the cache file.
+     */
+    private Map<String, Entry> currentEntries = new HashMap<String, Entry>();
+    
+    /**
+     * The fingerprint of the class path used in the current run.
+     */
+    private String classpathFingerprint = "";
+    
+    /**
+     * The number of files restored from the cache.
+     */
+    private int hitCount = 0;
+    
+    /**
+     * The number of files that were not restored from the cache.
+     */
+    private int missCount = 0;
+    
+    /**
+     * Creates a cache stored in a given file.
+     * @param file the file that stores the cache
+     */
+    public JavaModelCache(File file) {
+        this.file = file;
+    }
+    
+    /**
+     * Sets the class path used in the current run. The entries stored with a different class path are discarded when loaded.
+     * @param classpaths the paths of the entries of the class path
+     */
+    public void setClasspath(String[] classpaths) {
+        StringBuilder buf = new StringBuilder();
+        for (String path : classpaths) {
+            File entry = new File(path);
+            buf.append(path);
+            buf.append(":" + entry.length() + ":" + entry.lastModified());
+            buf.append(File.pathSeparator);
+        }
+        try {
+            classpathFingerprint = getContentHash(buf.toString().getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            classpathFingerprint = Integer.toHexString(buf.toString().hashCode());
+        }
+    }
+    
+    /**
+     * Returns the file storing the cache for a project with a given name.
+     * @param dir the directory containing cache files
+     * @param name the name of the project
+     * @return the cache file
+     */
+    public static File getCacheFile(File dir, String name) {
+        try {
+            return new File(dir, getContentHash(name.getBytes("UTF-8")) + ".jmc");
+        } catch (UnsupportedEncodingException e) {
+            return new File(dir, Integer.toHexString(name.hashCode()) + ".jmc");
+        }
+    }
+    
+    /**
+     * Obtains the hash value of given contents of a file.
+     * @param contents the contents of the file
+     * @return the string of the hash value in hexadecimal
+     */
+    public static String getContentHash(byte[] contents) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            StringBuilder buf = new StringBuilder();
+            for (byte b : digest.digest(contents)) {
+                buf.append(Character.forDigit((b >> 4) & 0xf, 16));
+                buf.append(Character.forDigit(b & 0xf, 16));
+            }
+            return buf.toString();
+            
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(contents.length) + "-" + Integer.toHexString(Arrays.hashCode(contents));
+        }
+    }
+    
+    /**
+     * Reads the entries of this cache from the cache file.
+     * The cache is regarded as empty if the file does not exist or it was written in an obsolete format.
+     * @return <code>true</code> if the entries were read, otherwise <code>false</code>
+     */
+    public boolean load() {
+        storedEntries.clear();
+        currentEntries.clear();
+        hitCount = 0;
+        missCount = 0;
+        if (!file.isFile()) {
+            return false;
+        }
+        
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.info("obsolete model cache was ignored: " + file.getPath());
+                return false;
+            }
+            if (!in.readUTF().equals(classpathFingerprint)) {
+                logger.info("model cache was ignored since the class path was changed: " + file.getPath());
+                return false;
+            }
+            
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                String key = in.readUTF();
+                Entry entry = new Entry(in.readUTF());
+                entry.bindingOk = in.readBoolean();
+                entry.declaredClassNames.addAll(readStrings(in));
+                entry.superClassNames.addAll(readStrings(in));
+                entry.referredClassNames.addAll(readStrings(in));
+                entry.data = new byte[in.readInt()];
+                in.readFully(entry.data);
+                storedEntries.put(key, entry);
+            }
+            return true;
+            
+        } catch (IOException e) {
+            logger.error("model cache could not be read: " + e.getMessage());
+            storedEntries.clear();
+            return false;
+            
+        } finally {
+            close(in);
+        }
+    }
+    
+    /**
+     * Writes the entries for files restored or parsed in the current run into the cache file.
+     * The entries for files that no longer exist are discarded.
+     * @return <code>true</code> if the entries were written, otherwise <code>false</code>
+     */
+    public boolean save() {
+        Map<JavaFile, List<JavaClass>> classes = new IdentityHashMap<JavaFile, List<JavaClass>>();
+        for (JavaClass jc : JavaClass.getAllJavaClassesInCache()) {
+            if (jc.getJavaFile() != null) {
+                List<JavaClass> list = classes.get(jc.getJavaFile());
+                if (list == null) {
+                    list = new ArrayList<JavaClass>();
+                    classes.put(jc.getJavaFile(), list);
+                }
+                list.add(jc);
+            }
+        }
+        
+        DataOutputStream out = null;
+        try {
+            File dir = file.getAbsoluteFile().getParentFile();
+            if (dir != null && !dir.isDirectory()) {
+                dir.mkdirs();
+            }
+            
+            List<String> keys = new ArrayList<String>();
+            for (String key : currentEntries.keySet()) {
+                Entry entry = currentEntries.get(key);
+                if (entry.data == null && entry.jfile != null && classes.get(entry.jfile) != null) {
+                    entry.data = encode(classes.get(entry.jfile));
+                    collectDependences(entry, classes.get(entry.jfile));
+                }
+                if (entry.data != null) {
+                    keys.add(key);
+                }
+            }
+            
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(classpathFingerprint);
+            out.writeInt(keys.size());
+            for (String key : keys) {
+                Entry entry = currentEntries.get(key);
+                out.writeUTF(key);
+                out.writeUTF(entry.hash);
+                out.writeBoolean(entry.bindingOk);
+                writeStrings(out, entry.declaredClassNames);
+                writeStrings(out, entry.superClassNames);
+                writeStrings(out, entry.referredClassNames);
+                out.writeInt(entry.data.length);
+                out.write(entry.data);
+            }
+            logger.info("model cache: " + hitCount + " restored, " + missCount + " parsed");
+            return true;
+            
+        } catch (IOException e) {
+            logger.error("model cache could not be written: " + e.getMessage());
+            return false;
+            
+        } finally {
+            close(out);
+        }
+    }
+    
+    /**
+     * Discards the entries of unchanged files whose facts might have been changed by changes of other files.
+     * This must be called after this cache is loaded and before any file is restored.
+     * @param hashes the map from the keys of all the files to be restored or parsed to the content hashes of the files
+     * @return the number of the discarded entries
+     */
+    public int prepare(Map<String, String> hashes) {
+        Set<String> changed = new HashSet<String>();
+        boolean added = false;
+        for (String key : hashes.keySet()) {
+            Entry entry = storedEntries.get(key);
+            if (entry == null) {
+                added = true;
+            } else if (!entry.hash.equals(hashes.get(key))) {
+                changed.addAll(entry.declaredClassNames);
+            }
+        }
+        for (String key : storedEntries.keySet()) {
+            if (!hashes.containsKey(key)) {
+                changed.addAll(storedEntries.get(key).declaredClassNames);
+            }
+        }
+        
+        boolean grown = !changed.isEmpty();
+        while (grown) {
+            grown = false;
+            for (Entry entry : storedEntries.values()) {
+                if (!changed.containsAll(entry.declaredClassNames) && !Collections.disjoint(entry.superClassNames, changed)) {
+                    grown = changed.addAll(entry.declaredClassNames) || grown;
+                }
+            }
+        }
+        
+        int count = 0;
+        for (Iterator<String> it = storedEntries.keySet().iterator(); it.hasNext(); ) {
+            String key = it.next();
+            Entry entry = storedEntries.get(key);
+            if (entry.hash.equals(hashes.get(key))) {
+                if (!Collections.disjoint(entry.referredClassNames, changed) || (added && !entry.bindingOk)) {
+                    it.remove();
+                    count++;
+                }
+            }
+        }
+        if (count > 0) {
+            logger.info("model cache: " + count + " entries discarded by changes of other files");
+        }
+        return count;
+    }
+    
+    /**
+     * Restores the model of a file from this cache if the contents of the file are unchanged.
+     * The restored file is added to the project containing it.
+     * @param key the key of the file, which is usually its absolute path
+     * @param contents the current contents of the file
+     * @param jfile the object that will store information about the file
+     * @return <code>true</code> if the model was restored, otherwise <code>false</code> if the file must be parsed
+     */
+    public boolean restore(String key, byte[] contents, JavaFile jfile) {
+        return restore(key, getContentHash(contents), jfile);
+    }
+    
+    /**
+     * Restores the model of a file from this cache if the content hash of the file is unchanged.
+     * The restored file is added to the project containing it.
+     * @param key the key of the file, which is usually its absolute path
+     * @param hash the content hash of the current contents of the file
+     * @param jfile the object that will store information about the file
+     * @return <code>true</code> if the model was restored, otherwise <code>false</code> if the file must be parsed
+     */
+    public boolean restore(String key, String hash, JavaFile jfile) {
+        Entry entry = storedEntries.get(key);
+        if (entry != null && entry.hash.equals(hash)) {
+            try {
+                decode(entry.data, jfile);
+                jfile.getJavaProject().addJavaFile(jfile);
+                currentEntries.put(key, entry);
+                hitCount++;
+                return true;
+                
+            } catch (IOException e) {
+                logger.error("model cache entry was broken: " + key);
+            }
+        }
+        
+        currentEntries.put(key, new Entry(hash));
+        missCount++;
+        return false;
+    }
+    
+    /**
+     * Records the model of a file that was parsed since it was not restored from this cache.
+     * The model is stored when this cache is saved, after all the files have been parsed.
+     * @param key the key of the file
+     * @param jfile the object storing information about the parsed file
+     */
+    public void update(String key, JavaFile jfile) {
+        Entry entry = currentEntries.get(key);
+        if (entry != null && entry.data == null) {
+            if (jfile.getParseErrors() == null || jfile.getParseErrors().size() == 0) {
+                entry.jfile = jfile;
+            }
+        }
+    }
+    
+    /**
+     * Returns the number of files restored from this cache since it was loaded.
+     * @return the number of the restored files
+     */
+    public int getHitCount() {
+        return hitCount;
+    }
+    
+    /**
+     * Returns the number of files that were not restored from this cache since it was loaded.
+     * @return the number of the files that were parsed
+     */
+    public int getMissCount() {
+        return missCount;
+    }
+    
+    /**
+     * Encodes information about classes declared in a file.
+     * @param classes the classes declared in the file
+     * @return the encoded bytes
+     * @throws IOException if the encoding failed
+     */
+    private byte[] encode(List<JavaClass> classes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        
+        out.writeInt(classes.size());
+        for (JavaClass jc : classes) {
+            out.writeUTF(jc.getJavaPackage().getName());
+            out.writeUTF(jc.name);
+            out.writeUTF(jc.fqn);
+            out.writeInt(jc.modifiers);
+            out.writeBoolean(jc.isInterface);
+            out.writeBoolean(jc.isEnum);
+            out.writeBoolean(jc.bindingOk);
+            writeCodeProperties(out, jc);
+            writeAnnotations(out, jc);
+            writeString(out, jc.superClassName);
+            writeStrings(out, jc.superInterfaceNames);
+            writeStrings(out, jc.efferentClassNames);
+            writeString(out, jc.declaringClass != null ? jc.declaringClass.getQualifiedName() : null);
+            writeString(out, jc.declaringMethod != null ?
+                    JavaMethod.getString(jc.declaringMethod.getDeclaringJavaClass().getQualifiedName(), jc.declaringMethod.getSignature()) : null);
+            
+            List<String> inners = new ArrayList<String>();
+            for (JavaClass c : jc.innerClasses) {
+                inners.add(c.getQualifiedName());
+            }
+            writeStrings(out, inners);
+            
+            out.writeInt(jc.fields.size());
+            for (JavaField jf : jc.fields) {
+                out.writeUTF(jf.name);
+                writeString(out, jf.type);
+                out.writeInt(jf.modifiers);
+                out.writeBoolean(jf.isEnumConstant);
+                out.writeBoolean(jf.bindingOk);
+                writeCodeProperties(out, jf);
+                writeAnnotations(out, jf);
+                writeStrings(out, jf.accessedFieldNames);
+                writeStrings(out, jf.calledMethodNames);
+                writeStrings(out, jf.instantiatedClassNames);
+            }
+            
+            out.writeInt(jc.methods.size());
+            for (JavaMethod jm : jc.methods) {
+                out.writeUTF(jm.name);
+                out.writeUTF(jm.signature);
+                writeString(out, jm.type);
+                out.writeInt(jm.modifiers);
+                out.writeBoolean(jm.isConstructor);
+                out.writeBoolean(jm.isInitializer);
+                out.writeBoolean(jm.bindingOk);
+                writeCodeProperties(out, jm);
+                writeAnnotations(out, jm);
+                writeStrings(out, jm.exceptionNames);
+                writeStrings(out, jm.calledMethodNames);
+                writeStrings(out, jm.accessedFieldNames);
+                writeStrings(out, jm.usedClassNames);
+                writeStrings(out, jm.instantiatedClassNames);
+                writeLocals(out, jm.parameters);
+                writeLocals(out, jm.locals);
+                out.writeBoolean(jm.returnValue != null);
+                if (jm.returnValue != null) {
+                    writeLocal(out, jm.returnValue);
+                }
+            }
+        }
+        
+        out.flush();
+        return bytes.toByteArray();
+    }
+    
+    /**
+     * Collects the names of the classes on which the facts of classes declared in a file depend.
+     * @param entry the entry for the file
+     * @param classes the classes declared in the file
+     */
+    private void collectDependences(Entry entry, List<JavaClass> classes) {
+        entry.bindingOk = true;
+        for (JavaClass jc : classes) {
+            entry.declaredClassNames.add(jc.fqn);
+            entry.bindingOk = entry.bindingOk && jc.bindingOk;
+            addClassName(entry.superClassNames, jc.superClassName);
+            for (String name : jc.superInterfaceNames) {
+                addClassName(entry.superClassNames, name);
+            }
+            for (String name : jc.efferentClassNames) {
+                addClassName(entry.referredClassNames, name);
+            }
+            
+            for (JavaField jf : jc.fields) {
+                entry.bindingOk = entry.bindingOk && jf.bindingOk;
+                addClassName(entry.referredClassNames, jf.type);
+                for (String name : jf.accessedFieldNames) {
+                    addClassName(entry.referredClassNames, name);
+                }
+                for (String name : jf.calledMethodNames) {
+                    addClassName(entry.referredClassNames, name);
+                }
+                for (String name : jf.instantiatedClassNames) {
+                    addClassName(entry.referredClassNames, name);
+                }
+            }
+            
+            for (JavaMethod jm : jc.methods) {
+                entry.bindingOk = entry.bindingOk && jm.bindingOk;
+                addClassName(entry.referredClassNames, jm.type);
+                for (String name : jm.exceptionNames) {
+                    addClassName(entry.referredClassNames, name);
+                }
+                for (String name : jm.calledMethodNames) {
+                    addClassName(entry.referredClassNames, name);
+                }
+                for (String name : jm.accessedFieldNames) {
+                    addClassName(entry.referredClassNames, name);
+                }
+                for (String name : jm.usedClassNames) {
+                    addClassName(entry.referredClassNames, name);
+                }
+                for (String name : jm.instantiatedClassNames) {
+                    addClassName(entry.referredClassNames, name);
+                }
+            }
+        }
+        entry.referredClassNames.addAll(entry.superClassNames);
+        entry.referredClassNames.removeAll(entry.declaredClassNames);
+    }
+    
+    /**
+     * Adds the name of a class to a collection, removing its type arguments and array dimensions.
+     * The name of a method or field is converted into the name of the class declaring it.
+     * @param names the collection of the names of classes
+     * @param name the name of the class, method, or field, which may be <code>null</code>
+     */
+    private void addClassName(Set<String> names, String name) {
+        if (name == null) {
+            return;
+        }
+        int index = name.indexOf('#');
+        if (index != -1) {
+            name = name.substring(0, index);
+        }
+        index = name.indexOf('<');
+        if (index != -1) {
+            name = name.substring(0, index);
+        }
+        index = name.indexOf('[');
+        if (index != -1) {
+            name = name.substring(0, index);
+        }
+        names.add(name.trim());
+    }
+    
+    /**
+     * Decodes information about classes declared in a file and creates their models.
+     * @param data the encoded bytes
+     * @param jfile the file declaring the classes
+     * @throws IOException if the decoding failed
+     */
+    private void decode(byte[] data, JavaFile jfile) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        JavaProject jproject = jfile.getJavaProject();
+        
+        Map<JavaClass, String[]> enclosings = new HashMap<JavaClass, String[]>();
+        Map<JavaClass, List<String>> inners = new HashMap<JavaClass, List<String>>();
+        
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            JavaPackage jp = JavaPackage.create(in.readUTF(), jproject);
+            String name = in.readUTF();
+            String fqn = in.readUTF();
+            int modifiers = in.readInt();
+            boolean isInterface = in.readBoolean();
+            boolean isEnum = in.readBoolean();
+            JavaClass jc = JavaClass.create(name, fqn, modifiers, isInterface, isEnum, jfile, jp);
+            jc.bindingOk = in.readBoolean();
+            readCodeProperties(in, jc);
+            readAnnotations(in, jc);
+            jc.superClassName = readString(in);
+            jc.superInterfaceNames.addAll(readStrings(in));
+            jc.efferentClassNames.addAll(readStrings(in));
+            enclosings.put(jc, new String[] { readString(in), readString(in) });
+            inners.put(jc, readStrings(in));
+            
+            int fsize = in.readInt();
+            for (int j = 0; j < fsize; j++) {
+                JavaField jf = new JavaField(in.readUTF(), readString(in), in.readInt(), in.readBoolean(), jc);
+                jf.bindingOk = in.readBoolean();
+                readCodeProperties(in, jf);
+                readAnnotations(in, jf);
+                jf.accessedFieldNames.addAll(readStrings(in));
+                jf.calledMethodNames.addAll(readStrings(in));
+                jf.instantiatedClassNames.addAll(readStrings(in));
+            }
+            
+            int msize = in.readInt();
+            for (int j = 0; j < msize; j++) {
+                JavaMethod jm = new JavaMethod(in.readUTF(), in.readUTF(), readString(in), in.readInt(),
+                                               in.readBoolean(), in.readBoolean(), jc);
+                jm.bindingOk = in.readBoolean();
+                readCodeProperties(in, jm);
+                readAnnotations(in, jm);
+                jm.exceptionNames.addAll(readStrings(in));
+                jm.calledMethodNames.addAll(readStrings(in));
+                jm.accessedFieldNames.addAll(readStrings(in));
+                jm.usedClassNames.addAll(readStrings(in));
+                jm.instantiatedClassNames.addAll(readStrings(in));
+                jm.parameters.addAll(readLocals(in, jm));
+                jm.locals.addAll(readLocals(in, jm));
+                if (in.readBoolean()) {
+                    jm.returnValue = readLocal(in, jm);
+                }
+            }
+        }
+        
+        for (JavaClass jc : enclosings.keySet()) {
+            String[] names = enclosings.get(jc);
+            if (names[0] != null) {
+                jc.declaringClass = JavaElement.getDeclaringJavaClass(names[0]);
+            }
+            if (names[1] != null) {
+                jc.declaringMethod = JavaElement.getDeclaringJavaMethod(JavaMethod.getFqn(names[1]), JavaMethod.getSignature(names[1]));
+            }
+            for (String fqn : inners.get(jc)) {
+                JavaClass c = JavaClass.getJavaClass(fqn);
+                if (c != null) {
+                    jc.addJavaInnerClass(c);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Writes the code properties of an element.
+     * @param out the output stream
+     * @param elem the element
+     * @throws IOException if the writing failed
+     */
+    private void writeCodeProperties(DataOutputStream out, JavaElement elem) throws IOException {
+        out.writeInt(elem.startPosition);
+        out.writeInt(elem.extendedStartPosition);
+        out.writeInt(elem.codeLength);
+        out.writeInt(elem.extendedCodeLength);
+        out.writeInt(elem.upperLineNumber);
+        out.writeInt(elem.extendedUpperLineNumber);
+        out.writeInt(elem.bottomLineNumber);
+        out.writeInt(elem.extendedBottomLineNumber);
+    }
+    
+    /**
+     * Reads the code properties of an element.
+     * @param in the input stream
+     * @param elem the element
+     * @throws IOException if the reading failed
+     */
+    private void readCodeProperties(DataInputStream in, JavaElement elem) throws IOException {
+        elem.setCodeProperties(in.readInt(), in.readInt(), in.readInt(), in.readInt(),
+                               in.readInt(), in.readInt(), in.readInt(), in.readInt());
+    }
+    
+    /**
+     * Writes the annotations of an element. The values of the annotations are stored as strings.
+     * @param out the output stream
+     * @param elem the element
+     * @throws IOException if the writing failed
+     */
+    private void writeAnnotations(DataOutputStream out, JavaElement elem) throws IOException {
+        out.writeInt(elem.annotations.size());
+        for (JavaAnnotation jann : elem.annotations) {
+            out.writeUTF(jann.name);
+            out.writeInt(jann.values.size());
+            for (String key : jann.values.keySet()) {
+                out.writeUTF(key);
+                out.writeUTF(String.valueOf(jann.values.get(key)));
+            }
+        }
+    }
+    
+    /**
+     * Reads the annotations of an element.
+     * @param in the input stream
+     * @param elem the element
+     * @throws IOException if the reading failed
+     */
+    private void readAnnotations(DataInputStream in, JavaElement elem) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            JavaAnnotation jann = new JavaAnnotation();
+            jann.name = in.readUTF();
+            int vsize = in.readInt();
+            for (int j = 0; j < vsize; j++) {
+                jann.values.put(in.readUTF(), in.readUTF());
+            }
+            elem.annotations.add(jann);
+        }
+    }
+    
+    /**
+     * Writes local variables.
+     * @param out the output stream
+     * @param locals the local variables
+     * @throws IOException if the writing failed
+     */
+    private void writeLocals(DataOutputStream out, Collection<JavaLocal> locals) throws IOException {
+        out.writeInt(locals.size());
+        for (JavaLocal jl : locals) {
+            writeLocal(out, jl);
+        }
+    }
+    
+    /**
+     * Reads local variables.
+     * @param in the input stream
+     * @param jm the method declaring the local variables
+     * @return the local variables
+     * @throws IOException if the reading failed
+     */
+    private List<JavaLocal> readLocals(DataInputStream in, JavaMethod jm) throws IOException {
+        int size = in.readInt();
+        List<JavaLocal> locals = new ArrayList<JavaLocal>(size);
+        for (int i = 0; i < size; i++) {
+            locals.add(readLocal(in, jm));
+        }
+        return locals;
+    }
+    
+    /**
+     * Writes a local variable.
+     * @param out the output stream
+     * @param jl the local variable
+     * @throws IOException if the writing failed
+     */
+    private void writeLocal(DataOutputStream out, JavaLocal jl) throws IOException {
+        out.writeUTF(jl.name);
+        out.writeInt(jl.id);
+        writeString(out, jl.type);
+        out.writeBoolean(jl.isPrimitive);
+        out.writeBoolean(jl.isParameter);
+        out.writeInt(jl.modifiers);
+        writeCodeProperties(out, jl);
+        writeAnnotations(out, jl);
+    }
+    
+    /**
+     * Reads a local variable.
+     * @param in the input stream
+     * @param jm the method declaring the local variable
+     * @return the local variable
+     * @throws IOException if the reading failed
+     */
+    private JavaLocal readLocal(DataInputStream in, JavaMethod jm) throws IOException {
+        JavaLocal jl = new JavaLocal(in.readUTF(), in.readInt(), readString(in), in.readBoolean(), in.readBoolean(), in.readInt(), jm);
+        readCodeProperties(in, jl);
+        readAnnotations(in, jl);
+        return jl;
+    }
+    
+    /**
+     * Writes a string that may be <code>null</code>.
+     * @param out the output stream
+     * @param str the string
+     * @throws IOException if the writing failed
+     */
+    private void writeString(DataOutputStream out, String str) throws IOException {
+        out.writeBoolean(str != null);
+        if (str != null) {
+            out.writeUTF(str);
+        }
+    }
+    
+    /**
+     * Reads a string that may be <code>null</code>.
+     * @param in the input stream
+     * @return the string, or <code>null</code> if none
+     * @throws IOException if the reading failed
+     */
+    private String readString(DataInputStream in) throws IOException {
+        if (in.readBoolean()) {
+            return in.readUTF();
+        }
+        return null;
+    }
+    
+    /**
+     * Writes a collection of strings.
+     * @param out the output stream
+     * @param strs the collection of the strings
+     * @throws IOException if the writing failed
+     */
+    private void writeStrings(DataOutputStream out, Collection<String> strs) throws IOException {
+        out.writeInt(strs.size());
+        for (String str : strs) {
+            out.writeUTF(str);
+        }
+    }
+    
+    /**
+     * Reads a collection of strings.
+     * @param in the input stream
+     * @return the collection of the strings
+     * @throws IOException if the reading failed
+     */
+    private List<String> readStrings(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<String> strs = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            strs.add(in.readUTF());
+        }
+        return strs;
+    }
+    
+    /**
+     * Closes a stream, ignoring an exception.
+     * @param stream the stream to be closed, or <code>null</code> if none
+     */
+    private void close(Closeable stream) {
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) { /* empty */ }
+        }
+    }
+    
+    /**
+     * An entry for a file stored in the cache.
+     */
+    private static class Entry {
+        
+        /**
+         * The content hash of the file.
+         */
+        String hash;
+        
+        /**
+         * The encoded model of the file, or <code>null</code> if it has not been encoded yet.
+         */
+        byte[] data = null;
+        
+        /**
+         * A flag indicating if the bindings of all the elements declared in the file were resolved.
+         */
+        boolean bindingOk = true;
+        
+        /**
+         * The names of the classes declared in the file.
+         */
+        Set<String> declaredClassNames = new HashSet<String>();
+        
+        /**
+         * The names of the super classes and interfaces of the classes declared in the file.
+         */
+        Set<String> superClassNames = new HashSet<String>();
+        
+        /**
+         * The names of the classes declared in other files to which the facts of the file refer.
+         */
+        Set<String> referredClassNames = new HashSet<String>();
+        
+        /**
+         * The object storing information about the file parsed in the current run.
+         */
+        JavaFile jfile = null;
+        
+        /**
+         * Creates a new entry.
+         * @param hash the content hash of the file
+         */
+        Entry(String hash) {
+            this.hash = hash;
+        }
+    }
+}
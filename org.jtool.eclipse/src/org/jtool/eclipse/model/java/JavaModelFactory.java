@@ -4,10 +4,22 @@
 
 package org.jtool.eclipse.model.java;
 
+import org.jtool.eclipse.model.java.internal.JavaParserPool;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jdt.core.compiler.IProblem;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.lang.reflect.InvocationTargetException;
 import org.apache.log4j.Logger;
 
 /**
@@ -28,6 +40,21 @@ public abstract class JavaModelFactory {
      */
     protected JavaASTVisitor visitor = null;
     
+    /**
+     * The number of threads that parse files concurrently.
+     */
+    protected int parallelism = 1;
+    
+    /**
+     * The pool of parsers shared by the threads that parse files concurrently.
+     */
+    protected JavaParserPool parserPool = new JavaParserPool();
+    
+    /**
+     * The cache that stores models of unchanged files across runs, or <code>null</code> if no cache is used.
+     */
+    protected JavaModelCache modelCache = null;
+    
     /**
      * Creates a new, empty object.
      */
@@ -43,6 +70,24 @@ public abstract class JavaModelFactory {
         this.visitor = visitor;
     }
     
+    /**
+     * Sets the number of threads that parse files concurrently.
+     * The ASTs are parsed concurrently but visited one at a time so that the visitor output is safely merged into the project.
+     * @param num the number of the threads, or <code>1</code> if files are parsed sequentially
+     */
+    public void setParallelism(int num) {
+        parallelism = Math.max(num, 1);
+    }
+    
+    /**
+     * Sets a cache that stores models of unchanged files across runs.
+     * Files restored from the cache are not parsed, and their elements have no AST node.
+     * @param cache the cache, or <code>null</code> if every file is parsed
+     */
+    public void setModelCache(JavaModelCache cache) {
+        modelCache = cache;
+    }
+    
     /**
      * Creates models for Java programs.
      * @return the created project information
@@ -55,8 +100,17 @@ public abstract class JavaModelFactory {
         
         long start = System.currentTimeMillis();
         
+        if (modelCache != null) {
+            modelCache.setClasspath(getClasspaths());
+            modelCache.load();
+        }
+        
         parse();
         
+        if (modelCache != null) {
+            modelCache.save();
+        }
+        
         JavaElement.setBindingLevel(1);
         
         collectLevel2Info();
@@ -79,6 +133,51 @@ public abstract class JavaModelFactory {
      */
     protected abstract void parse();
     
+    /**
+     * Returns the class paths used during the parse, which are compared with the ones the model cache was stored with.
+     * @return the paths of the entries of the class paths
+     */
+    protected String[] getClasspaths() {
+        return new String[0];
+    }
+    
+    /**
+     * Runs given tasks on worker threads and waits for their completion.
+     * Each task is expected to check the progress monitor by itself and to return early once the cancellation is requested.
+     * The completed tasks are polled at short intervals so that the cancellation is also detected while waiting for them.
+     * @param tasks the tasks to be run
+     * @param monitor the progress monitor to use to receive requests for cancellation
+     * @exception InvocationTargetException if a task threw an exception
+     * @exception InterruptedException if the operation detects a request to cancel
+     */
+    protected void runInParallel(List<Callable<Void>> tasks, IProgressMonitor monitor) throws InvocationTargetException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            CompletionService<Void> service = new ExecutorCompletionService<Void>(executor);
+            for (Callable<Void> task : tasks) {
+                service.submit(task);
+            }
+            
+            int remaining = tasks.size();
+            while (remaining > 0) {
+                if (monitor.isCanceled()) {
+                    throw new InterruptedException();
+                }
+                Future<Void> future = service.poll(100, TimeUnit.MILLISECONDS);
+                if (future != null) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        throw new InvocationTargetException(e.getCause());
+                    }
+                    remaining--;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
     /**
      * Obtains the collection of parse errors for a compilation unit.
      * @param cu the parsed compilation unit
@@ -102,13 +201,25 @@ public abstract class JavaModelFactory {
      * Collects additional information on classes, methods, and fields within a project.
      */
     protected void collectLevel2Info() {
-        for (JavaClass jc : jproject.getJavaClasses()) {
+        collectLevel2Info(jproject.getJavaClasses());
+    }
+    
+    /**
+     * Collects additional information on given classes and their methods and fields.
+     * @param jclasses the collection of the classes
+     */
+    protected void collectLevel2Info(Collection<JavaClass> jclasses) {
+        for (JavaClass jc : jclasses) {
             jc.collectLevel2Info();
             
             if (!jc.isBindingOk()) {
                 logger.info("some binding information was missed in a class: " + jc.getQualifiedName());
             }
-            
+        }
+        
+        JavaClass.buildTypeHierarchy();
+        
+        for (JavaClass jc : jclasses) {
             for (JavaMethod jm : jc.getJavaMethods()) {
                 jm.collectLevel2Info();
                 
@@ -125,6 +236,22 @@ public abstract class JavaModelFactory {
                 }
             }
         }
+        
+        jproject.buildCallGraph();
+    }
+    
+    /**
+     * Clears additional information on a given class and its methods and fields.
+     * @param jc the class
+     */
+    protected void clearLevel2Info(JavaClass jc) {
+        jc.clearLevel2Info();
+        for (JavaMethod jm : jc.getJavaMethods()) {
+            jm.clearLevel2Info();
+        }
+        for (JavaField jf : jc.getJavaFields()) {
+            jf.clearLevel2Info();
+        }
     }
     
     /**
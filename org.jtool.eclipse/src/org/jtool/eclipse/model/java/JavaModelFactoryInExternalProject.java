@@ -7,18 +7,32 @@ package org.jtool.eclipse.model.java;
 import org.jtool.eclipse.Activator;
 import org.jtool.eclipse.model.java.internal.JavaParser;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.jdt.core.compiler.IProblem;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FileASTRequestor;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.ui.IWorkbenchWindow;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.concurrent.Callable;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.lang.reflect.InvocationTargetException;
 
 /**
@@ -43,6 +57,16 @@ public class JavaModelFactoryInExternalProject extends JavaModelFactory {
      */
     private String[] classpaths;
     
+    /**
+     * A flag indicating if all the files are parsed in a batch sharing the name environment and the binding lookup.
+     */
+    private boolean batchParsing = true;
+    
+    /**
+     * The encoding of the files that are not stored in the workspace, which defaults to the encoding of the workspace.
+     */
+    private String encoding = ResourcesPlugin.getEncoding();
+    
     /**
      * Creates a factory object that creates models of Java programs.
      * @param name the name of the project
@@ -86,6 +110,45 @@ public class JavaModelFactoryInExternalProject extends JavaModelFactory {
         this(getTempDirPath().toOSString(), name, new String[] { JavaCore.getClasspathVariable(JRE_LIB).toOSString() });
     }
     
+    /**
+     * Sets a flag indicating if all the files are parsed in a batch sharing the name environment and the binding lookup.
+     * @param bool <code>true</code> if the batch parsing is needed, otherwise <code>false</code> for parsing files one by one
+     */
+    public void setBatchParsing(boolean bool) {
+        batchParsing = bool;
+    }
+    
+    /**
+     * Sets the encoding of the files that are not stored in the workspace.
+     * @param encoding the name of the encoding
+     */
+    public void setEncoding(String encoding) {
+        this.encoding = encoding;
+    }
+    
+    /**
+     * Returns the encodings of given files.
+     * A file stored in the workspace is read in its charset, and the other files in the encoding of this factory.
+     * @param files the files
+     * @return the names of the encodings of the respective files
+     */
+    private String[] getEncodings(File[] files) {
+        IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+        String[] encodings = new String[files.length];
+        for (int index = 0; index < files.length; index++) {
+            encodings[index] = encoding;
+            IFile ifile = root.getFileForLocation(new Path(files[index].getAbsolutePath()));
+            if (ifile != null) {
+                try {
+                    encodings[index] = ifile.getCharset();
+                } catch (CoreException e) {
+                    logger.error("charset could not be obtained: " + files[index].getPath() + " (" + e.getMessage() + ")");
+                }
+            }
+        }
+        return encodings;
+    }
+    
     /**
      * Parses Java programs.
      */
@@ -99,9 +162,50 @@ public class JavaModelFactoryInExternalProject extends JavaModelFactory {
      */
     protected void parse() {
         Set<File> files = collectAllFiles(jproject.getTopDir());
+        if (modelCache != null) {
+            files = restoreJavaModel(files);
+        }
         createJavaModel(files);
     }
     
+    /**
+     * Returns the class paths used during the parse.
+     * @return the paths of the entries of the class paths
+     */
+    protected String[] getClasspaths() {
+        return classpaths;
+    }
+    
+    /**
+     * Restores models of files whose contents are unchanged from the cache.
+     * @param files the collection of all the files within the project
+     * @return the collection of files that require parsing
+     */
+    private Set<File> restoreJavaModel(Set<File> files) {
+        Set<File> rest = new HashSet<File>();
+        Map<String, String> hashes = new HashMap<String, String>();
+        for (File file : files) {
+            try {
+                hashes.put(file.getAbsolutePath(), JavaModelCache.getContentHash(Files.readAllBytes(file.toPath())));
+            } catch (IOException e) {
+                rest.add(file);
+            }
+        }
+        modelCache.prepare(hashes);
+        
+        for (File file : files) {
+            String hash = hashes.get(file.getAbsolutePath());
+            if (hash != null) {
+                JavaFile jfile = new JavaFile(file.getAbsoluteFile().getName(), jproject);
+                if (!modelCache.restore(file.getAbsolutePath(), hash, jfile)) {
+                    rest.add(file);
+                }
+            }
+        }
+        logger.info("restored files = " + (files.size() - rest.size()));
+        return rest;
+    }
+    
     /**
      * Collects all files within the external project.
      * @param top the path of the specified directory
@@ -130,6 +234,16 @@ public class JavaModelFactoryInExternalProject extends JavaModelFactory {
      * @param junits the collection of compilation unit that requires parsing
      */
     private void createJavaModel(final Set<File> files) {
+        if (parallelism > 1) {
+            createJavaModelInParallel(files);
+            return;
+        }
+        
+        if (batchParsing) {
+            createJavaModelInBatch(files);
+            return;
+        }
+        
         try {
             final JavaParser parser = new JavaParser();
             IWorkbenchWindow workbenchWindow = Activator.getWorkbenchWindow();
@@ -175,6 +289,217 @@ public class JavaModelFactoryInExternalProject extends JavaModelFactory {
         }
     }
     
+    /**
+     * Creates a model from Java programs parsed in a batch.
+     * Each AST is visited as soon as it is created so that the visit overlaps with the parse of the remaining files.
+     * @param files the collection of files that require parsing
+     */
+    private void createJavaModelInBatch(final Set<File> files) {
+        try {
+            final JavaParser parser = new JavaParser();
+            IWorkbenchWindow workbenchWindow = Activator.getWorkbenchWindow();
+            workbenchWindow.run(true, true, new IRunnableWithProgress() {
+                
+                /**
+                 * Creates a model by parsing Java files in a batch.
+                 * @param monitor the progress monitor to use to display progress and receive requests for cancellation
+                 * @exception InvocationTargetException if the run method must propagate a checked exception
+                 * @exception InterruptedException if the operation detects a request to cancel
+                 */
+                @Override
+                public void run(final IProgressMonitor monitor) throws InvocationTargetException, InterruptedException {
+                    final SubMonitor progress = SubMonitor.convert(monitor, "Parsing files... ", files.size());
+                    
+                    FileASTRequestor requestor = new FileASTRequestor() {
+                        
+                        /**
+                         * The number of the files whose ASTs have been accepted.
+                         */
+                        private int idx = 1;
+                        
+                        /**
+                         * Creates a model from the AST of a parsed file.
+                         * @param path the path of the parsed file
+                         * @param cu the AST of the file
+                         */
+                        @Override
+                        public void acceptAST(String path, CompilationUnit cu) {
+                            progress.subTask(idx + "/" + files.size() + " - " + path);
+                            
+                            try {
+                                createJavaModel(new File(path), cu);
+                            } catch (NullPointerException e) {
+                                System.err.println("* Fatal error occurred. Skip the paser of " + path);
+                            }
+                            
+                            if (progress.isCanceled()) {
+                                throw new OperationCanceledException();
+                            }
+                            progress.worked(1);
+                            idx++;
+                        }
+                    };
+                    
+                    String[] sourcepaths = new String[]{ jproject.getTopDir() };
+                    try {
+                        File[] array = files.toArray(new File[files.size()]);
+                        parser.parse(array, getEncodings(array), classpaths, sourcepaths, requestor, progress.newChild(0));
+                    } catch (OperationCanceledException e) {
+                        monitor.done();
+                        throw new InterruptedException();
+                    }
+                    monitor.done();
+                }
+                
+            });
+            
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            System.err.println("* InvocationTargetException occurred because " + cause);
+        } catch (InterruptedException e) {
+            return;
+        }
+    }
+    
+    /**
+     * Creates a model from Java programs parsed by multiple threads.
+     * In the batch parsing, each thread parses its share of the files in a batch.
+     * @param files the collection of files that require parsing
+     */
+    private void createJavaModelInParallel(final Set<File> files) {
+        try {
+            IWorkbenchWindow workbenchWindow = Activator.getWorkbenchWindow();
+            workbenchWindow.run(true, true, new IRunnableWithProgress() {
+                
+                /**
+                 * The number of the files whose models have been created.
+                 */
+                private int idx = 1;
+                
+                /**
+                 * Creates a model by parsing Java files concurrently.
+                 * @param monitor the progress monitor to use to display progress and receive requests for cancellation
+                 * @exception InvocationTargetException if the run method must propagate a checked exception
+                 * @exception InterruptedException if the operation detects a request to cancel
+                 */
+                @Override
+                public void run(final IProgressMonitor monitor) throws InvocationTargetException, InterruptedException {
+                    monitor.beginTask("Parsing files... ", files.size());
+                    
+                    final String[] sourcepaths = new String[]{ jproject.getTopDir() };
+                    final IProgressMonitor cancelMonitor = new NullProgressMonitor() {
+                        
+                        /**
+                         * Tests if the cancellation of the whole parsing is requested.
+                         * @return <code>true</code> if the cancellation is requested, otherwise <code>false</code>
+                         */
+                        @Override
+                        public boolean isCanceled() {
+                            return monitor.isCanceled();
+                        }
+                    };
+                    
+                    final FileASTRequestor requestor = new FileASTRequestor() {
+                        
+                        /**
+                         * Creates a model from the AST of a parsed file.
+                         * @param path the path of the parsed file
+                         * @param cu the AST of the file
+                         */
+                        @Override
+                        public void acceptAST(String path, CompilationUnit cu) {
+                            accept(new File(path), cu, monitor);
+                            if (monitor.isCanceled()) {
+                                throw new OperationCanceledException();
+                            }
+                        }
+                    };
+                    
+                    List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+                    for (final File[] chunk : divide(files)) {
+                        tasks.add(new Callable<Void>() {
+                            
+                            /**
+                             * Parses the files of a chunk and merges their models into the project.
+                             * @return always <code>null</code>
+                             */
+                            public Void call() {
+                                JavaParser parser = parserPool.acquire();
+                                try {
+                                    if (batchParsing) {
+                                        parser.parse(chunk, getEncodings(chunk), classpaths, sourcepaths, requestor, cancelMonitor);
+                                    } else {
+                                        for (File file : chunk) {
+                                            if (monitor.isCanceled()) {
+                                                break;
+                                            }
+                                            accept(file, parser.parse(file, classpaths, sourcepaths), monitor);
+                                        }
+                                    }
+                                } catch (OperationCanceledException e) {
+                                } finally {
+                                    parserPool.release(parser);
+                                }
+                                return null;
+                            }
+                        });
+                    }
+                    
+                    try {
+                        runInParallel(tasks, monitor);
+                    } finally {
+                        monitor.done();
+                    }
+                }
+                
+                /**
+                 * Merges the model created from the AST of a parsed file into the project.
+                 * @param file the parsed file
+                 * @param cu the AST of the file
+                 * @param monitor the progress monitor to use to display progress
+                 */
+                private void accept(File file, CompilationUnit cu, IProgressMonitor monitor) {
+                    synchronized (jproject) {
+                        monitor.subTask(idx + "/" + files.size() + " - " + file.getPath());
+                        try {
+                            createJavaModel(file, cu);
+                        } catch (NullPointerException e) {
+                            System.err.println("* Fatal error occurred. Skip the paser of " + file.getPath());
+                        }
+                        monitor.worked(1);
+                        idx++;
+                    }
+                }
+            });
+            
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            System.err.println("* InvocationTargetException occurred because " + cause);
+        } catch (InterruptedException e) {
+            return;
+        }
+    }
+    
+    /**
+     * Divides files into chunks each of which is parsed by a thread.
+     * In the batch parsing, the files are divided into as many chunks as the threads. Otherwise, each chunk contains a single file.
+     * @param files the collection of the files
+     * @return the chunks of the files
+     */
+    private List<File[]> divide(Set<File> files) {
+        File[] all = files.toArray(new File[files.size()]);
+        int num = batchParsing ? parallelism : all.length;
+        List<File[]> chunks = new ArrayList<File[]>();
+        for (int index = 0; index < num; index++) {
+            int from = (int)((long)all.length * index / num);
+            int to = (int)((long)all.length * (index + 1) / num);
+            if (from < to) {
+                chunks.add(Arrays.copyOfRange(all, from, to));
+            }
+        }
+        return chunks;
+    }
+    
     /**
      * Creates a model from a Java program stored in a given file.
      * @param the Java parser
@@ -183,7 +508,15 @@ public class JavaModelFactoryInExternalProject extends JavaModelFactory {
     protected void createJavaModel(JavaParser parser, File file) {
         String[] sourcepaths = new String[]{ jproject.getTopDir() };
         CompilationUnit cu = parser.parse(file, classpaths, sourcepaths);
-        
+        createJavaModel(file, cu);
+    }
+    
+    /**
+     * Creates a model from the AST of a Java program stored in a given file.
+     * @param file the parsed file
+     * @param cu the root node of the AST, or <code>null</code> if the file could not be parsed
+     */
+    protected void createJavaModel(File file, CompilationUnit cu) {
         if (cu != null) {
             List<IProblem> errors = getParseErrors(cu);
             if (errors.size() == 0) {
@@ -199,6 +532,10 @@ public class JavaModelFactoryInExternalProject extends JavaModelFactory {
             visitor.setJavaFile(jfile);
             cu.accept(visitor);
             visitor.close();
+            
+            if (modelCache != null) {
+                modelCache.update(file.getAbsolutePath(), jfile);
+            }
         }
     }
     
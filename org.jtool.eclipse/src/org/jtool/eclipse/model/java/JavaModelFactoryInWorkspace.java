@@ -6,19 +6,30 @@ package org.jtool.eclipse.model.java;
 
 import org.jtool.eclipse.Activator;
 import org.jtool.eclipse.model.java.internal.JavaParser;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.compiler.IProblem;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.ui.IWorkbenchWindow;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.io.UnsupportedEncodingException;
 import java.lang.reflect.InvocationTargetException;
 
 /**
@@ -50,11 +61,172 @@ public class JavaModelFactoryInWorkspace extends JavaModelFactory {
         Set<ICompilationUnit> cunits = collectAllCompilationUnits(project);
         removeUnchangedCompilationUnits(cunits);
         Set<ICompilationUnit> pcunits = collectCompilationUnitsToBeParsed(cunits);
+        if (modelCache != null) {
+            pcunits = restoreJavaModel(pcunits);
+        }
         
         createJavaModel(pcunits);
         logger.info("analyzed files = " + pcunits.size());
     }
     
+    /**
+     * Updates models for changed files, leaving the models for the other files intact.
+     * Only the classes declared in the changed files are created again, and only the relations of classes
+     * that refer to the classes declared in the changed files are bound again.
+     * @param pathnames the collection of the path names of files that were changed, added, or removed
+     * @return the updated project information
+     */
+    public JavaProject update(Set<String> pathnames) {
+        if (visitor == null) {
+            System.err.println("* No visitor was given. Please set a visitor object");
+            return null;
+        }
+        
+        Set<JavaClass> oldClasses = getJavaClasses(pathnames);
+        Set<String> fqns = getQualifiedNames(oldClasses);
+        for (JavaClass jc : oldClasses) {
+            clearLevel2Info(jc);
+        }
+        for (JavaClass jc : oldClasses) {
+            JavaClass.removeClassInCache(jc);
+        }
+        for (String pathname : pathnames) {
+            JavaFile jf = jproject.getJavaFile(pathname);
+            if (jf != null) {
+                jproject.remove(jf);
+            }
+        }
+        
+        JavaParser parser = new JavaParser();
+        IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+        for (String pathname : pathnames) {
+            IFile file = root.getFile(new Path(pathname));
+            if (file.exists()) {
+                try {
+                    createJavaModel(parser, JavaCore.createCompilationUnitFrom(file));
+                } catch (NullPointerException e) {
+                    System.err.println("* Fatal error occurred. Skip the paser of " + pathname);
+                }
+            }
+        }
+        
+        Set<JavaClass> newClasses = getJavaClasses(pathnames);
+        fqns.addAll(getQualifiedNames(newClasses));
+        
+        Set<JavaClass> jclasses = new HashSet<JavaClass>();
+        for (JavaClass jc : jproject.getJavaClasses()) {
+            if (!newClasses.contains(jc) && refersTo(jc, fqns)) {
+                clearLevel2Info(jc);
+                jclasses.add(jc);
+            }
+        }
+        jclasses.addAll(newClasses);
+        collectLevel2Info(jclasses);
+        
+        for (JavaPackage jp : jproject.getJavaPackages()) {
+            jp.clearLevel3Info();
+        }
+        collectLevel3Info();
+        
+        logger.info("updated files = " + pathnames.size() + ", rebound classes = " + jclasses.size());
+        return jproject;
+    }
+    
+    /**
+     * Collects classes declared in given files.
+     * @param pathnames the collection of the path names of the files
+     * @return the collection of the classes
+     */
+    private Set<JavaClass> getJavaClasses(Set<String> pathnames) {
+        Set<JavaClass> jclasses = new HashSet<JavaClass>();
+        for (JavaClass jc : jproject.getJavaClasses()) {
+            if (jc.getJavaFile() != null && pathnames.contains(jc.getJavaFile().getPath())) {
+                jclasses.add(jc);
+            }
+        }
+        return jclasses;
+    }
+    
+    /**
+     * Collects the fully-qualified names of given classes.
+     * @param jclasses the collection of the classes
+     * @return the collection of the names
+     */
+    private Set<String> getQualifiedNames(Set<JavaClass> jclasses) {
+        Set<String> fqns = new HashSet<String>();
+        for (JavaClass jc : jclasses) {
+            fqns.add(jc.getQualifiedName());
+        }
+        return fqns;
+    }
+    
+    /**
+     * Tests if a given class refers to any of given classes.
+     * The super classes and super interfaces of the class are traced transitively since its methods may override
+     * methods of any of them.
+     * @param jc the class to be checked
+     * @param fqns the collection of the fully-qualified names of the referred classes
+     * @return <code>true</code> if the class refers to any of the classes, otherwise <code>false</code>
+     */
+    private boolean refersTo(JavaClass jc, Set<String> fqns) {
+        Set<String> supers = new HashSet<String>();
+        List<JavaClass> stack = new ArrayList<JavaClass>();
+        stack.add(jc);
+        while (!stack.isEmpty()) {
+            JavaClass type = stack.remove(stack.size() - 1);
+            List<String> names = new ArrayList<String>(type.getSuperInterfaceNames());
+            if (type.getSuperClassName() != null) {
+                names.add(type.getSuperClassName());
+            }
+            
+            for (String name : names) {
+                if (supers.add(name)) {
+                    if (fqns.contains(name)) {
+                        return true;
+                    }
+                    JavaClass parent = JavaClass.getJavaClass(name);
+                    if (parent != null) {
+                        stack.add(parent);
+                    }
+                }
+            }
+        }
+        
+        if (containsAny(fqns, jc.efferentClassNames, false)) {
+            return true;
+        }
+        
+        for (JavaMethod jm : jc.getJavaMethods()) {
+            if (containsAny(fqns, jm.exceptionNames, false) || containsAny(fqns, jm.usedClassNames, false) ||
+                containsAny(fqns, jm.calledMethodNames, true) || containsAny(fqns, jm.accessedFieldNames, true)) {
+                return true;
+            }
+        }
+        for (JavaField jf : jc.getJavaFields()) {
+            if (containsAny(fqns, jf.calledMethodNames, true) || containsAny(fqns, jf.accessedFieldNames, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Tests if given names refer to any of given classes.
+     * @param fqns the collection of the fully-qualified names of the classes
+     * @param names the collection of the names to be checked
+     * @param member <code>true</code> if the names represent methods or fields, otherwise <code>false</code>
+     * @return <code>true</code> if any of the names refers to any of the classes, otherwise <code>false</code>
+     */
+    private boolean containsAny(Set<String> fqns, Set<String> names, boolean member) {
+        for (String str : names) {
+            String fqn = member ? JavaMethod.getFqn(str) : JavaClass.getFqn(str);
+            if (fqns.contains(fqn)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     /**
      * Collects all compilation units within the project.
      * @param proj the project
@@ -120,11 +292,70 @@ public class JavaModelFactoryInWorkspace extends JavaModelFactory {
         return newUnits;
     }
     
+    /**
+     * Returns the class paths used during the parse, which are the resolved class path entries of the project.
+     * @return the paths of the entries of the class paths
+     */
+    protected String[] getClasspaths() {
+        List<String> paths = new ArrayList<String>();
+        try {
+            IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+            for (IClasspathEntry entry : project.getResolvedClasspath(true)) {
+                IResource resource = root.findMember(entry.getPath());
+                if (resource != null && resource.getLocation() != null) {
+                    paths.add(resource.getLocation().toOSString());
+                } else {
+                    paths.add(entry.getPath().toOSString());
+                }
+            }
+        } catch (JavaModelException e) {
+            logger.error("class path could not be resolved: " + e.getMessage());
+        }
+        return paths.toArray(new String[paths.size()]);
+    }
+    
+    /**
+     * Restores models of compilation units whose contents are unchanged from the cache.
+     * @param cunits the collection of the compilation units to be parsed
+     * @return the collection of compilation units that still require parsing
+     */
+    private Set<ICompilationUnit> restoreJavaModel(Set<ICompilationUnit> cunits) {
+        Set<ICompilationUnit> rest = new HashSet<ICompilationUnit>();
+        Map<String, String> hashes = new HashMap<String, String>();
+        for (ICompilationUnit icu : cunits) {
+            try {
+                hashes.put(icu.getPath().toString(), JavaModelCache.getContentHash(icu.getSource().getBytes("UTF-8")));
+            } catch (JavaModelException e) {
+                rest.add(icu);
+            } catch (UnsupportedEncodingException e) {
+                rest.add(icu);
+            }
+        }
+        modelCache.prepare(hashes);
+        
+        for (ICompilationUnit icu : cunits) {
+            String hash = hashes.get(icu.getPath().toString());
+            if (hash != null) {
+                JavaFile jfile = new JavaFile(icu, jproject);
+                if (!modelCache.restore(icu.getPath().toString(), hash, jfile)) {
+                    rest.add(icu);
+                }
+            }
+        }
+        logger.info("restored files = " + (cunits.size() - rest.size()));
+        return rest;
+    }
+    
     /**
      * Creates a model from Java programs.
      * @param junits the collection of compilation unit that requires parsing
      */
     private void createJavaModel(final Set<ICompilationUnit> cunits) {
+        if (parallelism > 1) {
+            createJavaModelInParallel(cunits);
+            return;
+        }
+        
         try {
             final JavaParser parser = new JavaParser();
             IWorkbenchWindow workbenchWindow = Activator.getWorkbenchWindow();
@@ -174,6 +405,82 @@ public class JavaModelFactoryInWorkspace extends JavaModelFactory {
         }
     }
     
+    /**
+     * Creates a model from Java programs parsed by multiple threads.
+     * @param junits the collection of compilation unit that requires parsing
+     */
+    private void createJavaModelInParallel(final Set<ICompilationUnit> cunits) {
+        try {
+            IWorkbenchWindow workbenchWindow = Activator.getWorkbenchWindow();
+            workbenchWindow.run(true, true, new IRunnableWithProgress() {
+                
+                /**
+                 * The number of the compilation units whose models have been created.
+                 */
+                private int idx = 1;
+                
+                /**
+                 * Creates a model by parsing Java files concurrently.
+                 * @param monitor the progress monitor to use to display progress and receive requests for cancellation
+                 * @exception InvocationTargetException if the run method must propagate a checked exception
+                 * @exception InterruptedException if the operation detects a request to cancel
+                 */
+                @Override
+                public void run(final IProgressMonitor monitor) throws InvocationTargetException, InterruptedException {
+                    monitor.beginTask("Parsing files... ", cunits.size());
+                    
+                    List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+                    for (final ICompilationUnit icu : cunits) {
+                        tasks.add(new Callable<Void>() {
+                            
+                            /**
+                             * Parses a compilation unit and merges its model into the project.
+                             * @return always <code>null</code>
+                             */
+                            public Void call() {
+                                if (monitor.isCanceled()) {
+                                    return null;
+                                }
+                                
+                                JavaParser parser = parserPool.acquire();
+                                CompilationUnit cu;
+                                try {
+                                    cu = parser.parse(icu);
+                                } finally {
+                                    parserPool.release(parser);
+                                }
+                                
+                                synchronized (jproject) {
+                                    monitor.subTask(idx + "/" + cunits.size() + " - " + icu.getPath().toString());
+                                    try {
+                                        createJavaModel(icu, cu);
+                                    } catch (NullPointerException e) {
+                                        System.err.println("* Fatal error occurred. Skip the paser of " + icu.getPath().toString());
+                                    }
+                                    monitor.worked(1);
+                                    idx++;
+                                }
+                                return null;
+                            }
+                        });
+                    }
+                    
+                    try {
+                        runInParallel(tasks, monitor);
+                    } finally {
+                        monitor.done();
+                    }
+                }
+            });
+            
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            System.err.println("* InvocationTargetException occurred because " + cause);
+        } catch (InterruptedException e) {
+            return;
+        }
+    }
+    
     /**
      * Creates a model from a given compilation unit.
      * @param the Java parser
@@ -181,7 +488,15 @@ public class JavaModelFactoryInWorkspace extends JavaModelFactory {
      */
     private void createJavaModel(JavaParser parser, ICompilationUnit icu) {
         CompilationUnit cu = (CompilationUnit)parser.parse(icu);
-        
+        createJavaModel(icu, cu);
+    }
+    
+    /**
+     * Creates a model from the AST of a given compilation unit.
+     * @param icu the parsed compilation unit
+     * @param cu the root node of the AST, or <code>null</code> if the compilation unit could not be parsed
+     */
+    private void createJavaModel(ICompilationUnit icu, CompilationUnit cu) {
         if (cu != null) {
             List<IProblem> errors = getParseErrors(cu);
             if (errors.size() == 0) {
@@ -198,6 +513,10 @@ public class JavaModelFactoryInWorkspace extends JavaModelFactory {
             visitor.close();
             
             jproject.addJavaFile(jfile);
+            
+            if (modelCache != null) {
+                modelCache.update(icu.getPath().toString(), jfile);
+            }
         }
     }
 }
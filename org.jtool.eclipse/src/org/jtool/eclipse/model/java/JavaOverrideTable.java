@@ -0,0 +1,163 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.java;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A table that links methods with the methods they override in super classes and super interfaces.
+ * The methods in a type hierarchy are grouped by their signatures, and each method is compared only with the methods
+ * in the same group that are declared in the supertypes of its declaring class.
+ * @author Katsuhisa Maruyama
+ */
+public class JavaOverrideTable {
+    
+    /**
+     * The type hierarchy containing the methods in this table.
+     */
+    private JavaTypeHierarchy hierarchy;
+    
+    /**
+     * The methods that each method overrides.
+     */
+    private Map<JavaMethod, List<JavaMethod>> overriddenMethods = new IdentityHashMap<JavaMethod, List<JavaMethod>>();
+    
+    /**
+     * The methods that override each method.
+     */
+    private Map<JavaMethod, List<JavaMethod>> overridingMethods = new IdentityHashMap<JavaMethod, List<JavaMethod>>();
+    
+    /**
+     * Creates a table of the methods declared in the classes of a given type hierarchy.
+     * @param hierarchy the type hierarchy
+     */
+    public JavaOverrideTable(JavaTypeHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        
+        Map<String, Map<JavaClass, JavaMethod>> groups = new HashMap<String, Map<JavaClass, JavaMethod>>();
+        for (JavaClass jc : hierarchy.getJavaClasses()) {
+            for (JavaMethod jm : jc.getJavaMethods()) {
+                if (jm.isMethod() && !jm.isStatic()) {
+                    Map<JavaClass, JavaMethod> group = groups.get(jm.getSignature());
+                    if (group == null) {
+                        group = new IdentityHashMap<JavaClass, JavaMethod>();
+                        groups.put(jm.getSignature(), group);
+                    }
+                    group.put(jc, jm);
+                }
+            }
+        }
+        
+        for (Map<JavaClass, JavaMethod> group : groups.values()) {
+            if (group.size() > 1) {
+                link(group);
+            }
+        }
+    }
+    
+    /**
+     * Links the methods with the same signature.
+     * Each method is compared with either the methods in the group or the methods of its supertypes, whichever is fewer.
+     * @param group the methods with the same signature, which are keyed by their declaring classes
+     */
+    private void link(Map<JavaClass, JavaMethod> group) {
+        for (JavaClass jc : group.keySet()) {
+            JavaMethod jm = group.get(jc);
+            
+            if (group.size() <= hierarchy.getAncestorCount(jc)) {
+                for (JavaClass c : group.keySet()) {
+                    if (hierarchy.isSubtypeOf(jc, c)) {
+                        link(jm, group.get(c));
+                    }
+                }
+            } else {
+                for (JavaClass c : hierarchy.getAncestors(jc)) {
+                    JavaMethod m = group.get(c);
+                    if (m != null) {
+                        link(jm, m);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Links a method with a method it might override.
+     * @param jm the overriding method
+     * @param sm the method declared in a supertype of the class declaring the overriding method
+     */
+    private void link(JavaMethod jm, JavaMethod sm) {
+        if (canOverride(jm, sm)) {
+            add(overriddenMethods, jm, sm);
+            add(overridingMethods, sm, jm);
+        }
+    }
+    
+    /**
+     * Tests if a method is visible enough to be overridden by another method.
+     * @param jm the overriding method
+     * @param sm the method declared in a supertype of the class declaring the overriding method
+     * @return <code>true</code> if <code>jm</code> overrides <code>sm</code>, otherwise <code>false</code>
+     */
+    private boolean canOverride(JavaMethod jm, JavaMethod sm) {
+        if (sm.isPrivate()) {
+            return false;
+        }
+        if (sm.isDefault() && !sm.getDeclaringJavaClass().isInterface()) {
+            JavaPackage jp = jm.getDeclaringJavaClass().getJavaPackage();
+            JavaPackage sp = sm.getDeclaringJavaClass().getJavaPackage();
+            if (jp != null && sp != null) {
+                return jp.getName().compareTo(sp.getName()) == 0;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Adds a method to the collection of methods related to a given method.
+     * @param map the map storing the related methods
+     * @param key the given method
+     * @param jm the method to be added
+     */
+    private void add(Map<JavaMethod, List<JavaMethod>> map, JavaMethod key, JavaMethod jm) {
+        List<JavaMethod> methods = map.get(key);
+        if (methods == null) {
+            methods = new ArrayList<JavaMethod>();
+            map.put(key, methods);
+        }
+        methods.add(jm);
+    }
+    
+    /**
+     * Returns the methods that a given method overrides.
+     * @param jm the method
+     * @return the collection of the methods in super classes and super interfaces, or an empty collection if none
+     */
+    public Collection<JavaMethod> getOverriddenJavaMethods(JavaMethod jm) {
+        List<JavaMethod> methods = overriddenMethods.get(jm);
+        if (methods != null) {
+            return methods;
+        }
+        return new ArrayList<JavaMethod>();
+    }
+    
+    /**
+     * Returns the methods that override a given method.
+     * @param jm the method
+     * @return the collection of the methods in subclasses and sub-interfaces, or an empty collection if none
+     */
+    public Collection<JavaMethod> getOverridingJavaMethods(JavaMethod jm) {
+        List<JavaMethod> methods = overridingMethods.get(jm);
+        if (methods != null) {
+            return methods;
+        }
+        return new ArrayList<JavaMethod>();
+    }
+}
@@ -134,6 +134,14 @@ public class JavaPackage {
         classes.add(jc);
     }
     
+    /**
+     * Removes a specified class from the members of this package.
+     * @param jc the class to be removed
+     */
+    public void removeJavaClass(JavaClass jc) {
+        classes.remove(jc);
+    }
+    
     /**
      * Returns all the classes within this class or interface.
      * @return the collection of the classes declared in this class or interface
@@ -248,6 +256,15 @@ public class JavaPackage {
         }
     }
     
+    /**
+     * Clears the additional information on this package so that it can be collected again.
+     */
+    public void clearLevel3Info() {
+        bindingOk = false;
+        afferentPackages.clear();
+        efferentPackages.clear();
+    }
+    
     /**
      * Adds a package that depends on classes within this package.
      * @param jm the afferent package
@@ -59,6 +59,16 @@ public class JavaProject {
      */
     protected long lastCreatedTime;
     
+    /**
+     * The call graph of the methods in this project.
+     */
+    protected CallGraph callGraph = null;
+    
+    /**
+     * The call graph of the methods in this project with the rapid type analysis, which is built on demand.
+     */
+    protected CallGraph rtaCallGraph = null;
+    
     /**
      * Creates a new, empty object.
      */
@@ -255,6 +265,46 @@ public class JavaProject {
         files.remove(jf.getPath());
     }
     
+    /**
+     * Builds the call graph of the methods in this project, which expands calls with the class hierarchy analysis.
+     * This must be called after the completion of <code>collectLevel2Info()</code>.
+     * @return the built call graph
+     */
+    public synchronized CallGraph buildCallGraph() {
+        callGraph = new CallGraph(getJavaClasses(), CallGraph.Dispatch.CHA);
+        rtaCallGraph = null;
+        return callGraph;
+    }
+    
+    /**
+     * Returns the call graph of the methods in this project, which expands calls with the class hierarchy analysis.
+     * @return the call graph, which is built if it has not been built yet
+     */
+    public synchronized CallGraph getCallGraph() {
+        return getCallGraph(CallGraph.Dispatch.CHA);
+    }
+    
+    /**
+     * Returns the call graph of the methods in this project with a given kind of the expansion of calls.
+     * The rapid type analysis excludes calls to the overriding methods of classes that are never instantiated
+     * within this project, which makes a smaller graph than the class hierarchy analysis.
+     * @param dispatch the kind of the expansion of calls
+     * @return the call graph, which is built if it has not been built yet
+     */
+    public synchronized CallGraph getCallGraph(CallGraph.Dispatch dispatch) {
+        if (dispatch == CallGraph.Dispatch.RTA) {
+            if (rtaCallGraph == null) {
+                rtaCallGraph = new CallGraph(getJavaClasses(), CallGraph.Dispatch.RTA);
+            }
+            return rtaCallGraph;
+        }
+        
+        if (callGraph == null) {
+            callGraph = new CallGraph(getJavaClasses(), CallGraph.Dispatch.CHA);
+        }
+        return callGraph;
+    }
+    
     /**
      * Adds a package contained in this project.
      * @param jpackage the package to be added
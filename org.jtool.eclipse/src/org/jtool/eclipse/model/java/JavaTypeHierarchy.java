@@ -0,0 +1,373 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.java;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An index of the type hierarchy built from super classes and super interfaces resolved by <code>collectLevel2Info()</code>.
+ * Each class is numbered and has the list of its direct subclasses and sub-interfaces.
+ * The tree of super classes is labeled with pre-order and post-order numbers so that a subclass test is done in constant time,
+ * and the transitive subtypes and supertypes of a class are computed as bit sets on demand and are kept for later queries.
+ * @author Katsuhisa Maruyama
+ */
+public class JavaTypeHierarchy {
+    
+    /**
+     * The numbers of the classes in this hierarchy.
+     */
+    private Map<JavaClass, Integer> indices = new IdentityHashMap<JavaClass, Integer>();
+    
+    /**
+     * The classes in this hierarchy, which are arranged in the order of their numbers.
+     */
+    private List<JavaClass> classes = new ArrayList<JavaClass>();
+    
+    /**
+     * The direct subclasses and sub-interfaces of each class.
+     */
+    private List<List<JavaClass>> children = new ArrayList<List<JavaClass>>();
+    
+    /**
+     * The pre-order numbers of the classes in the tree of super classes.
+     */
+    private int[] preorders;
+    
+    /**
+     * The post-order numbers of the classes in the tree of super classes.
+     */
+    private int[] postorders;
+    
+    /**
+     * The numbers of all the subtypes of each class, which are computed on demand.
+     */
+    private BitSet[] descendants;
+    
+    /**
+     * The numbers of all the supertypes of each class, which are computed on demand.
+     */
+    private BitSet[] ancestors;
+    
+    /**
+     * The table of overriding relations between the methods of the classes, which is built on demand.
+     */
+    private JavaOverrideTable overrideTable = null;
+    
+    /**
+     * Creates a hierarchy of given classes and all their supertypes.
+     * @param jclasses the collection of the classes
+     */
+    public JavaTypeHierarchy(Collection<JavaClass> jclasses) {
+        for (JavaClass jc : jclasses) {
+            add(jc);
+        }
+        
+        int size = classes.size();
+        for (int index = 0; index < size; index++) {
+            children.add(new ArrayList<JavaClass>());
+        }
+        for (JavaClass jc : classes) {
+            if (jc.superClass != null) {
+                children.get(indexOf(jc.superClass)).add(jc);
+            }
+            for (JavaClass parent : jc.superInterfaces) {
+                children.get(indexOf(parent)).add(jc);
+            }
+        }
+        
+        descendants = new BitSet[size];
+        ancestors = new BitSet[size];
+        labelSuperClassTree();
+    }
+    
+    /**
+     * Numbers a given class and its supertypes that have not been numbered yet.
+     * @param jc the class
+     */
+    private void add(JavaClass jc) {
+        List<JavaClass> stack = new ArrayList<JavaClass>();
+        stack.add(jc);
+        while (!stack.isEmpty()) {
+            JavaClass c = stack.remove(stack.size() - 1);
+            if (!indices.containsKey(c)) {
+                indices.put(c, classes.size());
+                classes.add(c);
+                
+                if (c.superClass != null) {
+                    stack.add(c.superClass);
+                }
+                stack.addAll(c.superInterfaces);
+            }
+        }
+    }
+    
+    /**
+     * Labels the classes with pre-order and post-order numbers in the tree of super classes.
+     */
+    private void labelSuperClassTree() {
+        int size = classes.size();
+        preorders = new int[size];
+        postorders = new int[size];
+        
+        List<List<Integer>> subclasses = new ArrayList<List<Integer>>();
+        for (int index = 0; index < size; index++) {
+            subclasses.add(new ArrayList<Integer>());
+        }
+        for (int index = 0; index < size; index++) {
+            JavaClass parent = classes.get(index).superClass;
+            if (parent != null) {
+                subclasses.get(indexOf(parent)).add(index);
+            }
+        }
+        
+        int order = 0;
+        int[] next = new int[size];
+        int[] stack = new int[size];
+        for (int root = 0; root < size; root++) {
+            if (classes.get(root).superClass != null) {
+                continue;
+            }
+            
+            int top = 0;
+            stack[top] = root;
+            preorders[root] = order++;
+            while (top >= 0) {
+                int index = stack[top];
+                List<Integer> subs = subclasses.get(index);
+                if (next[index] < subs.size()) {
+                    int sub = subs.get(next[index]++);
+                    preorders[sub] = order++;
+                    stack[++top] = sub;
+                } else {
+                    postorders[index] = order++;
+                    top--;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns the number of a given class.
+     * @param jc the class
+     * @return the number of the class, or <code>-1</code> if the class is not contained in this hierarchy
+     */
+    public int indexOf(JavaClass jc) {
+        Integer index = indices.get(jc);
+        if (index != null) {
+            return index.intValue();
+        }
+        return -1;
+    }
+    
+    /**
+     * Returns all the classes in this hierarchy.
+     * @return the collection of the classes
+     */
+    public List<JavaClass> getJavaClasses() {
+        return classes;
+    }
+    
+    /**
+     * Tests if a given class is contained in this hierarchy.
+     * @param jc the class
+     * @return <code>true</code> if the class is contained, otherwise <code>false</code>
+     */
+    public boolean contains(JavaClass jc) {
+        return indices.containsKey(jc);
+    }
+    
+    /**
+     * Returns the direct subclasses and sub-interfaces of a given class.
+     * @param jc the class
+     * @return the collection of the children, or an empty collection if none
+     */
+    public List<JavaClass> getChildren(JavaClass jc) {
+        int index = indexOf(jc);
+        if (index != -1) {
+            return new ArrayList<JavaClass>(children.get(index));
+        }
+        return new ArrayList<JavaClass>();
+    }
+    
+    /**
+     * Returns all the subclasses and sub-interfaces of a given class.
+     * @param jc the class
+     * @return the collection of the descendants in no particular order
+     */
+    public List<JavaClass> getDescendants(JavaClass jc) {
+        int index = indexOf(jc);
+        if (index != -1) {
+            return getJavaClasses(getDescendants(index));
+        }
+        return new ArrayList<JavaClass>();
+    }
+    
+    /**
+     * Returns all the super classes and super interfaces of a given class.
+     * @param jc the class
+     * @return the collection of the ancestors in no particular order
+     */
+    public List<JavaClass> getAncestors(JavaClass jc) {
+        int index = indexOf(jc);
+        if (index != -1) {
+            return getJavaClasses(getAncestors(index));
+        }
+        return new ArrayList<JavaClass>();
+    }
+    
+    /**
+     * Returns the number of the super classes and super interfaces of a given class.
+     * @param jc the class
+     * @return the number of the ancestors
+     */
+    public int getAncestorCount(JavaClass jc) {
+        int index = indexOf(jc);
+        if (index != -1) {
+            return getAncestors(index).cardinality();
+        }
+        return 0;
+    }
+    
+    /**
+     * Returns the table of overriding relations between the methods of the classes in this hierarchy.
+     * @return the table, which is built if it has not been built yet
+     */
+    public synchronized JavaOverrideTable getOverrideTable() {
+        if (overrideTable == null) {
+            overrideTable = new JavaOverrideTable(this);
+        }
+        return overrideTable;
+    }
+    
+    /**
+     * Returns all the super interfaces of a given class, including those of its super classes.
+     * @param jc the class
+     * @return the collection of the super interfaces in no particular order
+     */
+    public List<JavaClass> getAllSuperInterfaces(JavaClass jc) {
+        List<JavaClass> interfaces = new ArrayList<JavaClass>();
+        for (JavaClass c : getAncestors(jc)) {
+            if (c.isInterface()) {
+                interfaces.add(c);
+            }
+        }
+        return interfaces;
+    }
+    
+    /**
+     * Tests if a class is a subclass of another class along the chain of super classes.
+     * @param sub the class to be tested
+     * @param sup the super class
+     * @return <code>true</code> if <code>sub</code> directly or indirectly extends <code>sup</code>, otherwise <code>false</code>
+     */
+    public boolean isSubclassOf(JavaClass sub, JavaClass sup) {
+        int subIndex = indexOf(sub);
+        int supIndex = indexOf(sup);
+        if (subIndex == -1 || supIndex == -1 || subIndex == supIndex) {
+            return false;
+        }
+        return preorders[supIndex] < preorders[subIndex] && postorders[subIndex] < postorders[supIndex];
+    }
+    
+    /**
+     * Tests if a class is a subtype of another class, which is a super class or a super interface.
+     * @param sub the class to be tested
+     * @param sup the supertype
+     * @return <code>true</code> if <code>sub</code> directly or indirectly extends or implements <code>sup</code>, otherwise <code>false</code>
+     */
+    public boolean isSubtypeOf(JavaClass sub, JavaClass sup) {
+        if (isSubclassOf(sub, sup)) {
+            return true;
+        }
+        
+        int subIndex = indexOf(sub);
+        int supIndex = indexOf(sup);
+        if (subIndex == -1 || supIndex == -1) {
+            return false;
+        }
+        return getAncestors(subIndex).get(supIndex);
+    }
+    
+    /**
+     * Returns the numbers of all the subtypes of a class.
+     * @param index the number of the class
+     * @return the bit set of the numbers of the descendants
+     */
+    private synchronized BitSet getDescendants(int index) {
+        if (descendants[index] == null) {
+            BitSet reached = new BitSet(classes.size());
+            List<Integer> stack = new ArrayList<Integer>();
+            stack.add(index);
+            while (!stack.isEmpty()) {
+                int current = stack.remove(stack.size() - 1);
+                for (JavaClass child : children.get(current)) {
+                    int sub = indexOf(child);
+                    if (!reached.get(sub)) {
+                        reached.set(sub);
+                        if (descendants[sub] != null) {
+                            reached.or(descendants[sub]);
+                        } else {
+                            stack.add(sub);
+                        }
+                    }
+                }
+            }
+            descendants[index] = reached;
+        }
+        return descendants[index];
+    }
+    
+    /**
+     * Returns the numbers of all the supertypes of a class.
+     * @param index the number of the class
+     * @return the bit set of the numbers of the ancestors
+     */
+    private synchronized BitSet getAncestors(int index) {
+        if (ancestors[index] == null) {
+            BitSet reached = new BitSet(classes.size());
+            List<Integer> stack = new ArrayList<Integer>();
+            stack.add(index);
+            while (!stack.isEmpty()) {
+                JavaClass current = classes.get(stack.remove(stack.size() - 1));
+                List<JavaClass> parents = new ArrayList<JavaClass>(current.superInterfaces);
+                if (current.superClass != null) {
+                    parents.add(current.superClass);
+                }
+                
+                for (JavaClass parent : parents) {
+                    int sup = indexOf(parent);
+                    if (!reached.get(sup)) {
+                        reached.set(sup);
+                        if (ancestors[sup] != null) {
+                            reached.or(ancestors[sup]);
+                        } else {
+                            stack.add(sup);
+                        }
+                    }
+                }
+            }
+            ancestors[index] = reached;
+        }
+        return ancestors[index];
+    }
+    
+    /**
+     * Returns the classes corresponding to given numbers.
+     * @param indices the bit set of the numbers
+     * @return the collection of the classes
+     */
+    private List<JavaClass> getJavaClasses(BitSet indices) {
+        List<JavaClass> jclasses = new ArrayList<JavaClass>();
+        for (int index = indices.nextSetBit(0); index >= 0; index = indices.nextSetBit(index + 1)) {
+            jclasses.add(classes.get(index));
+        }
+        return jclasses;
+    }
+}
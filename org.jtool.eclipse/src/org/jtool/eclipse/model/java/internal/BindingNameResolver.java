@@ -0,0 +1,181 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.java.internal;
+
+import org.jtool.eclipse.model.java.JavaClass;
+import org.jtool.eclipse.model.java.JavaField;
+import org.jtool.eclipse.model.java.JavaMethod;
+import org.jtool.eclipse.model.java.JavaProject;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import java.util.Map;
+import java.util.HashMap;
+
+/**
+ * Converts bindings of fields, methods, and types into the names stored in the model.
+ * The collectors share this class so that they name the accessed fields, called methods, and used types in the same way.
+ * Whether a class is contained in the project is looked up once for each class.
+ * @author Katsuhisa Maruyama
+ */
+class BindingNameResolver {
+    
+    /**
+     * The project containing the elements whose bindings are converted.
+     */
+    private JavaProject jproject;
+    
+    /**
+     * The results of the tests whether classes with given names are contained in the project.
+     */
+    private Map<String, Boolean> projectTypes = new HashMap<String, Boolean>();
+    
+    /**
+     * Creates a new object for converting bindings.
+     * @param jproject the project containing the elements whose bindings are converted
+     */
+    BindingNameResolver(JavaProject jproject) {
+        super();
+        
+        this.jproject = jproject;
+    }
+    
+    /**
+     * Clears the results of the tests whether classes are contained in the project.
+     */
+    void clear() {
+        projectTypes.clear();
+    }
+    
+    /**
+     * Tests if a given binding represents a local variable.
+     * @param binding the binding
+     * @return <code>true</code> if the binding represents a local variable, otherwise <code>false</code>
+     */
+    static boolean isLocal(IBinding binding) {
+        if (binding != null && binding.getKind() == IBinding.VARIABLE) {
+            IVariableBinding vbinding = (IVariableBinding)binding;
+            return !vbinding.isField() && !vbinding.isEnumConstant();
+        }
+        return false;
+    }
+    
+    /**
+     * Tests if a given binding represents a field or an enum constant.
+     * @param binding the binding
+     * @return <code>true</code> if the binding represents a field, otherwise <code>false</code>
+     */
+    static boolean isField(IBinding binding) {
+        if (binding != null && binding.getKind() == IBinding.VARIABLE) {
+            IVariableBinding vbinding = (IVariableBinding)binding;
+            return vbinding.isField() || vbinding.isEnumConstant();
+        }
+        return false;
+    }
+    
+    /**
+     * Obtains the name of an accessed field.
+     * @param vbinding the variable binding of the field
+     * @return the string representing the field
+     */
+    String getFieldName(IVariableBinding vbinding) {
+        ITypeBinding tbinding = vbinding.getDeclaringClass();
+        
+        String fqn;
+        if (tbinding != null && isInProject(tbinding.getQualifiedName())) {
+            fqn = JavaClass.createClassName(tbinding);
+        } else {
+            JavaField jf = ExternalJavaField.create(vbinding);
+            fqn = jf.getDeclaringJavaClass().getQualifiedName();
+        }
+        return JavaField.getString(fqn, vbinding.getName());
+    }
+    
+    /**
+     * Obtains the name of a called method.
+     * @param mbinding the method binding of the method
+     * @return the string representing the method
+     */
+    String getMethodName(IMethodBinding mbinding) {
+        ITypeBinding tbinding = mbinding.getDeclaringClass();
+        
+        String fqn;
+        if (tbinding != null && isInProject(tbinding.getQualifiedName())) {
+            fqn = JavaClass.createClassName(tbinding);
+        } else {
+            JavaMethod jm = ExternalJavaMethod.create(mbinding);
+            fqn = jm.getDeclaringJavaClass().getQualifiedName();
+        }
+        return JavaMethod.getString(fqn, JavaMethod.getSignature(mbinding));
+    }
+    
+    /**
+     * Obtains the name of a used class.
+     * @param tbinding the type binding of the class
+     * @return the string representing the class
+     */
+    String getTypeName(ITypeBinding tbinding) {
+        String fqn;
+        if (isInProject(tbinding.getQualifiedName())) {
+            fqn = JavaClass.createClassName(tbinding);
+        } else {
+            JavaClass jc = ExternalJavaClass.create(tbinding);
+            fqn = jc.getQualifiedName();
+        }
+        return JavaClass.getString(fqn);
+    }
+    
+    /**
+     * Obtains the name of an instantiated class.
+     * @param tbinding the type binding of the created instance
+     * @return the string representing the class
+     */
+    static String getInstantiatedTypeName(ITypeBinding tbinding) {
+        return JavaClass.getString(JavaClass.createClassName(tbinding.getErasure()));
+    }
+    
+    /**
+     * Tests if a class with a given name is contained in the project, looking up the project once for each class.
+     * @param fqn the fully-qualified name of the class
+     * @return <code>true</code> if the class is contained in the project, otherwise <code>false</code>
+     */
+    boolean isInProject(String fqn) {
+        IJavaProject project = jproject.getJavaProject();
+        if (project == null) {
+            return true;
+        }
+        
+        Boolean result = projectTypes.get(fqn);
+        if (result == null) {
+            result = Boolean.valueOf(findType(project, fqn));
+            projectTypes.put(fqn, result);
+        }
+        return result.booleanValue();
+    }
+    
+    /**
+     * Finds a class with a given name in the project.
+     * @param project the project
+     * @param fqn the fully-qualified name of the class
+     * @return <code>true</code> if the class is contained in the project, otherwise <code>false</code>
+     */
+    private static boolean findType(IJavaProject project, String fqn) {
+        try {
+            IType type = project.findType(fqn);
+            if (type != null) {
+                String pdir = project.getPath().toString();
+                String tname = type.getPath().toString();
+                return pdir != null && tname != null && tname.startsWith(pdir);
+            }
+        } catch (JavaModelException e) {
+            return false;
+        }
+        return false;
+    }
+}
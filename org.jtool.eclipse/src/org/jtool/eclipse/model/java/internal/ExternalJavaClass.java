@@ -78,7 +78,7 @@ public class ExternalJavaClass extends JavaClass {
      * @param binding a type binding for the class
      * @return the created object
      */
-    public static ExternalJavaClass create(String fqn, ITypeBinding binding) {
+    public static synchronized ExternalJavaClass create(String fqn, ITypeBinding binding) {
         ExternalJavaClass jclass = cache.get(JavaClass.getString(fqn));
         if (jclass != null) {
             return jclass;
@@ -63,7 +63,7 @@ public class ExternalJavaField extends JavaField {
      * @param binding a variable binding for the field
      * @return the created object
      */
-    public static ExternalJavaField create(IVariableBinding binding) {
+    public static synchronized ExternalJavaField create(IVariableBinding binding) {
         String fqn;
         if (binding.getDeclaringClass() != null) {
             fqn = JavaClass.createClassName(binding.getDeclaringClass());
@@ -87,7 +87,7 @@ public class ExternalJavaField extends JavaField {
      * @param fqn the fully-qualified name of a class declaring this field
      * @param name the name of this field
      */
-    public static ExternalJavaField create(String fqn, String name) {
+    public static synchronized ExternalJavaField create(String fqn, String name) {
         ExternalJavaField jfield = cache.get(JavaField.getString(fqn, name));
         if (jfield != null) {
             return jfield;
@@ -70,7 +70,7 @@ public class ExternalJavaMethod extends JavaMethod {
      * @param binding a method binding for the method
      * @return the created object
      */
-    public static ExternalJavaMethod create(IMethodBinding binding) {
+    public static synchronized ExternalJavaMethod create(IMethodBinding binding) {
         String fqn;
         if (binding.getDeclaringClass() != null) {
             fqn = JavaClass.createClassName(binding.getDeclaringClass());
@@ -95,7 +95,7 @@ public class ExternalJavaMethod extends JavaMethod {
      * @param sig the signature of this method
      * @return the created object
      */
-    public static ExternalJavaMethod create(String fqn, String sig) {
+    public static synchronized ExternalJavaMethod create(String fqn, String sig) {
         ExternalJavaMethod jmethod = cache.get(JavaMethod.getString(fqn, sig));
         if (jmethod != null) {
             return jmethod;
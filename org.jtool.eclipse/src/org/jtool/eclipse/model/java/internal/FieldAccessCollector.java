@@ -4,15 +4,9 @@
 
 package org.jtool.eclipse.model.java.internal;
 
-import org.jtool.eclipse.model.java.JavaClass;
-import org.jtool.eclipse.model.java.JavaField;
 import org.jtool.eclipse.model.java.JavaProject;
-import org.eclipse.jdt.core.IJavaProject;
-import org.eclipse.jdt.core.IType;
-import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.dom.ASTVisitor;
 import org.eclipse.jdt.core.dom.IBinding;
-import org.eclipse.jdt.core.dom.ITypeBinding;
 import org.eclipse.jdt.core.dom.IVariableBinding;
 import org.eclipse.jdt.core.dom.Name;
 import org.eclipse.jdt.core.dom.QualifiedName;
@@ -33,9 +27,9 @@ import java.util.HashSet;
 public class FieldAccessCollector extends ASTVisitor {
     
     /**
-     * The project containing method calls to be collected.
+     * The object converting the bindings of the accessed fields into their names.
      */
-    private JavaProject jproject;
+    private BindingNameResolver resolver;
     
     /**
      * The collection of fields accessed.
@@ -54,7 +48,7 @@ public class FieldAccessCollector extends ASTVisitor {
     public FieldAccessCollector(JavaProject jproject) {
         super();
         
-        this.jproject = jproject;
+        resolver = new BindingNameResolver(jproject);
     }
     
     /**
@@ -62,6 +56,7 @@ public class FieldAccessCollector extends ASTVisitor {
      */
     public void clear() {
         accessedFields.clear();
+        resolver.clear();
     }
     
     /**
@@ -115,51 +110,12 @@ public class FieldAccessCollector extends ASTVisitor {
      */
     private void addJavaVariableAccess(IBinding binding) {
         if (binding != null) {
-            if (binding.getKind() == IBinding.VARIABLE) {
-                IVariableBinding vbinding = (IVariableBinding)binding;
-                
-                if (vbinding.isField() || vbinding.isEnumConstant()) {
-                    ITypeBinding tbinding = vbinding.getDeclaringClass();
-                    
-                    String fqn;
-                    if (tbinding != null && isInProject(vbinding)) {
-                        fqn = JavaClass.createClassName(tbinding);
-                    } else {
-                        JavaField jf = ExternalJavaField.create(vbinding);
-                        fqn = jf.getDeclaringJavaClass().getQualifiedName();
-                    }
-                    
-                    String str = JavaField.getString(fqn, vbinding.getName());
-                    accessedFields.add(str);
-                }
+            if (BindingNameResolver.isField(binding)) {
+                accessedFields.add(resolver.getFieldName((IVariableBinding)binding));
             }
             
         } else {
             bindingOk = false;
         }
     }
-    
-    /**
-     * Tests if the accessed field is contained in the project containing the field access.
-     * @param vbinding the variable binding of the field access
-     * @return <code>true</code> if the accessed field is contained in the project, otherwise <code>false</code>
-     */
-    private boolean isInProject(IVariableBinding vbinding) {
-        IJavaProject project = jproject.getJavaProject();
-        if (project == null) {
-            return true;
-        }
-        
-        try {
-            IType type = project.findType(vbinding.getDeclaringClass().getQualifiedName());
-            if (type != null) {
-                String pdir = project.getPath().toString();
-                String tname = type.getPath().toString();
-                return pdir != null && tname != null && tname.startsWith(pdir);
-            }
-        } catch (JavaModelException e) {
-            return false;
-        }
-        return false;
-    }
 }
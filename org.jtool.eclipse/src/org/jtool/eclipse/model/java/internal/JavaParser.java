@@ -11,10 +11,12 @@ import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FileASTRequestor;
+import org.eclipse.core.runtime.IProgressMonitor;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Map;
 
 import org.apache.log4j.Logger;
@@ -100,9 +102,39 @@ public class JavaParser {
                 
                 return cu;
             }
-        } catch (FileNotFoundException e) {
         } catch (IOException e) {
+            logger.error("file could not be read: " + file.getPath() + " (" + e.getMessage() + ")");
         }
         return null;
     }
+    
+    /**
+     * Parses the contents of Java files in a batch and passes their ASTs to a requestor one by one as they are created.
+     * The name environment and the binding lookup are created once and shared by all the files.
+     * The encodings of the files are given by the caller, so that the files are read only once by the parser.
+     * The source paths are read in the encoding of the first file.
+     * @param files the files to be parsed
+     * @param encodings the encodings of the respective files
+     * @param classpaths the class paths during the parse of the files
+     * @param sourcepaths the source paths during the parse of the files
+     * @param requestor the requestor that receives the created ASTs
+     * @param monitor the progress monitor to use to receive requests for cancellation, or <code>null</code> if none
+     */
+    public void parse(File[] files, String[] encodings, String[] classpaths, String[] sourcepaths,
+            FileASTRequestor requestor, IProgressMonitor monitor) {
+        String[] paths = new String[files.length];
+        for (int index = 0; index < files.length; index++) {
+            paths[index] = files[index].getAbsolutePath();
+        }
+        
+        parser.setResolveBindings(true);
+        parser.setStatementsRecovery(true);
+        parser.setBindingsRecovery(true);
+        parser.setKind(ASTParser.K_COMPILATION_UNIT);
+        
+        String[] sourceEncodings = new String[sourcepaths.length];
+        Arrays.fill(sourceEncodings, files.length > 0 ? encodings[0] : "UTF-8");
+        parser.setEnvironment(classpaths, sourcepaths, sourceEncodings, true);
+        parser.createASTs(paths, encodings, new String[0], requestor, monitor);
+    }
 }
@@ -0,0 +1,47 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.java.internal;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A pool of Java parsers shared by threads that parse files concurrently.
+ * A parser is used by only one thread between its acquisition and release since a parser is not thread-safe.
+ * @author Katsuhisa Maruyama
+ */
+public class JavaParserPool {
+    
+    /**
+     * The parsers that are not used by any thread.
+     */
+    private BlockingQueue<JavaParser> idleParsers = new LinkedBlockingQueue<JavaParser>();
+    
+    /**
+     * Creates a new, empty pool.
+     */
+    public JavaParserPool() {
+    }
+    
+    /**
+     * Takes a parser from this pool, which is newly created if no parser is available.
+     * @return the parser to be used by the current thread
+     */
+    public JavaParser acquire() {
+        JavaParser parser = idleParsers.poll();
+        if (parser == null) {
+            parser = new JavaParser();
+        }
+        return parser;
+    }
+    
+    /**
+     * Returns a parser to this pool after its use.
+     * @param parser the parser that is no longer used by the current thread
+     */
+    public void release(JavaParser parser) {
+        idleParsers.offer(parser);
+    }
+}
@@ -8,7 +8,6 @@ import org.jtool.eclipse.model.java.JavaLocal;
 import org.jtool.eclipse.model.java.JavaMethod;
 import org.eclipse.jdt.core.dom.ASTVisitor;
 import org.eclipse.jdt.core.dom.IBinding;
-import org.eclipse.jdt.core.dom.IVariableBinding;
 import org.eclipse.jdt.core.dom.Name;
 import org.eclipse.jdt.core.dom.VariableDeclaration;
 import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
@@ -109,21 +108,15 @@ public class LocalDeclarationCollector extends ASTVisitor {
     }
     
     /**
-     * Tests if a given name represents a field.
+     * Tests if a given name represents a local variable.
      * @param node an AST node for the name
-     * @return <code>true</code> if the name represents a field, otherwise <code>false</code>
+     * @return <code>true</code> if the name represents a local variable, otherwise <code>false</code>
      */
     public boolean isLocal(Name node) {
         IBinding binding = node.resolveBinding();
-        if (binding != null) {
-            if (binding.getKind() == IBinding.VARIABLE) {
-                IVariableBinding vbinding = (IVariableBinding)binding;
-                return vbinding != null && !vbinding.isField() && !vbinding.isEnumConstant();
-            }
-            
-        } else {
+        if (binding == null) {
             bindingOk = false;
         }
-        return false;
+        return BindingNameResolver.isLocal(binding);
     }
 }
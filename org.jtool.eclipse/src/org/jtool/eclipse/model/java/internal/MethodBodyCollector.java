@@ -0,0 +1,438 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.java.internal;
+
+import org.jtool.eclipse.model.java.JavaLocal;
+import org.jtool.eclipse.model.java.JavaMethod;
+import org.jtool.eclipse.model.java.JavaProject;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.ClassInstanceCreation;
+import org.eclipse.jdt.core.dom.ConstructorInvocation;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+import org.eclipse.jdt.core.dom.MethodInvocation;
+import org.eclipse.jdt.core.dom.PrimitiveType;
+import org.eclipse.jdt.core.dom.QualifiedName;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.eclipse.jdt.core.dom.SimpleType;
+import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
+import org.eclipse.jdt.core.dom.SuperConstructorInvocation;
+import org.eclipse.jdt.core.dom.SuperMethodInvocation;
+import org.eclipse.jdt.core.dom.VariableDeclaration;
+import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
+import java.util.Set;
+import java.util.HashSet;
+
+/**
+ * Visits a method and stores information on local declarations, field accesses, method calls, and type uses in a single traversal.
+ * The collected information is the same as that collected by <code>LocalDeclarationCollector</code>, <code>FieldAccessCollector</code>,
+ * <code>MethodCallCollector</code>, and <code>TypeCollector</code>, each of which traverses the method separately.
+ * Since those collectors do not visit inside some nodes, this collector counts the nesting of such nodes for each kind of information.
+ * The bindings are converted into names by <code>BindingNameResolver</code>, which those collectors also use.
+ *
+ * @see org.jtool.eclipse.model.java.internal.LocalDeclarationCollector
+ * @see org.jtool.eclipse.model.java.internal.FieldAccessCollector
+ * @see org.jtool.eclipse.model.java.internal.MethodCallCollector
+ * @see org.jtool.eclipse.model.java.internal.TypeCollector
+ * @author Katsuhisa Maruyama
+ */
+public class MethodBodyCollector extends ASTVisitor {
+    
+    /**
+     * A method declaring local variables to be collected.
+     */
+    private JavaMethod declaringMethod;
+    
+    /**
+     * The object converting the bindings of the accessed fields, called methods, and used types into their names.
+     */
+    private BindingNameResolver resolver;
+    
+    /**
+     * The collection of local variables.
+     */
+    private Set<JavaLocal> localDeclarations = new HashSet<JavaLocal>();
+    
+    /**
+     * The collection of fields accessed.
+     */
+    private Set<String> accessedFields = new HashSet<String>();
+    
+    /**
+     * The collection of method calls.
+     */
+    private Set<String> methodCalls = new HashSet<String>();
+    
+    /**
+     * The collection of classes used.
+     */
+    private Set<String> typeUses = new HashSet<String>();
+    
+    /**
+     * The collection of classes instantiated.
+     */
+    private Set<String> instantiations = new HashSet<String>();
+    
+    /**
+     * The number of variable declarations enclosing the node being visited.
+     */
+    private int declarationDepth = 0;
+    
+    /**
+     * The number of qualified names enclosing the node being visited.
+     */
+    private int nameDepth = 0;
+    
+    /**
+     * The number of method invocations and instance creations enclosing the node being visited.
+     */
+    private int callDepth = 0;
+    
+    /**
+     * The number of simple types enclosing the node being visited.
+     */
+    private int typeDepth = 0;
+    
+    /**
+     * A flag that indicates all bindings for fields, methods, and types were found.
+     */
+    private boolean bindingOk = true;
+    
+    /**
+     * Creates a new object for collecting information on a method.
+     * @param jm the method
+     * @param jproject the project containing the method
+     */
+    public MethodBodyCollector(JavaMethod jm, JavaProject jproject) {
+        super();
+        
+        this.declaringMethod = jm;
+        resolver = new BindingNameResolver(jproject);
+    }
+    
+    /**
+     * Clears the collected information.
+     */
+    public void clear() {
+        localDeclarations.clear();
+        accessedFields.clear();
+        methodCalls.clear();
+        typeUses.clear();
+        instantiations.clear();
+        resolver.clear();
+        declaringMethod = null;
+    }
+    
+    /**
+     * Returns all the local variables declared in the method.
+     * @return the collection of the local variables
+     */
+    public Set<JavaLocal> getLocalDeclarations() {
+        return localDeclarations;
+    }
+    
+    /**
+     * Returns all the accessed fields.
+     * @return the collection of the accessed fields
+     */
+    public Set<String> getAccessedFields() {
+        return accessedFields;
+    }
+    
+    /**
+     * Returns all the methods that the method calls.
+     * @return the collection of the methods
+     */
+    public Set<String> getMethodCalls() {
+        return methodCalls;
+    }
+    
+    /**
+     * Returns all the classes that the method uses.
+     * @return the collection of the classes
+     */
+    public Set<String> getTypeUses() {
+        return typeUses;
+    }
+    
+    /**
+     * Returns all the classes whose instances the method creates, including those created within the arguments of calls.
+     * @return the collection of the classes
+     */
+    public Set<String> getInstantiations() {
+        return instantiations;
+    }
+    
+    /**
+     * Tests if all bindings for fields, methods, and types were found.
+     * A local variable whose binding was not found is just ignored as <code>LocalDeclarationCollector</code> does.
+     * @return <code>true</code> if all the bindings were found
+     */
+    public boolean isBindingOk() {
+        return bindingOk;
+    }
+    
+    /**
+     * Visits a single variable declaration node and stores its information.
+     * @param node the single variable declaration node
+     * @return always <code>true</code> to visit inside
+     */
+    public boolean visit(SingleVariableDeclaration node) {
+        addJavaLocal(node);
+        declarationDepth++;
+        return true;
+    }
+    
+    /**
+     * Finishes the visit for a single variable declaration node.
+     * @param node the single variable declaration node
+     */
+    public void endVisit(SingleVariableDeclaration node) {
+        declarationDepth--;
+    }
+    
+    /**
+     * Visits a variable declaration fragment node and stores its information.
+     * @param node the variable declaration fragment node
+     * @return always <code>true</code> to visit inside
+     */
+    public boolean visit(VariableDeclarationFragment node) {
+        addJavaLocal(node);
+        declarationDepth++;
+        return true;
+    }
+    
+    /**
+     * Finishes the visit for a variable declaration fragment node.
+     * @param node the variable declaration fragment node
+     */
+    public void endVisit(VariableDeclarationFragment node) {
+        declarationDepth--;
+    }
+    
+    /**
+     * Visits a simple name node and stores its information.
+     * @param node the simple name node
+     * @return always <code>false</code> since a simple name has nothing inside
+     */
+    public boolean visit(SimpleName node) {
+        if (nameDepth == 0) {
+            addJavaFieldAccess(node.resolveBinding());
+        }
+        return false;
+    }
+    
+    /**
+     * Visits a qualified name node and stores its information.
+     * @param node the qualified name node
+     * @return always <code>true</code> to visit inside
+     */
+    public boolean visit(QualifiedName node) {
+        if (nameDepth == 0) {
+            addJavaFieldAccess(node.resolveBinding());
+        }
+        nameDepth++;
+        return true;
+    }
+    
+    /**
+     * Finishes the visit for a qualified name node.
+     * @param node the qualified name node
+     */
+    public void endVisit(QualifiedName node) {
+        nameDepth--;
+    }
+    
+    /**
+     * Visits a method invocation node and stores its information.
+     * @param node the method invocation node
+     * @return always <code>true</code> to visit inside
+     */
+    public boolean visit(MethodInvocation node) {
+        addJavaMethodCall(node.resolveMethodBinding());
+        return true;
+    }
+    
+    /**
+     * Finishes the visit for a method invocation node.
+     * @param node the method invocation node
+     */
+    public void endVisit(MethodInvocation node) {
+        callDepth--;
+    }
+    
+    /**
+     * Visits a super-method invocation node and stores its information.
+     * @param node the super-method invocation node
+     * @return always <code>true</code> to visit inside
+     */
+    public boolean visit(SuperMethodInvocation node) {
+        addJavaMethodCall(node.resolveMethodBinding());
+        return true;
+    }
+    
+    /**
+     * Finishes the visit for a super-method invocation node.
+     * @param node the super-method invocation node
+     */
+    public void endVisit(SuperMethodInvocation node) {
+        callDepth--;
+    }
+    
+    /**
+     * Visits a constructor invocation node and stores its information.
+     * @param node the constructor invocation node
+     * @return always <code>true</code> to visit inside
+     */
+    public boolean visit(ConstructorInvocation node) {
+        addJavaMethodCall(node.resolveConstructorBinding());
+        return true;
+    }
+    
+    /**
+     * Finishes the visit for a constructor invocation node.
+     * @param node the constructor invocation node
+     */
+    public void endVisit(ConstructorInvocation node) {
+        callDepth--;
+    }
+    
+    /**
+     * Visits a super-constructor invocation node and stores its information.
+     * @param node the super-constructor invocation node
+     * @return always <code>true</code> to visit inside
+     */
+    public boolean visit(SuperConstructorInvocation node) {
+        addJavaMethodCall(node.resolveConstructorBinding());
+        return true;
+    }
+    
+    /**
+     * Finishes the visit for a super-constructor invocation node.
+     * @param node the super-constructor invocation node
+     */
+    public void endVisit(SuperConstructorInvocation node) {
+        callDepth--;
+    }
+    
+    /**
+     * Visits an instance creation node and stores its information.
+     * @param node the instance creation node
+     * @return always <code>true</code> to visit inside
+     */
+    public boolean visit(ClassInstanceCreation node) {
+        addJavaMethodCall(node.resolveConstructorBinding());
+        addJavaInstantiation(node.resolveTypeBinding());
+        return true;
+    }
+    
+    /**
+     * Finishes the visit for an instance creation node.
+     * @param node the instance creation node
+     */
+    public void endVisit(ClassInstanceCreation node) {
+        callDepth--;
+    }
+    
+    /**
+     * Visits a primitive type node.
+     * @param node the primitive type node
+     * @return always <code>false</code> since a primitive type is not collected
+     */
+    public boolean visit(PrimitiveType node) {
+        return false;
+    }
+    
+    /**
+     * Visits a simple type node and stores its information.
+     * @param node the simple type node
+     * @return always <code>true</code> to visit inside
+     */
+    public boolean visit(SimpleType node) {
+        if (typeDepth == 0) {
+            addJavaTypeUse(node.resolveBinding());
+        }
+        typeDepth++;
+        return true;
+    }
+    
+    /**
+     * Finishes the visit for a simple type node.
+     * @param node the simple type node
+     */
+    public void endVisit(SimpleType node) {
+        typeDepth--;
+    }
+    
+    /**
+     * Collects a local variable if it is not declared inside another declaration.
+     * @param node the variable declaration node
+     */
+    private void addJavaLocal(VariableDeclaration node) {
+        if (declarationDepth == 0 && BindingNameResolver.isLocal(node.getName().resolveBinding())) {
+            localDeclarations.add(new JavaLocal(node, declaringMethod));
+        }
+    }
+    
+    /**
+     * Collects the field access information.
+     * @param binding the variable binding
+     */
+    private void addJavaFieldAccess(IBinding binding) {
+        if (binding != null) {
+            if (BindingNameResolver.isField(binding)) {
+                accessedFields.add(resolver.getFieldName((IVariableBinding)binding));
+            }
+            
+        } else {
+            bindingOk = false;
+        }
+    }
+    
+    /**
+     * Collects the method invocation information if it is not an argument of another invocation.
+     * @param mbinding the method binding for the method invocation
+     */
+    private void addJavaMethodCall(IMethodBinding mbinding) {
+        if (callDepth++ != 0) {
+            return;
+        }
+        
+        if (mbinding != null) {
+            methodCalls.add(resolver.getMethodName(mbinding));
+            
+        } else {
+            bindingOk = false;
+        }
+    }
+    
+    /**
+     * Collects the instance creation information.
+     * @param tbinding the type binding for the created instance
+     */
+    private void addJavaInstantiation(ITypeBinding tbinding) {
+        if (tbinding != null) {
+            instantiations.add(BindingNameResolver.getInstantiatedTypeName(tbinding));
+            
+        } else {
+            bindingOk = false;
+        }
+    }
+    
+    /**
+     * Collects the type use information.
+     * @param tbinding the type binding for the type use
+     */
+    private void addJavaTypeUse(ITypeBinding tbinding) {
+        if (tbinding != null) {
+            typeUses.add(resolver.getTypeName(tbinding));
+            
+        } else {
+            bindingOk = false;
+        }
+    }
+}
@@ -5,11 +5,7 @@
 package org.jtool.eclipse.model.java.internal;
 
 import org.jtool.eclipse.model.java.JavaProject;
-import org.jtool.eclipse.model.java.JavaClass;
-import org.jtool.eclipse.model.java.JavaMethod;
-import org.eclipse.jdt.core.IJavaProject;
-import org.eclipse.jdt.core.JavaModelException;
-import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTVisitor;
 import org.eclipse.jdt.core.dom.ClassInstanceCreation;
 import org.eclipse.jdt.core.dom.ConstructorInvocation;
@@ -36,15 +32,20 @@ import java.util.HashSet;
 public class MethodCallCollector extends ASTVisitor {
     
     /**
-     * The project containing method calls to be collected.
+     * The object converting the bindings of the called methods into their names.
      */
-    private JavaProject jproject;
+    private BindingNameResolver resolver;
     
     /**
      * The collection of method calls.
      */
     private Set<String> methodCalls = new HashSet<String>();
     
+    /**
+     * The collection of classes instantiated.
+     */
+    private Set<String> instantiations = new HashSet<String>();
+    
     /**
      * A flag that indicates all bindings for methods were found.
      */
@@ -57,7 +58,7 @@ public class MethodCallCollector extends ASTVisitor {
     public MethodCallCollector(JavaProject jproject) {
         super();
         
-        this.jproject = jproject;
+        resolver = new BindingNameResolver(jproject);
     }
     
     /**
@@ -65,6 +66,8 @@ public class MethodCallCollector extends ASTVisitor {
      */
     public void clear() {
         methodCalls.clear();
+        instantiations.clear();
+        resolver.clear();
     }
     
     /**
@@ -75,6 +78,14 @@ public class MethodCallCollector extends ASTVisitor {
         return methodCalls;
     }
     
+    /**
+     * Returns all the classes whose instances this method creates, including those created within the arguments of calls.
+     * @return the collection of the classes
+     */
+    public Set<String> getInstantiations() {
+        return instantiations;
+    }
+    
     /**
      * Tests if all method bindings were found.
      * @return <code>true</code> if all the method bindings were found
@@ -90,6 +101,7 @@ public class MethodCallCollector extends ASTVisitor {
      */
     public boolean visit(MethodInvocation node) {
         addJavaMethodCall(node.resolveMethodBinding());
+        addJavaInstantiations(node);
         return false;
     }
     
@@ -100,6 +112,7 @@ public class MethodCallCollector extends ASTVisitor {
      */
     public boolean visit(SuperMethodInvocation node) {
         addJavaMethodCall(node.resolveMethodBinding());
+        addJavaInstantiations(node);
         return false;
     }
     
@@ -110,6 +123,7 @@ public class MethodCallCollector extends ASTVisitor {
      */
     public boolean visit(ConstructorInvocation node) {
         addJavaMethodCall(node.resolveConstructorBinding());
+        addJavaInstantiations(node);
         return false;
     }
     
@@ -120,6 +134,7 @@ public class MethodCallCollector extends ASTVisitor {
      */
     public boolean visit(SuperConstructorInvocation node) {
         addJavaMethodCall(node.resolveConstructorBinding());
+        addJavaInstantiations(node);
         return false;
     }
     
@@ -130,6 +145,7 @@ public class MethodCallCollector extends ASTVisitor {
      */
     public boolean visit(ClassInstanceCreation node) {
         addJavaMethodCall(node.resolveConstructorBinding());
+        addJavaInstantiations(node);
         return false;
     }
     
@@ -139,18 +155,7 @@ public class MethodCallCollector extends ASTVisitor {
      */
     private void addJavaMethodCall(IMethodBinding mbinding) {
         if (mbinding != null) {
-            ITypeBinding tbinding = mbinding.getDeclaringClass();
-            
-            String fqn;
-            if (tbinding != null && isInProject(mbinding)) {
-                fqn = JavaClass.createClassName(tbinding); 
-            } else {
-                JavaMethod jm = ExternalJavaMethod.create(mbinding);
-                fqn = jm.getDeclaringJavaClass().getQualifiedName();
-            }
-            
-            String str = JavaMethod.getString(fqn, JavaMethod.getSignature(mbinding));
-            methodCalls.add(str);
+            methodCalls.add(resolver.getMethodName(mbinding));
             
         } else {
             bindingOk = false;
@@ -158,26 +163,27 @@ public class MethodCallCollector extends ASTVisitor {
     }
     
     /**
-     * Tests if the called method is contained in the project containing the method call.
-     * @param mbinding the method binding of the method call
-     * @return <code>true</code> if the called method is contained in the project, otherwise <code>false</code>
+     * Collects the instance creation information within a node whose inside is not visited.
+     * @param node the node
      */
-    private boolean isInProject(IMethodBinding mbinding) {
-        IJavaProject project = jproject.getJavaProject();
-        if (project == null) {
-            return true;
-        }
-        
-        try {
-            IType type = project.findType(mbinding.getDeclaringClass().getQualifiedName());
-            if (type != null) {
-                String pdir = project.getPath().toString();
-                String tname = type.getPath().toString();
-                return pdir != null && tname != null && tname.startsWith(pdir);
+    private void addJavaInstantiations(ASTNode node) {
+        node.accept(new ASTVisitor() {
+            
+            /**
+             * Visits an instance creation node and stores its information.
+             * @param node the instance creation node
+             * @return always <code>true</code> to visit inside
+             */
+            public boolean visit(ClassInstanceCreation node) {
+                ITypeBinding tbinding = node.resolveTypeBinding();
+                if (tbinding != null) {
+                    instantiations.add(BindingNameResolver.getInstantiatedTypeName(tbinding));
+                    
+                } else {
+                    bindingOk = false;
+                }
+                return true;
             }
-        } catch (JavaModelException e) {
-            return false;
-        }
-        return false;
+        });
     }
 }
@@ -4,6 +4,8 @@
 
 package org.jtool.eclipse.model.java.internal;
 
+import org.jtool.eclipse.model.java.JavaASTDefaultVisitor;
+import org.jtool.eclipse.model.java.JavaModelFactoryInWorkspace;
 import org.jtool.eclipse.model.java.JavaProject;
 import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.resources.IResourceChangeEvent;
@@ -11,18 +13,58 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceDeltaVisitor;
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.runtime.CoreException;
-import java.io.File;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import java.util.Map;
+import java.util.HashMap;
 import java.util.Set;
 import java.util.HashSet;
 
 /**
  * Implements the listener that will be notified when the resource changes complete.
+ * Changes arriving in a burst are coalesced and the models of the changed files are updated together after a quiet period.
  * @author Katsuhisa Maruyama
  */
 public class ResourceChangeListener implements IResourceChangeListener {
     
     /**
-     * Notifies this listener that some resource changes are happening, or have already happened. 
+     * The time in milliseconds during which no change must arrive before the models are updated.
+     */
+    private static final long UPDATE_DELAY = 500;
+    
+    /**
+     * The path names of changed files for each project, which have not been reflected in the models yet.
+     */
+    private Map<String, Set<String>> pendingPaths = new HashMap<String, Set<String>>();
+    
+    /**
+     * The job that updates the models of the changed files.
+     */
+    private Job updateJob = new Job("Updating Java models") {
+        
+        /**
+         * Updates the models of the files changed so far.
+         * @param monitor the progress monitor to use to receive requests for cancellation
+         * @return the status of the update
+         */
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            update();
+            return Status.OK_STATUS;
+        }
+    };
+    
+    /**
+     * Creates a listener.
+     */
+    public ResourceChangeListener() {
+        updateJob.setSystem(true);
+    }
+    
+    /**
+     * Notifies this listener that some resource changes are happening, or have already happened.
      * @param event the change event
      */
     public void resourceChanged(IResourceChangeEvent event) {
@@ -31,14 +73,22 @@ public class ResourceChangeListener implements IResourceChangeListener {
                 ResourceDeltaVisitor visitor = new ResourceDeltaVisitor();
                 event.getDelta().accept(visitor);
                 
-                for (String pathname : visitor.getPaths()) {
-                    String name = pathname.substring(1);
-                    String projectName = name.substring(0, name.indexOf(File.separatorChar));
+                if (visitor.getPaths().size() != 0) {
+                    synchronized (pendingPaths) {
+                        for (String projectName : visitor.getPaths().keySet()) {
+                            Set<String> paths = pendingPaths.get(projectName);
+                            if (paths == null) {
+                                paths = new HashSet<String>();
+                                pendingPaths.put(projectName, paths);
+                            }
+                            paths.addAll(visitor.getPaths().get(projectName));
+                        }
+                    }
                     
-                    JavaProject jproj = JavaProject.getJavaProject(projectName);
-                    if (jproj != null) {
-                        jproj.removeJavaFile(pathname);
+                    if (updateJob.getState() == Job.SLEEPING) {
+                        updateJob.cancel();
                     }
+                    updateJob.schedule(UPDATE_DELAY);
                 }
             }
         } catch (CoreException e) {
@@ -46,6 +96,30 @@ public class ResourceChangeListener implements IResourceChangeListener {
         }
     }
     
+    /**
+     * Updates the models of the files changed so far.
+     * The models of each project are updated while holding the lock of the project, which is also held while
+     * the models of parsed files are merged into it.
+     */
+    private void update() {
+        Map<String, Set<String>> paths;
+        synchronized (pendingPaths) {
+            paths = new HashMap<String, Set<String>>(pendingPaths);
+            pendingPaths.clear();
+        }
+        
+        for (String projectName : paths.keySet()) {
+            JavaProject jproj = JavaProject.getJavaProject(projectName);
+            if (jproj != null && jproj.getJavaProject() != null) {
+                synchronized (jproj) {
+                    JavaModelFactoryInWorkspace factory = new JavaModelFactoryInWorkspace(jproj.getJavaProject());
+                    factory.setJavaASTVisitor(new JavaASTDefaultVisitor());
+                    factory.update(paths.get(projectName));
+                }
+            }
+        }
+    }
+    
     /**
      * An objects that visits resource deltas.
      * @author Katsuhisa Maruyama
@@ -53,11 +127,11 @@ public class ResourceChangeListener implements IResourceChangeListener {
     class ResourceDeltaVisitor implements IResourceDeltaVisitor {
         
         /**
-         * The collection of files to be removed
+         * The collection of changed files for each project.
          */
-        private Set<String> pathnames = new HashSet<String>();
+        private Map<String, Set<String>> pathnames = new HashMap<String, Set<String>>();
         
-        /** 
+        /**
          * Visits the given resource delta.
          * @return <code>true</code> if the resource delta's children should be visited; <code>false</code> if they should be skipped
          * @exception CoreException if the visit fails for some reason
@@ -67,17 +141,12 @@ public class ResourceChangeListener implements IResourceChangeListener {
             
             switch (delta.getKind()) {
                 case IResourceDelta.ADDED:
-                    break;
                 case IResourceDelta.REMOVED:
-                    String rext = res.getFileExtension();
-                    if (rext != null && rext.compareTo("java") == 0) {
-                        pathnames.add(res.getFullPath().toString());
-                    }
+                    add(res);
                     break;
                 case IResourceDelta.CHANGED:
-                    String cext = res.getFileExtension();
-                    if (cext != null && cext.compareTo("java") == 0) {
-                        pathnames.add(res.getFullPath().toString());
+                    if ((delta.getFlags() & IResourceDelta.CONTENT) != 0) {
+                        add(res);
                     }
                     break;
             }
@@ -85,10 +154,27 @@ public class ResourceChangeListener implements IResourceChangeListener {
         }
         
         /**
-         * Returns the collection of files to be removed.
+         * Records a resource if it is a Java file.
+         * @param res the changed resource
+         */
+        private void add(IResource res) {
+            String ext = res.getFileExtension();
+            if (res.getType() == IResource.FILE && ext != null && ext.compareTo("java") == 0) {
+                String projectName = res.getProject().getName();
+                Set<String> paths = pathnames.get(projectName);
+                if (paths == null) {
+                    paths = new HashSet<String>();
+                    pathnames.put(projectName, paths);
+                }
+                paths.add(res.getFullPath().toString());
+            }
+        }
+        
+        /**
+         * Returns the collection of changed files for each project.
          * @return the collection of the files
          */
-        Set<String> getPaths() {
+        Map<String, Set<String>> getPaths() {
             return pathnames;
         }
      }
@@ -4,11 +4,7 @@
 
 package org.jtool.eclipse.model.java.internal;
 
-import org.jtool.eclipse.model.java.JavaClass;
 import org.jtool.eclipse.model.java.JavaProject;
-import org.eclipse.jdt.core.IJavaProject;
-import org.eclipse.jdt.core.IType;
-import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.dom.ASTVisitor;
 import org.eclipse.jdt.core.dom.PrimitiveType;
 import org.eclipse.jdt.core.dom.SimpleType;
@@ -53,9 +49,9 @@ import java.util.HashSet;
 public class TypeCollector extends ASTVisitor {
     
     /**
-     * The project containing method calls to be collected.
+     * The object converting the bindings of the used types into their names.
      */
-    private JavaProject jproject;
+    private BindingNameResolver resolver;
     
     /**
      * The collection of classes that this class uses.
@@ -74,7 +70,7 @@ public class TypeCollector extends ASTVisitor {
     public TypeCollector(JavaProject jproject) {
         super();
         
-        this.jproject = jproject;
+        resolver = new BindingNameResolver(jproject);
     }
     
     /**
@@ -82,6 +78,7 @@ public class TypeCollector extends ASTVisitor {
      */
     public void clear() {
         typeUses.clear();
+        resolver.clear();
     }
     
     /**
@@ -117,16 +114,7 @@ public class TypeCollector extends ASTVisitor {
     public boolean visit(SimpleType node) {
         ITypeBinding tbinding = node.resolveBinding();
         if (tbinding != null) {
-            String fqn;
-            if (isInProject(tbinding)) {
-                fqn = JavaClass.createClassName(tbinding); 
-            } else {
-                JavaClass jc = ExternalJavaClass.create(tbinding);
-                fqn = jc.getQualifiedName();
-            }
-            
-            String str = JavaClass.getString(fqn);
-            typeUses.add(str);
+            typeUses.add(resolver.getTypeName(tbinding));
             
         } else {
             bindingOk = false;
@@ -134,28 +122,4 @@ public class TypeCollector extends ASTVisitor {
         
         return false;
     }
-    
-    /**
-     * Tests if the used type is contained in the project containing the type use.
-     * @param tbinding the type binding of the type use
-     * @return <code>true</code> if the used type is contained in the project, otherwise <code>false</code>
-     */
-    private boolean isInProject(ITypeBinding tbinding) {
-        IJavaProject project = jproject.getJavaProject();
-        if (project == null) {
-            return true;
-        }
-        
-        try {
-            IType type = project.findType(tbinding.getQualifiedName());
-            if (type != null) {
-                String pdir = project.getPath().toString();
-                String tname = type.getPath().toString();
-                return pdir != null && tname != null && tname.startsWith(pdir);
-            }
-        } catch (JavaModelException e) {
-            return false;
-        }
-        return false;
-    }
 }
@@ -25,8 +25,6 @@ public class ClDGFactory {
      * @return the created ClDG that combines PDGs for all the methods and fields declared in the class.
      */
     public static ClDG create(JavaClass jc) {
-        PDGFactory.setConservative(true);
-        
         ClDG cldg = new ClDG();
         
         CFGClassEntry cfgentry = new CFGClassEntry(jc, GraphNodeSort.classEntry);
@@ -39,7 +37,7 @@ public class ClDGFactory {
         }
         
         for (JavaMethod jm : jc.getJavaMethods()) {
-            PDG pdg = PDGFactory.create(jm);
+            PDG pdg = PDGFactory.create(jm, true);
             cldg.add(pdg);
         }
         
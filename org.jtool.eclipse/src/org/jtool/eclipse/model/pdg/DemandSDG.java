@@ -0,0 +1,524 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.pdg;
+
+import org.jtool.eclipse.model.cfg.CFGMethodCall;
+import org.jtool.eclipse.model.cfg.CFGMethodEntry;
+import org.jtool.eclipse.model.cfg.CFGNode;
+import org.jtool.eclipse.model.cfg.CFGParameter;
+import org.jtool.eclipse.model.graph.GraphEdge;
+import org.jtool.eclipse.model.graph.GraphEdgeSort;
+import org.jtool.eclipse.model.java.JavaField;
+import org.jtool.eclipse.model.java.JavaMethod;
+import org.jtool.eclipse.model.java.JavaProject;
+import org.jtool.eclipse.model.java.JavaVariableAccess;
+import org.jtool.eclipse.model.pdg.internal.IncrementalSummaryFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import org.apache.log4j.Logger;
+
+/**
+ * An SDG whose PDGs are created and connected on demand.
+ * The PDG of a method or field is created alone, and its method calls are left unconnected. A slice or chop walks the
+ * nodes of the PDGs created so far, and the walk is continued after the PDGs it needs are created and connected, until
+ * it needs no more. A walk needs the PDG of the method called at a method call when it reaches the actual-out node of
+ * the call backward or the actual-in node forward, since it descends into the called method and passes the summary edges
+ * of the call there. The first phase of a walk ascends to the calling methods, so it needs the PDGs of the methods and
+ * fields calling a method when it reaches a formal-in node of the method backward or a formal-out node forward.
+ * A calling method is taken from the call relations of the Java model, and only its method calls that statically resolve
+ * to the called method are connected, as <code>SDGFactory</code> connects them. The PDGs of the fields used or defined
+ * by the reached nodes are created as well, as <code>SDGFactory</code> creates them.
+ * The summary edges are extended by <code>IncrementalSummaryFactory</code> over the PDGs and method calls connected
+ * since they were last extended, and a walk is continued only from the nodes it has reached whose edges have been added,
+ * so that neither the summary edges nor the walks are computed again from scratch. The slice or chop is created on
+ * the frozen view of this SDG once the walk needs no more PDGs. The created PDGs are kept in this SDG and reused by later queries.
+ * @author Katsuhisa Maruyama
+ */
+public class DemandSDG extends SDG {
+    
+    static Logger logger = Logger.getLogger(DemandSDG.class.getName());
+    
+    /**
+     * The project containing the methods and fields of this SDG.
+     */
+    private JavaProject jproject;
+    
+    /**
+     * The method calls whose called methods have been examined.
+     */
+    private Set<CFGMethodCall> connected = Collections.newSetFromMap(new IdentityHashMap<CFGMethodCall, Boolean>());
+    
+    /**
+     * The methods whose callers have been created.
+     */
+    private Set<JavaMethod> expanded = Collections.newSetFromMap(new IdentityHashMap<JavaMethod, Boolean>());
+    
+    /**
+     * The factory that extends the summary edges of this SDG.
+     */
+    private IncrementalSummaryFactory summaryFactory = new IncrementalSummaryFactory();
+    
+    /**
+     * The PDGs added since the summary edges were last extended.
+     */
+    private List<PDG> addedPDGs = new ArrayList<PDG>();
+    
+    /**
+     * The method calls connected since the summary edges were last extended.
+     */
+    private List<CFGMethodCall> connectedCalls = new ArrayList<CFGMethodCall>();
+    
+    /**
+     * Creates a new, empty SDG for a given project.
+     * @param jproject the project
+     */
+    public DemandSDG(JavaProject jproject) {
+        super();
+        this.jproject = jproject;
+    }
+    
+    /**
+     * Returns the project containing the methods and fields of this SDG.
+     * @return the project
+     */
+    public JavaProject getJavaProject() {
+        return jproject;
+    }
+    
+    /**
+     * Adds a new PDG into this SDG, whose summary edges are extracted before the next query.
+     * @param pdg the PDG to be added
+     */
+    public void add(PDG pdg) {
+        int size = getPDGs().size();
+        super.add(pdg);
+        if (getPDGs().size() > size) {
+            addedPDGs.add(pdg);
+        }
+    }
+    
+    /**
+     * Returns the PDG for a given method, which is created without the PDGs of the methods it calls if it has not been created yet.
+     * @param jm the method
+     * @return the PDG of the method
+     */
+    public synchronized PDG getPDG(JavaMethod jm) {
+        String key = SDGFactory.getKey(jm);
+        PDG pdg = getPDG(key);
+        if (pdg == null) {
+            pdg = PDGFactory.create(jm);
+            add(key, pdg);
+        }
+        return pdg;
+    }
+    
+    /**
+     * Returns the PDG for a given field, which is created without the PDGs of the methods it calls if it has not been created yet.
+     * @param jf the field
+     * @return the PDG of the field
+     */
+    public synchronized PDG getPDG(JavaField jf) {
+        String key = SDGFactory.getKey(jf);
+        PDG pdg = getPDG(key);
+        if (pdg == null) {
+            pdg = PDGFactory.create(jf);
+            add(key, pdg);
+        }
+        return pdg;
+    }
+    
+    /**
+     * Creates a backward slice, creating the PDGs it reaches on demand.
+     * @param node the criterion node of the slice, which is contained in a PDG of this SDG
+     * @param jv the criterion variable of the slice
+     * @return the created slice
+     */
+    public synchronized SDGSlice createSlice(PDGStatement node, JavaVariableAccess jv) {
+        updateSummaryEdges();
+        if (getNodes().contains(node)) {
+            DemandWalk walk = new DemandWalk(false);
+            walk.extend(getBackwardStartNodes(node, jv), Collections.<PDGNode>emptyList());
+            expand(walk);
+        }
+        return new SDGSlice(freeze(), node, jv);
+    }
+    
+    /**
+     * Creates a forward slice, creating the PDGs it reaches on demand.
+     * @param node the criterion node of the slice, which is contained in a PDG of this SDG
+     * @param jv the criterion variable of the slice
+     * @return the created slice
+     */
+    public synchronized ForwardSlice createForwardSlice(PDGStatement node, JavaVariableAccess jv) {
+        updateSummaryEdges();
+        if (getNodes().contains(node) && (node.definesVariable(jv) || node.usesVariable(jv))) {
+            DemandWalk walk = new DemandWalk(true);
+            walk.extend(Collections.<PDGNode>singletonList(node), Collections.<PDGNode>emptyList());
+            expand(walk);
+        }
+        return new ForwardSlice(freeze(), node, jv);
+    }
+    
+    /**
+     * Creates a chop between two nodes, creating the PDGs reached from them on demand.
+     * @param source the source node of the chop, which is contained in a PDG of this SDG
+     * @param sink the sink node of the chop, which is contained in a PDG of this SDG
+     * @return the created chop
+     */
+    public synchronized Chop createChop(PDGStatement source, PDGStatement sink) {
+        updateSummaryEdges();
+        if (getNodes().contains(source) && getNodes().contains(sink)) {
+            DemandWalk forward = new DemandWalk(true);
+            forward.extend(Collections.<PDGNode>singletonList(source), Collections.<PDGNode>emptyList());
+            DemandWalk backward = new DemandWalk(false);
+            backward.extend(Collections.<PDGNode>singletonList(sink), Collections.<PDGNode>emptyList());
+            expand(forward, backward);
+        }
+        return new Chop(freeze(), source, sink);
+    }
+    
+    /**
+     * Creates and connects the PDGs needed by given walks and continues the walks until they need no more.
+     * @param walks the walks
+     */
+    private void expand(DemandWalk... walks) {
+        while (true) {
+            List<PDGNode> changed = new ArrayList<PDGNode>();
+            for (DemandWalk walk : walks) {
+                connectCallees(walk.getReachedNodes(), walk.isForward(), changed);
+                connectCallers(walk.getAscendedNodes(), walk.isForward(), changed);
+                createFieldPDGs(walk.getReachedNodes());
+            }
+            for (ParameterEdge edge : updateSummaryEdges()) {
+                changed.add((PDGNode)edge.getSrcNode());
+                changed.add((PDGNode)edge.getDstNode());
+            }
+            if (changed.isEmpty()) {
+                return;
+            }
+            
+            for (DemandWalk walk : walks) {
+                walk.extend(Collections.<PDGNode>emptyList(), changed);
+            }
+        }
+    }
+    
+    /**
+     * Extends the summary edges over the PDGs added and the method calls connected since they were last extended.
+     * @return the summary edges added
+     */
+    private List<ParameterEdge> updateSummaryEdges() {
+        if (addedPDGs.isEmpty() && connectedCalls.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ParameterEdge> edges = summaryFactory.update(addedPDGs, connectedCalls);
+        addedPDGs = new ArrayList<PDG>();
+        connectedCalls = new ArrayList<CFGMethodCall>();
+        return edges;
+    }
+    
+    /**
+     * Obtains the nodes from which a backward walk starts, in the same way as <code>SDGSlice</code>.
+     * @param node the criterion node
+     * @param jv the criterion variable
+     * @return the collection of the start nodes
+     */
+    private List<PDGNode> getBackwardStartNodes(PDGStatement node, JavaVariableAccess jv) {
+        List<PDGNode> from = new ArrayList<PDGNode>();
+        if (node.definesVariable(jv)) {
+            from.add(node);
+            
+        } else if (node.usesVariable(jv)) {
+            for (GraphEdge edge : node.getIncomingEdges()) {
+                Dependence dependence = (Dependence)edge;
+                if (dependence.isDD() && jv.equals(((DD)dependence).getVariable())) {
+                    from.add((PDGNode)edge.getSrcNode());
+                }
+            }
+        }
+        return from;
+    }
+    
+    /**
+     * Creates and connects the PDGs of the methods called at the method calls whose actual nodes a walk has reached.
+     * @param nodes the nodes the walk has reached
+     * @param forward <code>true</code> if the walk is forward, otherwise <code>false</code>
+     * @param changed the collection that stores the nodes whose edges have been added
+     */
+    private void connectCallees(Iterable<PDGNode> nodes, boolean forward, List<PDGNode> changed) {
+        for (PDGNode node : nodes) {
+            CFGNode cfgnode = node.getCFGNode();
+            if (forward ? cfgnode.isActualIn() : cfgnode.isActualOut()) {
+                CFGNode callnode = ((CFGParameter)cfgnode).getBelongNode();
+                if (callnode != null && callnode.isMethodCall()) {
+                    connectCallee((CFGMethodCall)callnode, changed);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Creates and connects the PDG of the method called at a given method call unless it has been examined.
+     * @param callnode the method call
+     * @param changed the collection that stores the nodes whose edges have been added
+     */
+    private void connectCallee(CFGMethodCall callnode, List<PDGNode> changed) {
+        if (!connected.add(callnode)) {
+            return;
+        }
+        
+        JavaMethod cm = callnode.getJavaMethodCall().getJavaMethod();
+        if (cm == null || !cm.isInProject()) {
+            return;
+        }
+        
+        PDG cpdg = getPDG(cm);
+        CFGMethodEntry entry = (CFGMethodEntry)cpdg.getEntryNode().getCFGEntry();
+        SDGFactory.connectParameters(this, callnode, entry);
+        connectedCalls.add(callnode);
+        
+        for (CFGParameter param : callnode.getActualIns()) {
+            changed.add(param.getPDGNode());
+        }
+        for (CFGParameter param : callnode.getActualOuts()) {
+            changed.add(param.getPDGNode());
+        }
+        for (CFGParameter param : entry.getFormalIns()) {
+            changed.add(param.getPDGNode());
+        }
+        for (CFGParameter param : entry.getFormalOuts()) {
+            changed.add(param.getPDGNode());
+        }
+    }
+    
+    /**
+     * Creates and connects the PDGs of the methods and fields calling the methods whose boundaries the first phase of
+     * a walk has reached.
+     * @param nodes the nodes the first phase of the walk has reached
+     * @param forward <code>true</code> if the walk is forward, otherwise <code>false</code>
+     * @param changed the collection that stores the nodes whose edges have been added
+     */
+    private void connectCallers(Iterable<PDGNode> nodes, boolean forward, List<PDGNode> changed) {
+        for (PDGNode node : nodes) {
+            CFGNode cfgnode = node.getCFGNode();
+            if (forward ? cfgnode.isFormalOut() : cfgnode.isFormalIn()) {
+                connectCallers(node.getOwnerPDG(), changed);
+            }
+        }
+    }
+    
+    /**
+     * Creates and connects the PDGs of the methods and fields calling the method of a given PDG unless they have been created.
+     * @param pdg the PDG of the called method
+     * @param changed the collection that stores the nodes whose edges have been added
+     */
+    private void connectCallers(PDG pdg, List<PDGNode> changed) {
+        if (pdg == null || !(pdg.getEntryNode().getCFGEntry() instanceof CFGMethodEntry)) {
+            return;
+        }
+        JavaMethod jm = ((CFGMethodEntry)pdg.getEntryNode().getCFGEntry()).getJavaMethod();
+        if (jm == null || !expanded.add(jm)) {
+            return;
+        }
+        
+        for (JavaMethod caller : jm.getCallingJavaMethodsInProject()) {
+            connectCallSites(getPDG(caller), jm, changed);
+        }
+        for (JavaField caller : jm.getAccessingJavaFields()) {
+            if (caller.isInProject()) {
+                connectCallSites(getPDG(caller), jm, changed);
+            }
+        }
+    }
+    
+    /**
+     * Connects the method calls within a given PDG that statically resolve to a given method.
+     * @param pdg the PDG of the calling method or field
+     * @param jm the called method
+     * @param changed the collection that stores the nodes whose edges have been added
+     */
+    private void connectCallSites(PDG pdg, JavaMethod jm, List<PDGNode> changed) {
+        for (CFGMethodCall callnode : SDGFactory.collectMethodCallNodes(pdg)) {
+            if (jm.equals(callnode.getJavaMethodCall().getJavaMethod())) {
+                connectCallee(callnode, changed);
+            }
+        }
+    }
+    
+    /**
+     * Creates the PDGs of the fields in the project that the reached nodes use or define.
+     * The PDGs are not connected to the reached nodes, but their method calls are connected once a walk ascends to the called methods.
+     * @param nodes the nodes a walk has reached
+     */
+    private void createFieldPDGs(Iterable<PDGNode> nodes) {
+        for (PDGNode node : nodes) {
+            if (node.isStatement()) {
+                PDGStatement stnode = (PDGStatement)node;
+                createFieldPDGs(stnode.getDefVariables());
+                createFieldPDGs(stnode.getUseVariables());
+            }
+        }
+    }
+    
+    /**
+     * Creates the PDGs of the fields in the project that are accessed by given variable accesses.
+     * @param jvs the variable accesses
+     */
+    private void createFieldPDGs(List<JavaVariableAccess> jvs) {
+        for (JavaVariableAccess jv : jvs) {
+            if (jv.isField()) {
+                JavaField jf = jv.getJavaField();
+                if (jf != null && jf.isInProject()) {
+                    getPDG(jf);
+                }
+            }
+        }
+    }
+    
+    /**
+     * A walk in two phases over the nodes of this SDG, which is continued after edges are added to the nodes it has reached.
+     * The walk follows the edges of the nodes rather than a frozen view, whose numbering of the nodes changes whenever
+     * this SDG grows, and passes the same sorts of edges in each phase as <code>SDGSlice</code> or <code>ForwardSlice</code>.
+     */
+    private static class DemandWalk {
+        
+        /**
+         * <code>true</code> if this walk is forward, otherwise <code>false</code>.
+         */
+        private boolean forward;
+        
+        /**
+         * The sorts of edges passed in the first phase.
+         */
+        private Set<GraphEdgeSort> firstSorts;
+        
+        /**
+         * The sorts of edges passed in the second phase.
+         */
+        private Set<GraphEdgeSort> secondSorts;
+        
+        /**
+         * The nodes reached in the first phase.
+         */
+        private Set<PDGNode> ascended = Collections.newSetFromMap(new IdentityHashMap<PDGNode, Boolean>());
+        
+        /**
+         * The nodes reached in either phase.
+         */
+        private Set<PDGNode> reached = Collections.newSetFromMap(new IdentityHashMap<PDGNode, Boolean>());
+        
+        /**
+         * The nodes newly reached in the first phase by the last extension of this walk.
+         */
+        private List<PDGNode> newlyAscended = new ArrayList<PDGNode>();
+        
+        /**
+         * The nodes newly reached in either phase by the last extension of this walk.
+         */
+        private List<PDGNode> newlyReached = new ArrayList<PDGNode>();
+        
+        /**
+         * Creates a new walk that has reached no node.
+         * @param forward <code>true</code> if the walk is forward, otherwise <code>false</code>
+         */
+        DemandWalk(boolean forward) {
+            this.forward = forward;
+            if (forward) {
+                firstSorts = ForwardSlice.ascendingSorts;
+                secondSorts = ForwardSlice.descendingSorts;
+            } else {
+                firstSorts = SDGSlice.ascendingSorts;
+                secondSorts = SDGSlice.descendingSorts;
+            }
+        }
+        
+        /**
+         * Tests if this walk is forward.
+         * @return <code>true</code> if this walk is forward, otherwise <code>false</code>
+         */
+        boolean isForward() {
+            return forward;
+        }
+        
+        /**
+         * Returns the nodes newly reached in the first phase by the last extension of this walk.
+         * @return the collection of the nodes
+         */
+        List<PDGNode> getAscendedNodes() {
+            return newlyAscended;
+        }
+        
+        /**
+         * Returns the nodes newly reached in either phase by the last extension of this walk.
+         * @return the collection of the nodes
+         */
+        List<PDGNode> getReachedNodes() {
+            return newlyReached;
+        }
+        
+        /**
+         * Continues this walk from new start nodes and from the reached nodes whose edges have been added.
+         * The second phase starts from the nodes newly reached in the first phase, as well as from the changed nodes.
+         * @param from the new start nodes
+         * @param changed the nodes whose edges have been added since the last extension
+         */
+        void extend(List<PDGNode> from, List<PDGNode> changed) {
+            newlyAscended = new ArrayList<PDGNode>();
+            newlyReached = new ArrayList<PDGNode>();
+            
+            List<PDGNode> stack = new ArrayList<PDGNode>();
+            for (PDGNode node : from) {
+                if (ascended.add(node)) {
+                    stack.add(node);
+                    newlyAscended.add(node);
+                }
+            }
+            for (PDGNode node : changed) {
+                if (ascended.contains(node)) {
+                    stack.add(node);
+                }
+            }
+            walk(stack, firstSorts, ascended, newlyAscended);
+            
+            for (PDGNode node : newlyAscended) {
+                if (reached.add(node)) {
+                    stack.add(node);
+                    newlyReached.add(node);
+                }
+            }
+            for (PDGNode node : changed) {
+                if (reached.contains(node)) {
+                    stack.add(node);
+                }
+            }
+            walk(stack, secondSorts, reached, newlyReached);
+        }
+        
+        /**
+         * Walks from given nodes through edges of given sorts.
+         * @param stack the nodes from which the walk starts, which is emptied by the walk
+         * @param sorts the sorts of edges to be passed
+         * @param track the nodes that have been reached, to which the newly reached nodes are added
+         * @param found the collection that stores the newly reached nodes
+         */
+        private void walk(List<PDGNode> stack, Set<GraphEdgeSort> sorts, Set<PDGNode> track, List<PDGNode> found) {
+            while (!stack.isEmpty()) {
+                PDGNode v = stack.remove(stack.size() - 1);
+                for (GraphEdge edge : forward ? v.getOutgoingEdges() : v.getIncomingEdges()) {
+                    if (edge.getSort() != null && sorts.contains(edge.getSort())) {
+                        PDGNode w = (PDGNode)(forward ? edge.getDstNode() : edge.getSrcNode());
+                        if (track.add(w)) {
+                            stack.add(w);
+                            found.add(w);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
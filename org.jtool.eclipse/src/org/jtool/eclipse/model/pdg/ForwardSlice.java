@@ -0,0 +1,161 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.pdg;
+
+import org.jtool.eclipse.model.graph.FrozenGraph;
+import org.jtool.eclipse.model.graph.Graph;
+import org.jtool.eclipse.model.graph.GraphEdgeSort;
+import org.jtool.eclipse.model.java.JavaVariableAccess;
+import java.util.BitSet;
+import java.util.Set;
+
+/**
+ * An object storing information about a forward program slice on a PDG or SDG.
+ * The slice contains the nodes affected by the value of the criterion variable at the criterion node.
+ * On an SDG, the first phase walks forward without descending into called methods through parameter-in edges,
+ * and the second phase walks forward from all the nodes found in the first phase without ascending to calling
+ * methods through parameter-out edges, so that a method call and a return that do not match are never followed.
+ * @author Katsuhisa Maruyama
+ */
+public class ForwardSlice extends Slice {
+    
+    /**
+     * The sorts of edges passed in the first phase.
+     */
+    static final Set<GraphEdgeSort> ascendingSorts = SDGSlice.getSortsExcept(GraphEdgeSort.parameterIn, GraphEdgeSort.methodCall);
+    
+    /**
+     * The sorts of edges passed in the second phase.
+     */
+    static final Set<GraphEdgeSort> descendingSorts = SDGSlice.getSortsExcept(GraphEdgeSort.parameterOut);
+    
+    /**
+     * The indices of the nodes found in the first phase on the traversed view.
+     */
+    private BitSet ascended = new BitSet();
+    
+    /**
+     * Creates a new forward slice object on a PDG or SDG.
+     * @param graph the PDG or SDG to be traversed
+     * @param node the criterion node for this slice
+     * @param jv the criterion variable for this slice
+     */
+    public ForwardSlice(Graph<PDGNode, Dependence> graph, PDGStatement node, JavaVariableAccess jv) {
+        this(graph.freeze(), node, jv);
+    }
+    
+    /**
+     * Creates a new forward slice object on a frozen view of a PDG or SDG.
+     * @param graph the frozen view to be traversed
+     * @param node the criterion node for this slice
+     * @param jv the criterion variable for this slice
+     */
+    public ForwardSlice(FrozenGraph<PDGNode, Dependence> graph, PDGStatement node, JavaVariableAccess jv) {
+        super();
+        
+        setCriterion(node, jv);
+        create(graph);
+    }
+    
+    /**
+     * Creates a new forward slice by walking on a frozen view in two phases.
+     * The walk starts at the criterion node if it defines or uses the criterion variable.
+     * @param graph the frozen view to be traversed
+     */
+    private void create(FrozenGraph<PDGNode, Dependence> graph) {
+        PDGStatement criterionNode = getCriterionNode();
+        JavaVariableAccess criterionVariable = getCriterionVariable();
+        
+        int criterion = graph.getIndex(criterionNode);
+        if (criterion == -1) {
+            return;
+        }
+        if (!criterionNode.definesVariable(criterionVariable) && !criterionNode.usesVariable(criterionVariable)) {
+            return;
+        }
+        
+        BitSet from = new BitSet(graph.size());
+        from.set(criterion);
+        
+        BitSet passed = new BitSet(graph.getEdgeCount());
+        BitSet track = walkForward(graph, from, null, passed, ascended);
+        
+        for (PDGNode node : graph.getNodes(track)) {
+            add(node);
+        }
+        for (Dependence edge : graph.getEdges(passed)) {
+            add(edge);
+        }
+    }
+    
+    /**
+     * Walks forward from given nodes in two phases so that method calls and returns are matched.
+     * @param graph the frozen view to be traversed
+     * @param from the indices of the start nodes
+     * @param excluded the indices of the nodes that are never entered, or <code>null</code> if none
+     * @param passed the set that stores the indices of the passed edges, or <code>null</code> if not needed
+     * @return the indices of the passed nodes
+     */
+    static BitSet walkForward(FrozenGraph<PDGNode, Dependence> graph, BitSet from, BitSet excluded, BitSet passed) {
+        return walkForward(graph, from, excluded, passed, null);
+    }
+    
+    /**
+     * Walks forward from given nodes in two phases so that method calls and returns are matched.
+     * @param graph the frozen view to be traversed
+     * @param from the indices of the start nodes
+     * @param excluded the indices of the nodes that are never entered, or <code>null</code> if none
+     * @param passed the set that stores the indices of the passed edges, or <code>null</code> if not needed
+     * @param ascended the set that stores the indices of the nodes passed in the first phase, or <code>null</code> if not needed
+     * @return the indices of the passed nodes
+     */
+    static BitSet walkForward(FrozenGraph<PDGNode, Dependence> graph, BitSet from, BitSet excluded, BitSet passed,
+                              BitSet ascended) {
+        BitSet track = new BitSet(graph.size());
+        if (excluded != null) {
+            track.or(excluded);
+        }
+        
+        graph.walkForward(from, null, ascendingSorts, passed, track);
+        BitSet firstPhase = (BitSet)track.clone();
+        if (excluded != null) {
+            firstPhase.andNot(excluded);
+        }
+        if (ascended != null) {
+            ascended.or(firstPhase);
+        }
+        graph.walkForward(firstPhase, null, descendingSorts, passed, track);
+        
+        if (excluded != null) {
+            track.andNot(excluded);
+        }
+        return track;
+    }
+    
+    /**
+     * Returns the nodes found in the first phase, which may reach the methods calling the method containing
+     * the criterion node.
+     * @return the indices of the nodes on the traversed view
+     */
+    BitSet getAscendedNodes() {
+        return ascended;
+    }
+    
+    /**
+     * Collects information about this slice for printing.
+     * @return the string for printing
+     */
+    public String toString() {
+        StringBuffer buf = new StringBuffer();
+        buf.append("----- Forward Slice (from here) -----\n");
+        buf.append("Node = " + getCriterionNode().getId() + "; Variable = " + getCriterionVariable().getName());
+        buf.append("\n");
+        buf.append(getNodeInfo());
+        buf.append(getEdgeInfo());
+        buf.append("----- Forward Slice (to here) -----\n");
+        
+        return buf.toString();
+    }
+}
@@ -90,6 +90,7 @@ public class PDG extends Graph<PDGNode, Dependence> {
      */
     public void add(PDGNode node) {
         super.add(node);
+        node.setOwnerPDG(this);
     }
     
     /**
@@ -106,12 +107,7 @@ public class PDG extends Graph<PDGNode, Dependence> {
      * @return the corresponding PDG node, or <code>null</code> if none
      */
     public PDGNode getNode(int id) {
-        for (PDGNode node : getNodes()) {
-            if (id == node.getId()) {
-                return node;
-            }
-        }
-        return null;
+        return getNodes().get(id);
     }
     
     /**
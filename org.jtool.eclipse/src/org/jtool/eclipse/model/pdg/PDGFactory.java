@@ -47,12 +47,10 @@ public class PDGFactory {
      * the collection of the created PDGs
      */
     public static Set<PDG> create(JavaClass jc) {
-        setConservative(true);
-        
         Set<PDG> pdgs = new HashSet<PDG>();
         
         for (JavaMethod jm : jc.getJavaMethods()) {
-            pdgs.add(create(jm));
+            pdgs.add(create(jm, true));
         }
         
         for (JavaField jf : jc.getJavaFields()) {
@@ -68,6 +66,16 @@ public class PDGFactory {
      * @return the created PDG
      */
     public static PDG create(JavaMethod jm) {
+        return create(jm, isConservative);
+    }
+    
+    /**
+     * Creates a PDG for a method or constructor without referring to the flag set by <code>setConservative()</code>.
+     * @param jm information on the method or constructor
+     * @param conservative <code>true</code> if actual parameters are conservatively connected, otherwise <code>false</code>
+     * @return the created PDG
+     */
+    public static PDG create(JavaMethod jm, boolean conservative) {
         CFG cfg = CFGFactory.create(jm);
         if (cfg == null) {
             CFGFactory.create(jm);
@@ -75,7 +83,7 @@ public class PDGFactory {
         
         PDG pdg = create(cfg);
         
-        if (isConservative) {
+        if (conservative) {
             connectActualParameters(pdg);
         }
         
@@ -23,6 +23,11 @@ public class PDGNode extends GraphNode {
      */
     protected CFGNode cfgnode;
     
+    /**
+     * The PDG that this node was first added to.
+     */
+    protected PDG ownerPDG = null;
+    
     /**
      * Creates a new, empty object.
      */
@@ -47,6 +52,24 @@ public class PDGNode extends GraphNode {
         return cfgnode;
     }
     
+    /**
+     * Sets the PDG that contains this node unless it has already been set.
+     * @param pdg the PDG that this node is added to
+     */
+    void setOwnerPDG(PDG pdg) {
+        if (ownerPDG == null) {
+            ownerPDG = pdg;
+        }
+    }
+    
+    /**
+     * Returns the PDG that this node was first added to.
+     * @return the PDG containing this node, or <code>null</code> if this node has never been added to a PDG
+     */
+    public PDG getOwnerPDG() {
+        return ownerPDG;
+    }
+    
     /**
      * Tests if this node indicates a statement node.
      * <code>true</code> if this node represents a normal statement, otherwise <code>false</code>
@@ -0,0 +1,191 @@
+/*
+ *  Copyright 2014, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.pdg;
+
+import org.jtool.eclipse.model.graph.GraphException;
+import org.jtool.eclipse.model.graph.GraphIdPublisher;
+import org.jtool.eclipse.model.java.JavaClass;
+import org.jtool.eclipse.model.java.JavaElement;
+import org.jtool.eclipse.model.java.JavaField;
+import org.jtool.eclipse.model.java.JavaMethod;
+import org.jtool.eclipse.model.java.JavaProject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.apache.log4j.Logger;
+
+/**
+ * Creates PDGs for methods and fields of classes in parallel.
+ * The CFG and PDG of each class member are created by a task running on a given executor, for example, a <code>ForkJoinPool</code>.
+ * Tasks for larger members are submitted earlier so that a few large members do not keep running after the others have finished.
+ * @author Katsuhisa Maruyama
+ */
+public class ParallelPDGFactory {
+    
+    static Logger logger = Logger.getLogger(ParallelPDGFactory.class.getName());
+    
+    /**
+     * The executor that runs the tasks creating PDGs.
+     */
+    private ExecutorService executor;
+    
+    /**
+     * A flag indicating if actual parameters are intended to be conservatively connected.
+     */
+    private boolean isConservative = true;
+    
+    /**
+     * Creates a new object that creates PDGs on a given executor.
+     * The executor is neither shut down nor otherwise managed by this object.
+     * @param executor the executor that runs the tasks
+     */
+    public ParallelPDGFactory(ExecutorService executor) {
+        this.executor = executor;
+    }
+    
+    /**
+     * Sets a flag indicating actual parameters is intended to be conservatively connected.
+     * @param bool <code>true</code> if the conservative connection is needed, otherwise <code>false</code>
+     */
+    public void setConservative(boolean bool) {
+        isConservative = bool;
+    }
+    
+    /**
+     * Creates PDGs for methods and fields in all the classes of a given project.
+     * @param jproject the project
+     * @return the collection of the created PDGs
+     * @throws GraphException if the creation of a PDG failed or was interrupted
+     */
+    public Set<PDG> create(JavaProject jproject) throws GraphException {
+        return create(jproject.getJavaClasses());
+    }
+    
+    /**
+     * Creates PDGs for methods and fields in given classes.
+     * @param jclasses the collection of the classes
+     * @return the collection of the created PDGs
+     * @throws GraphException if the creation of a PDG failed or was interrupted
+     */
+    public Set<PDG> create(Collection<JavaClass> jclasses) throws GraphException {
+        GraphIdPublisher publisher = GraphIdPublisher.getCurrent();
+        List<CreationTask> tasks = new ArrayList<CreationTask>();
+        for (JavaClass jc : jclasses) {
+            for (JavaMethod jm : jc.getJavaMethods()) {
+                tasks.add(new CreationTask(jm, null, publisher));
+            }
+            for (JavaField jf : jc.getJavaFields()) {
+                tasks.add(new CreationTask(null, jf, publisher));
+            }
+        }
+        
+        Collections.sort(tasks, new Comparator<CreationTask>() {
+            public int compare(CreationTask task1, CreationTask task2) {
+                return task2.getSize() - task1.getSize();
+            }
+        });
+        
+        List<Future<PDG>> futures = new ArrayList<Future<PDG>>(tasks.size());
+        for (CreationTask task : tasks) {
+            futures.add(executor.submit(task));
+        }
+        
+        Set<PDG> pdgs = new HashSet<PDG>();
+        try {
+            for (Future<PDG> future : futures) {
+                pdgs.add(future.get());
+            }
+            
+        } catch (ExecutionException e) {
+            cancel(futures);
+            logger.error("PDG creation failed: " + e.getCause());
+            throw new GraphException("PDG creation failed: " + e.getCause(), e.getCause());
+            
+        } catch (InterruptedException e) {
+            cancel(futures);
+            Thread.currentThread().interrupt();
+            throw new GraphException("PDG creation was interrupted", e);
+        }
+        return pdgs;
+    }
+    
+    /**
+     * Cancels tasks that have not finished yet.
+     * @param futures the collection of the results of the tasks
+     */
+    private void cancel(List<Future<PDG>> futures) {
+        for (Future<PDG> future : futures) {
+            future.cancel(true);
+        }
+    }
+    
+    /**
+     * A task that creates the CFG and PDG for a method or field.
+     */
+    private class CreationTask implements Callable<PDG> {
+        
+        /**
+         * The method for the PDG, or <code>null</code> if the PDG is created for a field.
+         */
+        private JavaMethod jmethod;
+        
+        /**
+         * The field for the PDG, or <code>null</code> if the PDG is created for a method.
+         */
+        private JavaField jfield;
+        
+        /**
+         * The publisher of the identification numbers of the created nodes and edges.
+         */
+        private GraphIdPublisher publisher;
+        
+        /**
+         * Creates a new task.
+         * @param jm the method for the PDG, or <code>null</code> if none
+         * @param jf the field for the PDG, or <code>null</code> if none
+         * @param publisher the publisher of the identification numbers
+         */
+        CreationTask(JavaMethod jm, JavaField jf, GraphIdPublisher publisher) {
+            this.jmethod = jm;
+            this.jfield = jf;
+            this.publisher = publisher;
+        }
+        
+        /**
+         * Returns the size of the class member for this task.
+         * @return the length in characters of the code of the member
+         */
+        int getSize() {
+            JavaElement elem = (jmethod != null) ? jmethod : jfield;
+            return elem.getCodeLength();
+        }
+        
+        /**
+         * Creates the PDG on the thread running this task.
+         * @return the created PDG
+         */
+        public PDG call() {
+            GraphIdPublisher previous = GraphIdPublisher.getCurrent();
+            GraphIdPublisher.setCurrent(publisher);
+            try {
+                if (jmethod != null) {
+                    return PDGFactory.create(jmethod, isConservative);
+                }
+                return PDGFactory.create(jfield);
+                
+            } finally {
+                GraphIdPublisher.setCurrent(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,493 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.pdg;
+
+import org.jtool.eclipse.model.cfg.CFGMethodCall;
+import org.jtool.eclipse.model.cfg.CFGMethodEntry;
+import org.jtool.eclipse.model.graph.GraphException;
+import org.jtool.eclipse.model.graph.GraphIdPublisher;
+import org.jtool.eclipse.model.java.CallGraph;
+import org.jtool.eclipse.model.java.JavaClass;
+import org.jtool.eclipse.model.java.JavaField;
+import org.jtool.eclipse.model.java.JavaMethod;
+import org.jtool.eclipse.model.java.JavaProject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.apache.log4j.Logger;
+
+/**
+ * Creates a system dependence graph (SDG) bottom-up along the strongly connected components of the call graph.
+ * The PDGs of the methods in a component are created after those of all the components it calls, and components that
+ * do not depend on each other are processed in parallel by tasks running on a given executor. The PDGs of fields are created
+ * after those of all the methods. Summary edges are extracted from the whole SDG after all the PDGs have been connected.
+ * This factory keeps no state shared among SDGs, so that different SDGs can be created concurrently.
+ * @author Katsuhisa Maruyama
+ */
+public class ParallelSDGFactory {
+    
+    static Logger logger = Logger.getLogger(ParallelSDGFactory.class.getName());
+    
+    /**
+     * The executor that runs the tasks creating PDGs.
+     */
+    private ExecutorService executor;
+    
+    /**
+     * A flag indicating if actual parameters are intended to be conservatively connected.
+     */
+    private boolean isConservative = false;
+    
+    /**
+     * Creates a new object that creates SDGs on a given executor.
+     * The executor is neither shut down nor otherwise managed by this object.
+     * @param executor the executor that runs the tasks
+     */
+    public ParallelSDGFactory(ExecutorService executor) {
+        this.executor = executor;
+    }
+    
+    /**
+     * Sets a flag indicating actual parameters is intended to be conservatively connected.
+     * @param bool <code>true</code> if the conservative connection is needed, otherwise <code>false</code>
+     */
+    public void setConservative(boolean bool) {
+        isConservative = bool;
+    }
+    
+    /**
+     * Creates an SDG for all the classes of a given project.
+     * @param jproject the project
+     * @return the created SDG
+     * @throws GraphException if the creation of a PDG failed or was interrupted
+     */
+    public SDG create(JavaProject jproject) throws GraphException {
+        return create(jproject, jproject.getJavaClasses());
+    }
+    
+    /**
+     * Creates an SDG for given classes of a project.
+     * The SDG contains the PDGs of the methods and fields of the classes and ones that they call or access.
+     * The nodes of the created SDG leave their adjacency to its frozen view, as <code>SDGFactory</code> does.
+     * @param jproject the project containing the classes
+     * @param jclasses the collection of the classes
+     * @return the created SDG
+     * @throws GraphException if the creation of a PDG failed or was interrupted
+     */
+    public SDG create(JavaProject jproject, Collection<JavaClass> jclasses) throws GraphException {
+        SDG sdg = new SDG();
+        Set<JavaMethod> methods = new LinkedHashSet<JavaMethod>();
+        Set<JavaField> fields = new LinkedHashSet<JavaField>();
+        collectMembers(jclasses, methods, fields);
+        
+        CallGraph callGraph = jproject.getCallGraph();
+        List<List<JavaMethod>> comps = new ArrayList<List<JavaMethod>>();
+        for (int c = 0; c < callGraph.getComponentCount(); c++) {
+            comps.add(new ArrayList<JavaMethod>());
+        }
+        List<JavaMethod> rest = new ArrayList<JavaMethod>();
+        for (JavaMethod jm : methods) {
+            int c = callGraph.getComponentIndex(jm);
+            if (c != -1) {
+                comps.get(c).add(jm);
+            } else {
+                rest.add(jm);
+            }
+        }
+        
+        GraphIdPublisher publisher = GraphIdPublisher.getCurrent();
+        createPDGsForComponents(sdg, callGraph, comps, publisher);
+        
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (JavaMethod jm : rest) {
+            tasks.add(new MethodTask(sdg, jm, publisher));
+        }
+        for (JavaField jf : fields) {
+            tasks.add(new FieldTask(sdg, jf, publisher));
+        }
+        run(tasks);
+        
+        SDGFactory.createSummaryEdges(sdg);
+        sdg.freeze(true);
+        return sdg;
+    }
+    
+    /**
+     * Collects the methods and fields of given classes and ones that they call or access within the project.
+     * @param jclasses the collection of the classes
+     * @param methods the collection of the collected methods
+     * @param fields the collection of the collected fields
+     */
+    private void collectMembers(Collection<JavaClass> jclasses, Set<JavaMethod> methods, Set<JavaField> fields) {
+        List<JavaMethod> methodsToVisit = new ArrayList<JavaMethod>();
+        List<JavaField> fieldsToVisit = new ArrayList<JavaField>();
+        for (JavaClass jc : jclasses) {
+            methodsToVisit.addAll(jc.getJavaMethods());
+            fieldsToVisit.addAll(jc.getJavaFields());
+        }
+        
+        while (!methodsToVisit.isEmpty() || !fieldsToVisit.isEmpty()) {
+            if (!methodsToVisit.isEmpty()) {
+                JavaMethod jm = methodsToVisit.remove(methodsToVisit.size() - 1);
+                if (methods.add(jm)) {
+                    methodsToVisit.addAll(jm.getCalledJavaMethodsInProject());
+                    fieldsToVisit.addAll(jm.getAccessedJavaFieldsInProject());
+                }
+            } else {
+                JavaField jf = fieldsToVisit.remove(fieldsToVisit.size() - 1);
+                if (fields.add(jf)) {
+                    methodsToVisit.addAll(jf.getCalledJavaMethodsInProject());
+                    fieldsToVisit.addAll(jf.getAccessedJavaFieldsInProject());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Creates PDGs for the methods in the components of the call graph.
+     * A component is submitted when all the components it calls have been finished.
+     * @param sdg the SDG containing the created PDGs
+     * @param callGraph the call graph
+     * @param comps the methods to be processed, which are grouped by their components
+     * @param publisher the publisher of the identification numbers of the created nodes and edges
+     * @throws GraphException if the creation of a PDG failed or was interrupted
+     */
+    private void createPDGsForComponents(SDG sdg, CallGraph callGraph, List<List<JavaMethod>> comps,
+                      GraphIdPublisher publisher) throws GraphException {
+        int count = comps.size();
+        int[] waits = new int[count];
+        for (int c = 0; c < count; c++) {
+            if (comps.get(c).size() != 0) {
+                for (int d : callGraph.getCalleeComponents(c)) {
+                    if (comps.get(d).size() != 0) {
+                        waits[c]++;
+                    }
+                }
+            }
+        }
+        
+        CompletionService<Integer> service = new ExecutorCompletionService<Integer>(executor);
+        List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        int running = 0;
+        for (int c = 0; c < count; c++) {
+            if (comps.get(c).size() != 0 && waits[c] == 0) {
+                futures.add(service.submit(new ComponentTask(sdg, c, comps.get(c), publisher)));
+                running++;
+            }
+        }
+        
+        try {
+            while (running > 0) {
+                int c = service.take().get();
+                running--;
+                
+                for (int d : callGraph.getCallerComponents(c)) {
+                    if (comps.get(d).size() != 0) {
+                        waits[d]--;
+                        if (waits[d] == 0) {
+                            futures.add(service.submit(new ComponentTask(sdg, d, comps.get(d), publisher)));
+                            running++;
+                        }
+                    }
+                }
+            }
+            
+        } catch (ExecutionException e) {
+            cancel(futures);
+            logger.error("SDG creation failed: " + e.getCause());
+            throw new GraphException("SDG creation failed: " + e.getCause(), e.getCause());
+            
+        } catch (InterruptedException e) {
+            cancel(futures);
+            Thread.currentThread().interrupt();
+            throw new GraphException("SDG creation was interrupted", e);
+        }
+    }
+    
+    /**
+     * Runs tasks that do not depend on each other and waits for their completion.
+     * @param tasks the collection of the tasks
+     * @throws GraphException if a task failed or was interrupted
+     */
+    private void run(List<Callable<Void>> tasks) throws GraphException {
+        List<Future<Void>> futures = new ArrayList<Future<Void>>(tasks.size());
+        for (Callable<Void> task : tasks) {
+            futures.add(executor.submit(task));
+        }
+        
+        try {
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+            
+        } catch (ExecutionException e) {
+            cancel(futures);
+            logger.error("SDG creation failed: " + e.getCause());
+            throw new GraphException("SDG creation failed: " + e.getCause(), e.getCause());
+            
+        } catch (InterruptedException e) {
+            cancel(futures);
+            Thread.currentThread().interrupt();
+            throw new GraphException("SDG creation was interrupted", e);
+        }
+    }
+    
+    /**
+     * Cancels tasks that have not finished yet.
+     * @param futures the collection of the results of the tasks
+     */
+    private <T> void cancel(List<Future<T>> futures) {
+        for (Future<T> future : futures) {
+            future.cancel(true);
+        }
+    }
+    
+    /**
+     * Connects the method calls within a given PDG to the PDGs of the called methods.
+     * The PDG of a called method is created here if it has not been created yet, for example for a method outside the call
+     * graph whose task has not run yet. It is created outside the lock on the SDG, and its own method calls are connected
+     * in turn, since the task of the method skips a PDG that has already been added.
+     * @param sdg the SDG containing the PDGs
+     * @param pdg the PDG containing the method calls
+     */
+    private void connectParameters(SDG sdg, PDG pdg) {
+        List<PDG> pdgs = new ArrayList<PDG>();
+        pdgs.add(pdg);
+        while (!pdgs.isEmpty()) {
+            PDG p = pdgs.remove(pdgs.size() - 1);
+            for (CFGMethodCall callnode : SDGFactory.collectMethodCallNodes(p)) {
+                JavaMethod cm = callnode.getJavaMethodCall().getJavaMethod();
+                if (cm.isInProject()) {
+                    String key = SDGFactory.getKey(cm);
+                    PDG cpdg;
+                    synchronized (sdg) {
+                        cpdg = sdg.getPDG(key);
+                    }
+                    if (cpdg == null) {
+                        PDG created = PDGFactory.create(cm, isConservative);
+                        cpdg = addPDG(sdg, key, created);
+                        if (cpdg == created) {
+                            pdgs.add(created);
+                        }
+                    }
+                    
+                    synchronized (sdg) {
+                        SDGFactory.connectParameters(sdg, callnode, (CFGMethodEntry)cpdg.getEntryNode().getCFGEntry());
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Creates a PDG for a method and adds it into the SDG unless it has already been added.
+     * @param sdg the SDG containing the created PDG
+     * @param jm the method
+     * @return the created PDG, or <code>null</code> if the PDG has already been added
+     */
+    private PDG addPDG(SDG sdg, JavaMethod jm) {
+        PDG pdg = PDGFactory.create(jm, isConservative);
+        if (addPDG(sdg, SDGFactory.getKey(jm), pdg) != pdg) {
+            return null;
+        }
+        return pdg;
+    }
+    
+    /**
+     * Adds a created PDG into the SDG unless a PDG with the same key has already been added.
+     * @param sdg the SDG containing the created PDG
+     * @param key the key of the PDG
+     * @param pdg the created PDG
+     * @return the PDG stored in the SDG, which is the given PDG if it has been added
+     */
+    private PDG addPDG(SDG sdg, String key, PDG pdg) {
+        synchronized (sdg) {
+            PDG other = sdg.getPDG(key);
+            if (other != null) {
+                return other;
+            }
+            sdg.add(key, pdg);
+        }
+        return pdg;
+    }
+    
+    /**
+     * A task that creates the PDGs for the methods in a strongly connected component.
+     */
+    private class ComponentTask implements Callable<Integer> {
+        
+        /**
+         * The SDG containing the created PDGs.
+         */
+        private SDG sdg;
+        
+        /**
+         * The number of the component.
+         */
+        private int component;
+        
+        /**
+         * The methods in the component for which the PDGs are created.
+         */
+        private List<JavaMethod> methods;
+        
+        /**
+         * The publisher of the identification numbers of the created nodes and edges.
+         */
+        private GraphIdPublisher publisher;
+        
+        /**
+         * Creates a new task.
+         * @param sdg the SDG containing the created PDGs
+         * @param component the number of the component
+         * @param methods the methods for which the PDGs are created
+         * @param publisher the publisher of the identification numbers
+         */
+        ComponentTask(SDG sdg, int component, List<JavaMethod> methods, GraphIdPublisher publisher) {
+            this.sdg = sdg;
+            this.component = component;
+            this.methods = methods;
+            this.publisher = publisher;
+        }
+        
+        /**
+         * Creates the PDGs on the thread running this task.
+         * @return the number of the component
+         */
+        public Integer call() {
+            GraphIdPublisher previous = GraphIdPublisher.getCurrent();
+            GraphIdPublisher.setCurrent(publisher);
+            try {
+                List<PDG> pdgs = new ArrayList<PDG>();
+                for (JavaMethod jm : methods) {
+                    PDG pdg = addPDG(sdg, jm);
+                    if (pdg != null) {
+                        pdgs.add(pdg);
+                    }
+                }
+                
+                for (PDG pdg : pdgs) {
+                    connectParameters(sdg, pdg);
+                }
+                return component;
+                
+            } finally {
+                GraphIdPublisher.setCurrent(previous);
+            }
+        }
+    }
+    
+    /**
+     * A task that creates the PDG for a method outside the call graph.
+     */
+    private class MethodTask implements Callable<Void> {
+        
+        /**
+         * The SDG containing the created PDG.
+         */
+        private SDG sdg;
+        
+        /**
+         * The method for the PDG.
+         */
+        private JavaMethod jmethod;
+        
+        /**
+         * The publisher of the identification numbers of the created nodes and edges.
+         */
+        private GraphIdPublisher publisher;
+        
+        /**
+         * Creates a new task.
+         * @param sdg the SDG containing the created PDG
+         * @param jm the method for the PDG
+         * @param publisher the publisher of the identification numbers
+         */
+        MethodTask(SDG sdg, JavaMethod jm, GraphIdPublisher publisher) {
+            this.sdg = sdg;
+            this.jmethod = jm;
+            this.publisher = publisher;
+        }
+        
+        /**
+         * Creates the PDG on the thread running this task.
+         * @return always <code>null</code>
+         */
+        public Void call() {
+            GraphIdPublisher previous = GraphIdPublisher.getCurrent();
+            GraphIdPublisher.setCurrent(publisher);
+            try {
+                PDG pdg = addPDG(sdg, jmethod);
+                if (pdg != null) {
+                    connectParameters(sdg, pdg);
+                }
+                return null;
+                
+            } finally {
+                GraphIdPublisher.setCurrent(previous);
+            }
+        }
+    }
+    
+    /**
+     * A task that creates the PDG for a field.
+     */
+    private class FieldTask implements Callable<Void> {
+        
+        /**
+         * The SDG containing the created PDG.
+         */
+        private SDG sdg;
+        
+        /**
+         * The field for the PDG.
+         */
+        private JavaField jfield;
+        
+        /**
+         * The publisher of the identification numbers of the created nodes and edges.
+         */
+        private GraphIdPublisher publisher;
+        
+        /**
+         * Creates a new task.
+         * @param sdg the SDG containing the created PDG
+         * @param jf the field for the PDG
+         * @param publisher the publisher of the identification numbers
+         */
+        FieldTask(SDG sdg, JavaField jf, GraphIdPublisher publisher) {
+            this.sdg = sdg;
+            this.jfield = jf;
+            this.publisher = publisher;
+        }
+        
+        /**
+         * Creates the PDG on the thread running this task.
+         * @return always <code>null</code>
+         */
+        public Void call() {
+            GraphIdPublisher previous = GraphIdPublisher.getCurrent();
+            GraphIdPublisher.setCurrent(publisher);
+            try {
+                PDG pdg = PDGFactory.create(jfield);
+                if (addPDG(sdg, SDGFactory.getKey(jfield), pdg) == pdg) {
+                    connectParameters(sdg, pdg);
+                }
+                return null;
+                
+            } finally {
+                GraphIdPublisher.setCurrent(previous);
+            }
+        }
+    }
+}
@@ -5,14 +5,23 @@
 package org.jtool.eclipse.model.pdg;
 
 import org.jtool.eclipse.model.graph.Graph;
+import org.jtool.eclipse.model.graph.GraphElementOverlaySet;
+import org.jtool.eclipse.model.graph.GraphElementSet;
+import org.jtool.eclipse.model.graph.ReachabilityIndex;
 
 import java.util.Set;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Collections;
 
 import org.apache.log4j.Logger;
 
 /**
  * An object storing information about a system dependence graph (SDG).
+ * The SDG overlays its PDGs without copying their nodes and edges, and stores only the edges between the PDGs by itself.
+ * Iteration and lookup of nodes and edges are delegated to the PDGs, so that changes of the PDGs are visible through the SDG.
  * @author Katsuhisa Maruyama
  */
 public class SDG extends Graph<PDGNode, Dependence> {
@@ -29,11 +38,61 @@ public class SDG extends Graph<PDGNode, Dependence> {
      */
     private Set<PDG> pdgs = new HashSet<PDG>();
     
+    /**
+     * A map storing pairs of the key of a method/field and its PDG contained in this SDG.
+     */
+    private Map<String, PDG> pdgsByKey = new HashMap<String, PDG>();
+    
+    /**
+     * The PDGs overlaid by this SDG, which are compared by their identities.
+     */
+    private Set<PDG> members = Collections.newSetFromMap(new IdentityHashMap<PDG, Boolean>());
+    
+    /**
+     * The nodes of this SDG, which overlays the nodes of the PDGs.
+     */
+    private GraphElementOverlaySet<PDGNode> nodeOverlay = new GraphElementOverlaySet<PDGNode>() {
+        
+        /**
+         * Finds the nodes of the PDG containing a given node.
+         * @param node the node
+         * @return the nodes of the PDG, or <code>null</code> if the PDG is not contained in this SDG
+         */
+        protected GraphElementSet<PDGNode> findMember(PDGNode node) {
+            PDG pdg = node.getOwnerPDG();
+            if (pdg != null && members.contains(pdg)) {
+                return pdg.getNodes();
+            }
+            return null;
+        }
+    };
+    
+    /**
+     * The edges of this SDG, which overlays the edges of the PDGs.
+     */
+    private GraphElementOverlaySet<Dependence> edgeOverlay = new GraphElementOverlaySet<Dependence>() {
+        
+        /**
+         * Finds the edges of the PDG containing the source node of a given edge.
+         * @param edge the edge
+         * @return the edges of the PDG, or <code>null</code> if the PDG is not contained in this SDG
+         */
+        protected GraphElementSet<Dependence> findMember(Dependence edge) {
+            PDG pdg = edge.getSrcNode().getOwnerPDG();
+            if (pdg != null && members.contains(pdg)) {
+                return pdg.getEdges();
+            }
+            return null;
+        }
+    };
+    
     /**
      * Creates a new, empty object.
      */
     public SDG() {
         super();
+        setNodes(nodeOverlay);
+        setEdges(edgeOverlay);
     }
     
     /**
@@ -54,23 +113,38 @@ public class SDG extends Graph<PDGNode, Dependence> {
     
     /**
      * Adds a new PDG into this SDG.
+     * The nodes and edges of the PDG are not copied but referenced through this SDG.
      * @param pdg the PDG to be added
      */
     public void add(PDG pdg) {
-        if (!pdgs.contains(pdg)) {
+        if (members.add(pdg)) {
             pdgs.add(pdg);
             entries.add(pdg.getEntryNode());
             
-            for (PDGNode node : pdg.getNodes()) {
-                add(node);
-            }
-            
-            for (Dependence edge : pdg.getEdges()) {
-                add(edge);
-            }
+            nodeOverlay.addMember(pdg.getNodes());
+            edgeOverlay.addMember(pdg.getEdges());
         }
     }
     
+    /**
+     * Adds a new PDG for a method or a field into this SDG.
+     * @param key the key identifying the method or field
+     * @param pdg the PDG to be added
+     */
+    public void add(String key, PDG pdg) {
+        pdgsByKey.put(key, pdg);
+        add(pdg);
+    }
+    
+    /**
+     * Returns the PDG for a method or a field contained in this SDG.
+     * @param key the key identifying the method or field
+     * @return the found PDG, or <code>null</code> if none
+     */
+    public PDG getPDG(String key) {
+        return pdgsByKey.get(key);
+    }
+    
     /**
      * Returns all PDGs contained in this SDG.
      * @return the collection of the PDGs
@@ -79,6 +153,18 @@ public class SDG extends Graph<PDGNode, Dependence> {
         return pdgs;
     }
     
+    /**
+     * Returns the index answering whether a node of this SDG is reachable from another node.
+     * The index ignores calling contexts, so that a node found reachable may be reached only through a path entering
+     * a method from one call site and returning to another. A positive answer is therefore an over-approximation of
+     * the dependence, which <code>SDGSlice</code> or <code>ForwardSlice</code> decides exactly, while a negative answer
+     * proves that no dependence exists.
+     * @return the index of the current nodes and edges of this SDG
+     */
+    public ReachabilityIndex<PDGNode, Dependence> getReachabilityIndex() {
+        return super.getReachabilityIndex();
+    }
+    
     /**
      * Collects information about this graph for printing.
      * @return the string for printing
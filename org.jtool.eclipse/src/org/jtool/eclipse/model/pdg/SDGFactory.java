@@ -15,7 +15,6 @@ import org.jtool.eclipse.model.pdg.internal.SummaryFactory;
 import java.util.List;
 import java.util.Set;
 import java.util.ArrayList;
-import java.util.HashMap;
 import org.apache.log4j.Logger;
 
 /**
@@ -26,39 +25,38 @@ public class SDGFactory {
     
     static Logger logger = Logger.getLogger(ClDGFactory.class.getName());
     
-    /**
-     * A map storing pairs of a method/field and its PDG.
-     */
-    private static HashMap<String, PDG> pdgs = new HashMap<String, PDG>();
-    
     /**
      * Creates an SDG for a given class.
+     * The nodes of the created SDG leave their adjacency to its frozen view, which saves memory on a large program.
      * @param jclasses the collection of the class
      * @return the created SDG containing the PDGs of the method and ones that the method calls.
      */
     public static SDG create(Set<JavaClass> jclasses) {
         SDG sdg = new SDG();
-        pdgs.clear();
         
         for (JavaClass jc : jclasses) {
             create(sdg, jc);
         }
+        createSummaryEdges(sdg);
+        sdg.freeze(true);
         
         return sdg;
     }
     
     /**
      * Creates an SDG for a given class.
+     * The nodes of the created SDG leave their adjacency to its frozen view, which saves memory on a large program.
      * @param jclasses the collection of the class
      * @return the created SDG containing the PDGs of the method and ones that the method calls.
      */
     public static SDG create(List<JavaClass> jclasses) {
         SDG sdg = new SDG();
-        pdgs.clear();
         
         for (JavaClass jc : jclasses) {
             create(sdg, jc);
         }
+        createSummaryEdges(sdg);
+        sdg.freeze(true);
         
         return sdg;
     }
@@ -70,18 +68,19 @@ public class SDGFactory {
      */
     public static SDG create(JavaClass jc) {
         SDG sdg = new SDG();
-        pdgs.clear();
         
         create(sdg, jc);
+        createSummaryEdges(sdg);
         
         return sdg;
     }
     
     /**
-     * Creates a PDG for a given class and appends it to the SDG.
-     * @param sdg the SDG containing the created PDG
+     * Creates the PDGs for the methods and fields of a given class and appends them to the SDG.
+     * The summary edges are not extracted, so <code>createSummaryEdges(SDG)</code> must be called after all the PDGs
+     * are appended to the SDG.
+     * @param sdg the SDG containing the created PDGs
      * @param jc the class
-     * @return the created PDG
      */
     public static void create(SDG sdg, JavaClass jc) {
         for (JavaMethod jm : jc.getJavaMethods()) {
@@ -101,9 +100,9 @@ public class SDGFactory {
      */
     public static SDG create(JavaMethod jm) {
         SDG sdg = new SDG();
-        pdgs.clear();
         
         create(sdg, jm);
+        createSummaryEdges(sdg);
         
         return sdg;
     }
@@ -115,13 +114,11 @@ public class SDGFactory {
      * @return the created PDG
      */
     public static PDG create(SDG sdg, JavaMethod jm) {
-        String key = JavaMethod.getString(jm.getQualifiedName(), jm.getSignature());
-        PDG pdg = pdgs.get(key);
+        String key = getKey(jm);
+        PDG pdg = sdg.getPDG(key);
         if (pdg == null) {
             pdg = PDGFactory.create(jm);
-            pdgs.put(key, pdg);
-            
-            sdg.add(pdg);
+            sdg.add(key, pdg);
             
             createPDGsForMethod(sdg, pdg);
             createPDGsForField(sdg, pdg);
@@ -137,13 +134,11 @@ public class SDGFactory {
      * @return the created PDG
      */
     public static PDG create(SDG sdg, JavaField jf) {
-        String key = JavaField.getString(jf.getQualifiedName(), jf.getName());
-        PDG pdg = pdgs.get(key);
+        String key = getKey(jf);
+        PDG pdg = sdg.getPDG(key);
         if (pdg == null) {
             pdg = PDGFactory.create(jf);
-            pdgs.put(key, pdg);
-            
-            sdg.add(pdg);
+            sdg.add(key, pdg);
             
             createPDGsForMethod(sdg, pdg);
             createPDGsForField(sdg, pdg);
@@ -152,6 +147,33 @@ public class SDGFactory {
         return pdg;
     }
     
+    /**
+     * Extracts summary edges between the actual-in and actual-out nodes of all the method calls in an SDG.
+     * This is needed after PDGs are appended to an SDG by <code>create(SDG, ...)</code>.
+     * @param sdg the SDG
+     */
+    public static void createSummaryEdges(SDG sdg) {
+        SummaryFactory.create(sdg);
+    }
+    
+    /**
+     * Returns the key identifying the PDG for a given method in an SDG.
+     * @param jm the method
+     * @return the key of the method
+     */
+    static String getKey(JavaMethod jm) {
+        return JavaMethod.getString(jm.getQualifiedName(), jm.getSignature());
+    }
+    
+    /**
+     * Returns the key identifying the PDG for a given field in an SDG.
+     * @param jf the field
+     * @return the key of the field
+     */
+    static String getKey(JavaField jf) {
+        return JavaField.getString(jf.getQualifiedName(), jf.getName());
+    }
+    
     /**
      * Creates PDGs related to a given PDG for a method.
      * @param sdg the SDG containing the created PDG
@@ -166,8 +188,6 @@ public class SDGFactory {
                 connectParameters(sdg, callnode, (CFGMethodEntry)cpdg.getEntryNode().getCFGEntry());
             }
         }
-        
-        SummaryFactory.create(sdg, pdg);
     }
     
     /**
@@ -189,7 +209,7 @@ public class SDGFactory {
      * @param pdg the PDG to be examined
      * @return the collection of the CFG nodes corresponding to the method calls
      */
-    private static List<CFGMethodCall> collectMethodCallNodes(PDG pdg) {
+    static List<CFGMethodCall> collectMethodCallNodes(PDG pdg) {
         List<CFGMethodCall> callnodes = new ArrayList<CFGMethodCall>();
         for (PDGNode pdgnode : pdg.getNodes()) {
             if (pdgnode.getCFGNode().isMethodCall()) {
@@ -205,7 +225,7 @@ public class SDGFactory {
      * @param caller the CFG node corresponding to the method call
      * @param callee the CFG entry node corresponding to the called method
      */
-    private static void connectParameters(SDG sdg, CFGMethodCall caller, CFGMethodEntry callee) {
+    static void connectParameters(SDG sdg, CFGMethodCall caller, CFGMethodEntry callee) {
         for (int ordinal = 0; ordinal < callee.getFormalIns().size(); ordinal++) {
             
             CFGParameter ain = caller.getActualIn(ordinal);
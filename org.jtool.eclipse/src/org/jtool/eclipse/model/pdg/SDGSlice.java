@@ -0,0 +1,198 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.pdg;
+
+import org.jtool.eclipse.model.graph.FrozenGraph;
+import org.jtool.eclipse.model.graph.GraphEdgeSort;
+import org.jtool.eclipse.model.java.JavaVariableAccess;
+import java.util.BitSet;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * An object storing information about an interprocedural program slice on an SDG.
+ * The slice is computed by the two-phase algorithm by Horwitz, Reps, and Binkley, which never follows a method call and
+ * a return that do not match. The first phase walks backward without descending into called methods through
+ * parameter-out edges, and the second phase walks backward from all the nodes found in the first phase without
+ * ascending to calling methods through parameter-in edges. The effects of the called methods on their call sites are
+ * taken into account by summary edges, which are extracted by <code>SDGFactory</code>.
+ * @author Katsuhisa Maruyama
+ */
+public class SDGSlice extends Slice {
+    
+    /**
+     * The sorts of edges passed in the first phase.
+     */
+    static final Set<GraphEdgeSort> ascendingSorts = getSortsExcept(GraphEdgeSort.parameterOut);
+    
+    /**
+     * The sorts of edges passed in the second phase.
+     */
+    static final Set<GraphEdgeSort> descendingSorts = getSortsExcept(GraphEdgeSort.parameterIn, GraphEdgeSort.methodCall);
+    
+    /**
+     * The indices of the nodes found in the first phase on the traversed view.
+     */
+    private BitSet ascended = new BitSet();
+    
+    /**
+     * Creates a new slice object on an SDG.
+     * @param sdg the SDG to be traversed
+     * @param node the criterion node for this slice
+     * @param jv the criterion variable for this slice
+     */
+    public SDGSlice(SDG sdg, PDGStatement node, JavaVariableAccess jv) {
+        this(sdg.freeze(), node, jv);
+    }
+    
+    /**
+     * Creates a new slice object on a frozen view of an SDG.
+     * The view can be shared by slices for different criteria.
+     * @param graph the frozen view to be traversed
+     * @param node the criterion node for this slice
+     * @param jv the criterion variable for this slice
+     */
+    public SDGSlice(FrozenGraph<PDGNode, Dependence> graph, PDGStatement node, JavaVariableAccess jv) {
+        super();
+        
+        setCriterion(node, jv);
+        create(graph);
+    }
+    
+    /**
+     * Creates a new slice by walking on a frozen view in two phases.
+     * @param graph the frozen view to be traversed
+     */
+    private void create(FrozenGraph<PDGNode, Dependence> graph) {
+        BitSet from = getStartNodes(graph);
+        if (from == null) {
+            return;
+        }
+        
+        BitSet passed = new BitSet(graph.getEdgeCount());
+        BitSet track = walkBackward(graph, from, null, passed, ascended);
+        
+        for (PDGNode node : graph.getNodes(track)) {
+            add(node);
+        }
+        for (Dependence edge : graph.getEdges(passed)) {
+            add(edge);
+        }
+    }
+    
+    /**
+     * Walks backward from given nodes in two phases so that method calls and returns are matched.
+     * @param graph the frozen view to be traversed
+     * @param from the indices of the start nodes
+     * @param excluded the indices of the nodes that are never entered, or <code>null</code> if none
+     * @param passed the set that stores the indices of the passed edges, or <code>null</code> if not needed
+     * @return the indices of the passed nodes
+     */
+    static BitSet walkBackward(FrozenGraph<PDGNode, Dependence> graph, BitSet from, BitSet excluded, BitSet passed) {
+        return walkBackward(graph, from, excluded, passed, null);
+    }
+    
+    /**
+     * Walks backward from given nodes in two phases so that method calls and returns are matched.
+     * @param graph the frozen view to be traversed
+     * @param from the indices of the start nodes
+     * @param excluded the indices of the nodes that are never entered, or <code>null</code> if none
+     * @param passed the set that stores the indices of the passed edges, or <code>null</code> if not needed
+     * @param ascended the set that stores the indices of the nodes passed in the first phase, or <code>null</code> if not needed
+     * @return the indices of the passed nodes
+     */
+    static BitSet walkBackward(FrozenGraph<PDGNode, Dependence> graph, BitSet from, BitSet excluded, BitSet passed,
+                               BitSet ascended) {
+        BitSet track = new BitSet(graph.size());
+        if (excluded != null) {
+            track.or(excluded);
+        }
+        
+        graph.walkBackward(from, null, ascendingSorts, passed, track);
+        BitSet firstPhase = (BitSet)track.clone();
+        if (excluded != null) {
+            firstPhase.andNot(excluded);
+        }
+        if (ascended != null) {
+            ascended.or(firstPhase);
+        }
+        graph.walkBackward(firstPhase, null, descendingSorts, passed, track);
+        
+        if (excluded != null) {
+            track.andNot(excluded);
+        }
+        return track;
+    }
+    
+    /**
+     * Returns the nodes found in the first phase, which may be reached from the methods calling the method containing
+     * the criterion node.
+     * @return the indices of the nodes on the traversed view
+     */
+    BitSet getAscendedNodes() {
+        return ascended;
+    }
+    
+    /**
+     * Obtains the nodes from which the walk starts.
+     * The criterion node is added to this slice if it only uses the criterion variable.
+     * @param graph the frozen view to be traversed
+     * @return the indices of the start nodes, or <code>null</code> if the criterion node is not contained in the view
+     */
+    private BitSet getStartNodes(FrozenGraph<PDGNode, Dependence> graph) {
+        PDGStatement criterionNode = getCriterionNode();
+        JavaVariableAccess criterionVariable = getCriterionVariable();
+        
+        int criterion = graph.getIndex(criterionNode);
+        if (criterion == -1) {
+            return null;
+        }
+        
+        BitSet from = new BitSet(graph.size());
+        if (criterionNode.definesVariable(criterionVariable)) {
+            from.set(criterion);
+            
+        } else if (criterionNode.usesVariable(criterionVariable)) {
+            add(criterionNode);
+            
+            for (int k = 0; k < graph.getInDegree(criterion); k++) {
+                Dependence edge = graph.getEdge(graph.getIncomingEdge(criterion, k));
+                if (edge.isDD() && criterionVariable.equals(((DD)edge).getVariable())) {
+                    from.set(graph.getPredecessor(criterion, k));
+                }
+            }
+        }
+        return from;
+    }
+    
+    /**
+     * Collects the sorts of edges except given sorts.
+     * @param excluded the sorts of edges to be excluded
+     * @return the collection of the sorts
+     */
+    static Set<GraphEdgeSort> getSortsExcept(GraphEdgeSort... excluded) {
+        Set<GraphEdgeSort> sorts = EnumSet.allOf(GraphEdgeSort.class);
+        for (GraphEdgeSort sort : excluded) {
+            sorts.remove(sort);
+        }
+        return sorts;
+    }
+    
+    /**
+     * Collects information about this slice for printing.
+     * @return the string for printing
+     */
+    public String toString() {
+        StringBuffer buf = new StringBuffer();
+        buf.append("----- SDG Slice (from here) -----\n");
+        buf.append("Node = " + getCriterionNode().getId() + "; Variable = " + getCriterionVariable().getName());
+        buf.append("\n");
+        buf.append(getNodeInfo());
+        buf.append(getEdgeInfo());
+        buf.append("----- SDG Slice (to here) -----\n");
+        
+        return buf.toString();
+    }
+}
@@ -4,8 +4,10 @@
 
 package org.jtool.eclipse.model.pdg;
 
+import org.jtool.eclipse.model.graph.FrozenGraph;
 import org.jtool.eclipse.model.graph.GraphElementSet;
 import org.jtool.eclipse.model.java.JavaVariableAccess;
+import java.util.BitSet;
 import org.apache.log4j.Logger;
 
 /**
@@ -47,6 +49,32 @@ public class Slice extends PDG {
         create();
     }
     
+    /**
+     * Creates a new slice object on a frozen view of a PDG or SDG.
+     * Only the edges contained in the frozen view are traversed.
+     * @param graph the frozen view to be traversed
+     * @param node the criterion node for this slice
+     * @param jv the criterion variable for this slice
+     */
+    public Slice(FrozenGraph<PDGNode, Dependence> graph, PDGStatement node, JavaVariableAccess jv) {
+        super();
+        
+        criterionNode = node;
+        criterionVariable = jv;
+        
+        create(graph);
+    }
+    
+    /**
+     * Sets the criterion for the construction of this slice.
+     * @param node the criterion node for this slice
+     * @param jv the criterion variable for this slice
+     */
+    protected void setCriterion(PDGStatement node, JavaVariableAccess jv) {
+        criterionNode = node;
+        criterionVariable = jv;
+    }
+    
     /**
      * Returns the criterion node for this slice.
      * @return the criterion node
@@ -79,6 +107,41 @@ public class Slice extends PDG {
         }
     }
     
+    /**
+     * Creates a new slice by walking on a frozen view.
+     * @param graph the frozen view to be traversed
+     */
+    private void create(FrozenGraph<PDGNode, Dependence> graph) {
+        int criterion = graph.getIndex(criterionNode);
+        if (criterion == -1) {
+            return;
+        }
+        
+        BitSet from = new BitSet(graph.size());
+        if (criterionNode.definesVariable(criterionVariable)) {
+            from.set(criterion);
+            
+        } else if (criterionNode.usesVariable(criterionVariable)) {
+            add(criterionNode);
+            
+            for (int k = 0; k < graph.getInDegree(criterion); k++) {
+                Dependence edge = graph.getEdge(graph.getIncomingEdge(criterion, k));
+                if (edge.isDD() && criterionVariable.equals(((DD)edge).getVariable())) {
+                    from.set(graph.getPredecessor(criterion, k));
+                }
+            }
+        }
+        
+        BitSet passed = new BitSet(graph.getEdgeCount());
+        BitSet track = graph.walkBackward(from, null, null, passed);
+        for (PDGNode node : graph.getNodes(track)) {
+            add(node);
+        }
+        for (Dependence edge : graph.getEdges(passed)) {
+            add(edge);
+        }
+    }
+    
     /**
      * Obtains the PDG nodes that define a given variable.
      * @param anchor the criterion node
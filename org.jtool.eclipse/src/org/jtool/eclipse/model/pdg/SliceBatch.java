@@ -0,0 +1,610 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.pdg;
+
+import org.jtool.eclipse.model.graph.FrozenGraph;
+import org.jtool.eclipse.model.graph.GraphEdgeSort;
+import org.jtool.eclipse.model.graph.GraphElementSet;
+import org.jtool.eclipse.model.graph.GraphException;
+import org.jtool.eclipse.model.java.JavaVariableAccess;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.apache.log4j.Logger;
+
+/**
+ * Computes backward slices for many criteria on a frozen view of a PDG or SDG at once.
+ * The nodes backward reachable from the criteria are condensed into strongly connected components, and the nodes
+ * reachable from each component are computed as the union of the bit sets of the components it depends on.
+ * The bit set of a component is shared by all the criteria and components depending on it and is released as soon as
+ * it is no longer needed. Components whose dependences have been computed are processed in parallel if an executor is given.
+ * On a view of a PDG, each slice contains the same nodes as <code>Slice</code> created on the same view.
+ * On a view containing interprocedural edges, the reachability is computed in the two phases of <code>SDGSlice</code> so that
+ * method calls and returns are matched, and each slice contains the same nodes as <code>SDGSlice</code> created on the same view.
+ * The slices are returned as bit sets of node indices.
+ * @author Katsuhisa Maruyama
+ */
+public class SliceBatch {
+    
+    static Logger logger = Logger.getLogger(SliceBatch.class.getName());
+    
+    /**
+     * The minimum number of components processed by one task.
+     */
+    private static final int MIN_CHUNK_SIZE = 64;
+    
+    /**
+     * The frozen view to be traversed.
+     */
+    private FrozenGraph<PDGNode, Dependence> graph;
+    
+    /**
+     * The executor that runs the tasks, or <code>null</code> if the slices are computed in the calling thread.
+     */
+    private ExecutorService executor;
+    
+    /**
+     * The criterion nodes of the slices.
+     */
+    private List<PDGStatement> criterionNodes = new ArrayList<PDGStatement>();
+    
+    /**
+     * The criterion variables of the slices.
+     */
+    private List<JavaVariableAccess> criterionVariables = new ArrayList<JavaVariableAccess>();
+    
+    /**
+     * The indices of the nodes of the computed slices.
+     */
+    private List<BitSet> results = new ArrayList<BitSet>();
+    
+    /**
+     * The indices of the edges passed in the current phase, or <code>null</code> if any edge can be passed.
+     */
+    private BitSet accepted;
+    
+    /**
+     * The numbers of the components containing respective nodes, or <code>-1</code> for nodes not reachable from the criteria.
+     */
+    private int[] components;
+    
+    /**
+     * The offsets into the nodes of respective components, which has one more element than the components.
+     */
+    private int[] memberOffsets;
+    
+    /**
+     * The nodes grouped by their components.
+     */
+    private int[] members;
+    
+    /**
+     * The offsets into the components on which respective components depend.
+     */
+    private int[] depOffsets;
+    
+    /**
+     * The components on which respective components depend, which are grouped by the depending components.
+     */
+    private int[] deps;
+    
+    /**
+     * The numbers of the criteria and components that still need the bit set of each component.
+     */
+    private int[] refs;
+    
+    /**
+     * The indices of the nodes reachable from each component, which are kept while they are needed.
+     */
+    private BitSet[] reached;
+    
+    /**
+     * Creates a new object that computes slices on a given view in the calling thread.
+     * @param graph the frozen view to be traversed
+     */
+    public SliceBatch(FrozenGraph<PDGNode, Dependence> graph) {
+        this(graph, null);
+    }
+    
+    /**
+     * Creates a new object that computes slices on a given view with a given executor.
+     * The executor is neither shut down nor otherwise managed by this object.
+     * @param graph the frozen view to be traversed
+     * @param executor the executor that runs the tasks, or <code>null</code> if the slices are computed in the calling thread
+     */
+    public SliceBatch(FrozenGraph<PDGNode, Dependence> graph, ExecutorService executor) {
+        this.graph = graph;
+        this.executor = executor;
+    }
+    
+    /**
+     * Adds a criterion of a slice to be computed.
+     * @param node the criterion node of the slice
+     * @param jv the criterion variable of the slice
+     * @return the number of the criterion
+     */
+    public int add(PDGStatement node, JavaVariableAccess jv) {
+        criterionNodes.add(node);
+        criterionVariables.add(jv);
+        return criterionNodes.size() - 1;
+    }
+    
+    /**
+     * Returns the number of the criteria.
+     * @return the number of the criteria
+     */
+    public int size() {
+        return criterionNodes.size();
+    }
+    
+    /**
+     * Returns the criterion node of a slice.
+     * @param index the number of the criterion
+     * @return the criterion node
+     */
+    public PDGStatement getCriterionNode(int index) {
+        return criterionNodes.get(index);
+    }
+    
+    /**
+     * Returns the criterion variable of a slice.
+     * @param index the number of the criterion
+     * @return the criterion variable
+     */
+    public JavaVariableAccess getCriterionVariable(int index) {
+        return criterionVariables.get(index);
+    }
+    
+    /**
+     * Returns the indices of the nodes of a computed slice.
+     * @param index the number of the criterion
+     * @return the indices of the nodes in the view, or <code>null</code> if the slice has not been computed yet
+     */
+    public BitSet getNodeIndices(int index) {
+        if (index < results.size()) {
+            return results.get(index);
+        }
+        return null;
+    }
+    
+    /**
+     * Returns the nodes of a computed slice.
+     * @param index the number of the criterion
+     * @return the collection of the nodes, or <code>null</code> if the slice has not been computed yet
+     */
+    public GraphElementSet<PDGNode> getNodes(int index) {
+        BitSet indices = getNodeIndices(index);
+        if (indices != null) {
+            return graph.getNodes(indices);
+        }
+        return null;
+    }
+    
+    /**
+     * Computes the slices for all the criteria added to this object.
+     * @throws GraphException if a task failed or was interrupted
+     */
+    public void compute() throws GraphException {
+        int count = criterionNodes.size();
+        List<BitSet> starts = new ArrayList<BitSet>(count);
+        for (int index = 0; index < count; index++) {
+            starts.add(getStartNodes(criterionNodes.get(index), criterionVariables.get(index)));
+        }
+        
+        List<BitSet> closures;
+        if (hasInterproceduralEdges()) {
+            accepted = getAcceptedEdges(SDGSlice.ascendingSorts);
+            List<BitSet> ascended = computeClosures(starts);
+            accepted = getAcceptedEdges(SDGSlice.descendingSorts);
+            closures = computeClosures(ascended);
+        } else {
+            accepted = null;
+            closures = computeClosures(starts);
+        }
+        accepted = null;
+        
+        results.clear();
+        for (int index = 0; index < count; index++) {
+            BitSet result = closures.get(index);
+            PDGStatement node = criterionNodes.get(index);
+            JavaVariableAccess jv = criterionVariables.get(index);
+            int criterion = graph.getIndex(node);
+            if (criterion != -1 && !node.definesVariable(jv) && node.usesVariable(jv)) {
+                result.set(criterion);
+            }
+            results.add(result);
+        }
+    }
+    
+    /**
+     * Computes the nodes backward reachable from respective sets of start nodes through the edges passed in the current phase.
+     * @param starts the collection of the indices of the start nodes
+     * @return the collection of the indices of the reachable nodes, which include the start nodes
+     * @throws GraphException if a task failed or was interrupted
+     */
+    private List<BitSet> computeClosures(List<BitSet> starts) throws GraphException {
+        int count = starts.size();
+        BitSet roots = new BitSet(graph.size());
+        for (BitSet from : starts) {
+            roots.or(from);
+        }
+        
+        computeComponents(roots);
+        connectComponents();
+        
+        int size = memberOffsets.length - 1;
+        List<int[]> startComps = new ArrayList<int[]>(count);
+        int[] marks = new int[size];
+        for (int index = 0; index < count; index++) {
+            List<Integer> comps = new ArrayList<Integer>();
+            BitSet from = starts.get(index);
+            for (int v = from.nextSetBit(0); v >= 0; v = from.nextSetBit(v + 1)) {
+                int c = components[v];
+                if (marks[c] != index + 1) {
+                    marks[c] = index + 1;
+                    comps.add(c);
+                    refs[c]++;
+                }
+            }
+            startComps.add(toArray(comps));
+        }
+        
+        reached = new BitSet[size];
+        for (List<Integer> level : getLevels()) {
+            computeLevel(level);
+            for (int c : level) {
+                for (int e = depOffsets[c]; e < depOffsets[c + 1]; e++) {
+                    release(deps[e]);
+                }
+            }
+        }
+        
+        List<BitSet> closures = new ArrayList<BitSet>(count);
+        for (int index = 0; index < count; index++) {
+            BitSet closure = new BitSet(graph.size());
+            for (int c : startComps.get(index)) {
+                closure.or(reached[c]);
+            }
+            closures.add(closure);
+        }
+        reached = null;
+        refs = null;
+        return closures;
+    }
+    
+    /**
+     * Tests if the view contains edges between methods, on which calls and returns must be matched.
+     * @return <code>true</code> if the view contains a parameter-in, parameter-out, or method call edge, otherwise <code>false</code>
+     */
+    private boolean hasInterproceduralEdges() {
+        for (int e = 0; e < graph.getEdgeCount(); e++) {
+            GraphEdgeSort sort = graph.getEdgeSort(e);
+            if (sort == GraphEdgeSort.parameterIn || sort == GraphEdgeSort.parameterOut || sort == GraphEdgeSort.methodCall) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Collects the edges of given sorts.
+     * @param sorts the sorts of edges to be passed
+     * @return the indices of the edges
+     */
+    private BitSet getAcceptedEdges(Set<GraphEdgeSort> sorts) {
+        BitSet edges = new BitSet(graph.getEdgeCount());
+        for (int e = 0; e < graph.getEdgeCount(); e++) {
+            GraphEdgeSort sort = graph.getEdgeSort(e);
+            if (sort != null && sorts.contains(sort)) {
+                edges.set(e);
+            }
+        }
+        return edges;
+    }
+    
+    /**
+     * Tests if an incoming edge of a node is passed in the current phase.
+     * @param v the index of the node
+     * @param k the position of the incoming edge
+     * @return <code>true</code> if the edge is passed, otherwise <code>false</code>
+     */
+    private boolean isPassed(int v, int k) {
+        return accepted == null || accepted.get(graph.getIncomingEdge(v, k));
+    }
+    
+    /**
+     * Obtains the nodes from which the walk for a criterion starts, in the same way as <code>Slice</code>.
+     * @param node the criterion node
+     * @param jv the criterion variable
+     * @return the indices of the start nodes
+     */
+    private BitSet getStartNodes(PDGStatement node, JavaVariableAccess jv) {
+        BitSet from = new BitSet(graph.size());
+        int criterion = graph.getIndex(node);
+        if (criterion == -1) {
+            return from;
+        }
+        
+        if (node.definesVariable(jv)) {
+            from.set(criterion);
+            
+        } else if (node.usesVariable(jv)) {
+            for (int k = 0; k < graph.getInDegree(criterion); k++) {
+                Dependence edge = graph.getEdge(graph.getIncomingEdge(criterion, k));
+                if (edge.isDD() && jv.equals(((DD)edge).getVariable())) {
+                    from.set(graph.getPredecessor(criterion, k));
+                }
+            }
+        }
+        return from;
+    }
+    
+    /**
+     * Computes the strongly connected components of the nodes backward reachable from given nodes
+     * with Tarjan's algorithm without recursion.
+     * Tarjan's algorithm finds a component after all the components reachable from it, so that each component
+     * is numbered after all the components on which it depends.
+     * @param roots the indices of the nodes from which the components are searched
+     */
+    private void computeComponents(BitSet roots) {
+        int size = graph.size();
+        components = new int[size];
+        int[] orders = new int[size];
+        int[] lowlinks = new int[size];
+        boolean[] onStack = new boolean[size];
+        int[] stack = new int[size];
+        int[] callStack = new int[size];
+        int[] next = new int[size];
+        int[] grouped = new int[size];
+        List<Integer> offsets = new ArrayList<Integer>();
+        for (int v = 0; v < size; v++) {
+            components[v] = -1;
+        }
+        
+        int order = 1;
+        int top = 0;
+        int memberCount = 0;
+        for (int root = roots.nextSetBit(0); root >= 0; root = roots.nextSetBit(root + 1)) {
+            if (orders[root] != 0) {
+                continue;
+            }
+            
+            int depth = 0;
+            callStack[depth] = root;
+            orders[root] = lowlinks[root] = order++;
+            stack[top++] = root;
+            onStack[root] = true;
+            
+            while (depth >= 0) {
+                int v = callStack[depth];
+                if (next[v] < graph.getInDegree(v)) {
+                    int k = next[v]++;
+                    if (!isPassed(v, k)) {
+                        continue;
+                    }
+                    int w = graph.getPredecessor(v, k);
+                    if (orders[w] == 0) {
+                        orders[w] = lowlinks[w] = order++;
+                        stack[top++] = w;
+                        onStack[w] = true;
+                        callStack[++depth] = w;
+                    } else if (onStack[w] && orders[w] < lowlinks[v]) {
+                        lowlinks[v] = orders[w];
+                    }
+                } else {
+                    if (lowlinks[v] == orders[v]) {
+                        offsets.add(memberCount);
+                        int w;
+                        do {
+                            w = stack[--top];
+                            onStack[w] = false;
+                            components[w] = offsets.size() - 1;
+                            grouped[memberCount++] = w;
+                        } while (w != v);
+                    }
+                    depth--;
+                    if (depth >= 0) {
+                        int u = callStack[depth];
+                        if (lowlinks[v] < lowlinks[u]) {
+                            lowlinks[u] = lowlinks[v];
+                        }
+                    }
+                }
+            }
+        }
+        
+        int count = offsets.size();
+        memberOffsets = new int[count + 1];
+        for (int c = 0; c < count; c++) {
+            memberOffsets[c] = offsets.get(c);
+        }
+        memberOffsets[count] = memberCount;
+        members = grouped;
+    }
+    
+    /**
+     * Collects the components on which respective components depend and counts the components depending on each component.
+     */
+    private void connectComponents() {
+        int size = memberOffsets.length - 1;
+        depOffsets = new int[size + 1];
+        refs = new int[size];
+        int[] marks = new int[size];
+        List<Integer> targets = new ArrayList<Integer>();
+        for (int c = 0; c < size; c++) {
+            depOffsets[c] = targets.size();
+            for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+                int v = members[m];
+                for (int k = 0; k < graph.getInDegree(v); k++) {
+                    if (!isPassed(v, k)) {
+                        continue;
+                    }
+                    int d = components[graph.getPredecessor(v, k)];
+                    if (d != c && marks[d] != c + 1) {
+                        marks[d] = c + 1;
+                        targets.add(d);
+                        refs[d]++;
+                    }
+                }
+            }
+        }
+        depOffsets[size] = targets.size();
+        deps = toArray(targets);
+    }
+    
+    /**
+     * Groups the components into levels, each of which contains components depending only on those in the preceding levels.
+     * @return the numbers of the components grouped by their levels
+     */
+    private List<List<Integer>> getLevels() {
+        int size = memberOffsets.length - 1;
+        int[] levels = new int[size];
+        List<List<Integer>> groups = new ArrayList<List<Integer>>();
+        for (int c = 0; c < size; c++) {
+            int level = 0;
+            for (int e = depOffsets[c]; e < depOffsets[c + 1]; e++) {
+                if (levels[deps[e]] + 1 > level) {
+                    level = levels[deps[e]] + 1;
+                }
+            }
+            levels[c] = level;
+            
+            if (level == groups.size()) {
+                groups.add(new ArrayList<Integer>());
+            }
+            groups.get(level).add(c);
+        }
+        return groups;
+    }
+    
+    /**
+     * Computes the bit sets of the components in one level, in parallel if an executor is given.
+     * @param level the numbers of the components
+     * @throws GraphException if a task failed or was interrupted
+     */
+    private void computeLevel(List<Integer> level) throws GraphException {
+        if (executor == null || level.size() < MIN_CHUNK_SIZE * 2) {
+            for (int c : level) {
+                computeComponent(c);
+            }
+            return;
+        }
+        
+        int chunks = Math.min(Runtime.getRuntime().availableProcessors(), level.size() / MIN_CHUNK_SIZE);
+        int chunkSize = (level.size() + chunks - 1) / chunks;
+        List<Future<Void>> futures = new ArrayList<Future<Void>>(chunks);
+        for (int from = 0; from < level.size(); from = from + chunkSize) {
+            futures.add(executor.submit(new LevelTask(level.subList(from, Math.min(from + chunkSize, level.size())))));
+        }
+        
+        try {
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+            
+        } catch (ExecutionException e) {
+            cancel(futures);
+            logger.error("Slice computation failed: " + e.getCause());
+            throw new GraphException("Slice computation failed: " + e.getCause(), e.getCause());
+            
+        } catch (InterruptedException e) {
+            cancel(futures);
+            Thread.currentThread().interrupt();
+            throw new GraphException("Slice computation was interrupted", e);
+        }
+    }
+    
+    /**
+     * Computes the bit set of the nodes reachable from a component.
+     * The bit set of the only component on which the component depends is reused if no other criterion or component needs it.
+     * @param c the number of the component
+     */
+    private void computeComponent(int c) {
+        BitSet set;
+        int first = depOffsets[c];
+        if (depOffsets[c + 1] - first == 1 && refs[deps[first]] == 1) {
+            set = reached[deps[first]];
+        } else {
+            set = new BitSet(graph.size());
+            for (int e = first; e < depOffsets[c + 1]; e++) {
+                set.or(reached[deps[e]]);
+            }
+        }
+        
+        for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+            set.set(members[m]);
+        }
+        reached[c] = set;
+    }
+    
+    /**
+     * Releases the bit set of a component if no other criterion or component needs it.
+     * @param c the number of the component
+     */
+    private void release(int c) {
+        refs[c]--;
+        if (refs[c] == 0) {
+            reached[c] = null;
+        }
+    }
+    
+    /**
+     * Cancels tasks that have not finished yet.
+     * @param futures the collection of the results of the tasks
+     */
+    private void cancel(List<Future<Void>> futures) {
+        for (Future<Void> future : futures) {
+            future.cancel(true);
+        }
+    }
+    
+    /**
+     * Converts a list of numbers into an array.
+     * @param list the list of the numbers
+     * @return the array of the numbers
+     */
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+    
+    /**
+     * A task that computes the bit sets of components in the same level.
+     */
+    private class LevelTask implements Callable<Void> {
+        
+        /**
+         * The numbers of the components.
+         */
+        private List<Integer> comps;
+        
+        /**
+         * Creates a new task.
+         * @param comps the numbers of the components
+         */
+        LevelTask(List<Integer> comps) {
+            this.comps = comps;
+        }
+        
+        /**
+         * Computes the bit sets on the thread running this task.
+         * @return always <code>null</code>
+         */
+        public Void call() {
+            for (int c : comps) {
+                computeComponent(c);
+            }
+            return null;
+        }
+    }
+}
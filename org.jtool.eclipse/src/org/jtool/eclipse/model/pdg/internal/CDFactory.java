@@ -9,12 +9,14 @@ import org.jtool.eclipse.model.cfg.CFGMethodCall;
 import org.jtool.eclipse.model.cfg.CFGNode;
 import org.jtool.eclipse.model.cfg.CFGParameter;
 import org.jtool.eclipse.model.cfg.ControlFlow;
+import org.jtool.eclipse.model.cfg.PostDominatorTree;
 import org.jtool.eclipse.model.pdg.CD;
 import org.jtool.eclipse.model.pdg.PDG;
 import org.jtool.eclipse.model.pdg.PDGNode;
 
 /**
  * Extracts control dependences of a PDG from its CFG.
+ * By default, control dependences are derived from post-dominance frontiers on the post-dominator tree of the CFG.
  * @author Katsuhisa Maruyama
  */
 public class CDFactory {
@@ -25,7 +27,19 @@ public class CDFactory {
      * @param cfg the CFG to be examined
      */
     public static void create(PDG pdg, CFG cfg) {
-        findCDs(pdg, cfg);
+        create(pdg, cfg, false);
+    }
+    
+    /**
+     * Visits all the nodes of the CFG and extracts control dependences from it in a given mode.
+     * The reference mode tests the post-dominance of every node for each branch. It yields the same control dependences
+     * as the default mode does, but it is much slower. The mode is given for each call so that PDGs can be created concurrently.
+     * @param pdg the PDG that stores the extracted information
+     * @param cfg the CFG to be examined
+     * @param referenceMode <code>true</code> if the reference mode is used, otherwise <code>false</code>
+     */
+    public static void create(PDG pdg, CFG cfg, boolean referenceMode) {
+        findCDs(pdg, cfg, referenceMode);
         findControlDependencesAtEntry(pdg, cfg);
         addControlDependencesAtEntry(pdg);
     }
@@ -34,12 +48,17 @@ public class CDFactory {
      * Extracts control dependences from a CFG.
      * @param pdg the PDG that stores the extracted information
      * @param cfg the CFG to be examined
+     * @param referenceMode <code>true</code> if the reference mode is used, otherwise <code>false</code>
      */
-    private static void findCDs(PDG pdg, CFG cfg) {
+    private static void findCDs(PDG pdg, CFG cfg, boolean referenceMode) {
         for (CFGNode cfgnode : cfg.getNodes()) {
             
             if (cfgnode.isBranch()) {
-                findCDs(pdg, cfg, cfgnode);
+                if (referenceMode) {
+                    findCDs(pdg, cfg, cfgnode);
+                } else {
+                    findCDsOnFrontiers(pdg, cfg, cfgnode);
+                }
                 
             } else if (cfgnode.isMethodCall()) {
                 findParameterCDs(pdg, (CFGMethodCall)cfgnode);
@@ -54,32 +73,85 @@ public class CDFactory {
      * @param branchNode the branch node which will be the source node of the found control dependence
      */
     private static void findCDs(PDG pdg, CFG cfg, CFGNode branchNode) {
-        PostDominator postDominator = new PostDominator(cfg, branchNode);
         for (ControlFlow branch : branchNode.getOutgoingFlows()) {
-            CFGNode branchDstNode = branch.getDstNode();
-            PostDominator postDominatorLocal = new PostDominator(cfg, branchDstNode);
-            postDominatorLocal.add(branchDstNode);
+            findCDs(pdg, cfg, branchNode, branch);
+        }
+    }
+    
+    /**
+     * Finds control dependences for a given outgoing flow of a branch node.
+     * @param pdg the PDG that stores the extracted information
+     * @param cfg the CFG to be examined
+     * @param branchNode the branch node which will be the source node of the found control dependence
+     * @param branch the flow outgoing from the branch node
+     */
+    private static void findCDs(PDG pdg, CFG cfg, CFGNode branchNode, ControlFlow branch) {
+        PostDominatorTree tree = cfg.getPostDominatorTree();
+        CFGNode branchDstNode = branch.getDstNode();
+        
+        for (CFGNode cfgnode : cfg.getNodes()) {
+            if (cfgnode.isStatementNotParameter() && !branchNode.equals(cfgnode) &&
+                !tree.postDominates(cfgnode, branchNode) &&
+                (branchDstNode.equals(cfgnode) || tree.postDominates(cfgnode, branchDstNode))) {
+                
+                addCD(pdg, branchNode, cfgnode, branch);
+            }
+        }
+    }
+    
+    /**
+     * Finds control dependences for a given branch node by using post-dominance frontiers.
+     * A node is control dependent on the branch node if the branch node is in the post-dominance frontier of the node.
+     * Such nodes are collected by walking up the post-dominator tree from each successor of the branch node
+     * until the immediate post-dominator of the branch node is reached.
+     * @param pdg the PDG that stores the extracted information
+     * @param cfg the CFG to be examined
+     * @param branchNode the branch node which will be the source node of the found control dependence
+     */
+    private static void findCDsOnFrontiers(PDG pdg, CFG cfg, CFGNode branchNode) {
+        PostDominatorTree tree = cfg.getPostDominatorTree();
+        if (!tree.contains(branchNode)) {
+            return;
+        }
+        
+        CFGNode ipdom = tree.getImmediatePostDominator(branchNode);
+        for (ControlFlow branch : branchNode.getOutgoingFlows()) {
+            CFGNode runner = branch.getDstNode();
+            if (!tree.contains(runner)) {
+                findCDs(pdg, cfg, branchNode, branch);
+                continue;
+            }
             
-            for (CFGNode cfgnode : cfg.getNodes()) {
-                if (cfgnode.isStatementNotParameter() && !branchNode.equals(cfgnode) &&
-                    !postDominator.contains(cfgnode) && postDominatorLocal.contains(cfgnode)) {
-                    
-                    CD edge = new CD(branchNode.getPDGNode(), cfgnode.getPDGNode());
-                    
-                    if (branch.isTrue()) {
-                        edge.setTrue();
-                    } else if (branch.isFalse()) {
-                        edge.setFalse();
-                    } else {
-                        edge.setFall();
-                    }
-                    
-                    pdg.add(edge);
+            while (runner != null && !runner.equals(ipdom)) {
+                if (runner.isStatementNotParameter() && !branchNode.equals(runner)) {
+                    addCD(pdg, branchNode, runner, branch);
                 }
+                runner = tree.getImmediatePostDominator(runner);
             }
         }
     }
     
+    /**
+     * Creates a control dependence labeled with the sort of a given branch flow.
+     * @param pdg the PDG that stores the created control dependence
+     * @param branchNode the branch node which will be the source node of the control dependence
+     * @param cfgnode the node which will be the destination node of the control dependence
+     * @param branch the flow outgoing from the branch node
+     */
+    private static void addCD(PDG pdg, CFGNode branchNode, CFGNode cfgnode, ControlFlow branch) {
+        CD edge = new CD(branchNode.getPDGNode(), cfgnode.getPDGNode());
+        
+        if (branch.isTrue()) {
+            edge.setTrue();
+        } else if (branch.isFalse()) {
+            edge.setFalse();
+        } else {
+            edge.setFall();
+        }
+        
+        pdg.add(edge);
+    }
+    
     /**
      * Finds control dependences outgoing from an entry node.
      * @param pdg the PDG which stores the extracted information
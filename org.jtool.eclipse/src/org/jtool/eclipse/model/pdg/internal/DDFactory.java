@@ -7,20 +7,15 @@ package org.jtool.eclipse.model.pdg.internal;
 import org.jtool.eclipse.model.cfg.CFG;
 import org.jtool.eclipse.model.cfg.CFGNode;
 import org.jtool.eclipse.model.cfg.CFGStatement;
-import org.jtool.eclipse.model.cfg.ControlFlow;
-import org.jtool.eclipse.model.graph.GraphElementSet;
 import org.jtool.eclipse.model.graph.GraphEdge;
-import org.jtool.eclipse.model.java.JavaVariableAccess;
 import org.jtool.eclipse.model.pdg.DD;
 import org.jtool.eclipse.model.pdg.CD;
 import org.jtool.eclipse.model.pdg.Dependence;
 import org.jtool.eclipse.model.pdg.PDG;
 import org.jtool.eclipse.model.pdg.PDGNode;
-import java.util.ArrayList;
 
 /**
  * Extracts data dependences of a PDG from its CFG.
- * This class does not guarantee a loop carried node to be correct if a given PDG contains no control dependence.
  * @author Katsuhisa Maruyama
  */
 public class DDFactory {
@@ -37,161 +32,60 @@ public class DDFactory {
     
     /**
      * Extracts data dependences from a CFG.
+     * The reaching definitions of all the variables are calculated at once, instead of traversing the CFG from each definition.
      * @param pdg the PDG that stores the extracted information
      * @param cfg the CFG to be examined
      */
     private static void findDDs(PDG pdg, CFG cfg) {
+        ReachingDefinitions rd = new ReachingDefinitions(cfg);
         for (CFGNode cfgnode : cfg.getNodes()) {
-            if (cfgnode.isStatement() && cfgnode.hasDefVariable()) {
-                findDDs(pdg, cfg, (CFGStatement)cfgnode);
-            }
-        }
-    }
-    
-    /**
-     * Finds data dependences for a node.
-     * @param pdg the PDG that stores the extracted information
-     * @param cfg the CFG to be examined
-     * @param anchor the CFG node which will be the source node of the found data dependence
-     */
-    private static void findDDs(PDG pdg, CFG cfg, CFGStatement anchor) {
-        for (JavaVariableAccess jv : anchor.getDefVariables()) {
-            findDDs(pdg, cfg, anchor, jv);
-        }
-    }
-    
-    /**
-     * Finds data dependences for a node that carries a variable.
-     * @param pdg the PDG that stores the extracted information
-     * @param cfg the CFG to be examined
-     * @param anchor the CFG node which will be the source node of the found data dependence
-     * @param jv the variable carried by the found data dependence
-     */
-    private static void findDDs(PDG pdg, CFG cfg, CFGStatement anchor, JavaVariableAccess jv) {
-        for (ControlFlow flow : anchor.getOutgoingFlows()) {
-            if (!flow.isFallThrough()) {
-                GraphElementSet<CFGNode> track = new GraphElementSet<CFGNode>();
-                CFGNode cfgNode = (CFGNode)flow.getDstNode();
+            if (cfgnode.isStatement()) {
+                CFGStatement candidate = (CFGStatement)cfgnode;
                 
-                checkDD(pdg, cfg, anchor, cfgNode, jv, track);
-            }
-        }
-    }
-    
-    /**
-     * Checks a data dependence between two nodes.
-     * @param pdg the PDG that stores the extracted information
-     * @param cfg the CFG to be examined
-     * @param anchor the CFG node which will be the source node of the found data dependence
-     * @param node the CFG node to be tested if it is the destination of the found data dependence
-     * @param jv the variable carried by the found data dependence
-     * @param track the collection of nodes passed on a CFG
-     */
-    private static void checkDD(PDG pdg, CFG cfg, CFGNode anchor, CFGNode node, JavaVariableAccess jv, GraphElementSet<CFGNode> track) {
-        track.add(node);
-        if (node.hasUseVariable()) {
-            CFGStatement candidate = (CFGStatement)node;
-            
-            if (candidate.useVariable(jv)) {
-                DD edge;
-                if (anchor.isFormalIn()) {
-                    edge = new DD(anchor.getPDGNode(), candidate.getPDGNode(), jv);
-                    edge.setLIDD();
-                } else if (candidate.isFormalOut()) {
-                    edge = new DD(anchor.getPDGNode(), candidate.getPDGNode(), jv);
-                    edge.setLIDD();
-                } else {
-                    PDGNode lc = getLoopCarried(pdg, cfg, anchor, candidate);
-                    edge = new DD(anchor.getPDGNode(), candidate.getPDGNode(), jv);
-                    if (lc != null && track.contains(lc.getCFGNode())) {
-                        edge.setLCDD();
-                        edge.setLoopCarriedNode(lc);
-                    } else {
-                        edge.setLIDD();
-                    }
+                for (int def : rd.getDefinitionsReachingUses(candidate)) {
+                    addDefUseDD(pdg, cfg, rd, def, candidate);
+                }
+                
+                for (int def : rd.getDefinitionsReachingDefs(candidate)) {
+                    CFGStatement anchor = rd.getDefinitionNode(def);
+                    DD edge = new DD(anchor.getPDGNode(), candidate.getPDGNode(), rd.getDefinitionVariable(def));
+                    edge.setOutput();
+                    pdg.add(edge);
                 }
-                pdg.add(edge);
-            }
-        }
-        
-        if (node.hasDefVariable()) {
-            CFGStatement candidate = (CFGStatement)node;
-            if (candidate.defineVariable(jv)) {
-                DD edge = new DD(anchor.getPDGNode(), candidate.getPDGNode(), jv);
-                edge.setOutput();
-                pdg.add(edge);
-                return;
             }
         }
-        
-        for (ControlFlow flow : node.getOutgoingFlows()) {
-            if (!flow.isFallThrough()) {
-                CFGNode succ = (CFGNode)flow.getDstNode();
-                if (!track.contains(succ))
-                    checkDD(pdg, cfg, anchor, succ, jv, track);
-            }
-        } 
     }
     
     /**
-     * Returns the loop carried node for a given def-use dependence.
-     * The innermost node will be returned if there exist multiple candidates for the loop carried node.
+     * Adds a def-use data dependence for a definition reaching a node.
+     * A def-use data dependence is loop carried if the definition reaches the node only across iterations of loops,
+     * and its loop carried node is the innermost loop containing both the nodes.
      * @param pdg the PDG that stores the extracted information
      * @param cfg the CFG to be examined
-     * @param def the source CFG node which defines a variable
-     * @param use the destination CFG node which uses the defined variable
-     * @return the loop carried node, or <code>null</code> if none
+     * @param rd the reaching definitions on the CFG
+     * @param def the definition which will be the source of the found data dependence
+     * @param candidate the CFG node which will be the destination node of the found data dependence
      */
-    private static PDGNode getLoopCarried(PDG pdg, CFG cfg, CFGNode def, CFGNode use) {
-        GraphElementSet<PDGNode> atrack = new GraphElementSet<PDGNode>();
-        
-        ArrayList<PDGNode> dtrack = new ArrayList<PDGNode>();
-        atrack.clear();
-        findDominators(def.getPDGNode(), dtrack, atrack);
-        if (dtrack.isEmpty()) {
-            return null;
-        }
-        
-        ArrayList<PDGNode> utrack = new ArrayList<PDGNode>();
-        atrack.clear();
-        findDominators(use.getPDGNode(), utrack, atrack);
-        if (utrack.isEmpty()) {
-            return null;
-        }
-        
-        ConstrainedReachableNodes path = new ConstrainedReachableNodes(cfg, def, use);
-        for (PDGNode pdgnode : dtrack) {
-            CFGNode cfgNode = pdgnode.getCFGNode();
-            if (utrack.contains(pdgnode) && path.contains(cfgNode)) {
-                return pdgnode;
+    private static void addDefUseDD(PDG pdg, CFG cfg, ReachingDefinitions rd, int def, CFGStatement candidate) {
+        CFGStatement anchor = rd.getDefinitionNode(def);
+        DD edge = new DD(anchor.getPDGNode(), candidate.getPDGNode(), rd.getDefinitionVariable(def));
+        if (anchor.isFormalIn()) {
+            edge.setLIDD();
+        } else if (candidate.isFormalOut()) {
+            edge.setLIDD();
+        } else {
+            CFGNode lc = null;
+            if (rd.isLoopCarried(def, candidate)) {
+                lc = cfg.getLoopForest().getLowestCommonLoop(anchor, candidate);
             }
-        }
-        return null;
-    }
-    
-    /**
-     * Finds dominators that are source nodes of a PDG node with respect to control dependences.
-     * @param pdgNode the PDG node.
-     * @param dominators the dominators of the PDG node
-     * @param atack the collection of nodes passed on a PDG
-     */
-    private static void findDominators(PDGNode pdgnode, ArrayList<PDGNode> dominators, GraphElementSet<PDGNode> atrack) {
-        atrack.add(pdgnode);
-        if (pdgnode.isLoop()) {
-            dominators.add(pdgnode);
-        }
-        
-        for (GraphEdge edge : pdgnode.getIncomingEdges()) {
-            Dependence dependence = (Dependence)edge;
-            
-            if (dependence.isCD()) {
-                PDGNode src = dependence.getSrcNode();
-                
-                if (!atrack.contains(src)) {
-                    findDominators(src, dominators, atrack);
-                }
+            if (lc != null) {
+                edge.setLCDD();
+                edge.setLoopCarriedNode(lc.getPDGNode());
+            } else {
+                edge.setLIDD();
             }
         }
+        pdg.add(edge);
     }
     
     /**
@@ -0,0 +1,254 @@
+/*
+ *  Copyright 2015, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.pdg.internal;
+
+import org.jtool.eclipse.model.cfg.CFGMethodCall;
+import org.jtool.eclipse.model.cfg.CFGNode;
+import org.jtool.eclipse.model.cfg.CFGParameter;
+import org.jtool.eclipse.model.graph.GraphEdge;
+import org.jtool.eclipse.model.graph.GraphEdgeSort;
+import org.jtool.eclipse.model.java.JavaVariableAccess;
+import org.jtool.eclipse.model.pdg.Dependence;
+import org.jtool.eclipse.model.pdg.PDG;
+import org.jtool.eclipse.model.pdg.PDGNode;
+import org.jtool.eclipse.model.pdg.PDGStatement;
+import org.jtool.eclipse.model.pdg.ParameterEdge;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Extracts summary dependences of a growing SDG with the path-edge worklist algorithm by Reps, Horwitz, and Sagiv.
+ * While <code>SummaryFactory</code> examines a whole SDG at once, this factory keeps the path edges it has found and
+ * extends them after PDGs are added and method calls are connected. The path edges starting at the formal-out nodes of
+ * the added PDGs are extended, and the path edges that have already reached the formal-in nodes of newly called methods
+ * yield summary edges at the new call sites, so that no path edge is extended twice over the lifetime of the SDG.
+ * The path edges are kept on the nodes themselves, since frozen views of the SDG number the nodes differently after it grows.
+ * @author Katsuhisa Maruyama
+ */
+public class IncrementalSummaryFactory {
+    
+    /**
+     * The formal-out nodes reachable from respective nodes along path edges.
+     */
+    private Map<PDGNode, Set<PDGNode>> pathTargets = new IdentityHashMap<PDGNode, Set<PDGNode>>();
+    
+    /**
+     * The actual-out nodes of the connected method calls, which are keyed by their formal-out nodes and call nodes.
+     */
+    private Map<PDGNode, Map<CFGNode, PDGNode>> actualOuts = new IdentityHashMap<PDGNode, Map<CFGNode, PDGNode>>();
+    
+    /**
+     * The actual-out nodes connected by summary edges from respective actual-in nodes.
+     */
+    private Map<PDGNode, Set<PDGNode>> summaryTargets = new IdentityHashMap<PDGNode, Set<PDGNode>>();
+    
+    /**
+     * The path edges that have been found but not yet extended, each of which is stored as its source node followed by
+     * its formal-out node.
+     */
+    private List<PDGNode> worklist = new ArrayList<PDGNode>();
+    
+    /**
+     * The summary edges added by the current update.
+     */
+    private List<ParameterEdge> created = new ArrayList<ParameterEdge>();
+    
+    /**
+     * Creates a new object that extracts summary dependences of an SDG from which no PDG has been examined yet.
+     */
+    public IncrementalSummaryFactory() {
+        super();
+    }
+    
+    /**
+     * Extends the path edges after PDGs have been added to the SDG and method calls in it have been connected.
+     * The extracted edges are added to the PDGs containing the method calls.
+     * @param pdgs the PDGs added since the last update
+     * @param callnodes the method calls connected since the last update
+     * @return the summary edges added by this update
+     */
+    public List<ParameterEdge> update(Collection<PDG> pdgs, Collection<CFGMethodCall> callnodes) {
+        created = new ArrayList<ParameterEdge>();
+        
+        for (PDG pdg : pdgs) {
+            for (Dependence edge : pdg.getEdges()) {
+                if (edge.getSort() == GraphEdgeSort.summary) {
+                    add(summaryTargets, (PDGNode)edge.getSrcNode(), (PDGNode)edge.getDstNode());
+                }
+            }
+        }
+        
+        for (CFGMethodCall callnode : callnodes) {
+            for (CFGParameter aout : callnode.getActualOuts()) {
+                PDGNode y = aout.getPDGNode();
+                for (GraphEdge edge : y.getIncomingEdges()) {
+                    if (edge.getSort() == GraphEdgeSort.parameterOut) {
+                        addActualOut((PDGNode)edge.getSrcNode(), callnode, y);
+                    }
+                }
+            }
+        }
+        
+        for (PDG pdg : pdgs) {
+            for (PDGNode node : pdg.getNodes()) {
+                if (node.getCFGNode().isFormalOut()) {
+                    propagate(node, node);
+                }
+            }
+        }
+        
+        for (CFGMethodCall callnode : callnodes) {
+            for (CFGParameter ain : callnode.getActualIns()) {
+                PDGNode x = ain.getPDGNode();
+                for (GraphEdge edge : x.getOutgoingEdges()) {
+                    if (edge.getSort() == GraphEdgeSort.parameterIn) {
+                        Set<PDGNode> targets = pathTargets.get(edge.getDstNode());
+                        if (targets != null) {
+                            for (PDGNode w : new ArrayList<PDGNode>(targets)) {
+                                connect(x, callnode, w);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        
+        while (!worklist.isEmpty()) {
+            PDGNode w = worklist.remove(worklist.size() - 1);
+            PDGNode v = worklist.remove(worklist.size() - 1);
+            extend(v, w);
+        }
+        
+        List<ParameterEdge> edges = created;
+        created = new ArrayList<ParameterEdge>();
+        return edges;
+    }
+    
+    /**
+     * Extends a path edge backward over the dependences of its source node.
+     * @param v the source node of the path edge
+     * @param w the formal-out node of the path edge
+     */
+    private void extend(PDGNode v, PDGNode w) {
+        boolean formalIn = v.getCFGNode().isFormalIn();
+        for (GraphEdge edge : v.getIncomingEdges()) {
+            PDGNode x = (PDGNode)edge.getSrcNode();
+            
+            if (edge.getSort() == GraphEdgeSort.parameterIn) {
+                CFGNode callnode = getCallNode(x);
+                if (formalIn && callnode != null) {
+                    connect(x, callnode, w);
+                }
+            } else if (x.getOwnerPDG() == v.getOwnerPDG()) {
+                propagate(x, w);
+            }
+        }
+    }
+    
+    /**
+     * Records a path edge unless it has already been found.
+     * @param v the source node of the path edge
+     * @param w the formal-out node of the path edge
+     */
+    private void propagate(PDGNode v, PDGNode w) {
+        if (add(pathTargets, v, w)) {
+            worklist.add(v);
+            worklist.add(w);
+        }
+    }
+    
+    /**
+     * Adds a summary edge from an actual-in node to the actual-out node of the same call corresponding to a formal-out node.
+     * @param x the actual-in node
+     * @param callnode the call node to which the actual-in node belongs
+     * @param w the formal-out node reached from the formal-in node corresponding to the actual-in node
+     */
+    private void connect(PDGNode x, CFGNode callnode, PDGNode w) {
+        Map<CFGNode, PDGNode> outs = actualOuts.get(w);
+        if (outs != null) {
+            PDGNode y = outs.get(callnode);
+            if (y != null) {
+                addSummaryEdge(x, y);
+            }
+        }
+    }
+    
+    /**
+     * Adds a summary edge between an actual-in node and an actual-out node unless they have already been connected.
+     * The path edges starting at the actual-out node are extended to the actual-in node.
+     * @param x the actual-in node
+     * @param y the actual-out node
+     */
+    private void addSummaryEdge(PDGNode x, PDGNode y) {
+        if (!add(summaryTargets, x, y)) {
+            return;
+        }
+        
+        PDGStatement ain = (PDGStatement)x;
+        PDGStatement aout = (PDGStatement)y;
+        JavaVariableAccess jv = ain.getDefVariables().get(0);
+        
+        ParameterEdge edge = new ParameterEdge(ain, aout, jv);
+        edge.setSummary();
+        x.getOwnerPDG().add(edge);
+        created.add(edge);
+        
+        Set<PDGNode> targets = pathTargets.get(y);
+        if (targets != null) {
+            for (PDGNode a : new ArrayList<PDGNode>(targets)) {
+                propagate(x, a);
+            }
+        }
+    }
+    
+    /**
+     * Records the actual-out node of a connected method call corresponding to a formal-out node.
+     * @param w the formal-out node
+     * @param callnode the call node
+     * @param y the actual-out node
+     */
+    private void addActualOut(PDGNode w, CFGNode callnode, PDGNode y) {
+        Map<CFGNode, PDGNode> outs = actualOuts.get(w);
+        if (outs == null) {
+            outs = new IdentityHashMap<CFGNode, PDGNode>();
+            actualOuts.put(w, outs);
+        }
+        outs.put(callnode, y);
+    }
+    
+    /**
+     * Returns the call node to which an actual node belongs.
+     * @param node the actual node
+     * @return the call node, or <code>null</code> if none
+     */
+    private CFGNode getCallNode(PDGNode node) {
+        CFGNode cfgnode = node.getCFGNode();
+        if (cfgnode instanceof CFGParameter) {
+            return ((CFGParameter)cfgnode).getBelongNode();
+        }
+        return null;
+    }
+    
+    /**
+     * Adds a node to the set of nodes related to a given node.
+     * @param map the map storing the related nodes
+     * @param key the given node
+     * @param value the node to be added
+     * @return <code>true</code> if the node has been added, or <code>false</code> if it has already been related
+     */
+    private boolean add(Map<PDGNode, Set<PDGNode>> map, PDGNode key, PDGNode value) {
+        Set<PDGNode> values = map.get(key);
+        if (values == null) {
+            values = Collections.newSetFromMap(new IdentityHashMap<PDGNode, Boolean>());
+            map.put(key, values);
+        }
+        return values.add(value);
+    }
+}
@@ -6,11 +6,13 @@ package org.jtool.eclipse.model.pdg.internal;
 
 import org.jtool.eclipse.model.cfg.CFG;
 import org.jtool.eclipse.model.cfg.CFGNode;
+import org.jtool.eclipse.model.cfg.PostDominatorTree;
 import org.jtool.eclipse.model.graph.GraphElementSet;
 import java.util.Iterator;
 
 /**
  * Calculates post-dominator nodes on a CFG.
+ * The nodes are retrieved from the post-dominator tree cached on the CFG.
  * @author Katsuhisa Maruyama
  */
 public class PostDominator implements Iterable<CFGNode> {
@@ -20,11 +22,6 @@ public class PostDominator implements Iterable<CFGNode> {
      */
     private GraphElementSet<CFGNode> postDominator = new GraphElementSet<CFGNode>();
     
-    /**
-     * A cache for collecting nodes passed on a CFG.
-     */
-    private GraphElementSet<CFGNode> track = new GraphElementSet<CFGNode>();
-    
     /**
      * Prohibits creating this object without specifying a CFG node.
      */
@@ -38,13 +35,11 @@ public class PostDominator implements Iterable<CFGNode> {
      * @param anchor the anchor node of the CFG
      */
     public PostDominator(CFG cfg, CFGNode anchor) {
+        PostDominatorTree tree = cfg.getPostDominatorTree();
+        CFGNode end = cfg.getEndNode();
         for (CFGNode node : cfg.getNodes()) {
-            if (!anchor.equals(node)) {
-                track.clear();
-                track = cfg.getForwardReachableNodes(anchor, node);
-                if (track.contains(node) && !track.contains(cfg.getEndNode())) {
-                    add(node);
-                }
+            if (!node.equals(end) && tree.postDominates(node, anchor)) {
+                add(node);
             }
         }
     }
@@ -6,7 +6,10 @@ package org.jtool.eclipse.model.pdg.internal;
 
 import org.jtool.eclipse.model.cfg.CFG;
 import org.jtool.eclipse.model.cfg.CFGNode;
+import org.jtool.eclipse.model.cfg.ControlFlow;
+import org.jtool.eclipse.model.graph.FrozenGraph;
 import org.jtool.eclipse.model.graph.GraphElementSet;
+import java.util.BitSet;
 import java.util.Iterator;
 
 /**
@@ -49,6 +52,40 @@ public class ReachableNodes implements Iterable<CFGNode> {
         reachableNodes = new GraphElementSet<CFGNode>(ftrack.intersection(btrack));
     }
     
+    /**
+     * Calculates reachable path between two nodes on a frozen view of a CFG and records nodes in the path.
+     * @param graph the frozen view of the CFG
+     * @param from the start node of the CFG for the reachable path to be calculated
+     * @param to the end node of the CFG for the reachable path to be calculated
+     */
+    public ReachableNodes(FrozenGraph<CFGNode, ControlFlow> graph, CFGNode from, CFGNode to) {
+        BitSet fstart = getIndices(graph, from);
+        BitSet bstart = getIndices(graph, to);
+        BitSet ftrackIndices = fstart.isEmpty() ? fstart : graph.walkForward(fstart, bstart, null, null);
+        BitSet btrackIndices = bstart.isEmpty() ? bstart : graph.walkBackward(bstart, fstart, null, null);
+        ftrack = graph.getNodes(ftrackIndices);
+        btrack = graph.getNodes(btrackIndices);
+        
+        BitSet indices = (BitSet)ftrackIndices.clone();
+        indices.and(btrackIndices);
+        reachableNodes = graph.getNodes(indices);
+    }
+    
+    /**
+     * Returns the index of a given node on a frozen view as a set.
+     * @param graph the frozen view of the CFG
+     * @param node the CFG node
+     * @return the set containing the index of the node, which is empty if the node is not contained in the view
+     */
+    private BitSet getIndices(FrozenGraph<CFGNode, ControlFlow> graph, CFGNode node) {
+        BitSet indices = new BitSet(graph.size());
+        int index = graph.getIndex(node);
+        if (index != -1) {
+            indices.set(index);
+        }
+        return indices;
+    }
+    
     /**
      * Returns the collection of nodes passed forward on a CFG.
      * @return the collection of nodes on the forward reachable path
@@ -0,0 +1,702 @@
+/*
+ *  Copyright 2014, Katsuhisa Maruyama (maru@jtool.org)
+ */
+
+package org.jtool.eclipse.model.pdg.internal;
+
+import org.jtool.eclipse.model.cfg.BasicBlock;
+import org.jtool.eclipse.model.cfg.CFG;
+import org.jtool.eclipse.model.cfg.CFGNode;
+import org.jtool.eclipse.model.cfg.CFGStatement;
+import org.jtool.eclipse.model.cfg.ControlFlow;
+import org.jtool.eclipse.model.cfg.LoopForest;
+import org.jtool.eclipse.model.graph.GraphNode;
+import org.jtool.eclipse.model.java.JavaVariableAccess;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calculates reaching definitions on a CFG.
+ * Variables and definitions are densely numbered, and the reaching definitions are calculated
+ * over basic blocks with bit-vector GEN and KILL sets by a single worklist fixpoint.
+ * Fall-through flows are not traversed.
+ * The reaching definitions are partitioned by levels of the loop-nesting forest of the CFG.
+ * A definition moves from level <code>0</code> to the depth of a loop when it passes the loop-back flow of the loop,
+ * and returns to level <code>0</code> when it leaves the loop.
+ * @author Katsuhisa Maruyama
+ */
+public class ReachingDefinitions {
+    
+    /**
+     * The CFG to be examined.
+     */
+    private CFG cfg;
+    
+    /**
+     * The loop-nesting forest of the CFG.
+     */
+    private LoopForest forest;
+    
+    /**
+     * The nodes of the CFG, which are arranged in the order of their indices.
+     */
+    private CFGNode[] nodes;
+    
+    /**
+     * A map storing pairs of the identification number of a CFG node and its index.
+     */
+    private Map<Long, Integer> indices = new HashMap<Long, Integer>();
+    
+    /**
+     * A map storing pairs of a variable and its index.
+     */
+    private Map<JavaVariableAccess, Integer> variables = new HashMap<JavaVariableAccess, Integer>();
+    
+    /**
+     * The definitions of respective variables.
+     */
+    private List<BitSet> definitionsOfVariables = new ArrayList<BitSet>();
+    
+    /**
+     * The CFG nodes of respective definitions.
+     */
+    private List<CFGStatement> definitionNodes = new ArrayList<CFGStatement>();
+    
+    /**
+     * The variables defined by respective definitions.
+     */
+    private List<JavaVariableAccess> definitionVariables = new ArrayList<JavaVariableAccess>();
+    
+    /**
+     * The indices of the variables used at respective nodes.
+     */
+    private int[][] usesAt;
+    
+    /**
+     * The definitions made at respective nodes.
+     */
+    private int[][] defsAt;
+    
+    /**
+     * A map storing pairs of the identification number of a loop node and the definitions made in the loop.
+     */
+    private Map<Long, BitSet> definitionsInLoops = new HashMap<Long, BitSet>();
+    
+    /**
+     * The number of the levels of the reaching definitions.
+     */
+    private int levels = 1;
+    
+    /**
+     * The indices of the nodes contained in respective blocks, which are arranged in the order of the flows.
+     */
+    private int[][] blocks;
+    
+    /**
+     * The index of the block containing respective nodes.
+     */
+    private int[] blockOf;
+    
+    /**
+     * The flows incoming to respective blocks.
+     */
+    private List<List<BlockFlow>> incomings = new ArrayList<List<BlockFlow>>();
+    
+    /**
+     * The definitions reaching the entry of respective blocks, which are partitioned by levels.
+     */
+    private BitSet[][] ins;
+    
+    /**
+     * The definitions of used variables, which reach respective nodes.
+     */
+    private int[][] useReachings;
+    
+    /**
+     * The definitions of used variables, which reach respective nodes only across iterations of loops.
+     */
+    private int[][] useCarrieds;
+    
+    /**
+     * The definitions of defined variables, which reach respective nodes.
+     */
+    private int[][] defReachings;
+    
+    /**
+     * Calculates the reaching definitions on a given CFG.
+     * @param cfg the CFG to be examined
+     */
+    public ReachingDefinitions(CFG cfg) {
+        this.cfg = cfg;
+        this.forest = cfg.getLoopForest();
+        
+        numberDefinitions();
+        createBlocks();
+        createFlows();
+        solve();
+        collectReachings();
+    }
+    
+    /**
+     * Numbers the nodes, variables, and definitions of the CFG.
+     */
+    private void numberDefinitions() {
+        int size = cfg.getNodes().size();
+        nodes = new CFGNode[size];
+        usesAt = new int[size][];
+        defsAt = new int[size][];
+        
+        int index = 0;
+        for (CFGNode node : cfg.getNodes()) {
+            nodes[index] = node;
+            indices.put(node.getId(), index);
+            
+            usesAt[index] = new int[0];
+            defsAt[index] = new int[0];
+            if (node.isStatement()) {
+                CFGStatement stnode = (CFGStatement)node;
+                
+                List<JavaVariableAccess> uses = stnode.getUseVariables();
+                usesAt[index] = new int[uses.size()];
+                for (int k = 0; k < uses.size(); k++) {
+                    usesAt[index][k] = getVariableIndex(uses.get(k));
+                }
+                
+                List<JavaVariableAccess> defs = stnode.getDefVariables();
+                defsAt[index] = new int[defs.size()];
+                for (int k = 0; k < defs.size(); k++) {
+                    int def = definitionNodes.size();
+                    definitionNodes.add(stnode);
+                    definitionVariables.add(defs.get(k));
+                    definitionsOfVariables.get(getVariableIndex(defs.get(k))).set(def);
+                    defsAt[index][k] = def;
+                }
+            }
+            index++;
+        }
+        
+        for (CFGNode loopNode : forest.getLoops()) {
+            levels = Math.max(levels, forest.getDepth(loopNode) + 1);
+        }
+    }
+    
+    /**
+     * Returns the index of a given variable, which is newly assigned if the variable has not been numbered yet.
+     * @param jv the variable
+     * @return the index of the variable
+     */
+    private int getVariableIndex(JavaVariableAccess jv) {
+        Integer index = variables.get(jv);
+        if (index == null) {
+            index = definitionsOfVariables.size();
+            variables.put(jv, index);
+            definitionsOfVariables.add(new BitSet());
+        }
+        return index.intValue();
+    }
+    
+    /**
+     * Collects the blocks of the CFG.
+     * A basic block is split where a flow other than the one between its consecutive nodes enters or leaves it
+     * or where a loop is entered or left, and a node not contained in any basic block forms its own block.
+     */
+    private void createBlocks() {
+        if (cfg.getBasicBlocks().isEmpty() && cfg.getStartNode() != null && !cfg.getStartNode().getSuccessors().isEmpty()) {
+            cfg.createBasicBlock();
+        }
+        
+        blockOf = new int[nodes.length];
+        Arrays.fill(blockOf, -1);
+        
+        List<int[]> list = new ArrayList<int[]>();
+        int[] seq = new int[nodes.length];
+        for (BasicBlock block : cfg.getBasicBlocks()) {
+            int len = 0;
+            int prev = -1;
+            for (CFGNode node : block.getNodes()) {
+                int v = getIndex(node);
+                if (v == -1 || blockOf[v] != -1) {
+                    continue;
+                }
+                
+                if (len > 0 && !isChained(prev, v)) {
+                    addBlock(list, seq, len);
+                    len = 0;
+                }
+                blockOf[v] = list.size();
+                seq[len++] = v;
+                prev = v;
+            }
+            if (len > 0) {
+                addBlock(list, seq, len);
+            }
+        }
+        
+        for (int v = 0; v < nodes.length; v++) {
+            if (blockOf[v] == -1) {
+                seq[0] = v;
+                addBlock(list, seq, 1);
+            }
+        }
+        blocks = list.toArray(new int[list.size()][]);
+    }
+    
+    /**
+     * Adds a block containing given nodes.
+     * @param list the collection of the blocks
+     * @param seq the indices of the nodes contained in the block
+     * @param len the number of the nodes contained in the block
+     */
+    private void addBlock(List<int[]> list, int[] seq, int len) {
+        for (int k = 0; k < len; k++) {
+            blockOf[seq[k]] = list.size();
+        }
+        list.add(Arrays.copyOf(seq, len));
+    }
+    
+    /**
+     * Tests if the control always passes from a node to the next node and only from the node to the next node.
+     * @param prev the index of the preceding node
+     * @param next the index of the next node
+     * @return <code>true</code> if the two nodes can be placed in the same block, otherwise <code>false</code>
+     */
+    private boolean isChained(int prev, int next) {
+        if (forest.getInnermostLoop(nodes[prev]) != forest.getInnermostLoop(nodes[next])) {
+            return false;
+        }
+        
+        int num = 0;
+        for (ControlFlow flow : nodes[prev].getOutgoingFlows()) {
+            if (!flow.isFallThrough()) {
+                if (getIndex(flow.getDstNode()) != next) {
+                    return false;
+                }
+                num++;
+            }
+        }
+        for (ControlFlow flow : nodes[next].getIncomingFlows()) {
+            if (!flow.isFallThrough() && getIndex(flow.getSrcNode()) != prev) {
+                return false;
+            }
+        }
+        return num > 0;
+    }
+    
+    /**
+     * Collects the flows between the blocks.
+     */
+    private void createFlows() {
+        for (int b = 0; b < blocks.length; b++) {
+            incomings.add(new ArrayList<BlockFlow>());
+        }
+        
+        for (int b = 0; b < blocks.length; b++) {
+            int last = blocks[b][blocks[b].length - 1];
+            for (ControlFlow flow : nodes[last].getOutgoingFlows()) {
+                if (!flow.isFallThrough()) {
+                    int dst = getIndex(flow.getDstNode());
+                    if (dst != -1) {
+                        BlockFlow bflow = new BlockFlow(b, blockOf[dst]);
+                        bflow.exits = toArray(forest.getLoopsExitedBy(flow));
+                        bflow.closes = toArray(forest.getLoopsClosedBy(flow));
+                        incomings.get(bflow.dst).add(bflow);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Converts a collection of loop nodes into an array.
+     * @param loopNodes the collection of the loop nodes
+     * @return the array of the loop nodes, or <code>null</code> if the collection is empty
+     */
+    private CFGNode[] toArray(List<CFGNode> loopNodes) {
+        if (loopNodes.isEmpty()) {
+            return null;
+        }
+        return loopNodes.toArray(new CFGNode[loopNodes.size()]);
+    }
+    
+    /**
+     * Returns the definitions made in a given loop.
+     * @param loopNode the loop node for the loop
+     * @return the definitions in the loop
+     */
+    private BitSet getDefinitionsInLoop(CFGNode loopNode) {
+        BitSet defs = definitionsInLoops.get(loopNode.getId());
+        if (defs == null) {
+            defs = new BitSet();
+            for (CFGNode node : forest.getNodes(loopNode)) {
+                int v = getIndex(node);
+                if (v != -1) {
+                    for (int def : defsAt[v]) {
+                        defs.set(def);
+                    }
+                }
+            }
+            definitionsInLoops.put(loopNode.getId(), defs);
+        }
+        return defs;
+    }
+    
+    /**
+     * Calculates the definitions reaching the entry of respective blocks.
+     */
+    private void solve() {
+        int size = blocks.length;
+        BitSet[] gens = new BitSet[size];
+        BitSet[] kills = new BitSet[size];
+        BitSet[][] outs = new BitSet[size][];
+        ins = new BitSet[size][];
+        
+        for (int b = 0; b < size; b++) {
+            gens[b] = new BitSet();
+            kills[b] = new BitSet();
+            for (int v : blocks[b]) {
+                for (int def : defsAt[v]) {
+                    BitSet defs = getDefinitions(def);
+                    kills[b].or(defs);
+                    gens[b].andNot(defs);
+                    gens[b].set(def);
+                }
+            }
+            outs[b] = createState();
+            outs[b][0].or(gens[b]);
+            ins[b] = createState();
+        }
+        
+        List<List<Integer>> succs = new ArrayList<List<Integer>>(size);
+        for (int b = 0; b < size; b++) {
+            succs.add(new ArrayList<Integer>());
+        }
+        for (int b = 0; b < size; b++) {
+            for (BlockFlow bflow : incomings.get(b)) {
+                succs.get(bflow.src).add(b);
+            }
+        }
+        
+        ArrayDeque<Integer> worklist = new ArrayDeque<Integer>();
+        boolean[] queued = new boolean[size];
+        for (int b = 0; b < size; b++) {
+            worklist.add(b);
+            queued[b] = true;
+        }
+        
+        while (!worklist.isEmpty()) {
+            int b = worklist.poll();
+            queued[b] = false;
+            
+            BitSet[] in = createState();
+            for (BlockFlow bflow : incomings.get(b)) {
+                BitSet[] state = outs[bflow.src];
+                if (bflow.exits != null || bflow.closes != null) {
+                    state = copyState(state);
+                    pass(state, bflow);
+                }
+                for (int level = 0; level < levels; level++) {
+                    in[level].or(state[level]);
+                }
+            }
+            ins[b] = in;
+            
+            BitSet[] out = copyState(in);
+            for (int level = 0; level < levels; level++) {
+                out[level].andNot(kills[b]);
+            }
+            out[0].or(gens[b]);
+            if (!Arrays.equals(out, outs[b])) {
+                outs[b] = out;
+                for (int s : succs.get(b)) {
+                    if (!queued[s]) {
+                        worklist.add(s);
+                        queued[s] = true;
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Creates an empty set of the reaching definitions partitioned by levels.
+     * @return the reaching definitions
+     */
+    private BitSet[] createState() {
+        BitSet[] state = new BitSet[levels];
+        for (int level = 0; level < levels; level++) {
+            state[level] = new BitSet();
+        }
+        return state;
+    }
+    
+    /**
+     * Copies a set of the reaching definitions partitioned by levels.
+     * @param state the reaching definitions
+     * @return the copied reaching definitions
+     */
+    private BitSet[] copyState(BitSet[] state) {
+        BitSet[] copy = new BitSet[levels];
+        for (int level = 0; level < levels; level++) {
+            copy[level] = (BitSet)state[level].clone();
+        }
+        return copy;
+    }
+    
+    /**
+     * Updates the levels of the reaching definitions as passing a flow between blocks.
+     * The definitions leave the exited loops before they pass the loop-back flows of the closed loops.
+     * @param state the reaching definitions
+     * @param bflow the flow between the blocks
+     */
+    private void pass(BitSet[] state, BlockFlow bflow) {
+        if (bflow.exits != null) {
+            for (CFGNode loopNode : bflow.exits) {
+                move(state, forest.getDepth(loopNode), 0, getDefinitionsInLoop(loopNode));
+            }
+        }
+        if (bflow.closes != null) {
+            for (CFGNode loopNode : bflow.closes) {
+                int depth = forest.getDepth(loopNode);
+                for (int level = 0; level < levels; level++) {
+                    if (level == 0 || level > depth) {
+                        move(state, level, depth, getDefinitionsInLoop(loopNode));
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Moves definitions from a level to another level.
+     * @param state the reaching definitions
+     * @param from the level the definitions are moved from
+     * @param to the level the definitions are moved to
+     * @param defs the definitions to be moved
+     */
+    private void move(BitSet[] state, int from, int to, BitSet defs) {
+        BitSet moved = (BitSet)state[from].clone();
+        moved.and(defs);
+        state[from].andNot(moved);
+        state[to].or(moved);
+    }
+    
+    /**
+     * Collects the definitions reaching the variables used or defined at respective nodes.
+     */
+    private void collectReachings() {
+        useReachings = new int[nodes.length][];
+        useCarrieds = new int[nodes.length][];
+        defReachings = new int[nodes.length][];
+        
+        for (int b = 0; b < blocks.length; b++) {
+            BitSet[] state = copyState(ins[b]);
+            for (int v : blocks[b]) {
+                useReachings[v] = collectReachings(state, usesAt[v], false);
+                useCarrieds[v] = collectReachings(state, usesAt[v], true);
+                
+                int[] vars = new int[defsAt[v].length];
+                for (int k = 0; k < vars.length; k++) {
+                    vars[k] = variables.get(definitionVariables.get(defsAt[v][k]));
+                }
+                defReachings[v] = collectReachings(state, vars, false);
+                
+                for (int def : defsAt[v]) {
+                    for (int level = 0; level < levels; level++) {
+                        state[level].andNot(getDefinitions(def));
+                    }
+                    state[0].set(def);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Collects definitions of given variables, which are contained in the current reaching definitions.
+     * @param state the current reaching definitions
+     * @param vars the indices of the variables
+     * @param carried <code>true</code> if only the definitions reaching across iterations of loops are collected
+     * @return the collected definitions
+     */
+    private int[] collectReachings(BitSet[] state, int[] vars, boolean carried) {
+        int[] result = new int[0];
+        int num = 0;
+        for (int var : vars) {
+            BitSet defs = definitionsOfVariables.get(var);
+            for (int def = defs.nextSetBit(0); def >= 0; def = defs.nextSetBit(def + 1)) {
+                if (reaches(state, def, carried)) {
+                    if (num == result.length) {
+                        result = Arrays.copyOf(result, num * 2 + 1);
+                    }
+                    result[num++] = def;
+                }
+            }
+        }
+        return num == result.length ? result : Arrays.copyOf(result, num);
+    }
+    
+    /**
+     * Tests if a definition is contained in the current reaching definitions.
+     * @param state the current reaching definitions
+     * @param def the definition
+     * @param carried <code>true</code> if the definition must not be contained at level <code>0</code>
+     * @return <code>true</code> if the definition is contained, otherwise <code>false</code>
+     */
+    private boolean reaches(BitSet[] state, int def, boolean carried) {
+        if (state[0].get(def)) {
+            return !carried;
+        }
+        for (int level = 1; level < levels; level++) {
+            if (state[level].get(def)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Returns all the definitions of the variable defined by a given definition.
+     * @param def the definition
+     * @return the definitions of the same variable
+     */
+    private BitSet getDefinitions(int def) {
+        return definitionsOfVariables.get(variables.get(definitionVariables.get(def)));
+    }
+    
+    /**
+     * Returns the index of a given node.
+     * @param node the CFG node
+     * @return the index of the node, or <code>-1</code> if the node is not contained in the CFG
+     */
+    private int getIndex(GraphNode node) {
+        if (node == null) {
+            return -1;
+        }
+        Integer index = indices.get(node.getId());
+        if (index == null) {
+            return -1;
+        }
+        return index.intValue();
+    }
+    
+    /**
+     * Returns the CFG examined.
+     * @return the CFG
+     */
+    public CFG getCFG() {
+        return cfg;
+    }
+    
+    /**
+     * Returns the number of the definitions.
+     * @return the number of the definitions
+     */
+    public int size() {
+        return definitionNodes.size();
+    }
+    
+    /**
+     * Returns the node of a given definition.
+     * @param def the definition
+     * @return the CFG node that makes the definition
+     */
+    public CFGStatement getDefinitionNode(int def) {
+        return definitionNodes.get(def);
+    }
+    
+    /**
+     * Returns the variable of a given definition.
+     * @param def the definition
+     * @return the variable defined by the definition
+     */
+    public JavaVariableAccess getDefinitionVariable(int def) {
+        return definitionVariables.get(def);
+    }
+    
+    /**
+     * Returns the definitions that reach a given node and define any of the variables used at the node.
+     * @param node the CFG node
+     * @return the reaching definitions of the used variables
+     */
+    public int[] getDefinitionsReachingUses(CFGNode node) {
+        int v = getIndex(node);
+        if (v == -1) {
+            return new int[0];
+        }
+        return useReachings[v];
+    }
+    
+    /**
+     * Returns the definitions that reach a given node and define any of the variables defined at the node.
+     * @param node the CFG node
+     * @return the reaching definitions of the defined variables
+     */
+    public int[] getDefinitionsReachingDefs(CFGNode node) {
+        int v = getIndex(node);
+        if (v == -1) {
+            return new int[0];
+        }
+        return defReachings[v];
+    }
+    
+    /**
+     * Tests if a given definition reaches the variables used at a given node only across iterations of loops,
+     * which means that every path from the definition to the node passes the loop-back flow of a loop containing both.
+     * @param def the definition
+     * @param node the CFG node
+     * @return <code>true</code> if the definition reaches the node only across iterations, otherwise <code>false</code>
+     */
+    public boolean isLoopCarried(int def, CFGNode node) {
+        int v = getIndex(node);
+        if (v == -1) {
+            return false;
+        }
+        
+        for (int d : useCarrieds[v]) {
+            if (d == def) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * A flow between blocks.
+     */
+    private static class BlockFlow {
+        
+        /**
+         * The index of the source block of this flow.
+         */
+        int src;
+        
+        /**
+         * The index of the destination block of this flow.
+         */
+        int dst;
+        
+        /**
+         * The loop nodes of the loops exited by this flow, or <code>null</code> if none.
+         */
+        CFGNode[] exits;
+        
+        /**
+         * The loop nodes of the loops whose loop-back flow is this flow, or <code>null</code> if none.
+         */
+        CFGNode[] closes;
+        
+        /**
+         * Creates a new flow between blocks.
+         * @param src the index of the source block
+         * @param dst the index of the destination block
+         */
+        BlockFlow(int src, int dst) {
+            this.src = src;
+            this.dst = dst;
+        }
+    }
+}
@@ -5,105 +5,359 @@
 package org.jtool.eclipse.model.pdg.internal;
 
 import org.jtool.eclipse.model.cfg.CFGNode;
+import org.jtool.eclipse.model.cfg.CFGParameter;
+import org.jtool.eclipse.model.graph.FrozenGraph;
+import org.jtool.eclipse.model.graph.GraphEdgeSort;
 import org.jtool.eclipse.model.java.JavaVariableAccess;
-import org.jtool.eclipse.model.pdg.DD;
+import org.jtool.eclipse.model.pdg.Dependence;
 import org.jtool.eclipse.model.pdg.PDG;
 import org.jtool.eclipse.model.pdg.SDG;
 import org.jtool.eclipse.model.pdg.PDGNode;
 import org.jtool.eclipse.model.pdg.PDGStatement;
 import org.jtool.eclipse.model.pdg.ParameterEdge;
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Set;
 import java.util.HashSet;
 
 /**
- * Extracts summary dependences of a PDG.
+ * Extracts summary dependences of an SDG with the path-edge worklist algorithm by Reps, Horwitz, and Sagiv.
+ * A path edge connects a node to a formal-out node of the same PDG that transitively depends on the node.
+ * When a path edge reaches a formal-in node, a summary edge is added between the corresponding actual-in and
+ * actual-out nodes at every call site, and the path edges starting at the actual-out node are extended to the actual-in node.
+ * The PDGs are processed bottom-up along the strongly connected components of the calls between them,
+ * so that the summary edges of called methods are completed before calling methods are processed,
+ * and the worklist is iterated within each recursive component until no more path edge is found.
  * @author Katsuhisa Maruyama
  */
 public class SummaryFactory {
     
     /**
-     * Visits all the nodes of the CFG and extracts control dependences from it.
-     * @param pdg the PDG that stores the extracted information
-     * @param cfg the CFG to be examined
+     * The frozen view of the SDG to be examined.
      */
-    public static void create(SDG sdg, PDG pdg) {
+    private FrozenGraph<PDGNode, Dependence> graph;
+    
+    /**
+     * The number of nodes of the SDG.
+     */
+    private int size;
+    
+    /**
+     * The PDGs of the SDG.
+     */
+    private List<PDG> pdgs = new ArrayList<PDG>();
+    
+    /**
+     * The numbers of the PDGs containing respective nodes.
+     */
+    private int[] owners;
+    
+    /**
+     * The actual-out nodes, which are keyed by pairs of their formal-out nodes and call nodes.
+     */
+    private Map<Long, Integer> actualOuts = new HashMap<Long, Integer>();
+    
+    /**
+     * The pairs of actual-in and actual-out nodes connected by summary edges.
+     */
+    private Set<Long> summaryPairs = new HashSet<Long>();
+    
+    /**
+     * The actual-in nodes of the summary edges found by this factory, which are keyed by their actual-out nodes.
+     */
+    private Map<Integer, List<Integer>> summaryPreds = new HashMap<Integer, List<Integer>>();
+    
+    /**
+     * The pairs of nodes and formal-out nodes connected by path edges.
+     */
+    private Set<Long> pathEdges = new HashSet<Long>();
+    
+    /**
+     * The formal-out nodes reachable from respective nodes along path edges.
+     */
+    private Map<Integer, List<Integer>> pathTargets = new HashMap<Integer, List<Integer>>();
+    
+    /**
+     * The path edges that have been found but not yet extended.
+     */
+    private List<Long> worklist = new ArrayList<Long>();
+    
+    /**
+     * Creates a new object that extracts summary dependences of a given SDG.
+     * @param sdg the SDG to be examined
+     */
+    private SummaryFactory(SDG sdg) {
+        graph = sdg.freeze();
+        size = graph.size();
+        owners = new int[size];
         
-        Set<PDGStatement> ains = findAins(pdg);
-        Set<PDGStatement> aouts = findAouts(pdg);
+        Map<PDG, Integer> indices = new IdentityHashMap<PDG, Integer>();
+        for (int v = 0; v < size; v++) {
+            PDG pdg = graph.getNode(v).getOwnerPDG();
+            Integer index = indices.get(pdg);
+            if (index == null) {
+                index = pdgs.size();
+                indices.put(pdg, index);
+                pdgs.add(pdg);
+            }
+            owners[v] = index.intValue();
+        }
         
-        Set<PDGStatement> nodes = new HashSet<PDGStatement>();
-        for (PDGStatement aout : aouts) {
-            traverseBackward(nodes, aout, ains);
-            
-            for (PDGStatement ain : ains) {
-                if (nodes.contains(ain)) {
-                    JavaVariableAccess jv = ain.getDefVariables().get(0);
-                    
-                    ParameterEdge edge = new ParameterEdge(ain, aout, jv);
-                    edge.setSummary();
-                    
-                    pdg.add(edge);
-                    sdg.add(edge);
+        for (int e = 0; e < graph.getEdgeCount(); e++) {
+            if (graph.getEdgeSort(e) == GraphEdgeSort.summary) {
+                Dependence edge = graph.getEdge(e);
+                summaryPairs.add(getPair(graph.getIndex(edge.getSrcNode()), graph.getIndex(edge.getDstNode())));
+            }
+        }
+        
+        for (int w = 0; w < size; w++) {
+            if (graph.getNode(w).getCFGNode().isFormalOut()) {
+                for (int k = 0; k < graph.getOutDegree(w); k++) {
+                    if (graph.getEdgeSort(graph.getOutgoingEdge(w, k)) == GraphEdgeSort.parameterOut) {
+                        int y = graph.getSuccessor(w, k);
+                        int call = getCallNode(y);
+                        if (call != -1) {
+                            actualOuts.put(getPair(w, call), y);
+                        }
+                    }
                 }
             }
         }
     }
     
     /**
-     * Collects actual-in nodes within a PDG.
-     * @param the PDG to be examined
-     * @return the collection of the actual-in nodes
+     * Extracts summary dependences between actual-in and actual-out nodes of all the method calls in an SDG.
+     * The extracted edges are added to the PDGs containing the method calls.
+     * Summary edges that have already been extracted are kept, so that the SDG can be examined again after PDGs are added.
+     * @param sdg the SDG that stores the extracted information
      */
-    private static Set<PDGStatement> findAins(PDG pdg) {
-        Set<PDGStatement> nodes = new HashSet<PDGStatement>();
+    public static void create(SDG sdg) {
+        SummaryFactory factory = new SummaryFactory(sdg);
+        factory.create();
+    }
+    
+    /**
+     * Extracts summary dependences for the components of the PDGs in bottom-up order.
+     */
+    private void create() {
+        List<List<Integer>> members = new ArrayList<List<Integer>>();
+        for (int p = 0; p < pdgs.size(); p++) {
+            members.add(new ArrayList<Integer>());
+        }
+        for (int v = 0; v < size; v++) {
+            if (graph.getNode(v).getCFGNode().isFormalOut()) {
+                members.get(owners[v]).add(v);
+            }
+        }
         
-        for (PDGNode node : pdg.getNodes()) {
+        for (List<Integer> comp : getComponentsInBottomUpOrder()) {
+            for (int p : comp) {
+                for (int w : members.get(p)) {
+                    propagate(w, w);
+                }
+            }
             
-            CFGNode cfgnode = node.getCFGNode();
-            if (cfgnode.isActualIn()) {
-                nodes.add((PDGStatement)node);
+            while (!worklist.isEmpty()) {
+                long pair = worklist.remove(worklist.size() - 1);
+                extend((int)(pair / size), (int)(pair % size));
             }
         }
-        
-        return nodes;
     }
     
     /**
-     * Collects actual-out nodes within a PDG.
-     * @param the PDG to be examined
-     * @return the collection of the actual-out nodes
+     * Extends a path edge backward over the dependences of its source node.
+     * @param v the source node of the path edge
+     * @param w the formal-out node of the path edge
      */
-    private static Set<PDGStatement> findAouts(PDG pdg) {
-        Set<PDGStatement> nodes = new HashSet<PDGStatement>();
-        
-        for (PDGNode node : pdg.getNodes()) {
+    private void extend(int v, int w) {
+        boolean formalIn = graph.getNode(v).getCFGNode().isFormalIn();
+        for (int k = 0; k < graph.getInDegree(v); k++) {
+            int x = graph.getPredecessor(v, k);
+            GraphEdgeSort sort = graph.getEdgeSort(graph.getIncomingEdge(v, k));
             
-            CFGNode cfgnode = node.getCFGNode();
-            if (cfgnode.isActualOut()) {
-                nodes.add((PDGStatement)node);
+            if (sort == GraphEdgeSort.parameterIn) {
+                int call = getCallNode(x);
+                if (formalIn && call != -1) {
+                    Integer y = actualOuts.get(getPair(w, call));
+                    if (y != null) {
+                        addSummaryEdge(x, y.intValue());
+                    }
+                }
+            } else if (owners[x] == owners[v]) {
+                propagate(x, w);
             }
         }
         
-        return nodes;
+        List<Integer> preds = summaryPreds.get(v);
+        if (preds != null) {
+            for (int x : preds) {
+                propagate(x, w);
+            }
+        }
+    }
+    
+    /**
+     * Records a path edge unless it has already been found.
+     * @param v the source node of the path edge
+     * @param w the formal-out node of the path edge
+     */
+    private void propagate(int v, int w) {
+        long pair = getPair(v, w);
+        if (pathEdges.add(pair)) {
+            add(pathTargets, v, w);
+            worklist.add(pair);
+        }
+    }
+    
+    /**
+     * Adds a summary edge between an actual-in node and an actual-out node unless they have already been connected.
+     * The path edges starting at the actual-out node are extended to the actual-in node.
+     * @param x the actual-in node
+     * @param y the actual-out node
+     */
+    private void addSummaryEdge(int x, int y) {
+        if (!summaryPairs.add(getPair(x, y))) {
+            return;
+        }
+        
+        PDGStatement ain = (PDGStatement)graph.getNode(x);
+        PDGStatement aout = (PDGStatement)graph.getNode(y);
+        JavaVariableAccess jv = ain.getDefVariables().get(0);
+        
+        ParameterEdge edge = new ParameterEdge(ain, aout, jv);
+        edge.setSummary();
+        pdgs.get(owners[x]).add(edge);
+        
+        add(summaryPreds, y, x);
+        
+        List<Integer> targets = pathTargets.get(y);
+        if (targets != null) {
+            for (int a : new ArrayList<Integer>(targets)) {
+                propagate(x, a);
+            }
+        }
     }
     
     /**
-     * Backward traverses data dependence edges and nodes of the PDG nodes and collects them.
-     * @param nodes the collections of the traversed nodes
-     * @param node anchor the anchor node
-     * @param ains the collection of actual-in nodes corresponding to the actual-node to be checked
+     * Computes the strongly connected components of the calls between the PDGs with Tarjan's algorithm without recursion.
+     * Tarjan's algorithm finds a component after all the components reachable from it, which gives the bottom-up order.
+     * @return the numbers of the PDGs grouped by their components
      */
-    private static void traverseBackward(Set<PDGStatement> nodes, PDGStatement anchor, Set<PDGStatement> ains) {
-        nodes.add(anchor);
+    private List<List<Integer>> getComponentsInBottomUpOrder() {
+        int count = pdgs.size();
+        List<List<Integer>> callees = new ArrayList<List<Integer>>();
+        for (int p = 0; p < count; p++) {
+            callees.add(new ArrayList<Integer>());
+        }
+        for (int e = 0; e < graph.getEdgeCount(); e++) {
+            Dependence edge = graph.getEdge(e);
+            int src = owners[graph.getIndex(edge.getSrcNode())];
+            int dst = owners[graph.getIndex(edge.getDstNode())];
+            if (graph.getEdgeSort(e) == GraphEdgeSort.parameterIn) {
+                callees.get(src).add(dst);
+            } else if (graph.getEdgeSort(e) == GraphEdgeSort.parameterOut) {
+                callees.get(dst).add(src);
+            }
+        }
         
-        for (DD edge : anchor.getIncomingDDEdges()) {
-            PDGStatement node = (PDGStatement)edge.getSrcNode();
+        List<List<Integer>> comps = new ArrayList<List<Integer>>();
+        int[] orders = new int[count];
+        int[] lowlinks = new int[count];
+        boolean[] onStack = new boolean[count];
+        int[] stack = new int[count];
+        int[] callStack = new int[count];
+        int[] next = new int[count];
+        
+        int order = 1;
+        int top = 0;
+        for (int root = 0; root < count; root++) {
+            if (orders[root] != 0) {
+                continue;
+            }
+            
+            int depth = 0;
+            callStack[depth] = root;
+            orders[root] = lowlinks[root] = order++;
+            stack[top++] = root;
+            onStack[root] = true;
             
-            if (ains.contains(node)) {
-                nodes.add(node);
-            } else if (!nodes.contains(node)) {
-                traverseBackward(nodes, node, ains);
+            while (depth >= 0) {
+                int v = callStack[depth];
+                if (next[v] < callees.get(v).size()) {
+                    int w = callees.get(v).get(next[v]++);
+                    if (orders[w] == 0) {
+                        orders[w] = lowlinks[w] = order++;
+                        stack[top++] = w;
+                        onStack[w] = true;
+                        callStack[++depth] = w;
+                    } else if (onStack[w] && orders[w] < lowlinks[v]) {
+                        lowlinks[v] = orders[w];
+                    }
+                } else {
+                    if (lowlinks[v] == orders[v]) {
+                        List<Integer> comp = new ArrayList<Integer>();
+                        int w;
+                        do {
+                            w = stack[--top];
+                            onStack[w] = false;
+                            comp.add(w);
+                        } while (w != v);
+                        comps.add(comp);
+                    }
+                    depth--;
+                    if (depth >= 0) {
+                        int u = callStack[depth];
+                        if (lowlinks[v] < lowlinks[u]) {
+                            lowlinks[u] = lowlinks[v];
+                        }
+                    }
+                }
+            }
+        }
+        return comps;
+    }
+    
+    /**
+     * Returns the call node to which an actual node belongs.
+     * @param index the number of the actual node
+     * @return the number of the call node, or <code>-1</code> if the call node is not contained in the SDG
+     */
+    private int getCallNode(int index) {
+        CFGNode cfgnode = graph.getNode(index).getCFGNode();
+        if (cfgnode instanceof CFGParameter) {
+            CFGNode callnode = ((CFGParameter)cfgnode).getBelongNode();
+            if (callnode != null) {
+                return graph.getIndex(callnode.getPDGNode());
             }
         }
+        return -1;
+    }
+    
+    /**
+     * Encodes a pair of node numbers into a single value.
+     * @param v the first number
+     * @param w the second number
+     * @return the encoded value
+     */
+    private long getPair(int v, int w) {
+        return (long)v * size + w;
+    }
+    
+    /**
+     * Adds a number to the list of numbers related to a given number.
+     * @param map the map storing the related numbers
+     * @param key the given number
+     * @param value the number to be added
+     */
+    private void add(Map<Integer, List<Integer>> map, int key, int value) {
+        List<Integer> values = map.get(key);
+        if (values == null) {
+            values = new ArrayList<Integer>();
+            map.put(key, values);
+        }
+        values.add(value);
     }
 }